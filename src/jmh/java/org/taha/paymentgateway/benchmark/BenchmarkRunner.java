@@ -0,0 +1,73 @@
+package org.taha.paymentgateway.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.taha.paymentgateway.perf.BaselineComparator.Regression;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+/**
+ * JMH benchmark'larını çalıştırıp sonucu baseline ile karşılaştırır.
+ *
+ * mvn -Pbenchmarks test-compile exec:exec ile çalışır; parametreler system property olarak gelir:
+ * - jmh.include: çalıştırılacak benchmark regex'i
+ * - jmh.result: JSON sonucun yazılacağı dosya
+ * - jmh.baseline: karşılaştırılacak JSON baseline (yoksa karşılaştırma atlanır)
+ * - jmh.tolerance: izin verilen kötüleşme yüzdesi
+ * - jmh.update-baseline: true ise sonuç baseline olarak kaydedilir
+ *
+ * Her benchmark GC profiler ile çalışır; throughput'un yanında gc.alloc.rate.norm (byte/op) raporlanır.
+ * Baseline'a göre tolerans dışı kötüleşme varsa süreç 1 ile çıkar.
+ * Baseline aynı makinede üretilmelidir; farklı donanımlar arasındaki sonuçlar karşılaştırılamaz.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws RunnerException, IOException {
+        String include = System.getProperty("jmh.include", "org\\.taha\\.paymentgateway\\..*Benchmark.*");
+        Path result = Path.of(System.getProperty("jmh.result", "target/jmh/result.json"));
+        Path baseline = Path.of(System.getProperty("jmh.baseline", "src/jmh/baselines/baseline.json"));
+        double tolerance = Double.parseDouble(System.getProperty("jmh.tolerance", "10"));
+        boolean updateBaseline = Boolean.getBoolean("jmh.update-baseline");
+
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        Options options = new OptionsBuilder()
+                .include(include)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend("-Dlogback.configurationFile=logback-jmh.xml")
+                .resultFormat(ResultFormatType.JSON)
+                .result(result.toString())
+                .build();
+        new Runner(options).run();
+
+        if (updateBaseline) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline updated: " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + ", skipping comparison (run with -Djmh.update-baseline=true)");
+            return;
+        }
+
+        List<Regression> regressions = new JmhResultComparator(tolerance).compare(baseline, result);
+        if (regressions.isEmpty()) {
+            System.out.printf("No regressions beyond %.0f%% against %s%n", tolerance, baseline);
+            return;
+        }
+        System.out.printf("%d regression(s) beyond %.0f%% against %s:%n", regressions.size(), tolerance, baseline);
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        System.exit(1);
+    }
+}
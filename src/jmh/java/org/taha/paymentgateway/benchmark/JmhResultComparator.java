@@ -0,0 +1,99 @@
+package org.taha.paymentgateway.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.taha.paymentgateway.perf.BaselineComparator;
+import org.taha.paymentgateway.perf.BaselineComparator.Regression;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * İki JMH JSON sonucunu (baseline ve yeni koşu) benchmark + parametre bazında karşılaştırır.
+ *
+ * - Primary metric: thrpt modunda düşüş, diğer modlarda (avgt, sample, ss) artış kötüleşmedir.
+ * - gc.alloc.rate.norm (byte/op): artış kötüleşmedir. Allocation'sız (0 byte) baseline'larda yüzde
+ *   anlamsız olduğu için en az {@link #MIN_ALLOCATION_SLACK_BYTES} byte'lık fark aranır.
+ *
+ * Baseline'da olmayan benchmark'lar yeni kabul edilip atlanır. Eşik kuralı {@link BaselineComparator}'dadır.
+ */
+public class JmhResultComparator {
+
+    static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    /** Bir obje header'ından küçük farklar gürültü sayılır */
+    static final double MIN_ALLOCATION_SLACK_BYTES = 16;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BaselineComparator comparator;
+
+    /**
+     * @param tolerancePercent izin verilen kötüleşme yüzdesi
+     */
+    public JmhResultComparator(double tolerancePercent) {
+        this.comparator = new BaselineComparator(tolerancePercent);
+    }
+
+    public List<Regression> compare(Path baseline, Path current) throws IOException {
+        Map<String, JsonNode> before = index(objectMapper.readTree(baseline.toFile()));
+        Map<String, JsonNode> after = index(objectMapper.readTree(current.toFile()));
+
+        List<Regression> regressions = new ArrayList<>();
+        after.forEach((key, run) -> {
+            JsonNode base = before.get(key);
+            if (base == null) {
+                return;
+            }
+
+            double baseScore = base.path("primaryMetric").path("score").asDouble();
+            double score = run.path("primaryMetric").path("score").asDouble();
+            String unit = run.path("primaryMetric").path("scoreUnit").asText();
+            if ("thrpt".equals(run.path("mode").asText())) {
+                comparator.checkLowerIsWorse(regressions, key, unit, baseScore, score, 0);
+            } else {
+                comparator.checkHigherIsWorse(regressions, key, unit, baseScore, score, 0);
+            }
+
+            OptionalDouble baseAllocation = allocation(base);
+            OptionalDouble allocation = allocation(run);
+            if (baseAllocation.isPresent() && allocation.isPresent()) {
+                comparator.checkHigherIsWorse(regressions, key, "B/op", baseAllocation.getAsDouble(),
+                        allocation.getAsDouble(), MIN_ALLOCATION_SLACK_BYTES);
+            }
+        });
+        return regressions;
+    }
+
+    /** benchmark adı + sıralı parametreler → sonuç */
+    private static Map<String, JsonNode> index(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode run : results) {
+            StringBuilder key = new StringBuilder(run.path("benchmark").asText());
+            JsonNode params = run.path("params");
+            if (params.isObject()) {
+                new TreeMap<>(toMap(params)).forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            }
+            byKey.put(key.toString(), run);
+        }
+        return byKey;
+    }
+
+    private static Map<String, String> toMap(JsonNode params) {
+        Map<String, String> map = new HashMap<>();
+        params.fields().forEachRemaining(field -> map.put(field.getKey(), field.getValue().asText()));
+        return map;
+    }
+
+    /** JMH sürümüne göre metrik adı "·gc.alloc.rate.norm" ya da "gc.alloc.rate.norm" olabilir */
+    private static OptionalDouble allocation(JsonNode run) {
+        Iterator<Map.Entry<String, JsonNode>> metrics = run.path("secondaryMetrics").fields();
+        while (metrics.hasNext()) {
+            Map.Entry<String, JsonNode> metric = metrics.next();
+            if (metric.getKey().endsWith(ALLOCATION_METRIC)) {
+                return OptionalDouble.of(metric.getValue().path("score").asDouble());
+            }
+        }
+        return OptionalDouble.empty();
+    }
+}
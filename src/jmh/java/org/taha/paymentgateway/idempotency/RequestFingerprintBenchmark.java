@@ -0,0 +1,44 @@
+package org.taha.paymentgateway.idempotency;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Idempotency-Key'li her istekte body üzerinden hesaplanan SHA-256 parmak izinin maliyeti.
+ *
+ * Tipik create isteği (~200 byte) ve büyük bir body (~4 KB) ölçülür.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RequestFingerprintBenchmark {
+
+    private static final String SCOPE = "POST /api/v1/payments merchant-123";
+
+    private static final String CREATE_BODY = "{\"amount\":150.00,\"currency\":\"TRY\",\"orderId\":\"order-98765\","
+            + "\"customerEmail\":\"jane.doe@example.com\",\"description\":\"Sepet #98765\"}";
+
+    @Param({"200", "4096"})
+    public int bodySize;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() {
+        StringBuilder text = new StringBuilder(CREATE_BODY);
+        while (text.length() < bodySize) {
+            text.append(' ').append(CREATE_BODY);
+        }
+        body = text.substring(0, bodySize).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] fingerprint() {
+        return RequestFingerprint.of(SCOPE, body);
+    }
+}
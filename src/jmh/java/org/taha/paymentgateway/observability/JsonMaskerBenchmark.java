@@ -0,0 +1,59 @@
+package org.taha.paymentgateway.observability;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ApiLogFilter'ın her istekte request ve response body'sine uyguladığı maskelemenin maliyeti.
+ * {@link #maskRequestRegex} önceki regex maskelemeyi ölçer; GC profiler'ın B/op değerleri ikisini karşılaştırır.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonMaskerBenchmark {
+
+    /** Kart bilgisi ve e-posta içeren authorize isteği */
+    private static final byte[] REQUEST = ("{\"merchantId\":\"merchant-123\",\"orderId\":\"order-98765\","
+            + "\"amount\":\"150.00\",\"currency\":\"TRY\",\"card\":{\"cardNumber\":\"4111111111111111\","
+            + "\"expiryMonth\":\"12\",\"expiryYear\":\"2030\",\"cvv\":\"123\",\"holderName\":\"Jane Doe\"},"
+            + "\"customer\":{\"email\":\"jane.doe@example.com\"},\"installments\":1}").getBytes(StandardCharsets.UTF_8);
+
+    /** Hassas alanı olmayan payment response'u */
+    private static final byte[] RESPONSE = ("{\"id\":\"0190f3a2-7c41-7b2e-9a51-3f6c2d8e4b17\",\"merchantId\":\"merchant-123\","
+            + "\"amount\":150.00,\"currency\":\"TRY\",\"orderId\":\"order-98765\",\"customerEmail\":\"ja***@example.com\","
+            + "\"description\":null,\"status\":\"AUTHORIZED\",\"providerReference\":\"AUTH-1a2b3c\","
+            + "\"createdAt\":\"2024-07-01T10:15:30.123+03:00\",\"updatedAt\":\"2024-07-01T10:15:30.456+03:00\"}")
+            .getBytes(StandardCharsets.UTF_8);
+
+    private JsonMasker masker;
+
+    @Setup
+    public void setUp() {
+        // api-log.mask.fields varsayılanı
+        masker = new JsonMasker(List.of("cardNumber", "cvv", "cardToken", "email"));
+    }
+
+    @Benchmark
+    public String maskRequest() {
+        return masker.mask(REQUEST);
+    }
+
+    @Benchmark
+    public String maskResponse() {
+        return masker.mask(RESPONSE);
+    }
+
+    /** ApiLogFilter'ın önceki davranışı: body -> String, iki replaceAll */
+    @Benchmark
+    public String maskRequestRegex() {
+        String text = new String(REQUEST, StandardCharsets.UTF_8);
+        text = text.replaceAll("\"cardNumber\"\\s*:\\s*\"(\\d{4})\\d{8}(\\d{4})\"", "\"cardNumber\":\"$1********$2\"");
+        return text.replaceAll("\"cvv\"\\s*:\\s*\"\\d{3,4}\"", "\"cvv\":\"***\"");
+    }
+}
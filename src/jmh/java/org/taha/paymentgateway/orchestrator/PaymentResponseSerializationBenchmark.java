@@ -0,0 +1,53 @@
+package org.taha.paymentgateway.orchestrator;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.taha.paymentgateway.api.dto.response.PaymentResponse;
+import org.taha.paymentgateway.config.WebConfig;
+import org.taha.paymentgateway.core.model.PaymentStatus;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orchestrator'ın her başarılı işlemde yaptığı response serialization'ı (HTTP body, idempotency kaydı ve
+ * outbox payload'ı aynı byte'lardır). Uygulamanın kendi ObjectMapper'ı kullanılır.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PaymentResponseSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private PaymentResponse response;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new WebConfig().objectMapper();
+        OffsetDateTime now = OffsetDateTime.now();
+        response = PaymentResponse.builder()
+                .id(UUID.randomUUID())
+                .merchantId("merchant-123")
+                .amount(new BigDecimal("150.00"))
+                .currency("TRY")
+                .orderId("order-98765")
+                .customerEmail("ja***@example.com")
+                .description("Sepet #98765")
+                .status(PaymentStatus.CAPTURED)
+                .providerReference("CAP-1a2b3c")
+                .createdAt(now.minusSeconds(2))
+                .updatedAt(now)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] serializeResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
@@ -0,0 +1,88 @@
+package org.taha.paymentgateway.persistence.support;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Rastgele UUIDv4 ile zaman sıralı UUIDv7 primary key'lerin toplu insert süresi.
+ *
+ * Her ölçüm boş bir tabloya (api_logs benzeri: clustered PK + created_at index'i) {@link #rows} satırı
+ * 1000'lik batch'lerle yazar. Hedef target/jmh altındaki H2 dosyasıdır; random key'lerin index'e dağınık
+ * yazma maliyeti tablo buffer pool'u aştıkça büyür, InnoDB'deki farkı görmek için {@link #rows} artırılmalıdır.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UuidInsertBenchmark {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final String TABLE = "uuid_bench";
+    private static final String PAYLOAD = "x".repeat(200);
+
+    @Param({"RANDOM", "TIME_ORDERED"})
+    public String keys;
+
+    @Param({"200000"})
+    public int rows;
+
+    private Path directory;
+    private DriverManagerDataSource dataSource;
+    private Supplier<UUID> ids;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createDirectories(Path.of("target", "jmh", "uuid-insert-" + keys));
+        dataSource = new DriverManagerDataSource("jdbc:h2:file:" + directory.toAbsolutePath().resolve("bench")
+                + ";MODE=MySQL", "sa", "");
+        ids = "RANDOM".equals(keys) ? UUID::randomUUID : UuidV7::next;
+    }
+
+    @Setup(Level.Iteration)
+    public void createTable() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS " + TABLE);
+        jdbcTemplate.execute("CREATE TABLE " + TABLE + " (id BINARY(16) NOT NULL PRIMARY KEY, "
+                + "created_at TIMESTAMP NOT NULL, payload VARCHAR(200))");
+        jdbcTemplate.execute("CREATE INDEX idx_" + TABLE + "_created_at ON " + TABLE + " (created_at)");
+    }
+
+    @TearDown
+    public void tearDown() {
+        new JdbcTemplate(dataSource).execute("DROP ALL OBJECTS DELETE FILES");
+    }
+
+    @Benchmark
+    public int insert() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO " + TABLE + " (id, created_at, payload) VALUES (?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            for (int i = 1; i <= rows; i++) {
+                insert.setBytes(1, UuidBytes.toBytes(ids.get()));
+                insert.setTimestamp(2, new Timestamp(System.currentTimeMillis()));
+                insert.setString(3, PAYLOAD);
+                insert.addBatch();
+                if (i % BATCH_SIZE == 0 || i == rows) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+        }
+        return rows;
+    }
+}
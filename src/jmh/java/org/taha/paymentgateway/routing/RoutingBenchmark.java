@@ -0,0 +1,162 @@
+package org.taha.paymentgateway.routing;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.persistence.entity.RoutingRuleEntity;
+import org.taha.paymentgateway.persistence.repository.RoutingRuleRepository;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
+import org.taha.paymentgateway.routing.BinLookupService.BinInfo;
+import org.taha.paymentgateway.routing.RoutingEngine.RoutingContext;
+import org.taha.paymentgateway.routing.RoutingEngine.RoutingResult;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Authorize başına routing maliyeti: BIN lookup + kural indeksi + devre kontrolü + metrik.
+ *
+ * Kurallar ve BIN'ler V4 migration'ındaki örnek verilerdir. Repository'ler bellek içidir:
+ * kurallar mock repository'den, BIN'ler in-memory H2'den bir kez okunup indekslenir; ölçülen yol DB'ye gitmez.
+ * Routing'in INFO logları kapalıdır (logback-jmh.xml).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoutingBenchmark {
+
+    private static final List<String> PROVIDERS =
+            List.of("GARANTI_VPOS", "YAPIKREDI_VPOS", "ISBANK_VPOS", "IYZICO", "MOCK_PROVIDER");
+
+    /** 454678: ON-US kuralı (Garanti), 557829: kuralı olmayan banka, TRY varsayılan kuralı */
+    @Param({"454678", "557829"})
+    public String cardBin;
+
+    private RoutingEngine routingEngine;
+    private BinLookupService binLookupService;
+    private RoutingContext context;
+    private Path tableDir;
+
+    @Setup
+    public void setUp() throws IOException {
+        tableDir = Files.createTempDirectory("bin-benchmark");
+        binLookupService = binLookupService(tableDir.resolve("bin-table.bin"));
+
+        RoutingRuleRepository routingRuleRepository = mock(RoutingRuleRepository.class);
+        when(routingRuleRepository.findByIsActiveTrue()).thenReturn(rules());
+        RoutingRuleIndex routingRuleIndex = new RoutingRuleIndex(routingRuleRepository);
+        routingRuleIndex.reload();
+
+        Map<String, PaymentProviderAdapter> providerAdapters = new LinkedHashMap<>();
+        PROVIDERS.forEach(name -> providerAdapters.put(name, mock(PaymentProviderAdapter.class)));
+        ProviderHealthRegistry providerHealthRegistry = new ProviderHealthRegistry(providerAdapters);
+        ReflectionTestUtils.setField(providerHealthRegistry, "windowSeconds", 30);
+        ReflectionTestUtils.setField(providerHealthRegistry, "minimumCalls", 10);
+        ReflectionTestUtils.setField(providerHealthRegistry, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(providerHealthRegistry, "slowCallThresholdMs", 2000L);
+        ReflectionTestUtils.setField(providerHealthRegistry, "slowCallRateThreshold", 80);
+        ReflectionTestUtils.setField(providerHealthRegistry, "openDurationMs", 30_000L);
+        ReflectionTestUtils.setField(providerHealthRegistry, "halfOpenPermittedCalls", 3);
+        providerHealthRegistry.init();
+
+        routingEngine = new RoutingEngine(routingRuleIndex, providerAdapters, binLookupService, providerHealthRegistry,
+                new GatewayMetrics(new SimpleMeterRegistry()));
+        context = RoutingContext.of("merchant-123", "TRY", cardBin);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (var files = Files.list(tableDir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(tableDir);
+    }
+
+    @Benchmark
+    public RoutingResult selectProvider() {
+        return routingEngine.selectProvider(context);
+    }
+
+    @Benchmark
+    public Optional<BinInfo> binLookup() {
+        return binLookupService.lookup(cardBin);
+    }
+
+    private static BinLookupService binLookupService(Path tableFile) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bin-benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("DROP TABLE IF EXISTS bin_database");
+        jdbcTemplate.execute("""
+                CREATE TABLE bin_database (
+                    bin_prefix VARCHAR(6) PRIMARY KEY,
+                    bank_name VARCHAR(64) NOT NULL,
+                    card_brand VARCHAR(32) NOT NULL,
+                    card_type VARCHAR(32) NOT NULL,
+                    country_code CHAR(2) NOT NULL DEFAULT 'TR'
+                )
+                """);
+        jdbcTemplate.execute("""
+                INSERT INTO bin_database (bin_prefix, bank_name, card_brand, card_type) VALUES
+                ('454678', 'Garanti BBVA', 'VISA', 'CREDIT'),
+                ('454679', 'Garanti BBVA', 'VISA', 'CREDIT'),
+                ('489458', 'Garanti BBVA', 'VISA', 'DEBIT'),
+                ('549220', 'Yapı Kredi', 'VISA', 'CREDIT'),
+                ('552659', 'Yapı Kredi', 'MASTERCARD', 'CREDIT'),
+                ('552879', 'İş Bankası', 'MASTERCARD', 'CREDIT'),
+                ('454671', 'İş Bankası', 'VISA', 'CREDIT'),
+                ('557829', 'Akbank', 'MASTERCARD', 'CREDIT'),
+                ('402940', 'Akbank', 'VISA', 'CREDIT'),
+                ('979205', 'Ziraat Bankası', 'TROY', 'CREDIT'),
+                ('979206', 'Ziraat Bankası', 'TROY', 'DEBIT')
+                """);
+
+        BinLookupService service = new BinLookupService(jdbcTemplate);
+        ReflectionTestUtils.setField(service, "tableFile", tableFile);
+        if (service.reload() < 0) {
+            throw new IllegalStateException("BIN table could not be built");
+        }
+        return service;
+    }
+
+    private static List<RoutingRuleEntity> rules() {
+        return List.of(
+                rule(null, "454678", "GARANTI_VPOS", 100, "0.99"),
+                rule(null, "454679", "GARANTI_VPOS", 100, "0.99"),
+                rule(null, "549220", "YAPIKREDI_VPOS", 100, "1.09"),
+                rule(null, "552659", "YAPIKREDI_VPOS", 100, "1.09"),
+                rule(null, "552879", "ISBANK_VPOS", 100, "1.19"),
+                rule(null, "454671", "ISBANK_VPOS", 100, "1.19"),
+                rule("TRY", null, "GARANTI_VPOS", 50, "1.49"),
+                rule("USD", null, "IYZICO", 50, "2.49"),
+                rule("EUR", null, "IYZICO", 50, "2.49"),
+                rule(null, null, "MOCK_PROVIDER", 0, "1.99")
+        );
+    }
+
+    private static RoutingRuleEntity rule(String currency, String binPrefix, String provider, int priority, String commission) {
+        return RoutingRuleEntity.builder()
+                .id(UUID.randomUUID())
+                .currency(currency)
+                .cardBinPrefix(binPrefix)
+                .providerName(provider)
+                .priority(priority)
+                .commissionRate(new BigDecimal(commission))
+                .build();
+    }
+}
@@ -0,0 +1,286 @@
+package org.taha.paymentgateway.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.taha.paymentgateway.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open model yük üreticisi: akışlar sabit aralıklarla başlatılır, sistem yavaşladığında geliş hızı düşmez.
+ *
+ * Her akış kendi thread'inde sırayla çalışır:
+ * - API akışı: create → authorize → capture → (refundRatio ile) kısmi refund, hepsi Idempotency-Key ile.
+ *   retryRatio kadar akışta her adım, ilki cevaplanmadan aynı key ve body ile ikinci kez gönderilir
+ *   ("(retry)" ile ayrı raporlanır).
+ * - 3DS akışı (threeDsRatio): demo order → pay → verify-3ds.
+ *
+ * Coordinated omission: akışın ilk adımı planlanan başlangıç anından ölçülür; dispatcher ya da thread
+ * havuzundaki gecikme de latency'ye yansır. Sonraki adımlar kendi gönderim anlarından ölçülür.
+ * Latency'ler mikrosaniye cinsinden endpoint başına {@link LatencyHistogram}'a yazılır.
+ */
+public class LoadGenerator {
+
+    static final String MERCHANT_ID = "loadtest-merchant";
+    static final String THREE_DS_CARD_NUMBER = "4546789012345678";
+    static final String THREE_DS_CARD_CVV = "123";
+    static final List<String> CARD_BINS = List.of("454678", "549220", "552879", "557829");
+
+    private static final String RETRY_SUFFIX = " (retry)";
+    private static final String VALID_OTP = "111111";
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder flowsStarted = new LongAdder();
+    private final LongAdder flowsCompleted = new LongAdder();
+
+    public LoadGenerator(LoadTestConfig config, String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    /**
+     * Verilen süre boyunca config.rate() hızında akış başlatır, sonra başlatılan akışların bitmesini bekler.
+     */
+    public void run(Duration duration) throws InterruptedException {
+        ExecutorService workers = Executors.newCachedThreadPool(daemonThreads());
+        long intervalNanos = (long) (1_000_000_000L / config.rate());
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = intendedStart - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            flowsStarted.increment();
+            workers.execute(() -> runFlow(intendedStart));
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(config.drainTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+            workers.shutdownNow();
+        }
+    }
+
+    public Map<String, EndpointResult> snapshot() {
+        Map<String, EndpointResult> results = new TreeMap<>();
+        endpoints.forEach((name, stats) -> results.put(name,
+                new EndpointResult(stats.latencyMicros.snapshot(), stats.errors.sum())));
+        return results;
+    }
+
+    public long flowsStarted() {
+        return flowsStarted.sum();
+    }
+
+    public long flowsCompleted() {
+        return flowsCompleted.sum();
+    }
+
+    /** Isınma sonrası ölçümü sıfırlar */
+    public void reset() {
+        endpoints.clear();
+        flowsStarted.reset();
+        flowsCompleted.reset();
+    }
+
+    private void runFlow(long intendedStartNanos) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+            if (random.nextDouble() < config.threeDsRatio()) {
+                threeDsFlow(intendedStartNanos, random);
+            } else {
+                apiFlow(intendedStartNanos, random,
+                        random.nextDouble() < config.retryRatio(),
+                        random.nextDouble() < config.refundRatio());
+            }
+            flowsCompleted.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void apiFlow(long intendedStartNanos, ThreadLocalRandom random, boolean retry, boolean refund)
+            throws InterruptedException {
+        BigDecimal amount = randomAmount(random);
+
+        Map<String, Object> create = new LinkedHashMap<>();
+        create.put("amount", amount);
+        create.put("currency", "TRY");
+        create.put("orderId", "LT-" + UUID.randomUUID());
+        create.put("customerEmail", "loadtest@example.com");
+        create.put("description", "load test");
+        Optional<JsonNode> created = step("POST /v1/payments",
+                apiRequest("/v1/payments", create), intendedStartNanos, retry);
+        if (created.isEmpty()) {
+            return;
+        }
+        String paymentId = created.get().path("id").asText();
+
+        Map<String, Object> authorize = new LinkedHashMap<>();
+        authorize.put("cardToken", "tok_" + UUID.randomUUID());
+        authorize.put("cardBin", CARD_BINS.get(random.nextInt(CARD_BINS.size())));
+        Optional<JsonNode> authorized = step("POST /v1/payments/{id}/authorize",
+                apiRequest("/v1/payments/" + paymentId + "/authorize", authorize), System.nanoTime(), retry);
+        if (authorized.isEmpty() || !"AUTHORIZED".equals(authorized.get().path("status").asText())) {
+            return;
+        }
+
+        Optional<JsonNode> captured = step("POST /v1/payments/{id}/capture",
+                apiRequest("/v1/payments/" + paymentId + "/capture", Map.of()), System.nanoTime(), retry);
+        if (captured.isEmpty() || !refund) {
+            return;
+        }
+
+        Map<String, Object> refundBody = new LinkedHashMap<>();
+        refundBody.put("amount", amount.divide(BigDecimal.valueOf(2), 2, RoundingMode.DOWN));
+        refundBody.put("reason", "load test");
+        step("POST /v1/payments/{id}/refund",
+                apiRequest("/v1/payments/" + paymentId + "/refund", refundBody), System.nanoTime(), retry);
+    }
+
+    private void threeDsFlow(long intendedStartNanos, ThreadLocalRandom random) throws InterruptedException {
+        Map<String, Object> order = new LinkedHashMap<>();
+        order.put("productName", "load test");
+        order.put("amount", randomAmount(random));
+        order.put("email", "loadtest@example.com");
+        Optional<JsonNode> created = step("POST /api/demo/orders",
+                request("/api/demo/orders", order, null), intendedStartNanos, false);
+        if (created.isEmpty()) {
+            return;
+        }
+        String paymentId = created.get().path("paymentId").asText();
+
+        Map<String, Object> card = new LinkedHashMap<>();
+        card.put("cardNumber", THREE_DS_CARD_NUMBER);
+        card.put("cardHolder", "LOAD TEST");
+        card.put("expiryMonth", "12");
+        card.put("expiryYear", "2030");
+        card.put("cvv", THREE_DS_CARD_CVV);
+        Optional<JsonNode> paid = step("POST /api/demo/payments/{id}/pay",
+                request("/api/demo/payments/" + paymentId + "/pay", card, null), System.nanoTime(), false);
+        if (paid.isEmpty() || !"REQUIRES_3DS".equals(paid.get().path("status").asText())) {
+            return;
+        }
+
+        step("POST /api/demo/payments/{id}/verify-3ds",
+                request("/api/demo/payments/" + paymentId + "/verify-3ds", Map.of("otp", VALID_OTP), null),
+                System.nanoTime(), false);
+    }
+
+    /**
+     * İsteği gönderir ve süresini kaydeder; retry ise aynı isteği ilki cevaplanmadan bir kez daha gönderir
+     * (timeout sonrası yeniden deneyen client gibi), böylece ikincisi sunucuda ilkiyle yarışır.
+     * Retry'ın cevabı idempotency gereği ilk cevapla aynı olmalıdır; akış ilk cevapla devam eder.
+     *
+     * @return 2xx ise cevap gövdesi
+     */
+    private Optional<JsonNode> step(String endpoint, HttpRequest request, long startNanos, boolean retry)
+            throws InterruptedException {
+        CompletableFuture<Optional<JsonNode>> response = send(endpoint, request, startNanos);
+        if (retry) {
+            await(send(endpoint + RETRY_SUFFIX, request, System.nanoTime()));
+        }
+        return await(response);
+    }
+
+    /**
+     * Cevap geldiğinde süreyi ve hatayı kaydeder; future hata ile tamamlanmaz.
+     */
+    private CompletableFuture<Optional<JsonNode>> send(String endpoint, HttpRequest request, long startNanos) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, name -> new EndpointStats());
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, failure) -> {
+                    stats.latencyMicros.record((System.nanoTime() - startNanos) / 1_000);
+                    if (failure != null || response.statusCode() / 100 != 2) {
+                        stats.errors.increment();
+                        return Optional.empty();
+                    }
+                    try {
+                        return Optional.of(objectMapper.readTree(response.body()));
+                    } catch (IOException e) {
+                        stats.errors.increment();
+                        return Optional.empty();
+                    }
+                });
+    }
+
+    private static Optional<JsonNode> await(CompletableFuture<Optional<JsonNode>> response) throws InterruptedException {
+        try {
+            return response.get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Response handling failed", e.getCause());
+        }
+    }
+
+    private HttpRequest apiRequest(String path, Map<String, Object> body) {
+        return request(path, body, UUID.randomUUID().toString());
+    }
+
+    private HttpRequest request(String path, Map<String, Object> body, String idempotencyKey) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(body);
+        } catch (IOException e) {
+            throw new IllegalStateException("Request body could not be serialized", e);
+        }
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .header("X-Merchant-Id", MERCHANT_ID)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(json));
+        if (idempotencyKey != null) {
+            builder.header("Idempotency-Key", idempotencyKey);
+        }
+        return builder.build();
+    }
+
+    private static BigDecimal randomAmount(ThreadLocalRandom random) {
+        return BigDecimal.valueOf(random.nextLong(1_000, 50_000), 2);
+    }
+
+    private static ThreadFactory daemonThreads() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "loadtest-flow-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class EndpointStats {
+        final LatencyHistogram latencyMicros = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+    }
+
+    /**
+     * @param latencyMicros hata dahil tüm isteklerin süreleri (µs)
+     * @param errors        2xx dışı cevap ya da bağlantı hatası sayısı
+     */
+    public record EndpointResult(LatencyHistogram.Snapshot latencyMicros, long errors) {
+    }
+}
@@ -0,0 +1,72 @@
+package org.taha.paymentgateway.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Load test parametreleri; hepsi -Dloadtest.* system property'lerinden okunur (pom.xml loadtest profili).
+ *
+ * @param rate               saniyede başlatılan akış sayısı (open model; sistem yavaşlasa da düşmez)
+ * @param duration           ölçüm süresi
+ * @param warmup             ölçüme girmeyen ısınma süresi
+ * @param mockLatencyMs      mock provider'ın her çağrıdaki gecikmesi
+ * @param retryRatio         adımlarını aynı Idempotency-Key ile ikinci kez gönderen akış oranı
+ * @param threeDsRatio       demo 3DS yolundan (order → pay → verify-3ds) giden akış oranı
+ * @param refundRatio        capture sonrası kısmi iade yapan API akışı oranı
+ * @param drainTimeout       yük bittikten sonra outbox ve webhook'ların boşalması için beklenen en uzun süre
+ * @param result             JSON sonucun yazılacağı dosya
+ * @param baseline           karşılaştırılacak JSON baseline (yoksa karşılaştırma atlanır)
+ * @param tolerancePercent   izin verilen kötüleşme yüzdesi
+ * @param updateBaseline     true ise sonuç baseline olarak kaydedilir
+ */
+public record LoadTestConfig(
+        double rate,
+        Duration duration,
+        Duration warmup,
+        long mockLatencyMs,
+        double retryRatio,
+        double threeDsRatio,
+        double refundRatio,
+        Duration drainTimeout,
+        Path result,
+        Path baseline,
+        double tolerancePercent,
+        boolean updateBaseline
+) {
+
+    public static LoadTestConfig fromSystemProperties() {
+        LoadTestConfig config = new LoadTestConfig(
+                Double.parseDouble(System.getProperty("loadtest.rate", "50")),
+                Duration.ofSeconds(Long.getLong("loadtest.duration-seconds", 60)),
+                Duration.ofSeconds(Long.getLong("loadtest.warmup-seconds", 10)),
+                Long.getLong("loadtest.mock-latency-ms", 100),
+                Double.parseDouble(System.getProperty("loadtest.retry-ratio", "0.1")),
+                Double.parseDouble(System.getProperty("loadtest.three-ds-ratio", "0.1")),
+                Double.parseDouble(System.getProperty("loadtest.refund-ratio", "0.3")),
+                Duration.ofSeconds(Long.getLong("loadtest.drain-timeout-seconds", 30)),
+                Path.of(System.getProperty("loadtest.result", "target/loadtest/result.json")),
+                Path.of(System.getProperty("loadtest.baseline", "src/loadtest/baselines/baseline.json")),
+                Double.parseDouble(System.getProperty("loadtest.tolerance", "10")),
+                Boolean.getBoolean("loadtest.update-baseline"));
+        config.validate();
+        return config;
+    }
+
+    private void validate() {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("loadtest.rate must be positive: " + rate);
+        }
+        if (duration.isZero() || duration.isNegative()) {
+            throw new IllegalArgumentException("loadtest.duration-seconds must be positive: " + duration.toSeconds());
+        }
+        checkRatio("loadtest.retry-ratio", retryRatio);
+        checkRatio("loadtest.three-ds-ratio", threeDsRatio);
+        checkRatio("loadtest.refund-ratio", refundRatio);
+    }
+
+    private static void checkRatio(String name, double value) {
+        if (value < 0 || value > 1) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package org.taha.paymentgateway.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.hibernate.stat.Statistics;
+import org.taha.paymentgateway.loadtest.LoadGenerator.EndpointResult;
+import org.taha.paymentgateway.metrics.LatencyHistogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bir load test koşusunun sonucu; JSON olarak yazılır ve baseline karşılaştırmasında okunur.
+ *
+ * - endpoints: endpoint başına istek/hata sayısı ve latency percentile'ları (ms)
+ * - statements: ölçüm penceresinde Hibernate'in hazırladığı statement'lar ve istek başına ortalaması
+ *   (JdbcTemplate ile yazılan api_logs ve BIN tablosu dahil değildir)
+ * - outboxLagMs: event'in oluşması ile işlenmesi arası
+ * - webhookLagMs: event'in oluşması ile webhook'un receiver'a ulaşması arası
+ */
+public final class LoadTestReport {
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private final Map<String, Object> root;
+
+    private LoadTestReport(Map<String, Object> root) {
+        this.root = root;
+    }
+
+    public static LoadTestReport of(LoadTestConfig config, double measuredSeconds, long flowsStarted, long flowsCompleted,
+                                    Map<String, EndpointResult> endpoints, Statistics statistics,
+                                    LatencyHistogram.Snapshot outboxLagMs, LatencyHistogram.Snapshot webhookLagMs) {
+        Map<String, Object> root = new LinkedHashMap<>();
+        root.put("config", config(config));
+        root.put("measuredSeconds", round(measuredSeconds));
+
+        Map<String, Object> flows = new LinkedHashMap<>();
+        flows.put("started", flowsStarted);
+        flows.put("completed", flowsCompleted);
+        root.put("flows", flows);
+
+        long requests = 0;
+        long errors = 0;
+        Map<String, Object> byEndpoint = new LinkedHashMap<>();
+        for (Map.Entry<String, EndpointResult> entry : endpoints.entrySet()) {
+            EndpointResult result = entry.getValue();
+            requests += result.latencyMicros().count();
+            errors += result.errors();
+            Map<String, Object> endpoint = latency(result.latencyMicros(), 1_000);
+            endpoint.put("errors", result.errors());
+            byEndpoint.put(entry.getKey(), endpoint);
+        }
+        root.put("requests", requests);
+        root.put("errors", errors);
+        root.put("throughputRps", round(requests / measuredSeconds));
+        root.put("endpoints", byEndpoint);
+
+        Map<String, Object> statements = new LinkedHashMap<>();
+        statements.put("prepared", statistics.getPrepareStatementCount());
+        statements.put("perRequest", round(requests == 0 ? 0 : (double) statistics.getPrepareStatementCount() / requests));
+        statements.put("entityInserts", statistics.getEntityInsertCount());
+        statements.put("entityUpdates", statistics.getEntityUpdateCount());
+        statements.put("entityLoads", statistics.getEntityLoadCount());
+        statements.put("queries", statistics.getQueryExecutionCount());
+        statements.put("transactions", statistics.getTransactionCount());
+        root.put("statements", statements);
+
+        root.put("outboxLagMs", latency(outboxLagMs, 1));
+        root.put("webhookLagMs", latency(webhookLagMs, 1));
+        return new LoadTestReport(root);
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        OBJECT_MAPPER.writeValue(file.toFile(), root);
+    }
+
+    @SuppressWarnings("unchecked")
+    public void print(PrintStream out) {
+        out.printf(Locale.ROOT, "%nRequests: %s, errors: %s, throughput: %s req/s over %s s%n",
+                root.get("requests"), root.get("errors"), root.get("throughputRps"), root.get("measuredSeconds"));
+        out.printf(Locale.ROOT, "%-45s %8s %6s %9s %9s %9s %9s %9s%n",
+                "endpoint", "count", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        ((Map<String, Map<String, Object>>) root.get("endpoints")).forEach((name, endpoint) -> printRow(out, name, endpoint));
+        printRow(out, "outbox lag", (Map<String, Object>) root.get("outboxLagMs"));
+        printRow(out, "webhook lag", (Map<String, Object>) root.get("webhookLagMs"));
+        Map<String, Object> statements = (Map<String, Object>) root.get("statements");
+        out.printf(Locale.ROOT, "Statements: %s prepared (%s per request), %s inserts, %s updates, %s loads, %s queries%n",
+                statements.get("prepared"), statements.get("perRequest"), statements.get("entityInserts"),
+                statements.get("entityUpdates"), statements.get("entityLoads"), statements.get("queries"));
+    }
+
+    private static void printRow(PrintStream out, String name, Map<String, Object> row) {
+        out.printf(Locale.ROOT, "%-45s %8s %6s %9s %9s %9s %9s %9s%n", name, row.get("count"), row.getOrDefault("errors", "-"),
+                row.get("p50Ms"), row.get("p90Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"));
+    }
+
+    private static Map<String, Object> config(LoadTestConfig config) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("rate", config.rate());
+        map.put("durationSeconds", config.duration().toSeconds());
+        map.put("warmupSeconds", config.warmup().toSeconds());
+        map.put("mockLatencyMs", config.mockLatencyMs());
+        map.put("retryRatio", config.retryRatio());
+        map.put("threeDsRatio", config.threeDsRatio());
+        map.put("refundRatio", config.refundRatio());
+        return map;
+    }
+
+    /**
+     * @param unitsPerMs histogram biriminin ms karşılığı (µs için 1000)
+     */
+    private static Map<String, Object> latency(LatencyHistogram.Snapshot snapshot, double unitsPerMs) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", snapshot.count());
+        map.put("p50Ms", round(snapshot.percentile(50) / unitsPerMs));
+        map.put("p90Ms", round(snapshot.percentile(90) / unitsPerMs));
+        map.put("p99Ms", round(snapshot.percentile(99) / unitsPerMs));
+        map.put("p999Ms", round(snapshot.percentile(99.9) / unitsPerMs));
+        map.put("maxMs", round(snapshot.max() / unitsPerMs));
+        map.put("meanMs", round(snapshot.mean() / unitsPerMs));
+        return map;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
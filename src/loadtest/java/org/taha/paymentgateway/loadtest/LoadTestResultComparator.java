@@ -0,0 +1,83 @@
+package org.taha.paymentgateway.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.taha.paymentgateway.perf.BaselineComparator;
+import org.taha.paymentgateway.perf.BaselineComparator.Regression;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Load test sonucunu (JSON) baseline ile karşılaştırır.
+ *
+ * - Endpoint, outbox lag ve webhook lag p99'u: artış kötüleşmedir; ms altı farklar gürültü sayılır.
+ * - İstek başına statement: artış kötüleşmedir (N+1 ya da kaybolan batch'leri yakalar).
+ * - Throughput: düşüş kötüleşmedir; open model'de sistemin geliş hızına yetişemediğini gösterir.
+ * - Hata oranı: baseline'dan {@link #MAX_ERROR_RATE_INCREASE} fazlası kötüleşmedir.
+ *
+ * Koşu parametreleri baseline'dakilerden farklıysa sonuçlar karşılaştırılamaz; {@link #comparable} false döner.
+ * Baseline'da olmayan endpoint'ler yeni kabul edilip atlanır. Eşik kuralı {@link BaselineComparator}'dadır.
+ */
+public class LoadTestResultComparator {
+
+    static final double MIN_LATENCY_SLACK_MS = 1;
+    static final double MIN_STATEMENT_SLACK = 0.1;
+    static final double MAX_ERROR_RATE_INCREASE = 0.01;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BaselineComparator comparator;
+
+    /**
+     * @param tolerancePercent izin verilen kötüleşme yüzdesi
+     */
+    public LoadTestResultComparator(double tolerancePercent) {
+        this.comparator = new BaselineComparator(tolerancePercent);
+    }
+
+    public boolean comparable(Path baseline, Path current) throws IOException {
+        return objectMapper.readTree(baseline.toFile()).path("config")
+                .equals(objectMapper.readTree(current.toFile()).path("config"));
+    }
+
+    public List<Regression> compare(Path baseline, Path current) throws IOException {
+        JsonNode before = objectMapper.readTree(baseline.toFile());
+        JsonNode after = objectMapper.readTree(current.toFile());
+
+        List<Regression> regressions = new ArrayList<>();
+        Iterator<Map.Entry<String, JsonNode>> endpoints = after.path("endpoints").fields();
+        while (endpoints.hasNext()) {
+            Map.Entry<String, JsonNode> endpoint = endpoints.next();
+            JsonNode base = before.path("endpoints").path(endpoint.getKey());
+            if (!base.isMissingNode()) {
+                comparator.checkHigherIsWorse(regressions, endpoint.getKey() + " p99", "ms",
+                        base.path("p99Ms").asDouble(), endpoint.getValue().path("p99Ms").asDouble(), MIN_LATENCY_SLACK_MS);
+            }
+        }
+        for (String lag : List.of("outboxLagMs", "webhookLagMs")) {
+            if (before.path(lag).path("count").asLong() > 0) {
+                comparator.checkHigherIsWorse(regressions, lag + " p99", "ms",
+                        before.path(lag).path("p99Ms").asDouble(), after.path(lag).path("p99Ms").asDouble(), MIN_LATENCY_SLACK_MS);
+            }
+        }
+        comparator.checkHigherIsWorse(regressions, "statements per request", "",
+                before.path("statements").path("perRequest").asDouble(),
+                after.path("statements").path("perRequest").asDouble(), MIN_STATEMENT_SLACK);
+
+        comparator.checkLowerIsWorse(regressions, "throughput", "req/s",
+                before.path("throughputRps").asDouble(), after.path("throughputRps").asDouble(), 0);
+
+        double baseErrorRate = errorRate(before);
+        double errorRate = errorRate(after);
+        if (errorRate > baseErrorRate + MAX_ERROR_RATE_INCREASE) {
+            regressions.add(new Regression("error rate", "%", baseErrorRate * 100, errorRate * 100));
+        }
+        return regressions;
+    }
+
+    private static double errorRate(JsonNode result) {
+        long requests = result.path("requests").asLong();
+        return requests == 0 ? 0 : (double) result.path("errors").asLong() / requests;
+    }
+}
@@ -0,0 +1,256 @@
+package org.taha.paymentgateway.loadtest;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.taha.paymentgateway.PaymentGatewayApplication;
+import org.taha.paymentgateway.metrics.LatencyHistogram;
+import org.taha.paymentgateway.perf.BaselineComparator.Regression;
+import org.taha.paymentgateway.persistence.entity.MerchantConfigEntity;
+import org.taha.paymentgateway.persistence.entity.OutboxEventEntity;
+import org.taha.paymentgateway.persistence.entity.RoutingRuleEntity;
+import org.taha.paymentgateway.persistence.entity.TestCardEntity;
+import org.taha.paymentgateway.persistence.entity.WebhookDeliveryEntity;
+import org.taha.paymentgateway.persistence.repository.MerchantConfigRepository;
+import org.taha.paymentgateway.persistence.repository.OutboxEventRepository;
+import org.taha.paymentgateway.persistence.repository.RoutingRuleRepository;
+import org.taha.paymentgateway.persistence.repository.TestCardRepository;
+import org.taha.paymentgateway.persistence.repository.WebhookDeliveryRepository;
+import org.taha.paymentgateway.persistence.support.UuidV7;
+import org.taha.paymentgateway.routing.BinLookupService;
+import org.taha.paymentgateway.routing.RoutingRuleIndex;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Uygulamayı H2 üzerinde kaldırıp ödeme yaşam döngüsünü uçtan uca yük altında ölçer.
+ *
+ * mvn -Ploadtest test-compile exec:exec ile çalışır; parametreler {@link LoadTestConfig}'te.
+ * Akış:
+ * 1. Webhook receiver ve uygulama (loadtest profili, rastgele port) ayağa kalkar; routing kuralları,
+ *    BIN tablosu, 3DS test kartı ve webhook URL'i receiver olan merchant seed edilir.
+ * 2. Isınma koşusu yapılır, outbox ve webhook kuyrukları boşalınca ölçüm sayaçları sıfırlanır.
+ * 3. Ölçüm koşusu yapılır, ardından kuyrukların boşalması beklenir (statement sayılarına
+ *    outbox/webhook işlemeleri de girer; istek başına maliyet arka plan işini de kapsar).
+ * 4. Sonuç JSON olarak yazılır ve baseline ile karşılaştırılır; tolerans dışı kötüleşmede süreç 1 ile çıkar.
+ *
+ * Baseline aynı makinede ve aynı parametrelerle üretilmelidir.
+ */
+public final class LoadTestRunner {
+
+    private static final long QUIET_POLL_MS = 100;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromSystemProperties();
+        System.out.printf("Load test: %.1f flows/s for %ds (warmup %ds), mock latency %dms%n",
+                config.rate(), config.duration().toSeconds(), config.warmup().toSeconds(), config.mockLatencyMs());
+
+        try (WebhookReceiver receiver = WebhookReceiver.start();
+             ConfigurableApplicationContext context = new SpringApplicationBuilder(PaymentGatewayApplication.class)
+                     .profiles("loadtest")
+                     .run("--provider.mock.latency-ms=" + config.mockLatencyMs())) {
+            seed(context, receiver.url());
+
+            String baseUrl = "http://127.0.0.1:" + context.getEnvironment().getRequiredProperty("local.server.port");
+            LoadGenerator generator = new LoadGenerator(config, baseUrl);
+            Statistics statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            if (!config.warmup().isZero()) {
+                generator.run(config.warmup());
+                awaitQuiet(jdbcTemplate, config);
+            }
+            generator.reset();
+            statistics.clear();
+            receiver.reset();
+
+            OffsetDateTime measurementStart = OffsetDateTime.now();
+            long startNanos = System.nanoTime();
+            generator.run(config.duration());
+            double measuredSeconds = (System.nanoTime() - startNanos) / 1e9;
+            if (!awaitQuiet(jdbcTemplate, config)) {
+                System.out.println("Outbox/webhook backlog did not drain within " + config.drainTimeout().toSeconds()
+                        + "s, lag figures cover only processed events");
+            }
+
+            List<OutboxEventEntity> events = context.getBean(OutboxEventRepository.class).findAll().stream()
+                    .filter(event -> !event.getCreatedAt().isBefore(measurementStart))
+                    .toList();
+            LoadTestReport report = LoadTestReport.of(config, measuredSeconds,
+                    generator.flowsStarted(), generator.flowsCompleted(), generator.snapshot(), statistics,
+                    outboxLag(events),
+                    webhookLag(events, context.getBean(WebhookDeliveryRepository.class).findAll(), receiver.receivedAtMillis()));
+            report.write(config.result());
+            report.print(System.out);
+            System.out.println("Result written to " + config.result());
+        }
+
+        compareWithBaseline(config);
+    }
+
+    private static void compareWithBaseline(LoadTestConfig config) throws IOException {
+        Path result = config.result();
+        Path baseline = config.baseline();
+        if (config.updateBaseline()) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(result, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Baseline updated: " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            System.out.println("No baseline at " + baseline + ", skipping comparison (run with -Dloadtest.update-baseline=true)");
+            return;
+        }
+
+        LoadTestResultComparator comparator = new LoadTestResultComparator(config.tolerancePercent());
+        if (!comparator.comparable(baseline, result)) {
+            System.out.println("Baseline at " + baseline + " was recorded with different parameters, skipping comparison");
+            return;
+        }
+        List<Regression> regressions = comparator.compare(baseline, result);
+        if (regressions.isEmpty()) {
+            System.out.printf("No regressions beyond %.0f%% against %s%n", config.tolerancePercent(), baseline);
+            return;
+        }
+        System.out.printf("%d regression(s) beyond %.0f%% against %s:%n", regressions.size(), config.tolerancePercent(), baseline);
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        System.exit(1);
+    }
+
+    /**
+     * Routing, BIN, 3DS kartı ve webhook hedefi. Şema create-drop ile boş geldiği için her koşuda yeniden kurulur.
+     */
+    private static void seed(ConfigurableApplicationContext context, String webhookUrl) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS bin_database (
+                    bin_prefix VARCHAR(6) PRIMARY KEY,
+                    bank_name VARCHAR(64) NOT NULL,
+                    card_brand VARCHAR(32) NOT NULL,
+                    card_type VARCHAR(32) NOT NULL,
+                    country_code CHAR(2) NOT NULL DEFAULT 'TR'
+                )
+                """);
+        jdbcTemplate.execute("""
+                MERGE INTO bin_database (bin_prefix, bank_name, card_brand, card_type) KEY (bin_prefix) VALUES
+                ('454678', 'Garanti BBVA', 'VISA', 'CREDIT'),
+                ('549220', 'Yapı Kredi', 'VISA', 'CREDIT'),
+                ('552879', 'İş Bankası', 'MASTERCARD', 'CREDIT'),
+                ('557829', 'Akbank', 'MASTERCARD', 'CREDIT')
+                """);
+        if (context.getBean(BinLookupService.class).reload() < 0) {
+            throw new IllegalStateException("BIN table could not be built");
+        }
+
+        // ON-US BIN'ler simüle acquirer'lara (provider.simulated.*), kalanı (Akbank) mock provider'a gider;
+        // mock provider'ın gecikmesi provider.mock.latency-ms ile ayarlanır
+        RoutingRuleRepository routingRuleRepository = context.getBean(RoutingRuleRepository.class);
+        routingRuleRepository.saveAll(List.of(
+                routingRule("454678", "GARANTI_VPOS", 100, "0.99"),
+                routingRule("549220", "YAPIKREDI_VPOS", 100, "1.09"),
+                routingRule("552879", "ISBANK_VPOS", 100, "1.19"),
+                routingRule(null, "MOCK_PROVIDER", 0, "1.99")));
+        context.getBean(RoutingRuleIndex.class).reload();
+
+        context.getBean(MerchantConfigRepository.class).save(MerchantConfigEntity.builder()
+                .id(UuidV7.next())
+                .merchantId(LoadGenerator.MERCHANT_ID)
+                .merchantName("Load Test")
+                .apiKey("loadtest-" + UUID.randomUUID())
+                .webhookUrl(webhookUrl)
+                .webhookSecret("loadtest-secret")
+                .isActive(true)
+                .build());
+
+        context.getBean(TestCardRepository.class).save(TestCardEntity.builder()
+                .cardNumber(LoadGenerator.THREE_DS_CARD_NUMBER)
+                .cardHolder("LOAD TEST")
+                .expiryMonth("12")
+                .expiryYear("2030")
+                .cvv(LoadGenerator.THREE_DS_CARD_CVV)
+                .bankName("Garanti BBVA")
+                .cardBrand("VISA")
+                .binPrefix(LoadGenerator.THREE_DS_CARD_NUMBER.substring(0, 6))
+                .commissionRate(new BigDecimal("1.89"))
+                .shouldFail(false)
+                .build());
+    }
+
+    private static RoutingRuleEntity routingRule(String binPrefix, String provider, int priority, String commission) {
+        return RoutingRuleEntity.builder()
+                .id(UuidV7.next())
+                .cardBinPrefix(binPrefix)
+                .providerName(provider)
+                .priority(priority)
+                .commissionRate(new BigDecimal(commission))
+                .build();
+    }
+
+    /**
+     * İşlenmemiş outbox event'i ve gönderilmemiş webhook kalmayana kadar bekler.
+     *
+     * @return süre dolmadan boşaldıysa true
+     */
+    private static boolean awaitQuiet(JdbcTemplate jdbcTemplate, LoadTestConfig config) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + config.drainTimeout().toMillis();
+        while (System.currentTimeMillis() < deadline) {
+            Integer pendingEvents = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM outbox_events WHERE status = 'NEW'", Integer.class);
+            Integer pendingDeliveries = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM webhook_deliveries WHERE status = 'PENDING'", Integer.class);
+            if (pendingEvents == 0 && pendingDeliveries == 0) {
+                return true;
+            }
+            Thread.sleep(QUIET_POLL_MS);
+        }
+        return false;
+    }
+
+    /** Event'in oluşması ile outbox'ta işlenmesi arası (ms) */
+    private static LatencyHistogram.Snapshot outboxLag(List<OutboxEventEntity> events) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (OutboxEventEntity event : events) {
+            if (event.getProcessedAt() != null) {
+                histogram.record(millis(event.getProcessedAt()) - millis(event.getCreatedAt()));
+            }
+        }
+        return histogram.snapshot();
+    }
+
+    /** Event'in oluşması ile webhook'un receiver'a ilk ulaşması arası (ms) */
+    private static LatencyHistogram.Snapshot webhookLag(List<OutboxEventEntity> events,
+                                                        List<WebhookDeliveryEntity> deliveries,
+                                                        Map<String, Long> receivedAtMillis) {
+        Map<UUID, Long> eventCreatedAt = new HashMap<>();
+        events.forEach(event -> eventCreatedAt.put(event.getId(), millis(event.getCreatedAt())));
+
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (WebhookDeliveryEntity delivery : deliveries) {
+            Long createdAt = eventCreatedAt.get(delivery.getEventId());
+            Long receivedAt = receivedAtMillis.get(delivery.getId().toString());
+            if (createdAt != null && receivedAt != null) {
+                histogram.record(receivedAt - createdAt);
+            }
+        }
+        return histogram.snapshot();
+    }
+
+    private static long millis(OffsetDateTime time) {
+        return time.toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,75 @@
+package org.taha.paymentgateway.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Gateway'in webhook'larını karşılayan yerel HTTP sunucusu.
+ *
+ * Her delivery'nin ilk ulaştığı an X-Webhook-Id (delivery id) ile kaydedilir; retry'lar ilk zamanı değiştirmez.
+ * Cevap hemen 200 döner, receiver ölçülen gecikmeye katkı yapmaz.
+ */
+public class WebhookReceiver implements AutoCloseable {
+
+    static final String PATH = "/webhooks";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    private final Map<String, Long> receivedAtMillis = new ConcurrentHashMap<>();
+
+    private WebhookReceiver(HttpServer server) {
+        this.server = server;
+    }
+
+    public static WebhookReceiver start() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        WebhookReceiver receiver = new WebhookReceiver(server);
+        server.createContext(PATH, receiver::handle);
+        server.setExecutor(receiver.executor);
+        server.start();
+        return receiver;
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + PATH;
+    }
+
+    /** delivery id → ilk ulaşma zamanı (epoch ms) */
+    public Map<String, Long> receivedAtMillis() {
+        return Map.copyOf(receivedAtMillis);
+    }
+
+    public int receivedCount() {
+        return receivedAtMillis.size();
+    }
+
+    public void reset() {
+        receivedAtMillis.clear();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long now = System.currentTimeMillis();
+        try (exchange; InputStream body = exchange.getRequestBody()) {
+            body.readAllBytes();
+            String deliveryId = exchange.getRequestHeaders().getFirst("X-Webhook-Id");
+            if (deliveryId != null) {
+                receivedAtMillis.putIfAbsent(deliveryId, now);
+            }
+            exchange.sendResponseHeaders(200, -1);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -5,8 +5,16 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.taha.paymentgateway.api.dto.response.MetricsSummaryResponse;
+import org.taha.paymentgateway.observability.ApiLogWriter;
 import org.taha.paymentgateway.provider.mock.MockPaymentProviderAdapter;
+import org.taha.paymentgateway.routing.BinLookupService;
+import org.taha.paymentgateway.routing.ProviderHealthRegistry;
+import org.taha.paymentgateway.routing.RoutingRuleIndex;
 import org.taha.paymentgateway.service.MetricsService;
+import org.taha.paymentgateway.webhook.MerchantConfigCache;
+import org.taha.paymentgateway.webhook.MerchantDeliveryScheduler;
+
+import java.util.Map;
 
 /**
  * Admin API Controller.
@@ -21,6 +29,12 @@ public class AdminController {
 
     private final MetricsService metricsService;
     private final MockPaymentProviderAdapter mockProvider;
+    private final RoutingRuleIndex routingRuleIndex;
+    private final BinLookupService binLookupService;
+    private final ProviderHealthRegistry providerHealthRegistry;
+    private final MerchantDeliveryScheduler merchantDeliveryScheduler;
+    private final MerchantConfigCache merchantConfigCache;
+    private final ApiLogWriter apiLogWriter;
 
     /**
      * GET /v1/admin/metrics
@@ -32,6 +46,16 @@ public class AdminController {
         return ResponseEntity.ok(metricsService.getSummary());
     }
 
+    /**
+     * POST /v1/admin/metrics/rebuild
+     * Metrik sayaçlarını DB'den yeniden kurar
+     */
+    @PostMapping("/metrics/rebuild")
+    public ResponseEntity<MetricsSummaryResponse> rebuildMetrics() {
+        log.info("Rebuilding payment metrics from database");
+        return ResponseEntity.ok(metricsService.rebuild());
+    }
+
     /**
      * POST /v1/admin/mock-provider/mode
      * Mock provider modunu değiştirir (demo için)
@@ -58,6 +82,86 @@ public class AdminController {
         return ResponseEntity.ok(mockProvider.getMode().name());
     }
 
+    /**
+     * POST /v1/admin/routing/reload
+     * Routing kurallarını DB'den tekrar okuyup indeksi yeniler
+     */
+    @PostMapping("/routing/reload")
+    public ResponseEntity<String> reloadRoutingRules() {
+        log.info("Reloading routing rule index");
+        int count = routingRuleIndex.reload();
+        if (count < 0) {
+            return ResponseEntity.internalServerError().body("Routing index reload failed, previous rules kept");
+        }
+        return ResponseEntity.ok("Routing index reloaded with " + count + " active rules");
+    }
+
+    /**
+     * POST /v1/admin/bins/reload
+     * BIN tablosunu bin_database ve import dosyasından yeniden kurar
+     */
+    @PostMapping("/bins/reload")
+    public ResponseEntity<String> reloadBinTable() {
+        log.info("Reloading BIN table");
+        int count = binLookupService.reload();
+        if (count < 0) {
+            return ResponseEntity.internalServerError().body("BIN table reload failed, previous table kept");
+        }
+        return ResponseEntity.ok("BIN table reloaded with " + count + " ranges");
+    }
+
+    /**
+     * GET /v1/admin/providers/health
+     * Provider circuit breaker durumları ve kayan pencere istatistikleri
+     */
+    @GetMapping("/providers/health")
+    public ResponseEntity<Map<String, ProviderHealthRegistry.ProviderHealth>> getProviderHealth() {
+        return ResponseEntity.ok(providerHealthRegistry.snapshot());
+    }
+
+    /**
+     * GET /v1/admin/webhooks/merchants
+     * Merchant bazlı webhook kuyruklarının durumu (in-flight, duraklatma, teslim/hata sayıları)
+     */
+    @GetMapping("/webhooks/merchants")
+    public ResponseEntity<Map<String, MerchantDeliveryScheduler.MerchantLaneStatus>> getWebhookLanes() {
+        return ResponseEntity.ok(merchantDeliveryScheduler.snapshot());
+    }
+
+    /**
+     * POST /v1/admin/webhooks/merchants/{merchantId}/resume
+     * Duraklatılmış merchant'ın webhook gönderimini devam ettirir
+     */
+    @PostMapping("/webhooks/merchants/{merchantId}/resume")
+    public ResponseEntity<String> resumeWebhookLane(@PathVariable String merchantId) {
+        log.info("Admin resuming webhook lane - merchantId: {}", merchantId);
+        merchantDeliveryScheduler.resume(merchantId);
+        return ResponseEntity.ok("Webhook lane resumed: " + merchantId);
+    }
+
+    /**
+     * POST /v1/admin/merchants/cache/invalidate
+     * Merchant config cache'ini temizler (merchantId verilmezse tamamı)
+     */
+    @PostMapping("/merchants/cache/invalidate")
+    public ResponseEntity<String> invalidateMerchantConfigCache(@RequestParam(required = false) String merchantId) {
+        if (merchantId == null || merchantId.isBlank()) {
+            merchantConfigCache.invalidateAll();
+            return ResponseEntity.ok("Merchant config cache cleared");
+        }
+        merchantConfigCache.invalidate(merchantId);
+        return ResponseEntity.ok("Merchant config cache invalidated: " + merchantId);
+    }
+
+    /**
+     * GET /v1/admin/api-logs/writer
+     * API log writer kuyruk durumu ve alınan/örneklenen/düşürülen/yazılan sayaçları
+     */
+    @GetMapping("/api-logs/writer")
+    public ResponseEntity<ApiLogWriter.ApiLogWriterStats> getApiLogWriterStats() {
+        return ResponseEntity.ok(apiLogWriter.getStats());
+    }
+
     /**
      * GET /v1/admin/health
      * Basit health check
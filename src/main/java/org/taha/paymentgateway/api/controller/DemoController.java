@@ -11,10 +11,14 @@ import org.taha.paymentgateway.core.exception.PaymentNotFoundException;
 import org.taha.paymentgateway.core.model.AttemptStatus;
 import org.taha.paymentgateway.core.model.OperationType;
 import org.taha.paymentgateway.core.model.PaymentStatus;
+import org.taha.paymentgateway.metrics.LatencyHistogram;
+import org.taha.paymentgateway.metrics.LatencyMetrics;
+import org.taha.paymentgateway.metrics.PaymentMetricsAggregator;
 import org.taha.paymentgateway.observability.ApiLogService;
 import org.taha.paymentgateway.orchestrator.PaymentOrchestrator;
 import org.taha.paymentgateway.persistence.entity.*;
 import org.taha.paymentgateway.persistence.repository.*;
+import org.taha.paymentgateway.persistence.support.UuidV7;
 import org.taha.paymentgateway.threeds.ThreeDsService;
 import org.taha.paymentgateway.threeds.ThreeDsService.ThreeDsVerifyResult;
 
@@ -38,6 +42,8 @@ public class DemoController {
     private final ApiLogRepository apiLogRepository;
     private final ThreeDsService threeDsService;
     private final ApiLogService apiLogService;
+    private final PaymentMetricsAggregator paymentMetrics;
+    private final LatencyMetrics latencyMetrics;
 
     /**
      * Test kartlarını listele.
@@ -71,7 +77,7 @@ public class DemoController {
 
         // Payment oluştur
         PaymentEntity payment = PaymentEntity.builder()
-                .id(UUID.randomUUID())
+                .id(UuidV7.next())
                 .merchantId("DEMO_MERCHANT")
                 .amount(request.amount())
                 .currency("TRY")
@@ -82,6 +88,7 @@ public class DemoController {
                 .build();
 
         payment = paymentRepository.save(payment);
+        paymentMetrics.recordPaymentCreated(payment.getStatus(), payment.getAmount());
         log.info("Demo order created: {}", payment.getId());
 
         return ResponseEntity.ok(new OrderResponse(
@@ -128,6 +135,7 @@ public class DemoController {
         if (card.isShouldFail()) {
             payment.setStatus(PaymentStatus.FAILED);
             paymentRepository.save(payment);
+            paymentMetrics.recordStatusChange(PaymentStatus.CREATED, PaymentStatus.FAILED);
 
             // Attempt kaydet
             saveAttempt(payment.getId(), card.getBankName(), AttemptStatus.FAILURE, card.getFailReason());
@@ -185,13 +193,16 @@ public class DemoController {
             BigDecimal netAmount = payment.getAmount().subtract(commissionAmount);
 
             // Authorize + Capture yap (demo için tek adımda)
+            PaymentStatus previousStatus = payment.getStatus();
             payment.setStatus(PaymentStatus.CAPTURED);
+            payment.setCapturedAmount(payment.getAmount());
             payment.setProviderReference("DEMO-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
             payment.setCommissionRate(commissionRate);
             payment.setCommissionAmount(commissionAmount);
             payment.setNetAmount(netAmount);
             payment.setProviderName(card != null ? card.getBankName() : "MOCK_PROVIDER");
             paymentRepository.save(payment);
+            paymentMetrics.recordStatusChange(previousStatus, PaymentStatus.CAPTURED);
 
             // Attempt kaydet
             String bankName = card != null ? card.getBankName() : "Unknown";
@@ -374,15 +385,8 @@ public class DemoController {
         long serverErrorCount = apiLogRepository.countByResponseStatusGreaterThanEqual(500);
         long errorCount = clientErrorCount + serverErrorCount;
         
-        Double avgLatency = apiLogRepository.getAverageLatency();
-        List<Long> latencies = apiLogRepository.getAllLatenciesSorted();
-        
-        long p50 = 0, p95 = 0, p99 = 0;
-        if (!latencies.isEmpty()) {
-            p50 = latencies.get(latencies.size() / 2);
-            p95 = latencies.get(Math.min((int)(latencies.size() * 0.95), latencies.size() - 1));
-            p99 = latencies.get(Math.min((int)(latencies.size() * 0.99), latencies.size() - 1));
-        }
+        // Percentile'lar log tablosu yerine bu node'un latency histogramından okunur
+        LatencyHistogram.Snapshot latencies = latencyMetrics.apiSnapshot();
         
         double errorRate = totalCount == 0 ? 0 : (errorCount * 100.0) / totalCount;
         
@@ -391,10 +395,11 @@ public class DemoController {
                 successCount,
                 errorCount,
                 errorRate,
-                avgLatency != null ? avgLatency : 0,
-                p50,
-                p95,
-                p99
+                latencies.mean(),
+                latencies.percentile(50),
+                latencies.percentile(95),
+                latencies.percentile(99),
+                latencies.percentile(99.9)
         ));
     }
 
@@ -435,7 +440,7 @@ public class DemoController {
     // Helper method
     private void saveAttempt(UUID paymentId, String provider, AttemptStatus status, String errorCode) {
         PaymentAttemptEntity attempt = PaymentAttemptEntity.builder()
-                .id(UUID.randomUUID())
+                .id(UuidV7.next())
                 .paymentId(paymentId)
                 .provider(provider)
                 .operation(OperationType.AUTHORIZE)
@@ -444,6 +449,7 @@ public class DemoController {
                 .latencyMs(100 + new Random().nextInt(200))
                 .build();
         attemptRepository.save(attempt);
+        paymentMetrics.recordAttempt(provider, attempt.getOperation(), status, attempt.getLatencyMs());
     }
 
     private String maskCardNumber(String cardNumber) {
@@ -489,6 +495,7 @@ public class DemoController {
             double avgLatency,
             long p50Latency,
             long p95Latency,
-            long p99Latency
+            long p99Latency,
+            long p999Latency
     ) {}
 }
@@ -4,6 +4,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.taha.paymentgateway.api.dto.request.AuthorizePaymentRequest;
@@ -12,7 +13,9 @@ import org.taha.paymentgateway.api.dto.request.CreatePaymentRequest;
 import org.taha.paymentgateway.api.dto.request.RefundPaymentRequest;
 import org.taha.paymentgateway.api.dto.response.PaymentAttemptResponse;
 import org.taha.paymentgateway.api.dto.response.PaymentResponse;
+import org.taha.paymentgateway.idempotency.RequestFingerprint;
 import org.taha.paymentgateway.orchestrator.PaymentOrchestrator;
+import org.taha.paymentgateway.orchestrator.PaymentResult;
 import org.taha.paymentgateway.persistence.entity.PaymentAttemptEntity;
 
 import java.util.List;
@@ -23,6 +26,9 @@ import java.util.UUID;
  * 
  * Tüm payment işlemleri bu controller üzerinden yapılır.
  * Merchant kimliği X-Merchant-Id header'ından alınır.
+ *
+ * Ödeme işlemleri orchestrator'ın serialize ettiği response byte'larını aynen döner; idempotency
+ * kaydına yazılan JSON ile HTTP response aynıdır, tekrar serialize edilmez.
  */
 @Slf4j
 @RestController
@@ -40,16 +46,17 @@ public class PaymentController {
      * Yeni ödeme oluşturur (henüz authorize edilmemiş)
      */
     @PostMapping
-    public ResponseEntity<PaymentResponse> createPayment(
+    public ResponseEntity<byte[]> createPayment(
             @RequestHeader(MERCHANT_HEADER) String merchantId,
             @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
+            @RequestAttribute(value = RequestFingerprint.ATTRIBUTE, required = false) byte[] fingerprint,
             @Valid @RequestBody CreatePaymentRequest request
     ) {
         log.info("Create payment request - merchantId: {}, amount: {} {}", 
                 merchantId, request.amount(), request.currency());
         
-        PaymentResponse response = orchestrator.createPayment(merchantId, request, idempotencyKey);
-        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        PaymentResult result = orchestrator.createPayment(merchantId, request, idempotencyKey, fingerprint);
+        return json(HttpStatus.CREATED, result);
     }
 
     /**
@@ -57,16 +64,17 @@ public class PaymentController {
      * Ödemeyi authorize eder (kartı bloke eder)
      */
     @PostMapping("/{paymentId}/authorize")
-    public ResponseEntity<PaymentResponse> authorize(
+    public ResponseEntity<byte[]> authorize(
             @PathVariable UUID paymentId,
             @RequestHeader(MERCHANT_HEADER) String merchantId,
             @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
+            @RequestAttribute(value = RequestFingerprint.ATTRIBUTE, required = false) byte[] fingerprint,
             @Valid @RequestBody AuthorizePaymentRequest request
     ) {
         log.info("Authorize payment request - paymentId: {}, merchantId: {}", paymentId, merchantId);
         
-        PaymentResponse response = orchestrator.authorize(paymentId, merchantId, request, idempotencyKey);
-        return ResponseEntity.ok(response);
+        PaymentResult result = orchestrator.authorize(paymentId, merchantId, request, idempotencyKey, fingerprint);
+        return json(HttpStatus.OK, result);
     }
 
     /**
@@ -74,16 +82,17 @@ public class PaymentController {
      * Authorized ödemeyi capture eder (parayı çeker)
      */
     @PostMapping("/{paymentId}/capture")
-    public ResponseEntity<PaymentResponse> capture(
+    public ResponseEntity<byte[]> capture(
             @PathVariable UUID paymentId,
             @RequestHeader(MERCHANT_HEADER) String merchantId,
             @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
+            @RequestAttribute(value = RequestFingerprint.ATTRIBUTE, required = false) byte[] fingerprint,
             @RequestBody(required = false) @Valid CapturePaymentRequest request
     ) {
         log.info("Capture payment request - paymentId: {}, merchantId: {}", paymentId, merchantId);
         
-        PaymentResponse response = orchestrator.capture(paymentId, merchantId, request, idempotencyKey);
-        return ResponseEntity.ok(response);
+        PaymentResult result = orchestrator.capture(paymentId, merchantId, request, idempotencyKey, fingerprint);
+        return json(HttpStatus.OK, result);
     }
 
     /**
@@ -91,16 +100,17 @@ public class PaymentController {
      * Captured ödemeyi iade eder
      */
     @PostMapping("/{paymentId}/refund")
-    public ResponseEntity<PaymentResponse> refund(
+    public ResponseEntity<byte[]> refund(
             @PathVariable UUID paymentId,
             @RequestHeader(MERCHANT_HEADER) String merchantId,
             @RequestHeader(value = IDEMPOTENCY_HEADER, required = false) String idempotencyKey,
+            @RequestAttribute(value = RequestFingerprint.ATTRIBUTE, required = false) byte[] fingerprint,
             @RequestBody(required = false) @Valid RefundPaymentRequest request
     ) {
         log.info("Refund payment request - paymentId: {}, merchantId: {}", paymentId, merchantId);
         
-        PaymentResponse response = orchestrator.refund(paymentId, merchantId, request, idempotencyKey);
-        return ResponseEntity.ok(response);
+        PaymentResult result = orchestrator.refund(paymentId, merchantId, request, idempotencyKey, fingerprint);
+        return json(HttpStatus.OK, result);
     }
 
     /**
@@ -137,6 +147,10 @@ public class PaymentController {
         return ResponseEntity.ok(response);
     }
 
+    private static ResponseEntity<byte[]> json(HttpStatus status, PaymentResult result) {
+        return ResponseEntity.status(status).contentType(MediaType.APPLICATION_JSON).body(result.json());
+    }
+
     private PaymentAttemptResponse toAttemptResponse(PaymentAttemptEntity entity) {
         return PaymentAttemptResponse.builder()
                 .id(entity.getId())
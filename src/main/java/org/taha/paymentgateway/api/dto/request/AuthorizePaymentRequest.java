@@ -1,6 +1,7 @@
 package org.taha.paymentgateway.api.dto.request;
 
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import lombok.Builder;
 
@@ -10,7 +11,7 @@ public record AuthorizePaymentRequest(
     @Size(max = 128, message = "Card token must not exceed 128 characters")
     String cardToken,
     
-    @Size(min = 6, max = 6, message = "Card BIN must be 6 digits")
+    @Pattern(regexp = "\\d{6,8}", message = "Card BIN must be 6 to 8 digits")
     String cardBin,
     
     /** 3DS tercihini belirtir: "required", "preferred", "disabled" */
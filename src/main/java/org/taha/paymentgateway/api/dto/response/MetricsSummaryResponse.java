@@ -24,7 +24,12 @@ public record MetricsSummaryResponse(
     
     // Latency
     double avgLatencyMs,
-    long maxLatencyMs
+    long maxLatencyMs,
+
+    // Latency dağılımı (histogram, node başına, başlangıçtan bu yana)
+    LatencyPercentiles providerLatency,
+    LatencyPercentiles apiLatency,
+    Map<String, LatencyPercentiles> endpointLatency
 ) {
     @Builder
     public record ProviderMetrics(
@@ -33,6 +38,20 @@ public record MetricsSummaryResponse(
         long failureCount,
         long timeoutCount,
         double successRate,
-        double avgLatencyMs
+        double avgLatencyMs,
+        Map<String, Long> attemptsByOperation,
+        LatencyPercentiles latency,
+        Map<String, LatencyPercentiles> latencyByOperation
+    ) {}
+
+    @Builder
+    public record LatencyPercentiles(
+        long count,
+        double meanMs,
+        long p50Ms,
+        long p95Ms,
+        long p99Ms,
+        long p999Ms,
+        long maxMs
     ) {}
 }
@@ -2,6 +2,7 @@ package org.taha.paymentgateway.api.exception;
 
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -59,6 +60,53 @@ public class GlobalExceptionHandler {
                 .body(buildErrorResponse(ex.getErrorCode(), ex.getMessage()));
     }
 
+    /**
+     * Aynı idempotency key ile istek hâlâ işleniyor - 409 Conflict, client tekrar denemeli
+     */
+    @ExceptionHandler(IdempotencyInProgressException.class)
+    public ResponseEntity<ApiErrorResponse> handleIdempotencyInProgress(IdempotencyInProgressException ex) {
+        log.warn("Idempotency key in progress: {}", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildErrorResponse(ex.getErrorCode(), ex.getMessage()));
+    }
+
+    /**
+     * Provider çağrı kapasitesi dolu - 503 Service Unavailable, tekrar denenebilir
+     */
+    @ExceptionHandler(ProviderBusyException.class)
+    public ResponseEntity<ApiErrorResponse> handleProviderBusy(ProviderBusyException ex) {
+        log.warn("Provider busy: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(buildErrorResponse(ex.getErrorCode(), ex.getMessage()));
+    }
+
+    /**
+     * Provider cevabı beklenirken istek kesildi - 503 Service Unavailable.
+     * Sonuç bilinmez; aynı idempotency key ile tekrar deneme payment sonuçlanınca cevabı alır.
+     */
+    @ExceptionHandler(ProviderCallInterruptedException.class)
+    public ResponseEntity<ApiErrorResponse> handleProviderCallInterrupted(ProviderCallInterruptedException ex) {
+        log.warn("Provider call interrupted: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(buildErrorResponse(ex.getErrorCode(), ex.getMessage()));
+    }
+
+    /**
+     * Eşzamanlı güncelleme - 409 Conflict
+     */
+    @ExceptionHandler(ConcurrentPaymentUpdateException.class)
+    public ResponseEntity<ApiErrorResponse> handleConcurrentUpdate(ConcurrentPaymentUpdateException ex) {
+        log.warn("Concurrent payment update: {}", ex.getMessage());
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(buildErrorResponse(ex.getErrorCode(), ex.getMessage()));
+    }
+
     /**
      * Provider hatası - 502 Bad Gateway
      */
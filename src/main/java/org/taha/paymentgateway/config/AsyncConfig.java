@@ -0,0 +1,17 @@
+package org.taha.paymentgateway.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * {@code @Async} metodları için configuration.
+ * (API log yazımı @Async kullanmaz, kendi writer thread'i vardır: ApiLogWriter.)
+ *
+ * Executor Spring Boot tarafından sağlanır (applicationTaskExecutor):
+ * varsayılan modda platform thread havuzu, {@code vthreads} profilinde
+ * ({@code spring.threads.virtual.enabled=true}) her task için bir virtual thread.
+ */
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+}
@@ -0,0 +1,84 @@
+package org.taha.paymentgateway.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.taha.paymentgateway.observability.ApiLogWriter;
+import org.taha.paymentgateway.retention.RetentionService;
+import org.taha.paymentgateway.retention.RetentionTarget;
+import org.taha.paymentgateway.webhook.MerchantDeliveryScheduler;
+import org.taha.paymentgateway.webhook.MerchantDeliveryScheduler.LaneState;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mevcut bileşenlerin iç sayaçlarını Micrometer'a bağlar.
+ *
+ * Değerler sadece scrape sırasında okunur; bileşenlerin kendi hot path'ine ek yük gelmez.
+ * Hikari, JVM ve HTTP server metrikleri Spring Boot actuator tarafından otomatik kaydedilir.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder apiLogWriterMetrics(ApiLogWriter apiLogWriter) {
+        return registry -> {
+            Gauge.builder("gateway.apilog.buffered", apiLogWriter, writer -> writer.getStats().buffered())
+                    .description("API log records waiting to be written")
+                    .register(registry);
+            Gauge.builder("gateway.apilog.capacity", apiLogWriter, writer -> writer.getStats().capacity())
+                    .register(registry);
+            FunctionCounter.builder("gateway.apilog.records", apiLogWriter, writer -> writer.getStats().written())
+                    .tag("result", "written")
+                    .register(registry);
+            FunctionCounter.builder("gateway.apilog.records", apiLogWriter, writer -> writer.getStats().dropped())
+                    .tag("result", "dropped")
+                    .register(registry);
+            FunctionCounter.builder("gateway.apilog.records", apiLogWriter, writer -> writer.getStats().sampledOut())
+                    .tag("result", "sampled_out")
+                    .register(registry);
+            FunctionCounter.builder("gateway.apilog.records", apiLogWriter, writer -> writer.getStats().writeFailures())
+                    .tag("result", "write_failed")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder webhookSchedulerMetrics(MerchantDeliveryScheduler scheduler) {
+        return registry -> {
+            Gauge.builder("gateway.webhook.in.flight", scheduler,
+                            s -> s.snapshot().values().stream().mapToInt(lane -> lane.inFlight()).sum())
+                    .description("Webhook deliveries currently in flight")
+                    .register(registry);
+            Gauge.builder("gateway.webhook.merchants.paused", scheduler,
+                            s -> s.snapshot().values().stream().filter(lane -> lane.state() == LaneState.PAUSED).count())
+                    .description("Merchants whose webhook deliveries are paused")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder retentionMetrics(RetentionService retentionService) {
+        return registry -> {
+            for (RetentionTarget target : RetentionTarget.values()) {
+                FunctionCounter.builder("gateway.retention.purged.rows", retentionService,
+                                s -> s.getStats(target).purgedRows())
+                        .description("Rows removed by retention")
+                        .tag("table", target.table())
+                        .register(registry);
+                FunctionCounter.builder("gateway.retention.dropped.partitions", retentionService,
+                                s -> s.getStats(target).droppedPartitions())
+                        .tag("table", target.table())
+                        .register(registry);
+                TimeGauge.builder("gateway.retention.lag", retentionService, TimeUnit.MILLISECONDS,
+                                s -> s.getStats(target).lagMs())
+                        .description("Age of the oldest expired row beyond its retention cutoff")
+                        .tag("table", target.table())
+                        .register(registry);
+            }
+        };
+    }
+}
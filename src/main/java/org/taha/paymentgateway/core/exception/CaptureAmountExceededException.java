@@ -0,0 +1,15 @@
+package org.taha.paymentgateway.core.exception;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * İstenen capture tutarı authorize edilen tutarı aşıyorsa fırlatılır.
+ */
+public class CaptureAmountExceededException extends PaymentException {
+
+    public CaptureAmountExceededException(UUID paymentId, BigDecimal requested, BigDecimal authorized) {
+        super("CAPTURE_AMOUNT_EXCEEDED",
+            String.format("Capture of %s exceeds authorized amount %s for payment %s", requested, authorized, paymentId));
+    }
+}
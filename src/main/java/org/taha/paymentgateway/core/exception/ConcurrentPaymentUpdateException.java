@@ -0,0 +1,15 @@
+package org.taha.paymentgateway.core.exception;
+
+import java.util.UUID;
+
+/**
+ * Aynı payment üzerinde eşzamanlı başka bir işlem sürerken fırlatılır
+ * (optimistic version çakışması veya payment'ın başka bir akış tarafından değiştirilmesi).
+ */
+public class ConcurrentPaymentUpdateException extends PaymentException {
+
+    public ConcurrentPaymentUpdateException(UUID paymentId) {
+        super("CONCURRENT_PAYMENT_UPDATE",
+            "Payment " + paymentId + " was modified by another request, please retry");
+    }
+}
@@ -0,0 +1,13 @@
+package org.taha.paymentgateway.core.exception;
+
+/**
+ * Aynı idempotency key ile başlatılan istek hâlâ işlenirken fırlatılır.
+ * Client isteği bir süre sonra aynı key ile tekrar göndermelidir.
+ */
+public class IdempotencyInProgressException extends PaymentException {
+
+    public IdempotencyInProgressException(String key) {
+        super("IDEMPOTENCY_IN_PROGRESS",
+            "A request with this idempotency key is still being processed: " + key);
+    }
+}
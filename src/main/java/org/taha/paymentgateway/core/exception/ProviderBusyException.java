@@ -0,0 +1,12 @@
+package org.taha.paymentgateway.core.exception;
+
+/**
+ * Provider çağrısı gateway'in kendi eşzamanlılık sınırı dolu olduğu için yapılamadığında fırlatılır.
+ * Acquirer'a hiç gidilmediği için ödeme sonucu değildir; client isteği kısa süre sonra tekrar göndermelidir.
+ */
+public class ProviderBusyException extends PaymentException {
+
+    public ProviderBusyException(String providerName) {
+        super("PROVIDER_BUSY", "Provider call capacity is exhausted, retry later: " + providerName);
+    }
+}
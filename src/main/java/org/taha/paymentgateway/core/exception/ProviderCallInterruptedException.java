@@ -0,0 +1,13 @@
+package org.taha.paymentgateway.core.exception;
+
+/**
+ * Provider cevabı beklenirken isteği işleyen thread interrupt edildiğinde (örn. kapanış) fırlatılır.
+ * Çağrı acquirer'a ulaşmış olabilir, sonucu bilinmez; provider arızası değildir ve circuit breaker'a yansımaz.
+ * Payment in-flight durumda kalır ve recovery job tarafından sonuçlandırılır.
+ */
+public class ProviderCallInterruptedException extends PaymentException {
+
+    public ProviderCallInterruptedException(String providerName) {
+        super("PROVIDER_CALL_INTERRUPTED", "Provider call was interrupted before a result arrived: " + providerName);
+    }
+}
@@ -0,0 +1,15 @@
+package org.taha.paymentgateway.core.exception;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * İstenen refund tutarı iade edilebilir bakiyeyi (capture - refund - bekleyen refund'lar) aşıyorsa fırlatılır.
+ */
+public class RefundAmountExceededException extends PaymentException {
+
+    public RefundAmountExceededException(UUID paymentId, BigDecimal requested, BigDecimal refundable) {
+        super("REFUND_AMOUNT_EXCEEDED",
+            String.format("Refund of %s exceeds refundable amount %s for payment %s", requested, refundable, paymentId));
+    }
+}
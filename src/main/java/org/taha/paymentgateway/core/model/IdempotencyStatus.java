@@ -0,0 +1,12 @@
+package org.taha.paymentgateway.core.model;
+
+/**
+ * Idempotency kaydı durumları.
+ */
+public enum IdempotencyStatus {
+    /** Key rezerve edildi, istek işleniyor (response henüz yok) */
+    IN_PROGRESS,
+
+    /** İstek tamamlandı, response kaydedildi */
+    COMPLETED
+}
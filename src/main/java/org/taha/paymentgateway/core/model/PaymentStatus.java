@@ -6,17 +6,34 @@ package org.taha.paymentgateway.core.model;
  * Geçiş akışı:
  * CREATED -> AUTHORIZED -> CAPTURED -> REFUNDED
  *         -> FAILED (herhangi bir adımda hata olursa)
+ *
+ * Provider çağrısı sürerken payment ara (in-flight) durumda tutulur:
+ * CREATED -> AUTHORIZING -> AUTHORIZED / FAILED
+ * AUTHORIZED -> CAPTURING -> CAPTURED
+ * CAPTURED -> REFUNDING -> REFUNDED / PARTIALLY_REFUNDED
+ *
+ * Capture / refund sırasında düğüm düşer ve sonuç bilinemezse payment REQUIRES_REVIEW'a alınır;
+ * geç gelen provider sonucu ya da mutabakat onu çözer.
  */
 public enum PaymentStatus {
     /** Ödeme oluşturuldu, henüz authorize edilmedi */
     CREATED,
     
+    /** Authorize isteği provider'da (in-flight) */
+    AUTHORIZING,
+    
     /** Kart authorize edildi, para bloke edildi */
     AUTHORIZED,
     
+    /** Capture isteği provider'da (in-flight) */
+    CAPTURING,
+    
     /** Para çekildi (capture yapıldı) */
     CAPTURED,
     
+    /** Refund isteği provider'da (in-flight) */
+    REFUNDING,
+    
     /** Tam iade yapıldı */
     REFUNDED,
     
@@ -27,5 +44,15 @@ public enum PaymentStatus {
     FAILED,
     
     /** İşlem iptal edildi (void - authorize sonrası capture öncesi) */
-    CANCELLED
+    CANCELLED,
+
+    /** Capture / refund sonucu provider'da bilinmiyor; bakiyeler değiştirilmeden mutabakat bekliyor */
+    REQUIRES_REVIEW;
+
+    /**
+     * Provider çağrısı sürerken kullanılan ara durum mu?
+     */
+    public boolean isInFlight() {
+        return this == AUTHORIZING || this == CAPTURING || this == REFUNDING;
+    }
 }
\ No newline at end of file
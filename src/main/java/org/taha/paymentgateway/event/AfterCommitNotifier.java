@@ -0,0 +1,97 @@
+package org.taha.paymentgateway.event;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Commit sonrası id'leri bounded bir kuyruğa atıp tek bir drainer thread ile işleten
+ * process-içi bildirim yolu.
+ *
+ * Amaç DB polling'i beklemeden yeni kayıtları milisaniyeler içinde işlemek.
+ * Bildirim best-effort'tur: kuyruk doluysa ya da node düşerse id kaybolur,
+ * kayıt periyodik safety-net polling ile yine işlenir.
+ */
+@Slf4j
+public abstract class AfterCommitNotifier {
+
+    private final BlockingQueue<UUID> queue;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Thread drainer;
+
+    protected AfterCommitNotifier(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Aktif transaction varsa commit sonrasında, yoksa hemen kuyruğa ekler.
+     * Rollback olan transaction'ların id'leri kuyruğa hiç girmez.
+     */
+    public void notifyAfterCommit(UUID id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    offer(id);
+                }
+            });
+        } else {
+            offer(id);
+        }
+    }
+
+    /**
+     * Kuyruk doluyken düşürülen bildirim sayısı (bunlar polling ile işlenir).
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Drainer thread'i başlatır. Her uyanışta kuyrukta biriken id'ler
+     * en fazla batchSize'lık gruplar halinde consumer'a verilir.
+     */
+    public void start(String threadName, int batchSize, Consumer<List<UUID>> consumer) {
+        Thread thread = new Thread(() -> drain(batchSize, consumer), threadName);
+        thread.setDaemon(true);
+        drainer = thread;
+        thread.start();
+    }
+
+    public void stop() {
+        Thread thread = drainer;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void offer(UUID id) {
+        if (!queue.offer(id)) {
+            dropped.incrementAndGet();
+            log.debug("Notification queue full, left to polling - id: {}", id);
+        }
+    }
+
+    private void drain(int batchSize, Consumer<List<UUID>> consumer) {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<UUID> batch = new ArrayList<>(batchSize);
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                consumer.accept(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Notification drainer failed - thread: {}", Thread.currentThread().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.taha.paymentgateway.event;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Yeni outbox event id'lerini commit sonrası OutboxProcessor'a iletir.
+ */
+@Component
+public class OutboxNotifier extends AfterCommitNotifier {
+
+    public OutboxNotifier(@Value("${outbox.notify-queue-capacity:10000}") int capacity) {
+        super(capacity);
+    }
+}
@@ -1,22 +1,40 @@
 package org.taha.paymentgateway.event;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.taha.paymentgateway.core.model.OutboxStatus;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
 import org.taha.paymentgateway.persistence.entity.OutboxEventEntity;
 import org.taha.paymentgateway.persistence.repository.OutboxEventRepository;
 
+import java.net.InetAddress;
 import java.time.OffsetDateTime;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Outbox event processor.
- * 
- * Periyodik olarak outbox tablosunu tarar ve
- * NEW statüsündeki eventleri işler.
+ *
+ * NEW event'leri lease ile sahiplenir ve işler. İki giriş yolu vardır:
+ * - Hızlı yol: {@link OutboxNotifier} commit sonrası event id'lerini iletir, drainer thread hemen işler
+ * - Safety net: periyodik polling, bildirimi kaçan (kuyruk dolu, node crash) event'leri toplar
+ *
+ * İşleme:
+ * - Claim: koşullu UPDATE ile batch halinde lease alınır, birden fazla node aynı event'i işlemez
+ * - Paralel işleme: event'ler aggregate'e göre gruplanır, gruplar worker havuzunda paralel,
+ *   grup içindeki event'ler sırayla işlenir (aggregate başına sıra korunur)
+ * - Başarılı event'ler tek statement ile SENT yapılır
+ * - Başarısız event'ler exponential backoff ile tekrar denenir
+ *
+ * Node düşerse lease süresi dolar ve event'ler başka bir node tarafından alınır.
  */
 @Slf4j
 @Service
@@ -24,60 +42,222 @@ import java.util.List;
 public class OutboxProcessor {
 
     private static final int MAX_RETRIES = 3;
-    
+    private static final int LEASE_OWNER_LENGTH = 64;
+
     private final OutboxEventRepository outboxEventRepository;
     private final List<EventHandler> eventHandlers;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxNotifier outboxNotifier;
+    private final GatewayMetrics gatewayMetrics;
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.worker-threads:4}")
+    private int workerThreads;
+
+    @Value("${outbox.lease-ms:30000}")
+    private long leaseMs;
+
+    @Value("${outbox.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
+    @Value("${outbox.max-backoff-ms:60000}")
+    private long maxBackoffMs;
+
+    @Value("${outbox.node-id:}")
+    private String nodeId;
+
+    private ExecutorService workers;
+
+    @PostConstruct
+    void init() {
+        if (nodeId == null || nodeId.isBlank()) {
+            nodeId = defaultNodeId();
+        }
+        // Token: nodeId + ":" + UUID (37 karakter)
+        if (nodeId.length() > LEASE_OWNER_LENGTH - 37) {
+            nodeId = nodeId.substring(0, LEASE_OWNER_LENGTH - 37);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        outboxNotifier.start("outbox-notify-drainer", batchSize, this::processNotified);
+        log.info("Outbox processor started - nodeId: {}, workers: {}, batchSize: {}", nodeId, workerThreads, batchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        outboxNotifier.stop();
+        workers.shutdown();
+    }
 
     /**
-     * Her 5 saniyede bir outbox'ı tarar.
+     * Safety net: her 30 saniyede bir outbox'ı tarar. Batch dolu geldikçe beklemeden devam eder.
      */
-    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:5000}")
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:30000}")
     public void processOutbox() {
-        List<OutboxEventEntity> pendingEvents = outboxEventRepository
-                .findPendingEvents(OutboxStatus.NEW, MAX_RETRIES);
+        int claimed;
+        do {
+            claimed = processBatch();
+        } while (claimed >= batchSize);
+    }
+
+    /**
+     * Tek bir batch'i claim edip işler.
+     *
+     * @return claim edilen event sayısı
+     */
+    int processBatch() {
+        String leaseToken = newLeaseToken();
+        List<OutboxEventEntity> events = transactionTemplate.execute(tx -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            List<UUID> candidates = outboxEventRepository.findClaimableIds(
+                    OutboxStatus.NEW, MAX_RETRIES, now, PageRequest.of(0, batchSize));
+            return claim(candidates, leaseToken, now);
+        });
+        return processClaimed(events, leaseToken, false);
+    }
+
+    /**
+     * Hızlı yol: commit sonrası bildirilen event'leri polling beklemeden claim edip işler.
+     * Claim koşulları polling ile aynıdır; başka node'un aldığı ya da sırası gelmemiş event'ler atlanır.
+     */
+    void processNotified(List<UUID> eventIds) {
+        String leaseToken = newLeaseToken();
+        List<OutboxEventEntity> events = transactionTemplate.execute(tx -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            List<UUID> candidates = outboxEventRepository.findClaimableIdsAmong(
+                    eventIds, OutboxStatus.NEW, MAX_RETRIES, now);
+            return claim(candidates, leaseToken, now);
+        });
+        processClaimed(events, leaseToken, true);
+    }
 
-        if (pendingEvents.isEmpty()) {
-            return;
+    private int processClaimed(List<OutboxEventEntity> events, String leaseToken, boolean notified) {
+        if (events.isEmpty()) {
+            return 0;
         }
+        gatewayMetrics.recordOutboxBatch(notified, events.size());
 
-        log.debug("Processing {} outbox events", pendingEvents.size());
+        log.debug("Processing {} outbox events - lease: {}", events.size(), leaseToken);
+
+        // Aggregate başına sıralı gruplar (claim sorgusu createdAt sırasıyla döner)
+        Map<UUID, List<OutboxEventEntity>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEventEntity event : events) {
+            byAggregate.computeIfAbsent(event.getAggregateId(), id -> new ArrayList<>()).add(event);
+        }
 
-        for (OutboxEventEntity event : pendingEvents) {
-            processEvent(event);
+        Queue<UUID> processed = new ConcurrentLinkedQueue<>();
+        List<Future<?>> futures = new ArrayList<>(byAggregate.size());
+        for (List<OutboxEventEntity> group : byAggregate.values()) {
+            futures.add(workers.submit(() -> processGroup(group, leaseToken, processed)));
         }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("Outbox worker failed - lease: {}", leaseToken, e.getCause());
+            }
+        }
+
+        // Başarılıları tek seferde SENT yap, işlenmeyenlerin lease'ini bırak
+        transactionTemplate.executeWithoutResult(tx -> {
+            if (!processed.isEmpty()) {
+                outboxEventRepository.markProcessed(List.copyOf(processed), leaseToken, OutboxStatus.SENT, OffsetDateTime.now());
+            }
+            outboxEventRepository.releaseLease(leaseToken);
+        });
+
+        return events.size();
     }
 
-    @Transactional
-    public void processEvent(OutboxEventEntity event) {
-        try {
-            log.info("Processing outbox event - id: {}, type: {}, aggregateId: {}", 
-                    event.getId(), event.getEventType(), event.getAggregateId());
-
-            // İlgili handler'lara gönder
-            for (EventHandler handler : eventHandlers) {
-                if (handler.canHandle(event.getEventType())) {
-                    handler.handle(event);
-                }
+    private List<OutboxEventEntity> claim(List<UUID> candidates, String leaseToken, OffsetDateTime now) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        int claimed = outboxEventRepository.claim(
+                candidates, OutboxStatus.NEW, leaseToken, now.plusNanos(leaseMs * 1_000_000), now);
+        if (claimed == 0) {
+            return List.of();
+        }
+        return outboxEventRepository.findByLeaseOwnerOrderByCreatedAtAsc(leaseToken);
+    }
+
+    private String newLeaseToken() {
+        return nodeId + ":" + UUID.randomUUID();
+    }
+
+    /**
+     * Bir aggregate'in event'lerini sırayla işler. Bir event başarısız olursa
+     * sıranın bozulmaması için gruptaki sonraki event'ler bu turda işlenmez.
+     */
+    private void processGroup(List<OutboxEventEntity> group, String leaseToken, Queue<UUID> processed) {
+        for (OutboxEventEntity event : group) {
+            try {
+                transactionTemplate.executeWithoutResult(tx -> processEvent(event));
+                processed.add(event.getId());
+                gatewayMetrics.recordOutboxEvent(true, lagMs(event));
+            } catch (Exception e) {
+                log.error("Failed to process outbox event - id: {}", event.getId(), e);
+                gatewayMetrics.recordOutboxEvent(false, lagMs(event));
+                markFailed(event, leaseToken);
+                return;
+            }
+        }
+    }
+
+    private void processEvent(OutboxEventEntity event) {
+        log.info("Processing outbox event - id: {}, type: {}, aggregateId: {}",
+                event.getId(), event.getEventType(), event.getAggregateId());
+
+        // İlgili handler'lara gönder
+        for (EventHandler handler : eventHandlers) {
+            if (handler.canHandle(event.getEventType())) {
+                handler.handle(event);
             }
+        }
+    }
+
+    private void markFailed(OutboxEventEntity event, String leaseToken) {
+        int retryCount = event.getRetryCount() + 1;
+        OutboxStatus status = OutboxStatus.NEW;
+        if (retryCount >= MAX_RETRIES) {
+            status = OutboxStatus.FAILED;
+            log.error("Outbox event exhausted retries - id: {}", event.getId());
+        }
+
+        OffsetDateTime nextAttemptAt = OffsetDateTime.now().plusNanos(backoffMs(retryCount) * 1_000_000);
+        OutboxStatus newStatus = status;
+        transactionTemplate.executeWithoutResult(tx ->
+                outboxEventRepository.markFailed(event.getId(), leaseToken, newStatus, nextAttemptAt));
+    }
 
-            // Başarılı - SENT olarak işaretle
-            event.setStatus(OutboxStatus.SENT);
-            event.setProcessedAt(OffsetDateTime.now());
-            outboxEventRepository.save(event);
+    /**
+     * retryBackoffMs * 2^(retryCount-1), maxBackoffMs ile sınırlı.
+     */
+    long backoffMs(int retryCount) {
+        int shift = Math.min(Math.max(retryCount - 1, 0), 30);
+        return Math.min(retryBackoffMs << shift, maxBackoffMs);
+    }
 
-            log.info("Outbox event processed successfully - id: {}", event.getId());
+    private static long lagMs(OutboxEventEntity event) {
+        return event.getCreatedAt() == null ? 0
+                : System.currentTimeMillis() - event.getCreatedAt().toInstant().toEpochMilli();
+    }
 
+    private static String defaultNodeId() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
         } catch (Exception e) {
-            log.error("Failed to process outbox event - id: {}", event.getId(), e);
-            
-            event.setRetryCount(event.getRetryCount() + 1);
-            
-            if (event.getRetryCount() >= MAX_RETRIES) {
-                event.setStatus(OutboxStatus.FAILED);
-                log.error("Outbox event exhausted retries - id: {}", event.getId());
-            }
-            
-            outboxEventRepository.save(event);
+            return "node-" + UUID.randomUUID().toString().substring(0, 8);
         }
     }
 }
@@ -7,16 +7,17 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import org.taha.paymentgateway.core.model.WebhookStatus;
-import org.taha.paymentgateway.persistence.entity.MerchantConfigEntity;
 import org.taha.paymentgateway.persistence.entity.OutboxEventEntity;
 import org.taha.paymentgateway.persistence.entity.WebhookDeliveryEntity;
-import org.taha.paymentgateway.persistence.repository.MerchantConfigRepository;
 import org.taha.paymentgateway.persistence.repository.WebhookDeliveryRepository;
+import org.taha.paymentgateway.persistence.support.UuidV7;
+import org.taha.paymentgateway.webhook.MerchantConfigCache;
+import org.taha.paymentgateway.webhook.MerchantConfigCache.MerchantWebhookConfig;
+import org.taha.paymentgateway.webhook.WebhookNotifier;
 
 import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
 
 /**
  * Payment event'lerini webhook delivery'ye dönüştürür.
@@ -34,8 +35,9 @@ public class WebhookEventHandler implements EventHandler {
             "PaymentFailed"
     );
 
-    private final MerchantConfigRepository merchantConfigRepository;
+    private final MerchantConfigCache merchantConfigCache;
     private final WebhookDeliveryRepository webhookDeliveryRepository;
+    private final WebhookNotifier webhookNotifier;
     private final ObjectMapper objectMapper;
 
     @Override
@@ -48,6 +50,12 @@ public class WebhookEventHandler implements EventHandler {
         log.info("Creating webhook delivery for event - type: {}, aggregateId: {}", 
                 event.getEventType(), event.getAggregateId());
 
+        // Lease süresi dolup event tekrar işlendiyse aynı delivery ikinci kez oluşturulmaz
+        if (webhookDeliveryRepository.existsByEventId(event.getId())) {
+            log.info("Webhook delivery already exists for event - id: {}", event.getId());
+            return;
+        }
+
         // Payload'dan merchantId çıkar
         String merchantId = extractMerchantId(event.getPayload());
         if (merchantId == null) {
@@ -56,30 +64,31 @@ public class WebhookEventHandler implements EventHandler {
         }
 
         // Merchant config'den webhook URL al
-        Optional<MerchantConfigEntity> merchantConfig = merchantConfigRepository.findByMerchantId(merchantId);
-        if (merchantConfig.isEmpty() || merchantConfig.get().getWebhookUrl() == null) {
+        Optional<MerchantWebhookConfig> merchantConfig = merchantConfigCache.get(merchantId);
+        if (merchantConfig.isEmpty() || merchantConfig.get().webhookUrl() == null) {
             log.debug("No webhook URL configured for merchant: {}", merchantId);
             return;
         }
 
-        MerchantConfigEntity config = merchantConfig.get();
+        MerchantWebhookConfig config = merchantConfig.get();
 
         // Webhook payload oluştur
         String webhookPayload = buildWebhookPayload(event);
 
         // Webhook delivery kaydı oluştur
         WebhookDeliveryEntity delivery = WebhookDeliveryEntity.builder()
-                .id(UUID.randomUUID())
+                .id(UuidV7.next())
                 .eventId(event.getId())
                 .merchantId(merchantId)
-                .targetUrl(config.getWebhookUrl())
+                .targetUrl(config.webhookUrl())
                 .payload(webhookPayload)
                 .status(WebhookStatus.PENDING)
                 .createdAt(OffsetDateTime.now())
                 .build();
 
         webhookDeliveryRepository.save(delivery);
-        log.info("Webhook delivery created - id: {}, url: {}", delivery.getId(), config.getWebhookUrl());
+        webhookNotifier.notifyAfterCommit(delivery.getId());
+        log.info("Webhook delivery created - id: {}, url: {}", delivery.getId(), config.webhookUrl());
     }
 
     private String extractMerchantId(String payload) {
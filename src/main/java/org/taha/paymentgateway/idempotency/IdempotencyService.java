@@ -1,45 +1,380 @@
 package org.taha.paymentgateway.idempotency;
 
-import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.taha.paymentgateway.core.exception.IdempotencyConflictException;
+import org.taha.paymentgateway.core.exception.IdempotencyInProgressException;
+import org.taha.paymentgateway.core.model.IdempotencyStatus;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
 import org.taha.paymentgateway.persistence.entity.IdempotencyRecordEntity;
 import org.taha.paymentgateway.persistence.repository.IdempotencyRecordRepository;
+import org.taha.paymentgateway.persistence.support.UuidV7;
 
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.time.OffsetDateTime;
-import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Reservation-first idempotency.
+ *
+ * Key istek başında rezerve edilir, response işlem bitince aynı kayda yazılır:
+ * 1. Son tamamlanan response'lar bellekteki LRU'dan döner (DB'ye gidilmez)
+ * 2. Aynı node'da aynı key ile işlenen bir istek varsa yeni istek onun sonucunu bekler;
+ *    DB'ye ya da provider'a ikinci kez gidilmez
+ * 3. Key DB'de IN_PROGRESS olarak insert edilir (unique key ile atomik claim).
+ *    Key zaten varsa: COMPLETED ise response tekrar oynatılır, IN_PROGRESS ise
+ *    {@link IdempotencyInProgressException} (409) fırlatılır. Sahibi düşmüş (bayat) rezervasyon devralınır.
+ *
+ * Başarısız istekte rezervasyon silinir, aynı key ile tekrar denenebilir.
+ *
+ * İstekler {@link RequestFingerprint} ile karşılaştırılır; response bir kez serialize edilmiş
+ * byte[] olarak saklanır ve tekrar oynatılırken aynen döner.
+ */
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class IdempotencyService {
 
+    private static final int MAX_CLAIM_ATTEMPTS = 3;
+
     private final IdempotencyRecordRepository repository;
+    private final GatewayMetrics gatewayMetrics;
+    /** Mevcut transaction'a katılır */
+    private final TransactionTemplate transactionTemplate;
+    /** Claim ve release, çağıranın transaction'ından bağımsız commit edilir */
+    private final TransactionTemplate requiresNew;
+
+    /** Bu node'da işlenmekte olan key'ler */
+    private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    private final CompletedCache completed = new CompletedCache();
+
+    @Value("${idempotency.wait-timeout-ms:30000}")
+    private long waitTimeoutMs = 30_000;
+
+    @Value("${idempotency.stale-after-ms:120000}")
+    private long staleAfterMs = 120_000;
+
+    @Value("${idempotency.cache.max-entries:10000}")
+    private int cacheMaxEntries = 10_000;
+
+    public IdempotencyService(IdempotencyRecordRepository repository,
+                              PlatformTransactionManager transactionManager,
+                              GatewayMetrics gatewayMetrics) {
+        this.repository = repository;
+        this.gatewayMetrics = gatewayMetrics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
 
     public Optional<IdempotencyRecordEntity> find(String key) {
         return repository.findByIdempotencyKey(key);
     }
 
-    public String hash(String input) {
+    /**
+     * Key'i bu istek için rezerve eder ya da önceki isteğin response'unu döner.
+     *
+     * @param fingerprint {@link RequestFingerprint}
+     * @throws IdempotencyConflictException key farklı bir request ile kullanılmış
+     * @throws IdempotencyInProgressException aynı key ile başka bir istek hâlâ işleniyor
+     */
+    public Reservation reserve(String key, byte[] fingerprint) {
+        for (int attempt = 1; ; attempt++) {
+            CachedResponse cached = completed.get(key);
+            if (cached != null) {
+                return replay(key, fingerprint, cached.fingerprint(), cached.responseBody());
+            }
+
+            InFlight slot = new InFlight(fingerprint);
+            InFlight existing = inFlight.putIfAbsent(key, slot);
+            if (existing == null) {
+                try {
+                    return claim(key, fingerprint, slot);
+                } catch (RuntimeException e) {
+                    // Bekleyenler kendi claim'lerini yapar
+                    inFlight.remove(key, slot);
+                    slot.response.completeExceptionally(e);
+                    throw e;
+                }
+            }
+
+            if (!MessageDigest.isEqual(existing.fingerprint, fingerprint)) {
+                gatewayMetrics.recordIdempotencyConflict();
+                throw new IdempotencyConflictException(key);
+            }
+            Optional<byte[]> response = await(key, existing);
+            if (response.isPresent()) {
+                gatewayMetrics.recordIdempotencyCoalesced();
+                return Reservation.replay(key, response.get());
+            }
+            // İlk istek başarısız oldu ve rezervasyonu bıraktı
+            if (attempt >= MAX_CLAIM_ATTEMPTS) {
+                gatewayMetrics.recordIdempotencyInProgress();
+                throw new IdempotencyInProgressException(key);
+            }
+        }
+    }
+
+    /**
+     * Rezervasyonu response ile tamamlar. Çağıranın transaction'ına katılır; response
+     * commit sonrasında LRU'ya yazılır ve bekleyen isteklere iletilir.
+     *
+     * Transaction rollback olursa rezervasyon IN_PROGRESS olarak geri döner ve bekleyenler beklemeye devam eder:
+     * çağıran ya tekrar dener (complete tekrar çağrılır) ya da exception ile {@link #release} eder.
+     */
+    public void complete(Reservation reservation, byte[] responseBody) {
+        if (reservation == null || reservation.isReplay()) {
+            return;
+        }
+        InFlight slot = reservation.slot;
+
+        transactionTemplate.executeWithoutResult(tx -> {
+            int updated = repository.complete(reservation.key(), reservation.owner,
+                    new String(responseBody, StandardCharsets.UTF_8), IdempotencyStatus.IN_PROGRESS, IdempotencyStatus.COMPLETED, OffsetDateTime.now());
+            if (updated == 0) {
+                log.warn("Idempotency reservation was taken over before completion - key: {}", reservation.key());
+            }
+        });
+
+        if (slot != null) {
+            slot.completing.set(true);
+        }
+        Runnable onCommit = () -> {
+            completed.put(reservation.key(), new CachedResponse(reservation.fingerprint, responseBody));
+            if (slot != null) {
+                inFlight.remove(reservation.key(), slot);
+                slot.response.complete(responseBody);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        onCommit.run();
+                    } else if (slot != null) {
+                        // Tamamlama geri alındı; release() artık rezervasyonu siler. Slot açık kalır ki
+                        // çağıran tekrar denerse (örn. version çakışması) bekleyen istekler boşuna düşmesin.
+                        log.warn("Transaction rolled back after idempotency completion - key: {}", reservation.key());
+                        slot.completing.set(false);
+                    }
+                }
+            });
+        } else {
+            onCommit.run();
+        }
+    }
+
+    /**
+     * İstek başarısız oldu: rezervasyon silinir, bekleyen istekler kendi claim'lerini dener.
+     * complete() çağrılmış ve transaction henüz bitmemişse sonuç transaction'ın bitişinde belirlenir,
+     * burada bir şey yapılmaz; rollback olduysa rezervasyon normal şekilde silinir.
+     */
+    public void release(Reservation reservation) {
+        if (reservation == null || reservation.isReplay()) {
+            return;
+        }
+        if (reservation.slot != null && reservation.slot.completing.get()) {
+            return;
+        }
+        releaseNow(reservation);
+    }
+
+    private void releaseNow(Reservation reservation) {
         try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            return HexFormat.of().formatHex(md.digest(input.getBytes(StandardCharsets.UTF_8)));
+            requiresNew.executeWithoutResult(tx -> repository.deleteReservation(
+                    reservation.key(), reservation.owner, IdempotencyStatus.IN_PROGRESS));
         } catch (Exception e) {
-            throw new IllegalStateException(e);
+            // Rezervasyon bayatlayınca devralınabilir
+            log.error("Failed to release idempotency reservation - key: {}", reservation.key(), e);
+        } finally {
+            freeSlot(reservation);
         }
     }
 
-    public void save(String key, String requestHash, String responseBody) {
-        repository.save(
-                IdempotencyRecordEntity.builder()
-                        .id(UUID.randomUUID())
+    private void freeSlot(Reservation reservation) {
+        InFlight slot = reservation.slot;
+        if (slot != null) {
+            inFlight.remove(reservation.key(), slot);
+            slot.response.completeExceptionally(new IllegalStateException("Idempotency reservation released"));
+        }
+    }
+
+    private Reservation claim(String key, byte[] fingerprint, InFlight slot) {
+        for (int attempt = 1; attempt <= MAX_CLAIM_ATTEMPTS; attempt++) {
+            String owner = UUID.randomUUID().toString();
+            OffsetDateTime now = OffsetDateTime.now();
+            try {
+                requiresNew.executeWithoutResult(tx -> repository.saveAndFlush(IdempotencyRecordEntity.builder()
+                        .id(UuidV7.next())
                         .idempotencyKey(key)
-                        .requestHash(requestHash)
-                        .responseBody(responseBody)
-                        .createdAt(OffsetDateTime.now())
-                        .build()
-        );
+                        .requestHash(fingerprint)
+                        .status(IdempotencyStatus.IN_PROGRESS)
+                        .owner(owner)
+                        .createdAt(now)
+                        .updatedAt(now)
+                        .build()));
+                gatewayMetrics.recordIdempotencyMiss();
+                return new Reservation(key, fingerprint, owner, null, slot);
+            } catch (DataIntegrityViolationException e) {
+                // Key zaten var
+            }
+
+            IdempotencyRecordEntity record = requiresNew.execute(tx -> repository.findByIdempotencyKey(key)).orElse(null);
+            if (record == null) {
+                // Bu arada silindi (önceki istek başarısız oldu), tekrar dene
+                continue;
+            }
+            if (record.getStatus() == IdempotencyStatus.COMPLETED) {
+                byte[] responseBody = record.getResponseBody().getBytes(StandardCharsets.UTF_8);
+                Reservation replay = replay(key, fingerprint, record.getRequestHash(), responseBody);
+                completed.put(key, new CachedResponse(record.getRequestHash(), responseBody));
+                inFlight.remove(key, slot);
+                slot.response.complete(responseBody);
+                return replay;
+            }
+            if (!MessageDigest.isEqual(record.getRequestHash(), fingerprint)) {
+                gatewayMetrics.recordIdempotencyConflict();
+                throw new IdempotencyConflictException(key);
+            }
+
+            // IN_PROGRESS: sahibi düşmüşse devral
+            OffsetDateTime staleBefore = now.minusNanos(staleAfterMs * 1_000_000);
+            Integer takenOver = requiresNew.execute(tx -> repository.takeOver(
+                    key, IdempotencyStatus.IN_PROGRESS, owner, fingerprint, now, staleBefore));
+            if (takenOver != null && takenOver > 0) {
+                log.warn("Took over stale idempotency reservation - key: {}, previous owner: {}", key, record.getOwner());
+                gatewayMetrics.recordIdempotencyMiss();
+                return new Reservation(key, fingerprint, owner, null, slot);
+            }
+            gatewayMetrics.recordIdempotencyInProgress();
+            throw new IdempotencyInProgressException(key);
+        }
+        gatewayMetrics.recordIdempotencyInProgress();
+        throw new IdempotencyInProgressException(key);
+    }
+
+    private Reservation replay(String key, byte[] fingerprint, byte[] storedFingerprint, byte[] responseBody) {
+        if (!MessageDigest.isEqual(storedFingerprint, fingerprint)) {
+            gatewayMetrics.recordIdempotencyConflict();
+            throw new IdempotencyConflictException(key);
+        }
+        gatewayMetrics.recordIdempotencyHit();
+        return Reservation.replay(key, responseBody);
+    }
+
+    /**
+     * Aynı node'daki ilk isteğin sonucunu bekler.
+     *
+     * @return ilk istek başarılıysa response, rezervasyonu bıraktıysa empty
+     */
+    private Optional<byte[]> await(String key, InFlight existing) {
+        try {
+            return Optional.of(existing.response.get(waitTimeoutMs, TimeUnit.MILLISECONDS));
+        } catch (ExecutionException e) {
+            return Optional.empty();
+        } catch (TimeoutException e) {
+            gatewayMetrics.recordIdempotencyInProgress();
+            throw new IdempotencyInProgressException(key);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IdempotencyInProgressException(key);
+        }
+    }
+
+    /**
+     * reserve() sonucu: ya bu istek key'in sahibidir ya da önceki response tekrar oynatılır.
+     */
+    public static final class Reservation {
+        private final String key;
+        private final byte[] fingerprint;
+        private final String owner;
+        private final byte[] replayResponse;
+        private final InFlight slot;
+
+        private Reservation(String key, byte[] fingerprint, String owner, byte[] replayResponse, InFlight slot) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+            this.owner = owner;
+            this.replayResponse = replayResponse;
+            this.slot = slot;
+        }
+
+        public static Reservation replay(String key, byte[] responseBody) {
+            return new Reservation(key, null, null, responseBody, null);
+        }
+
+        public String key() {
+            return key;
+        }
+
+        public boolean isReplay() {
+            return replayResponse != null;
+        }
+
+        /** İlk isteğin serialize edilmiş response'u; paylaşılan dizi, değiştirilmemeli */
+        public byte[] replayResponse() {
+            return replayResponse;
+        }
+    }
+
+    private static final class InFlight {
+        final byte[] fingerprint;
+        final CompletableFuture<byte[]> response = new CompletableFuture<>();
+        /** complete() çağrıldı, sonuç transaction bitişinde belirlenecek */
+        final AtomicBoolean completing = new AtomicBoolean();
+
+        InFlight(byte[] fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    private record CachedResponse(byte[] fingerprint, byte[] responseBody) {}
+
+    /**
+     * Son tamamlanan response'lar için sınırlı LRU. Erişim sırası değiştiği için okuma da lock altındadır.
+     */
+    private final class CompletedCache {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                return size() > cacheMaxEntries;
+            }
+        };
+
+        CachedResponse get(String key) {
+            lock.lock();
+            try {
+                return entries.get(key);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void put(String key, CachedResponse response) {
+            if (cacheMaxEntries <= 0 || response.responseBody() == null) {
+                return;
+            }
+            lock.lock();
+            try {
+                entries.put(key, response);
+            } finally {
+                lock.unlock();
+            }
+        }
     }
-}
\ No newline at end of file
+}
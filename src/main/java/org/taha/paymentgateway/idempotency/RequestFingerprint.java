@@ -0,0 +1,60 @@
+package org.taha.paymentgateway.idempotency;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Idempotency için istek parmak izi: SHA-256(scope + "\n" + body), 32 byte.
+ *
+ * HTTP isteklerinde scope "METHOD URI merchantId", body ise ham request byte'larıdır; parmak izi
+ * {@link RequestFingerprintAdvice} tarafından body okunurken bir kez hesaplanır, DTO tekrar serialize edilmez.
+ * Aynı key'in farklı bir merchant, endpoint ya da payment için kullanılması da farklı parmak izi verir.
+ *
+ * MessageDigest'ler thread'e bağlı olmayan bir havuzda tutulur (virtual thread'lerle de çalışır);
+ * havuz en fazla eşzamanlı hesaplama sayısı kadar büyür.
+ */
+public final class RequestFingerprint {
+
+    public static final String ALGORITHM = "SHA-256";
+    public static final int LENGTH = 32;
+
+    /** Hesaplanan parmak izinin tutulduğu request attribute'u */
+    public static final String ATTRIBUTE = "org.taha.paymentgateway.idempotency.RequestFingerprint";
+
+    private static final Queue<MessageDigest> DIGESTS = new ConcurrentLinkedQueue<>();
+
+    private RequestFingerprint() {
+    }
+
+    public static byte[] of(String scope, byte[] body) {
+        MessageDigest digest = DIGESTS.poll();
+        if (digest == null) {
+            digest = newDigest();
+        }
+        try {
+            digest.update(scope.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            if (body != null) {
+                digest.update(body);
+            }
+            // digest() MessageDigest'i sıfırlar, havuza temiz döner
+            return digest.digest();
+        } catch (RuntimeException e) {
+            digest.reset();
+            throw e;
+        } finally {
+            DIGESTS.offer(digest);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
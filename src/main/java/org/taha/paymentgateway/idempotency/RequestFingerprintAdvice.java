@@ -0,0 +1,92 @@
+package org.taha.paymentgateway.idempotency;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Idempotency-Key header'ı olan isteklerde body okunurken {@link RequestFingerprint}'i hesaplar.
+ *
+ * Body bir kez byte[] olarak okunur; aynı byte'lar hem parmak izine hem Jackson'a verilir.
+ * Sonuç {@link RequestFingerprint#ATTRIBUTE} request attribute'una yazılır, controller
+ * bunu orchestrator'a geçirir.
+ */
+@ControllerAdvice
+public class RequestFingerprintAdvice extends RequestBodyAdviceAdapter {
+
+    public static final String IDEMPOTENCY_HEADER = "Idempotency-Key";
+    public static final String MERCHANT_HEADER = "X-Merchant-Id";
+
+    private static final byte[] EMPTY = new byte[0];
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
+        HttpServletRequest request = idempotentRequest(inputMessage.getHeaders());
+        if (request == null) {
+            return inputMessage;
+        }
+
+        byte[] body;
+        try (InputStream in = inputMessage.getBody()) {
+            body = in.readAllBytes();
+        }
+        request.setAttribute(RequestFingerprint.ATTRIBUTE, RequestFingerprint.of(scope(request), body));
+        return new CachedBodyInputMessage(inputMessage.getHeaders(), body);
+    }
+
+    @Override
+    public Object handleEmptyBody(Object body, HttpInputMessage inputMessage, MethodParameter parameter,
+                                  Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
+        // Body'siz capture / refund: parmak izi sadece endpoint'ten oluşur
+        HttpServletRequest request = idempotentRequest(inputMessage.getHeaders());
+        if (request != null) {
+            request.setAttribute(RequestFingerprint.ATTRIBUTE, RequestFingerprint.of(scope(request), EMPTY));
+        }
+        return body;
+    }
+
+    private static HttpServletRequest idempotentRequest(HttpHeaders headers) {
+        if (headers.getFirst(IDEMPOTENCY_HEADER) == null) {
+            return null;
+        }
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes servlet ? servlet.getRequest() : null;
+    }
+
+    /** Key başka bir merchant ya da endpoint için kullanılırsa parmak izi eşleşmez */
+    static String scope(HttpServletRequest request) {
+        return request.getMethod() + " " + request.getRequestURI() + " " + request.getHeader(MERCHANT_HEADER);
+    }
+
+    private record CachedBodyInputMessage(HttpHeaders headers, byte[] body) implements HttpInputMessage {
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package org.taha.paymentgateway.metrics;
+
+import io.micrometer.core.instrument.*;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.core.model.AttemptStatus;
+import org.taha.paymentgateway.core.model.OperationType;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ödeme hot path'i için Micrometer metrikleri (/actuator/prometheus).
+ *
+ * Meter'lar bir kez oluşturulup saklanır; kayıt sırasında tag listesi ya da anahtar
+ * oluşturulmaz, istek başına ek allocation yoktur. Tag'ler düşük kardinaliteli tutulur:
+ * provider (adapter sayısı kadar), operation, sonuç. Merchant, payment id gibi değerler tag olmaz.
+ */
+@Component
+public class GatewayMetrics {
+
+    /** Routing kararının nereden geldiği */
+    public enum RoutingOutcome { RULE, FALLBACK, FORCED }
+
+    private static final String UNKNOWN = "UNKNOWN";
+    private static final OperationType[] OPERATIONS = OperationType.values();
+    private static final AttemptStatus[] STATUSES = AttemptStatus.values();
+    private static final RoutingOutcome[] OUTCOMES = RoutingOutcome.values();
+
+    private final MeterRegistry registry;
+
+    private final Timer routingTimer;
+    private final DistributionSummary routingMatchedRules;
+    private final Map<String, Counter[]> routingDecisions = new ConcurrentHashMap<>();
+
+    /** provider -> [operation * STATUSES.length + status] */
+    private final Map<String, Timer[]> providerCalls = new ConcurrentHashMap<>();
+
+    private final Counter idempotencyHits;
+    private final Counter idempotencyMisses;
+    private final Counter idempotencyConflicts;
+    private final Counter idempotencyCoalesced;
+    private final Counter idempotencyInProgress;
+
+    private final DistributionSummary outboxPolledBatch;
+    private final DistributionSummary outboxNotifiedBatch;
+    private final Timer outboxLag;
+    private final Counter outboxProcessed;
+    private final Counter outboxFailed;
+
+    private final AtomicLong webhookQueueDepth = new AtomicLong();
+    private final Timer webhookDelivered;
+    private final Timer webhookFailed;
+    private final Counter webhookDeferred;
+
+    public GatewayMetrics(MeterRegistry registry) {
+        this.registry = registry;
+
+        this.routingTimer = Timer.builder("gateway.routing.select")
+                .description("Provider selection time")
+                .register(registry);
+        this.routingMatchedRules = DistributionSummary.builder("gateway.routing.matched.rules")
+                .description("Routing rules matched per selection")
+                .register(registry);
+
+        this.idempotencyHits = idempotencyCounter("hit");
+        this.idempotencyMisses = idempotencyCounter("miss");
+        this.idempotencyConflicts = idempotencyCounter("conflict");
+        this.idempotencyCoalesced = idempotencyCounter("coalesced");
+        this.idempotencyInProgress = idempotencyCounter("in_progress");
+
+        this.outboxPolledBatch = outboxBatch("poll");
+        this.outboxNotifiedBatch = outboxBatch("notify");
+        this.outboxLag = Timer.builder("gateway.outbox.lag")
+                .description("Time from outbox event creation to processing")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.outboxProcessed = outboxResult("processed");
+        this.outboxFailed = outboxResult("failed");
+
+        Gauge.builder("gateway.webhook.queue.depth", webhookQueueDepth, AtomicLong::get)
+                .description("Webhook deliveries due at the last dispatch round")
+                .register(registry);
+        this.webhookDelivered = webhookDelivery("delivered");
+        this.webhookFailed = webhookDelivery("failed");
+        this.webhookDeferred = Counter.builder("gateway.webhook.deferred")
+                .description("Claimed webhooks released due to merchant or host concurrency limits")
+                .register(registry);
+    }
+
+    public void recordRouting(String provider, RoutingOutcome outcome, int matchedRules, long durationNanos) {
+        routingTimer.record(durationNanos, TimeUnit.NANOSECONDS);
+        routingMatchedRules.record(matchedRules);
+        routingDecisions.computeIfAbsent(nameOf(provider), this::newRoutingCounters)[outcome.ordinal()].increment();
+    }
+
+    public void recordProviderCall(String provider, OperationType operation, AttemptStatus status, long latencyMs) {
+        providerCalls.computeIfAbsent(nameOf(provider), this::newProviderTimers)
+                [operation.ordinal() * STATUSES.length + status.ordinal()]
+                .record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordIdempotencyHit() {
+        idempotencyHits.increment();
+    }
+
+    public void recordIdempotencyMiss() {
+        idempotencyMisses.increment();
+    }
+
+    public void recordIdempotencyConflict() {
+        idempotencyConflicts.increment();
+    }
+
+    /** Aynı node'da işlenen isteğin sonucunu bekleyip aldı */
+    public void recordIdempotencyCoalesced() {
+        idempotencyCoalesced.increment();
+    }
+
+    /** Aynı key ile başka bir istek işlenirken geldi (409) */
+    public void recordIdempotencyInProgress() {
+        idempotencyInProgress.increment();
+    }
+
+    /**
+     * @param notified commit sonrası bildirimle mi (true) yoksa polling ile mi (false) claim edildi
+     */
+    public void recordOutboxBatch(boolean notified, int size) {
+        (notified ? outboxNotifiedBatch : outboxPolledBatch).record(size);
+    }
+
+    public void recordOutboxEvent(boolean processed, long lagMs) {
+        outboxLag.record(Math.max(0, lagMs), TimeUnit.MILLISECONDS);
+        (processed ? outboxProcessed : outboxFailed).increment();
+    }
+
+    public void setWebhookQueueDepth(long depth) {
+        webhookQueueDepth.set(depth);
+    }
+
+    public void recordWebhookDelivery(boolean delivered, long latencyNanos) {
+        (delivered ? webhookDelivered : webhookFailed).record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordWebhookDeferred(int count) {
+        webhookDeferred.increment(count);
+    }
+
+    private Counter[] newRoutingCounters(String provider) {
+        Counter[] counters = new Counter[OUTCOMES.length];
+        for (RoutingOutcome outcome : OUTCOMES) {
+            counters[outcome.ordinal()] = Counter.builder("gateway.routing.decisions")
+                    .tag("provider", provider)
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry);
+        }
+        return counters;
+    }
+
+    private Timer[] newProviderTimers(String provider) {
+        Timer[] timers = new Timer[OPERATIONS.length * STATUSES.length];
+        for (OperationType operation : OPERATIONS) {
+            for (AttemptStatus status : STATUSES) {
+                timers[operation.ordinal() * STATUSES.length + status.ordinal()] = Timer.builder("gateway.provider.call")
+                        .description("Provider adapter call latency")
+                        .tag("provider", provider)
+                        .tag("operation", tagValue(operation))
+                        .tag("result", tagValue(status))
+                        .publishPercentileHistogram()
+                        .register(registry);
+            }
+        }
+        return timers;
+    }
+
+    private Counter idempotencyCounter(String result) {
+        return Counter.builder("gateway.idempotency.lookups")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private DistributionSummary outboxBatch(String source) {
+        return DistributionSummary.builder("gateway.outbox.batch.size")
+                .description("Outbox events claimed per batch")
+                .tag("source", source)
+                .register(registry);
+    }
+
+    private Counter outboxResult(String result) {
+        return Counter.builder("gateway.outbox.events")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private Timer webhookDelivery(String result) {
+        return Timer.builder("gateway.webhook.delivery")
+                .description("Webhook HTTP delivery latency")
+                .tag("result", result)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static String nameOf(String provider) {
+        return provider != null ? provider : UNKNOWN;
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
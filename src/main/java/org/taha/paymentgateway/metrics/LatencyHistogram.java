@@ -0,0 +1,143 @@
+package org.taha.paymentgateway.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sabit bellekli, lock-free log-lineer latency histogramı (HdrHistogram benzeri).
+ *
+ * 0-31 arası değerler birebir, üstü her 2'nin kuvveti aralığında 16 eşit alt bucket'a ayrılır;
+ * raporlanan percentile değerlerinin göreli hatası en fazla ~%6'dır.
+ * Toplam 960 bucket ile long'un tüm aralığı kapsanır, bellek kayıt sayısından bağımsızdır.
+ *
+ * Kayıt: tek bir AtomicLongArray artırımı (lock yok). Okuma: bucket'ların kopyası (snapshot).
+ * {@link #intervalSnapshot()} son çağrıdan bu yana kaydedilen değerleri verir.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;         // 16
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;              // 0..31 birebir
+    static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS; // 960
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /** intervalSnapshot için son okunan kümülatif durum */
+    private final AtomicReference<Snapshot> lastInterval = new AtomicReference<>(Snapshot.EMPTY);
+
+    public void record(long value) {
+        long v = Math.max(0, value);
+        counts.incrementAndGet(indexOf(v));
+        sum.add(v);
+        max.accumulate(v);
+    }
+
+    /**
+     * Başlangıçtan bu yana kaydedilen tüm değerler.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    /**
+     * Bir önceki intervalSnapshot çağrısından bu yana kaydedilen değerler.
+     * Max aralığa özel değil, başlangıçtan bu yanaki en yüksek değerdir.
+     */
+    public Snapshot intervalSnapshot() {
+        Snapshot current = snapshot();
+        Snapshot previous = lastInterval.getAndSet(current);
+        return current.minus(previous);
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /** Bucket'a düşen en yüksek değer */
+    static long highestValueAt(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        long subBucket = index % SUB_BUCKETS + SUB_BUCKETS;
+        long upper = ((subBucket + 1) << shift) - 1;
+        return upper < 0 ? Long.MAX_VALUE : upper;
+    }
+
+    /**
+     * Histogramın anlık kopyası.
+     */
+    public static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new long[BUCKET_COUNT], 0, 0, 0);
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        /**
+         * @param percentile 0-100 arası, örn. 99.9
+         * @return değerlerin percentile'ı kadarının eşit ya da altında kaldığı değer
+         */
+        public long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueAt(i), max);
+                }
+            }
+            return max;
+        }
+
+        Snapshot minus(Snapshot previous) {
+            long[] delta = new long[BUCKET_COUNT];
+            long total = 0;
+            for (int i = 0; i < BUCKET_COUNT; i++) {
+                delta[i] = Math.max(0, counts[i] - previous.counts[i]);
+                total += delta[i];
+            }
+            return new Snapshot(delta, total, Math.max(0, sum - previous.sum), max);
+        }
+    }
+}
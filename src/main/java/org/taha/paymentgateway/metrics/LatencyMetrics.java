@@ -0,0 +1,149 @@
+package org.taha.paymentgateway.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.api.dto.response.MetricsSummaryResponse.LatencyPercentiles;
+import org.taha.paymentgateway.core.model.OperationType;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * API endpoint'leri ve provider çağrıları için latency histogramları.
+ *
+ * Her anahtar için bir {@link LatencyHistogram} tutulur; percentile'lar log tablosunu
+ * sıralamadan, sabit bellekle hesaplanır. Değerler node başınadır ve başlangıçtan bu yana geçerlidir.
+ *
+ * Endpoint anahtarı "METHOD /path" şeklindedir; path içindeki id'ler {id} ile değiştirilir.
+ * Farklı anahtar sayısı sınırlıdır, sınır aşılırsa kayıtlar {@value #OTHER} altında toplanır.
+ */
+@Slf4j
+@Component
+public class LatencyMetrics {
+
+    static final String OTHER = "OTHER";
+
+    @Value("${metrics.latency.max-endpoints:200}")
+    private int maxEndpoints = 200;
+
+    private final LatencyHistogram api = new LatencyHistogram();
+    private final Map<String, LatencyHistogram> endpoints = new ConcurrentHashMap<>();
+
+    private final LatencyHistogram providerTotal = new LatencyHistogram();
+    private final Map<String, ProviderHistograms> providers = new ConcurrentHashMap<>();
+
+    public void recordEndpoint(String method, String path, long latencyMs) {
+        api.record(latencyMs);
+        endpointHistogram(method + " " + normalizePath(path)).record(latencyMs);
+    }
+
+    public void recordProvider(String provider, OperationType operation, long latencyMs) {
+        String name = provider != null ? provider : "UNKNOWN";
+        ProviderHistograms histograms = providers.computeIfAbsent(name, key -> new ProviderHistograms());
+        histograms.total.record(latencyMs);
+        histograms.operations.computeIfAbsent(operation, key -> new LatencyHistogram()).record(latencyMs);
+        providerTotal.record(latencyMs);
+    }
+
+    /** Tüm API istekleri */
+    public LatencyHistogram.Snapshot apiSnapshot() {
+        return api.snapshot();
+    }
+
+    public Map<String, LatencyPercentiles> endpointPercentiles() {
+        Map<String, LatencyPercentiles> result = new TreeMap<>();
+        endpoints.forEach((key, histogram) -> result.put(key, percentiles(histogram.snapshot())));
+        return result;
+    }
+
+    /** Tüm provider çağrıları */
+    public LatencyPercentiles providerPercentiles() {
+        return percentiles(providerTotal.snapshot());
+    }
+
+    public LatencyPercentiles providerPercentiles(String provider) {
+        ProviderHistograms histograms = providers.get(provider);
+        return histograms != null ? percentiles(histograms.total.snapshot()) : null;
+    }
+
+    public Map<String, LatencyPercentiles> operationPercentiles(String provider) {
+        Map<String, LatencyPercentiles> result = new TreeMap<>();
+        ProviderHistograms histograms = providers.get(provider);
+        if (histograms != null) {
+            histograms.operations.forEach((operation, histogram) ->
+                    result.put(operation.name(), percentiles(histogram.snapshot())));
+        }
+        return result;
+    }
+
+    public static LatencyPercentiles percentiles(LatencyHistogram.Snapshot snapshot) {
+        return LatencyPercentiles.builder()
+                .count(snapshot.count())
+                .meanMs(Math.round(snapshot.mean() * 100.0) / 100.0)
+                .p50Ms(snapshot.percentile(50))
+                .p95Ms(snapshot.percentile(95))
+                .p99Ms(snapshot.percentile(99))
+                .p999Ms(snapshot.percentile(99.9))
+                .maxMs(snapshot.max())
+                .build();
+    }
+
+    private LatencyHistogram endpointHistogram(String key) {
+        LatencyHistogram histogram = endpoints.get(key);
+        if (histogram != null) {
+            return histogram;
+        }
+        if (endpoints.size() >= maxEndpoints) {
+            return endpoints.computeIfAbsent(OTHER, k -> {
+                log.warn("Endpoint latency histogram limit reached ({}), recording under {}", maxEndpoints, OTHER);
+                return new LatencyHistogram();
+            });
+        }
+        return endpoints.computeIfAbsent(key, k -> new LatencyHistogram());
+    }
+
+    /**
+     * /api/payments/3f2a...-.../capture -> /api/payments/{id}/capture
+     * Rakam içeren ve UUID/hex/numerik görünen segment'ler {id} olur.
+     */
+    static String normalizePath(String path) {
+        if (path == null || path.isEmpty()) {
+            return "/";
+        }
+        StringBuilder result = new StringBuilder(path.length());
+        int start = 0;
+        while (start < path.length()) {
+            int slash = path.indexOf('/', start);
+            int end = slash < 0 ? path.length() : slash;
+            if (end > start) {
+                result.append(isIdentifier(path, start, end) ? "{id}" : path.substring(start, end));
+            }
+            if (slash < 0) {
+                break;
+            }
+            result.append('/');
+            start = slash + 1;
+        }
+        return result.toString();
+    }
+
+    private static boolean isIdentifier(String path, int start, int end) {
+        boolean hasDigit = false;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (Character.isDigit(c)) {
+                hasDigit = true;
+            } else if (c != '-' && !(c >= 'a' && c <= 'f') && !(c >= 'A' && c <= 'F')) {
+                return false;
+            }
+        }
+        return hasDigit;
+    }
+
+    private static final class ProviderHistograms {
+        final LatencyHistogram total = new LatencyHistogram();
+        final Map<OperationType, LatencyHistogram> operations = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,324 @@
+package org.taha.paymentgateway.metrics;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.taha.paymentgateway.api.dto.response.MetricsSummaryResponse;
+import org.taha.paymentgateway.api.dto.response.MetricsSummaryResponse.LatencyPercentiles;
+import org.taha.paymentgateway.api.dto.response.MetricsSummaryResponse.ProviderMetrics;
+import org.taha.paymentgateway.core.model.AttemptStatus;
+import org.taha.paymentgateway.core.model.OperationType;
+import org.taha.paymentgateway.core.model.PaymentStatus;
+import org.taha.paymentgateway.persistence.repository.PaymentAttemptRepository;
+import org.taha.paymentgateway.persistence.repository.PaymentRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Dashboard metrikleri için artımlı (incremental) aggregate'ler.
+ *
+ * Payment ve attempt yazıldıkça (commit sonrası) sayaçlar güncellenir; özet her istekte
+ * tablolardan yeniden hesaplanmaz, maliyeti satır sayısından bağımsızdır.
+ * - Status, provider, operation başına LongAdder sayaçlar (yazma tarafında contention yok)
+ * - Son 24 saat hacmi: 5 dakikalık 288 bucket'lı ring buffer
+ * - Başlangıçta DB'deki GROUP BY sorgularıyla yeniden kurulur
+ * - Latency percentile'ları {@link LatencyMetrics} histogramlarından okunur (rebuild edilmez)
+ *
+ * Sayaçlar node başınadır: başka bir node'un yazdıkları bir sonraki rebuild'e kadar görünmez.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PaymentMetricsAggregator {
+
+    static final long BUCKET_MS = TimeUnit.MINUTES.toMillis(5);
+    static final int BUCKETS = 288; // 24 saat
+
+    /** Hacim, bu kadar ondalık basamakla long olarak tutulur */
+    private static final int VOLUME_SCALE = 4;
+    private static final long ROTATING = Long.MIN_VALUE;
+
+    private static final Set<PaymentStatus> SUCCESSFUL = EnumSet.of(
+            PaymentStatus.CAPTURED, PaymentStatus.REFUNDED, PaymentStatus.PARTIALLY_REFUNDED);
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentAttemptRepository attemptRepository;
+    private final LatencyMetrics latencyMetrics;
+
+    /** rebuild'de yenisiyle bütün olarak değiştirilir; yazanlar ve okuyanlar her seferinde güncelini okur */
+    private volatile Counters counters = new Counters();
+
+    private LongSupplier clock = System::currentTimeMillis;
+
+    /**
+     * Sayaçları DB'den yeniden kurar. Açılışta trafik almadan önce, sonra admin endpoint'inden çalışır.
+     *
+     * Yeni sayaçlar ayrı kurulup tek seferde devreye alınır: rebuild sürerken gelen commit sonrası artışlar
+     * eski sayaçlara yazılmaya devam eder, özet hiçbir anda yarı sıfırlanmış görünmez. Sorgulardan sonra
+     * commit olup eski sayaçlara yazılan artışlar bir sonraki rebuild'e kadar eksik kalır.
+     */
+    @PostConstruct
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Counters fresh = new Counters();
+
+        paymentRepository.countGroupByStatus().forEach(row -> {
+            fresh.statusCounts.get(row.getStatus()).add(row.getCount());
+            fresh.totalPayments.add(row.getCount());
+        });
+
+        attemptRepository.aggregateByProviderOperationStatus().forEach(row -> {
+            long latencySum = row.getLatencySum() != null ? row.getLatencySum() : 0;
+            long latencyMax = row.getLatencyMax() != null ? row.getLatencyMax() : 0;
+            fresh.addAttempts(row.getProvider(), row.getOperation(), row.getStatus(), row.getCount(), latencySum, latencyMax);
+        });
+
+        long currentSlot = clock.getAsLong() / BUCKET_MS;
+        for (PaymentRepository.SlotVolume volume : paymentRepository.sumCreatedBySlotSince(slotStart(currentSlot - BUCKETS + 1))) {
+            long slot = volume.getSlot().longValue();
+            if (slot <= currentSlot && volume.getCount() > 0) {
+                fresh.addVolume(slot, volume.getCount(), toUnits(volume.getVolume()));
+            }
+        }
+
+        counters = fresh;
+        log.info("Payment metrics rebuilt in {}ms - payments: {}, providers: {}",
+                System.currentTimeMillis() - start, fresh.totalPayments.sum(), fresh.providers.size());
+    }
+
+    /**
+     * Yeni payment. Aktif transaction varsa commit sonrasında uygulanır.
+     */
+    public void recordPaymentCreated(PaymentStatus status, BigDecimal amount) {
+        afterCommit(() -> {
+            Counters current = counters;
+            current.statusCounts.get(status).increment();
+            current.totalPayments.increment();
+            current.addVolume(clock.getAsLong() / BUCKET_MS, 1, toUnits(amount));
+        });
+    }
+
+    /**
+     * Payment status geçişi. Aktif transaction varsa commit sonrasında uygulanır.
+     */
+    public void recordStatusChange(PaymentStatus from, PaymentStatus to) {
+        if (from == to) {
+            return;
+        }
+        afterCommit(() -> {
+            Counters current = counters;
+            current.statusCounts.get(from).decrement();
+            current.statusCounts.get(to).increment();
+        });
+    }
+
+    /**
+     * Provider attempt'i. Aktif transaction varsa commit sonrasında uygulanır.
+     */
+    public void recordAttempt(String provider, OperationType operation, AttemptStatus status, long latencyMs) {
+        afterCommit(() -> counters.addAttempts(provider, operation, status, 1, latencyMs, latencyMs));
+    }
+
+    /**
+     * Provider çağrısının ölçülen latency'si, percentile histogramına anında yazılır.
+     * Sadece gerçek çağrılar için kullanılır (recovery ile yazılan attempt'ler latency taşımaz).
+     */
+    public void recordProviderLatency(String provider, OperationType operation, long latencyMs) {
+        latencyMetrics.recordProvider(provider, operation, latencyMs);
+    }
+
+    public MetricsSummaryResponse summary() {
+        Counters current = counters;
+        Map<String, Long> paymentsByStatus = new LinkedHashMap<>();
+        long successful = 0;
+        for (Map.Entry<PaymentStatus, LongAdder> entry : current.statusCounts.entrySet()) {
+            long count = entry.getValue().sum();
+            if (count > 0) {
+                paymentsByStatus.put(entry.getKey().name(), count);
+            }
+            if (SUCCESSFUL.contains(entry.getKey())) {
+                successful += count;
+            }
+        }
+
+        Map<String, ProviderMetrics> providerMetrics = new TreeMap<>();
+        current.providers.forEach((name, provider) -> providerMetrics.put(name, provider.toMetrics(
+                latencyMetrics.providerPercentiles(name), latencyMetrics.operationPercentiles(name))));
+
+        long currentSlot = clock.getAsLong() / BUCKET_MS;
+        long paymentsLast24h = 0;
+        long volumeUnits = 0;
+        for (VolumeBucket bucket : current.buckets) {
+            long slot = bucket.slot.get();
+            if (slot > currentSlot - BUCKETS && slot <= currentSlot) {
+                paymentsLast24h += bucket.count.sum();
+                volumeUnits += bucket.volume.sum();
+            }
+        }
+
+        long attempts = current.attemptCount.sum();
+        return MetricsSummaryResponse.builder()
+                .totalPayments(current.totalPayments.sum())
+                .totalSuccessful(successful)
+                .totalFailed(current.statusCounts.get(PaymentStatus.FAILED).sum())
+                .paymentsByStatus(paymentsByStatus)
+                .providerMetrics(providerMetrics)
+                .paymentsLast24h(paymentsLast24h)
+                .volumeLast24h(BigDecimal.valueOf(volumeUnits, VOLUME_SCALE).setScale(2, RoundingMode.HALF_UP))
+                .avgLatencyMs(attempts > 0 ? (double) current.attemptLatencySum.sum() / attempts : 0)
+                .maxLatencyMs(current.attemptLatencyMax.get())
+                .providerLatency(latencyMetrics.providerPercentiles())
+                .apiLatency(LatencyMetrics.percentiles(latencyMetrics.apiSnapshot()))
+                .endpointLatency(latencyMetrics.endpointPercentiles())
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static long toUnits(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(VOLUME_SCALE, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static OffsetDateTime slotStart(long slot) {
+        return OffsetDateTime.ofInstant(Instant.ofEpochMilli(slot * BUCKET_MS), ZoneOffset.UTC);
+    }
+
+    private static <E extends Enum<E>> Map<E, LongAdder> newEnumCounters(Class<E> type) {
+        // Sadece constructor'da doldurulur, sonra yalnızca okunur
+        Map<E, LongAdder> counters = new EnumMap<>(type);
+        for (E value : type.getEnumConstants()) {
+            counters.put(value, new LongAdder());
+        }
+        return counters;
+    }
+
+    private static VolumeBucket[] newBuckets() {
+        VolumeBucket[] result = new VolumeBucket[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            result[i] = new VolumeBucket();
+        }
+        return result;
+    }
+
+    /**
+     * Bir rebuild'den diğerine kadar biriken tüm sayaçlar.
+     */
+    private static final class Counters {
+        final Map<PaymentStatus, LongAdder> statusCounts = newEnumCounters(PaymentStatus.class);
+        final LongAdder totalPayments = new LongAdder();
+        final Map<String, ProviderCounters> providers = new ConcurrentHashMap<>();
+        final LongAdder attemptCount = new LongAdder();
+        final LongAdder attemptLatencySum = new LongAdder();
+        final LongAccumulator attemptLatencyMax = new LongAccumulator(Math::max, 0);
+        final VolumeBucket[] buckets = newBuckets();
+
+        void addAttempts(String provider, OperationType operation, AttemptStatus status,
+                         long count, long latencySum, long latencyMax) {
+            String name = provider != null ? provider : "UNKNOWN";
+            ProviderCounters counters = providers.computeIfAbsent(name, key -> new ProviderCounters());
+            counters.total.add(count);
+            counters.statuses.get(status).add(count);
+            counters.operations.get(operation).add(count);
+            counters.latencySum.add(latencySum);
+
+            attemptCount.add(count);
+            attemptLatencySum.add(latencySum);
+            attemptLatencyMax.accumulate(latencyMax);
+        }
+
+        /**
+         * Bucket slot'u değiştiyse önce sıfırlanır. Sıfırlama sırasında slot ROTATING ile işaretlenir,
+         * aynı bucket'a yazan diğer thread'ler sıfırlama bitene kadar bekler (kısa spin).
+         */
+        void addVolume(long slot, long count, long units) {
+            VolumeBucket bucket = buckets[(int) Math.floorMod(slot, (long) BUCKETS)];
+            while (true) {
+                long current = bucket.slot.get();
+                if (current == slot) {
+                    break;
+                }
+                if (current == ROTATING) {
+                    Thread.onSpinWait();
+                    continue;
+                }
+                if (current > slot) {
+                    // 24 saatten eski kayıt
+                    return;
+                }
+                if (bucket.slot.compareAndSet(current, ROTATING)) {
+                    bucket.count.reset();
+                    bucket.volume.reset();
+                    bucket.slot.set(slot);
+                    break;
+                }
+            }
+            bucket.count.add(count);
+            bucket.volume.add(units);
+        }
+    }
+
+    private static final class VolumeBucket {
+        final AtomicLong slot = new AtomicLong(-1);
+        final LongAdder count = new LongAdder();
+        final LongAdder volume = new LongAdder();
+    }
+
+    private static final class ProviderCounters {
+        final LongAdder total = new LongAdder();
+        final Map<AttemptStatus, LongAdder> statuses = newEnumCounters(AttemptStatus.class);
+        final Map<OperationType, LongAdder> operations = newEnumCounters(OperationType.class);
+        final LongAdder latencySum = new LongAdder();
+
+        ProviderMetrics toMetrics(LatencyPercentiles latency, Map<String, LatencyPercentiles> latencyByOperation) {
+            long attempts = total.sum();
+            long success = statuses.get(AttemptStatus.SUCCESS).sum();
+            double successRate = attempts > 0 ? (double) success / attempts * 100 : 0;
+            double avgLatency = attempts > 0 ? (double) latencySum.sum() / attempts : 0;
+
+            Map<String, Long> byOperation = new LinkedHashMap<>();
+            operations.forEach((operation, count) -> {
+                long value = count.sum();
+                if (value > 0) {
+                    byOperation.put(operation.name(), value);
+                }
+            });
+
+            return ProviderMetrics.builder()
+                    .totalAttempts(attempts)
+                    .successCount(success)
+                    .failureCount(statuses.get(AttemptStatus.FAILURE).sum())
+                    .timeoutCount(statuses.get(AttemptStatus.TIMEOUT).sum())
+                    .successRate(Math.round(successRate * 100.0) / 100.0)
+                    .avgLatencyMs(Math.round(avgLatency * 100.0) / 100.0)
+                    .attemptsByOperation(byOperation)
+                    .latency(latency)
+                    .latencyByOperation(latencyByOperation)
+                    .build();
+        }
+    }
+}
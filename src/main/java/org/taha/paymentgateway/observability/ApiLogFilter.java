@@ -11,9 +11,9 @@ import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 import org.springframework.web.util.ContentCachingRequestWrapper;
 import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.taha.paymentgateway.metrics.LatencyMetrics;
 
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -28,6 +28,8 @@ import java.util.regex.Pattern;
 public class ApiLogFilter implements Filter {
 
     private final ApiLogService apiLogService;
+    private final JsonMasker jsonMasker;
+    private final LatencyMetrics latencyMetrics;
     
     private static final Pattern PAYMENT_ID_PATTERN = Pattern.compile("/payments/([a-f0-9-]{36})");
     private static final Set<String> EXCLUDED_PATHS = Set.of(
@@ -64,6 +66,7 @@ public class ApiLogFilter implements Filter {
             chain.doFilter(wrappedRequest, wrappedResponse);
         } finally {
             long latencyMs = System.currentTimeMillis() - startTime;
+            latencyMetrics.recordEndpoint(httpRequest.getMethod(), path, latencyMs);
 
             try {
                 logApiCall(wrappedRequest, wrappedResponse, latencyMs);
@@ -91,11 +94,9 @@ public class ApiLogFilter implements Filter {
             correlationId = UUID.randomUUID().toString().substring(0, 8);
         }
 
-        // Request body
-        String requestBody = getRequestBody(request);
-
-        // Response body
-        String responseBody = getResponseBody(response);
+        // Request/response body (hassas alanlar tek geçişte maskelenir)
+        String requestBody = jsonMasker.mask(request.getContentAsByteArray());
+        String responseBody = jsonMasker.mask(response.getContentAsByteArray());
 
         // Headers (hassas bilgileri maskele)
         String headers = getHeaders(request);
@@ -110,29 +111,13 @@ public class ApiLogFilter implements Filter {
                 method,
                 endpoint,
                 headers,
-                maskSensitiveData(requestBody),
+                requestBody,
                 response.getStatus(),
                 responseBody,
                 latencyMs
         );
     }
 
-    private String getRequestBody(ContentCachingRequestWrapper request) {
-        byte[] content = request.getContentAsByteArray();
-        if (content.length > 0) {
-            return new String(content, StandardCharsets.UTF_8);
-        }
-        return null;
-    }
-
-    private String getResponseBody(ContentCachingResponseWrapper response) {
-        byte[] content = response.getContentAsByteArray();
-        if (content.length > 0) {
-            return new String(content, StandardCharsets.UTF_8);
-        }
-        return null;
-    }
-
     private String getHeaders(HttpServletRequest request) {
         Map<String, String> headers = new HashMap<>();
         Enumeration<String> headerNames = request.getHeaderNames();
@@ -160,19 +145,6 @@ public class ApiLogFilter implements Filter {
         return null;
     }
 
-    private String maskSensitiveData(String body) {
-        if (body == null) return null;
-        
-        // Kart numarası maskeleme
-        body = body.replaceAll("\"cardNumber\"\\s*:\\s*\"(\\d{4})\\d{8}(\\d{4})\"", 
-                               "\"cardNumber\":\"$1********$2\"");
-        
-        // CVV maskeleme
-        body = body.replaceAll("\"cvv\"\\s*:\\s*\"\\d{3,4}\"", "\"cvv\":\"***\"");
-        
-        return body;
-    }
-
     private boolean shouldExclude(String path) {
         return EXCLUDED_PATHS.stream().anyMatch(path::startsWith) ||
                path.endsWith(".html") ||
@@ -0,0 +1,22 @@
+package org.taha.paymentgateway.observability;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Writer kuyruğuna giren, DB'ye yazılmayı bekleyen tek API log satırı.
+ * Alanlar kuyruğa girmeden önce kolon limitlerine göre kısaltılmış olur.
+ */
+public record ApiLogRecord(
+    UUID id,
+    String correlationId,
+    UUID paymentId,
+    String httpMethod,
+    String endpoint,
+    String requestHeaders,
+    String requestBody,
+    Integer responseStatus,
+    String responseBody,
+    Long latencyMs,
+    OffsetDateTime createdAt
+) {}
@@ -0,0 +1,82 @@
+package org.taha.paymentgateway.observability;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Sabit kapasiteli, lock-free, çok üretici / tek tüketici (MPSC) ring buffer.
+ *
+ * Üreticiler (request thread'leri) slot'u tail üzerinde CAS ile sahiplenir ve elemanı yazar;
+ * buffer doluysa beklemeden false döner. Tek tüketici (writer thread) head'den sırayla okur.
+ * Lock ya da synchronized kullanılmaz, virtual thread'leri pin'lemez.
+ *
+ * Sahiplenilmiş ama henüz yazılmamış slot'ta tüketici durur; eleman bir sonraki drain'de alınır.
+ */
+final class ApiLogRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    ApiLogRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        // Index hesabı mask ile yapılsın diye kapasite 2'nin kuvvetine yuvarlanır
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Elemanı ekler. Buffer doluysa beklemez, false döner.
+     */
+    boolean offer(E element) {
+        long capacity = mask + 1L;
+        while (true) {
+            long currentTail = tail.get();
+            if (currentTail - head.get() >= capacity) {
+                return false;
+            }
+            if (tail.compareAndSet(currentTail, currentTail + 1)) {
+                slots.lazySet((int) (currentTail & mask), element);
+                return true;
+            }
+        }
+    }
+
+    /**
+     * En fazla maxElements elemanı sırayla target'a taşır. Sadece tüketici thread çağırır.
+     *
+     * @return taşınan eleman sayısı
+     */
+    int drainTo(List<? super E> target, int maxElements) {
+        long currentHead = head.get();
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) (currentHead & mask);
+            E element = slots.get(index);
+            if (element == null) {
+                // Boş ya da üretici henüz yazmadı
+                break;
+            }
+            slots.lazySet(index, null);
+            target.add(element);
+            currentHead++;
+            drained++;
+        }
+        // Slot'lar temizlendikten sonra üreticilere açılır
+        head.lazySet(currentHead);
+        return drained;
+    }
+
+    int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    int capacity() {
+        return mask + 1;
+    }
+}
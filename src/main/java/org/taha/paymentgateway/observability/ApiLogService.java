@@ -2,42 +2,51 @@ package org.taha.paymentgateway.observability;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.taha.paymentgateway.persistence.entity.ApiLogEntity;
 import org.taha.paymentgateway.persistence.repository.ApiLogRepository;
+import org.taha.paymentgateway.persistence.support.UuidV7;
 
+import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
 
+/**
+ * API log kayıtları: yazım {@link ApiLogWriter} üzerinden asenkron, okuma repository'den.
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ApiLogService {
 
     private final ApiLogRepository apiLogRepository;
+    private final ApiLogWriter apiLogWriter;
 
-    @Async
+    /**
+     * API çağrısını log writer kuyruğuna bırakır; DB'ye yazım arka planda batch halinde yapılır.
+     */
     public void logRequest(String correlationId, UUID paymentId, String method, String endpoint,
                           String headers, String body, Integer status, String response, Long latencyMs) {
         try {
-            ApiLogEntity logEntity = ApiLogEntity.builder()
-                    .id(UUID.randomUUID())
-                    .correlationId(correlationId)
-                    .paymentId(paymentId)
-                    .httpMethod(method)
-                    .endpoint(endpoint)
-                    .requestHeaders(truncate(headers, 2000))
-                    .requestBody(truncate(body, 5000))
-                    .responseStatus(status)
-                    .responseBody(truncate(response, 5000))
-                    .latencyMs(latencyMs)
-                    .build();
-
-            apiLogRepository.save(logEntity);
-            log.debug("API log saved: {} {} -> {}", method, endpoint, status);
+            ApiLogRecord record = new ApiLogRecord(
+                    UuidV7.next(),
+                    correlationId,
+                    paymentId,
+                    method,
+                    truncate(endpoint, 252),
+                    truncate(headers, 2000),
+                    truncate(body, 5000),
+                    status,
+                    truncate(response, 5000),
+                    latencyMs,
+                    OffsetDateTime.now()
+            );
+
+            if (apiLogWriter.submit(record)) {
+                log.debug("API log queued: {} {} -> {}", method, endpoint, status);
+            }
         } catch (Exception e) {
-            log.error("Failed to save API log", e);
+            log.error("Failed to queue API log", e);
         }
     }
 
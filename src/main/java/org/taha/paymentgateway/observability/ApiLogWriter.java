@@ -0,0 +1,215 @@
+package org.taha.paymentgateway.observability;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.persistence.support.UuidBytes;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * API log satırlarını request thread'inden ayıran asenkron writer.
+ *
+ * Request thread'i sadece {@link ApiLogRecord}'u lock-free ring buffer'a bırakır (DB'ye gitmez).
+ * Tek bir writer thread buffer'ı boşaltır ve satırları JDBC batch insert ile yazar.
+ *
+ * Buffer politikası (log hacmi hiçbir zaman request latency'sine eklenmez):
+ * - Doluluk sampleThreshold'u geçince başarılı (2xx/3xx) isteklerin sadece 1/sampleRate'i alınır,
+ *   hatalı istekler her zaman alınır
+ * - Buffer tamamen doluysa kayıt düşürülür
+ * Alınan, örneklenip atlanan, düşürülen ve yazılan kayıtlar sayaçlarda tutulur.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ApiLogWriter {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO api_logs (id, correlation_id, payment_id, http_method, endpoint, request_headers,
+                                  request_body, response_status, response_body, latency_ms, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${api-log.buffer-capacity:8192}")
+    private int bufferCapacity;
+
+    @Value("${api-log.batch-size:500}")
+    private int batchSize;
+
+    @Value("${api-log.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    /** Bu doluluk oranının üstünde başarılı istekler örneklenir */
+    @Value("${api-log.sample-threshold:0.75}")
+    private double sampleThreshold;
+
+    /** Örnekleme modunda başarılı isteklerin 1/sampleRate'i alınır */
+    @Value("${api-log.sample-rate:10}")
+    private int sampleRate;
+
+    private ApiLogRingBuffer<ApiLogRecord> buffer;
+    private volatile Thread writer;
+    private volatile boolean running;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder writeFailures = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        buffer = new ApiLogRingBuffer<>(bufferCapacity);
+        running = true;
+        Thread thread = new Thread(this::runWriter, "api-log-writer");
+        thread.setDaemon(true);
+        writer = thread;
+        thread.start();
+        log.info("API log writer started - capacity: {}, batchSize: {}", buffer.capacity(), batchSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        Thread thread = writer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Log kaydını kuyruğa bırakır. Hiçbir zaman bloklamaz ve exception fırlatmaz.
+     *
+     * @return kayıt kuyruğa alındıysa true
+     */
+    public boolean submit(ApiLogRecord record) {
+        if (shouldSample(record) && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        if (!buffer.offer(record)) {
+            dropped.increment();
+            return false;
+        }
+        accepted.increment();
+        // Bir batch biriktiyse writer'ı flush aralığını beklemeden uyandır
+        if (buffer.size() >= batchSize) {
+            Thread thread = writer;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Buffer'daki kayıtları batch'ler halinde yazar.
+     *
+     * @return yazılan kayıt sayısı
+     */
+    int flush() {
+        int total = 0;
+        List<ApiLogRecord> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            total += writeBatch(batch);
+            batch.clear();
+        }
+        return total;
+    }
+
+    public ApiLogWriterStats getStats() {
+        return new ApiLogWriterStats(
+                buffer.capacity(),
+                buffer.size(),
+                accepted.sum(),
+                sampledOut.sum(),
+                dropped.sum(),
+                written.sum(),
+                writeFailures.sum()
+        );
+    }
+
+    private boolean shouldSample(ApiLogRecord record) {
+        if (sampleRate <= 1) {
+            return false;
+        }
+        boolean success = record.responseStatus() != null && record.responseStatus() < 400;
+        return success && buffer.size() >= buffer.capacity() * sampleThreshold;
+    }
+
+    private void runWriter() {
+        while (running) {
+            try {
+                if (flush() == 0) {
+                    LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(flushIntervalMs));
+                }
+            } catch (Exception e) {
+                log.error("API log writer failed", e);
+            }
+        }
+        // Kapanırken kalanları yaz
+        flush();
+    }
+
+    private int writeBatch(List<ApiLogRecord> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, record) -> {
+                ps.setBytes(1, UuidBytes.toBytes(record.id()));
+                ps.setString(2, record.correlationId());
+                ps.setBytes(3, UuidBytes.toBytes(record.paymentId()));
+                ps.setString(4, record.httpMethod());
+                ps.setString(5, record.endpoint());
+                ps.setString(6, record.requestHeaders());
+                ps.setString(7, record.requestBody());
+                if (record.responseStatus() != null) {
+                    ps.setInt(8, record.responseStatus());
+                } else {
+                    ps.setNull(8, Types.INTEGER);
+                }
+                ps.setString(9, record.responseBody());
+                if (record.latencyMs() != null) {
+                    ps.setLong(10, record.latencyMs());
+                } else {
+                    ps.setNull(10, Types.BIGINT);
+                }
+                ps.setTimestamp(11, Timestamp.from(record.createdAt().toInstant()));
+            });
+            written.add(batch.size());
+            log.debug("API log batch written: {} rows", batch.size());
+            return batch.size();
+        } catch (Exception e) {
+            // Log yazımı hatası ödeme akışını etkilememeli; batch atlanır
+            writeFailures.add(batch.size());
+            log.error("Failed to write API log batch - rows: {}", batch.size(), e);
+            return 0;
+        }
+    }
+
+    public record ApiLogWriterStats(
+        int capacity,
+        int buffered,
+        long accepted,
+        long sampledOut,
+        long dropped,
+        long written,
+        long writeFailures
+    ) {}
+}
@@ -0,0 +1,480 @@
+package org.taha.paymentgateway.observability;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Log'a yazılan JSON body'lerdeki hassas alanları maskeleyen tek geçişli (streaming) masker.
+ *
+ * Regex yerine ham byte[] üzerinde token seviyesinde ilerler; body önce String'e çevrilmez,
+ * maskelenmiş çıktı thread başına tekrar kullanılan bir buffer'a yazılır ve sonunda tek bir String oluşur.
+ *
+ * - Alan adları her derinlikte eşleşir (nested objeler ve array'ler dahil), büyük/küçük harf duyarsız
+ * - cardNumber/pan: ilk 4 ve son 4 hane açık, aradaki haneler '*' (uzunluk fark etmez)
+ * - email: local part'ın ilk karakteri açık, gerisi "***"
+ * - Diğer alanlar (cvv, cardToken, ...): "***"
+ * - Hassas alanın değeri obje/array ise içindeki tüm değerler maskelenir
+ *
+ * Body geçerli JSON değilse (form data, ApiLogFilter'ın 10 KB sınırında kesilmiş body vb.) tırnaklı key'ler
+ * yine aranır ve hassas key'lerin değerleri maskelenir; kesilmiş değer tamamen maskelenir.
+ * Ayrıca 12+ haneli rakam dizileri kart numarası kabul edilip maskelenir, gerisi olduğu gibi bırakılır.
+ */
+@Component
+public class JsonMasker {
+
+    public enum Strategy {
+        FULL,
+        PAN,
+        EMAIL
+    }
+
+    private static final byte[] MASK = "\"***\"".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_DEPTH = 64;
+    private static final int MIN_PAN_DIGITS = 12;
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    /** Thread başına çıktı buffer'ı; büyük body'lerden sonra küçültülür */
+    private static final ThreadLocal<MaskBuffer> BUFFERS = ThreadLocal.withInitial(() -> new MaskBuffer(1024));
+
+    private final byte[][] fieldNames;
+    private final Strategy[] strategies;
+
+    public JsonMasker(@Value("${api-log.mask.fields:cardNumber,cvv,cardToken,email}") List<String> fields) {
+        List<String> names = fields.stream().map(String::trim).filter(name -> !name.isEmpty()).toList();
+        this.fieldNames = new byte[names.size()][];
+        this.strategies = new Strategy[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            fieldNames[i] = names.get(i).toLowerCase(Locale.ROOT).getBytes(StandardCharsets.UTF_8);
+            strategies[i] = strategyFor(names.get(i));
+        }
+    }
+
+    static Strategy strategyFor(String field) {
+        String name = field.toLowerCase(Locale.ROOT);
+        if (name.equals("cardnumber") || name.equals("pan")) {
+            return Strategy.PAN;
+        }
+        if (name.contains("email")) {
+            return Strategy.EMAIL;
+        }
+        return Strategy.FULL;
+    }
+
+    /**
+     * Body'yi maskeleyip String olarak döner. Boş body için null.
+     */
+    public String mask(byte[] body) {
+        if (body == null || body.length == 0) {
+            return null;
+        }
+        MaskBuffer out = BUFFERS.get();
+        try {
+            mask(body, 0, body.length, out);
+            return out.toUtf8String();
+        } finally {
+            if (out.capacity() > MAX_RETAINED_BUFFER) {
+                BUFFERS.set(new MaskBuffer(1024));
+            } else {
+                out.reset();
+            }
+        }
+    }
+
+    /**
+     * in[offset, offset+length) aralığını maskeleyerek out'a yazar.
+     */
+    public void mask(byte[] in, int offset, int length, MaskBuffer out) {
+        out.reset();
+        if (!maskJson(in, offset, offset + length, out)) {
+            out.reset();
+            maskLenient(in, offset, offset + length, out);
+        }
+    }
+
+    /**
+     * @return body geçerli JSON olarak taranabildiyse true
+     */
+    private boolean maskJson(byte[] in, int start, int end, MaskBuffer out) {
+        int depth = 0;
+        long objectBits = 0;        // bit d set: d derinliğindeki container obje
+        boolean expectKey = false;
+        Strategy pending = null;     // son okunan key hassassa sıradaki değerin stratejisi
+        int maskAllDepth = -1;       // hassas obje/array: bu derinlik ve altı tamamen maskelenir
+
+        int i = start;
+        while (i < end) {
+            byte b = in[i];
+            switch (b) {
+                case '{', '[' -> {
+                    if (depth + 1 >= MAX_DEPTH) {
+                        return false;
+                    }
+                    if (pending != null && maskAllDepth < 0) {
+                        maskAllDepth = depth + 1;
+                    }
+                    pending = null;
+                    depth++;
+                    if (b == '{') {
+                        objectBits |= 1L << depth;
+                        expectKey = true;
+                    } else {
+                        objectBits &= ~(1L << depth);
+                        expectKey = false;
+                    }
+                    out.write(b);
+                    i++;
+                }
+                case '}', ']' -> {
+                    if (depth == 0 || ((objectBits >>> depth) & 1L) != (b == '}' ? 1L : 0L)) {
+                        return false;
+                    }
+                    if (maskAllDepth == depth) {
+                        maskAllDepth = -1;
+                    }
+                    depth--;
+                    expectKey = false;
+                    out.write(b);
+                    i++;
+                }
+                case ',' -> {
+                    expectKey = ((objectBits >>> depth) & 1L) == 1L;
+                    out.write(b);
+                    i++;
+                }
+                case ':' -> {
+                    expectKey = false;
+                    out.write(b);
+                    i++;
+                }
+                case '"' -> {
+                    int close = closingQuote(in, i + 1, end);
+                    if (close < 0) {
+                        return false;
+                    }
+                    if (expectKey) {
+                        pending = lookup(in, i + 1, close);
+                        out.write(in, i, close + 1 - i);
+                    } else {
+                        Strategy strategy = maskAllDepth >= 0 ? Strategy.FULL : pending;
+                        pending = null;
+                        if (strategy == null) {
+                            out.write(in, i, close + 1 - i);
+                        } else {
+                            writeMasked(strategy, in, i + 1, close, out);
+                        }
+                    }
+                    i = close + 1;
+                }
+                case ' ', '\t', '\r', '\n' -> {
+                    out.write(b);
+                    i++;
+                }
+                default -> {
+                    // Sayı ya da true/false/null; başka bir şeyse body JSON değil
+                    if (depth == 0 || !isScalarStart(b)) {
+                        return false;
+                    }
+                    int tokenEnd = i;
+                    while (tokenEnd < end && !isDelimiter(in[tokenEnd])) {
+                        tokenEnd++;
+                    }
+                    boolean masked = (maskAllDepth >= 0 || pending != null) && !isNullLiteral(in, i, tokenEnd);
+                    pending = null;
+                    if (masked) {
+                        out.write(MASK, 0, MASK.length);
+                    } else {
+                        out.write(in, i, tokenEnd - i);
+                    }
+                    i = tokenEnd;
+                }
+            }
+        }
+        return depth == 0;
+    }
+
+    private Strategy lookup(byte[] in, int from, int to) {
+        int length = to - from;
+        for (int n = 0; n < fieldNames.length; n++) {
+            byte[] name = fieldNames[n];
+            if (name.length != length) {
+                continue;
+            }
+            boolean match = true;
+            for (int k = 0; k < length; k++) {
+                byte c = in[from + k];
+                if (c >= 'A' && c <= 'Z') {
+                    c += 'a' - 'A';
+                }
+                if (c != name[k]) {
+                    match = false;
+                    break;
+                }
+            }
+            if (match) {
+                return strategies[n];
+            }
+        }
+        return null;
+    }
+
+    private static void writeMasked(Strategy strategy, byte[] in, int from, int to, MaskBuffer out) {
+        switch (strategy) {
+            case PAN -> {
+                int digits = 0;
+                for (int k = from; k < to; k++) {
+                    if (isDigit(in[k])) {
+                        digits++;
+                    }
+                }
+                boolean keepEdges = digits >= MIN_PAN_DIGITS;
+                out.write((byte) '"');
+                int seen = 0;
+                for (int k = from; k < to; k++) {
+                    byte c = in[k];
+                    if (isDigit(c)) {
+                        seen++;
+                        out.write(keepEdges && (seen <= 4 || seen > digits - 4) ? c : (byte) '*');
+                    } else {
+                        out.write(c);
+                    }
+                }
+                out.write((byte) '"');
+            }
+            case EMAIL -> {
+                int at = -1;
+                for (int k = from; k < to; k++) {
+                    if (in[k] == '@') {
+                        at = k;
+                        break;
+                    }
+                }
+                if (at <= from + 1 || in[from] == '\\') {
+                    out.write(MASK, 0, MASK.length);
+                    return;
+                }
+                out.write((byte) '"');
+                out.write(in[from]);
+                out.write(MASK, 1, 3);
+                out.write(in, at, to - at);
+                out.write((byte) '"');
+            }
+            case FULL -> out.write(MASK, 0, MASK.length);
+        }
+    }
+
+    /**
+     * JSON olarak taranamayan body'ler için. Tırnaklı string'ler baştan itibaren çiftlenir; hassas bir key'i ':'
+     * izliyorsa değeri stratejisine göre maskelenir. Diğer kısımlarda sadece uzun rakam dizileri maskelenir.
+     */
+    private void maskLenient(byte[] in, int start, int end, MaskBuffer out) {
+        int i = start;
+        while (i < end) {
+            int quote = indexOf(in, (byte) '"', i, end);
+            if (quote < 0) {
+                maskDigitRuns(in, i, end, out);
+                return;
+            }
+            maskDigitRuns(in, i, quote, out);
+            int close = closingQuote(in, quote + 1, end);
+            if (close < 0) {
+                // Kesilmiş string: key mi değer mi bilinmez, sadece rakam dizileri maskelenir
+                maskDigitRuns(in, quote, end, out);
+                return;
+            }
+            maskDigitRuns(in, quote, close + 1, out);
+            i = close + 1;
+
+            Strategy strategy = lookup(in, quote + 1, close);
+            if (strategy == null) {
+                continue;
+            }
+            int colon = skipWhitespace(in, i, end);
+            if (colon >= end || in[colon] != ':') {
+                continue;
+            }
+            int value = skipWhitespace(in, colon + 1, end);
+            out.write(in, i, value - i);
+            i = maskValue(strategy, in, value, end, out);
+        }
+    }
+
+    /**
+     * Hassas key'in değerini maskeleyip değerin bittiği index'i döner. Kesilmiş değer ve obje/array değerler
+     * tamamen "***" olur.
+     */
+    private static int maskValue(Strategy strategy, byte[] in, int i, int end, MaskBuffer out) {
+        if (i >= end) {
+            return end;
+        }
+        byte b = in[i];
+        if (b == '"') {
+            int close = closingQuote(in, i + 1, end);
+            if (close < 0) {
+                out.write(MASK, 0, MASK.length);
+                return end;
+            }
+            writeMasked(strategy, in, i + 1, close, out);
+            return close + 1;
+        }
+        if (b == '{' || b == '[') {
+            out.write(MASK, 0, MASK.length);
+            return skipContainer(in, i, end);
+        }
+        int tokenEnd = i;
+        while (tokenEnd < end && !isDelimiter(in[tokenEnd])) {
+            tokenEnd++;
+        }
+        if (isNullLiteral(in, i, tokenEnd)) {
+            out.write(in, i, tokenEnd - i);
+        } else if (tokenEnd > i) {
+            out.write(MASK, 0, MASK.length);
+        }
+        return tokenEnd;
+    }
+
+    /** Obje/array'in kapanışından sonraki index, kapanmıyorsa end (string içindeki parantezler atlanır) */
+    private static int skipContainer(byte[] in, int i, int end) {
+        int depth = 0;
+        while (i < end) {
+            byte b = in[i];
+            if (b == '"') {
+                int close = closingQuote(in, i + 1, end);
+                if (close < 0) {
+                    return end;
+                }
+                i = close + 1;
+                continue;
+            }
+            if (b == '{' || b == '[') {
+                depth++;
+            } else if ((b == '}' || b == ']') && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return end;
+    }
+
+    private static int indexOf(byte[] in, byte target, int from, int end) {
+        for (int k = from; k < end; k++) {
+            if (in[k] == target) {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private static int skipWhitespace(byte[] in, int from, int end) {
+        int k = from;
+        while (k < end && (in[k] == ' ' || in[k] == '\t' || in[k] == '\r' || in[k] == '\n')) {
+            k++;
+        }
+        return k;
+    }
+
+    /**
+     * 12 ve üzeri haneli rakam dizilerinin ilk 4 ve son 4 hanesi dışını maskeler.
+     */
+    private static void maskDigitRuns(byte[] in, int start, int end, MaskBuffer out) {
+        int i = start;
+        while (i < end) {
+            if (!isDigit(in[i])) {
+                out.write(in[i++]);
+                continue;
+            }
+            int runEnd = i;
+            while (runEnd < end && isDigit(in[runEnd])) {
+                runEnd++;
+            }
+            int length = runEnd - i;
+            if (length < MIN_PAN_DIGITS) {
+                out.write(in, i, length);
+            } else {
+                for (int k = 0; k < length; k++) {
+                    out.write(k < 4 || k >= length - 4 ? in[i + k] : (byte) '*');
+                }
+            }
+            i = runEnd;
+        }
+    }
+
+    /** Kapanış tırnağının index'i, bulunamazsa -1 (escape'ler atlanır) */
+    private static int closingQuote(byte[] in, int from, int end) {
+        for (int k = from; k < end; k++) {
+            if (in[k] == '\\') {
+                k++;
+            } else if (in[k] == '"') {
+                return k;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '}' || b == ']' || b == ':' || b == '"'
+                || b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isScalarStart(byte b) {
+        return isDigit(b) || b == '-' || b == 't' || b == 'f' || b == 'n';
+    }
+
+    private static boolean isNullLiteral(byte[] in, int from, int to) {
+        return to - from == 4 && in[from] == 'n' && in[from + 1] == 'u' && in[from + 2] == 'l' && in[from + 3] == 'l';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Tekrar kullanılabilir, büyüyebilen byte buffer.
+     */
+    public static final class MaskBuffer {
+        private byte[] bytes;
+        private int size;
+
+        public MaskBuffer(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        void write(byte b) {
+            ensureCapacity(1);
+            bytes[size++] = b;
+        }
+
+        void write(byte[] source, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, offset, bytes, size, length);
+            size += length;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        int capacity() {
+            return bytes.length;
+        }
+
+        public void reset() {
+            size = 0;
+        }
+
+        public String toUtf8String() {
+            return new String(bytes, 0, size, StandardCharsets.UTF_8);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                int newCapacity = Math.max(bytes.length * 2, size + extra);
+                bytes = Arrays.copyOf(bytes, newCapacity);
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.taha.paymentgateway.orchestrator;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.core.model.PaymentStatus;
+import org.taha.paymentgateway.persistence.entity.PaymentEntity;
+import org.taha.paymentgateway.persistence.repository.PaymentRepository;
+
+import java.time.OffsetDateTime;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+
+/**
+ * In-flight durumda takılı kalan payment'ları çözer.
+ *
+ * Provider çağrısı transaction dışında yapıldığı için, çağrı sırasında uygulama
+ * düşerse payment AUTHORIZING / CAPTURING / REFUNDING durumunda kalır.
+ * Belirli süreden eski kayıtlar {@link PaymentOrchestrator#recoverInFlight} ile çözülür; sonucu bilinmeyen
+ * capture / refund'lar bakiyelere dokunulmadan incelemeye (REQUIRES_REVIEW) alınır.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InFlightPaymentRecoveryJob {
+
+    /** Tanım {@link PaymentStatus#isInFlight()}'tedir; orchestrator'ın kontrolüyle aynı kalır */
+    private static final EnumSet<PaymentStatus> IN_FLIGHT = EnumSet.copyOf(
+            Arrays.stream(PaymentStatus.values()).filter(PaymentStatus::isInFlight).toList());
+
+    private final PaymentRepository paymentRepository;
+    private final PaymentOrchestrator paymentOrchestrator;
+
+    @Value("${payment.recovery.stale-after-ms:300000}")
+    private long staleAfterMs;
+
+    @Scheduled(fixedDelayString = "${payment.recovery.interval-ms:60000}")
+    public void recoverStalePayments() {
+        OffsetDateTime staleBefore = OffsetDateTime.now().minusNanos(staleAfterMs * 1_000_000);
+        List<PaymentEntity> stale = paymentRepository
+                .findTop100ByStatusInAndUpdatedAtBeforeOrderByUpdatedAtAsc(IN_FLIGHT, staleBefore);
+
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        log.warn("Found {} payments stuck in flight", stale.size());
+
+        for (PaymentEntity payment : stale) {
+            try {
+                paymentOrchestrator.recoverInFlight(payment.getId(), staleBefore);
+            } catch (Exception e) {
+                log.error("Failed to recover in-flight payment - paymentId: {}", payment.getId(), e);
+            }
+        }
+    }
+}
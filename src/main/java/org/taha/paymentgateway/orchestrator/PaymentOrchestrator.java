@@ -4,33 +4,48 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.taha.paymentgateway.api.dto.request.AuthorizePaymentRequest;
 import org.taha.paymentgateway.api.dto.request.CapturePaymentRequest;
 import org.taha.paymentgateway.api.dto.request.CreatePaymentRequest;
 import org.taha.paymentgateway.api.dto.request.RefundPaymentRequest;
 import org.taha.paymentgateway.api.dto.response.PaymentResponse;
-import org.taha.paymentgateway.core.exception.IdempotencyConflictException;
+import org.taha.paymentgateway.core.exception.CaptureAmountExceededException;
+import org.taha.paymentgateway.core.exception.ConcurrentPaymentUpdateException;
 import org.taha.paymentgateway.core.exception.InvalidPaymentStateException;
 import org.taha.paymentgateway.core.exception.PaymentNotFoundException;
+import org.taha.paymentgateway.core.exception.ProviderBusyException;
+import org.taha.paymentgateway.core.exception.ProviderCallInterruptedException;
 import org.taha.paymentgateway.core.exception.ProviderException;
+import org.taha.paymentgateway.core.exception.RefundAmountExceededException;
 import org.taha.paymentgateway.core.model.*;
+import org.taha.paymentgateway.event.OutboxNotifier;
 import org.taha.paymentgateway.idempotency.IdempotencyService;
+import org.taha.paymentgateway.idempotency.IdempotencyService.Reservation;
+import org.taha.paymentgateway.idempotency.RequestFingerprint;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.metrics.PaymentMetricsAggregator;
 import org.taha.paymentgateway.persistence.entity.*;
 import org.taha.paymentgateway.persistence.repository.*;
+import org.taha.paymentgateway.persistence.support.UuidV7;
 import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
 import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.*;
+import org.taha.paymentgateway.routing.ProviderHealthRegistry;
 import org.taha.paymentgateway.routing.RoutingEngine;
 import org.taha.paymentgateway.routing.RoutingEngine.RoutingContext;
 import org.taha.paymentgateway.routing.RoutingEngine.RoutingResult;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Ödeme akışını yöneten ana servis.
@@ -47,34 +62,48 @@ import java.util.UUID;
 @RequiredArgsConstructor
 public class PaymentOrchestrator {
 
+    private static final Set<PaymentStatus> REFUNDABLE =
+            EnumSet.of(PaymentStatus.CAPTURED, PaymentStatus.PARTIALLY_REFUNDED, PaymentStatus.REFUNDING);
+    private static final int MAX_VERSION_RETRIES = 5;
+    private static final String UNKNOWN_PROVIDER = "UNKNOWN";
+
     private final PaymentRepository paymentRepository;
     private final PaymentAttemptRepository attemptRepository;
     private final TransactionRepository transactionRepository;
     private final OutboxEventRepository outboxEventRepository;
+    private final OutboxNotifier outboxNotifier;
     private final IdempotencyService idempotencyService;
     private final RoutingEngine routingEngine;
+    private final ProviderHealthRegistry providerHealthRegistry;
+    private final PaymentMetricsAggregator paymentMetrics;
+    private final GatewayMetrics gatewayMetrics;
     private final Map<String, PaymentProviderAdapter> providerAdapters;
+    private final ProviderInvoker providerInvoker;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
 
     // ========== CREATE PAYMENT ==========
 
-    @Transactional
-    public PaymentResponse createPayment(String merchantId, CreatePaymentRequest request, String idempotencyKey) {
+    /**
+     * @param requestFingerprint ham request body'sinden hesaplanmış {@link RequestFingerprint};
+     *                           null ise (HTTP dışı çağrı) request DTO'sundan hesaplanır
+     *
+     * Idempotency key'i transaction başlamadan rezerve edilir; rezervasyon kendi (REQUIRES_NEW) bağlantısını
+     * kullandığı için istek aynı anda iki pool bağlantısı tutmaz.
+     */
+    public PaymentResult createPayment(String merchantId, CreatePaymentRequest request, String idempotencyKey,
+                                       byte[] requestFingerprint) {
         log.info("Creating payment - merchantId: {}, amount: {} {}, idempotencyKey: {}", 
                 merchantId, request.amount(), request.currency(), idempotencyKey);
 
-        // Idempotency kontrolü
-        if (idempotencyKey != null) {
-            Optional<String> cachedResponse = checkIdempotency(idempotencyKey, request);
-            if (cachedResponse.isPresent()) {
-                log.info("Returning cached response for idempotencyKey: {}", idempotencyKey);
-                return deserialize(cachedResponse.get(), PaymentResponse.class);
-            }
-        }
+        return withIdempotency(idempotencyKey, () -> fingerprint(requestFingerprint, "CREATE " + merchantId, request),
+                reservation -> transactionTemplate.execute(tx -> doCreatePayment(merchantId, request, reservation)));
+    }
 
+    private PaymentResult doCreatePayment(String merchantId, CreatePaymentRequest request, Reservation reservation) {
         // Payment oluştur
         PaymentEntity payment = PaymentEntity.builder()
-                .id(UUID.randomUUID())
+                .id(UuidV7.next())
                 .merchantId(merchantId)
                 .amount(request.amount())
                 .currency(request.currency().toUpperCase())
@@ -85,247 +114,373 @@ public class PaymentOrchestrator {
                 .build();
 
         payment = paymentRepository.save(payment);
+        paymentMetrics.recordPaymentCreated(payment.getStatus(), payment.getAmount());
         log.info("Payment created - id: {}, status: {}", payment.getId(), payment.getStatus());
 
-        // Outbox event
-        publishEvent(payment, "PaymentCreated");
-
+        // Response bir kez serialize edilir: outbox payload'ı, idempotency kaydı ve HTTP response aynı byte'lar
         PaymentResponse response = toResponse(payment);
+        byte[] json = serialize(response);
 
-        // Idempotency kaydet
-        if (idempotencyKey != null) {
-            saveIdempotency(idempotencyKey, request, response);
-        }
+        // Outbox event
+        publishEvent(payment, "PaymentCreated", json);
 
-        return response;
+        // Idempotency rezervasyonunu tamamla (aynı transaction'da)
+        idempotencyService.complete(reservation, json);
+
+        return new PaymentResult(response, json);
     }
 
     // ========== AUTHORIZE ==========
 
-    @Transactional
-    public PaymentResponse authorize(UUID paymentId, String merchantId, AuthorizePaymentRequest request, String idempotencyKey) {
+    /**
+     * Authorize akışı üç kısa adımdan oluşur; provider çağrısı sırasında DB bağlantısı tutulmaz:
+     * 1. Kısa tx: payment AUTHORIZING durumuna çekilir (version ile) ve provider seçilir
+     * 2. Provider çağrısı (transaction dışında)
+     * 3. Kısa tx: attempt, yeni durum, outbox event ve idempotency kaydı
+     *
+     * 3. adımdan önce uygulama düşerse payment'ı {@link InFlightPaymentRecoveryJob} çözer.
+     */
+    public PaymentResult authorize(UUID paymentId, String merchantId, AuthorizePaymentRequest request, String idempotencyKey,
+                                   byte[] requestFingerprint) {
         log.info("Authorizing payment - paymentId: {}, idempotencyKey: {}", paymentId, idempotencyKey);
+        return withIdempotency(idempotencyKey, () -> fingerprint(requestFingerprint, "AUTHORIZE " + paymentId + " " + merchantId, request),
+                reservation -> doAuthorize(paymentId, merchantId, request, reservation));
+    }
 
-        // Idempotency kontrolü
-        if (idempotencyKey != null) {
-            Optional<String> cachedResponse = checkIdempotency(idempotencyKey, request);
-            if (cachedResponse.isPresent()) {
-                log.info("Returning cached response for idempotencyKey: {}", idempotencyKey);
-                return deserialize(cachedResponse.get(), PaymentResponse.class);
-            }
-        }
-
-        // Payment bul ve kontrol et
-        PaymentEntity payment = getPaymentForMerchant(paymentId, merchantId);
-        
-        if (payment.getStatus() != PaymentStatus.CREATED) {
-            throw new InvalidPaymentStateException(paymentId, payment.getStatus(), "CREATED");
-        }
-
-        // Routing: Kart BIN'ine göre en uygun provider'ı seç
-        RoutingResult routing = routingEngine.selectProvider(
-                RoutingContext.of(merchantId, payment.getCurrency(), request.cardBin())
-        );
-        PaymentProviderAdapter selectedProvider = routing.provider();
-        log.info("Routing sonucu: {} (komisyon: {}%, sebep: {})", 
-                routing.providerName(), routing.commissionRate(), routing.reason());
-
-        // Provider'a authorize isteği
+    private PaymentResult doAuthorize(UUID paymentId, String merchantId, AuthorizePaymentRequest request, Reservation reservation) {
+        // Faz 1: AUTHORIZING olarak işaretle, kart BIN'ine göre en uygun provider'ı seç
+        PendingCall call = markInFlight(paymentId, merchantId, PaymentStatus.AUTHORIZING, "CREATED",
+                EnumSet.of(PaymentStatus.CREATED), payment -> {
+                    RoutingResult routing = routingEngine.selectProvider(
+                            RoutingContext.of(merchantId, payment.getCurrency(), request.cardBin())
+                    );
+                    log.info("Routing sonucu: {} (komisyon: {}%, sebep: {})", 
+                            routing.providerName(), routing.commissionRate(), routing.reason());
+                    payment.setProviderName(routing.providerName());
+                    return new ProviderChoice(routing.provider(), routing.providerName());
+                });
+        PaymentEntity payment = call.payment();
+
+        // Faz 2: Provider'a authorize isteği (transaction dışında)
         long startTime = System.currentTimeMillis();
-        ProviderResult result = selectedProvider.authorize(new AuthorizeContext(
-                paymentId,
-                payment.getAmount(),
-                payment.getCurrency(),
-                request.cardToken(),
-                request.cardBin(),
-                merchantId
-        ));
+        ProviderResult result;
+        try {
+            result = invokeProvider(call, provider -> providerInvoker.authorize(provider, new AuthorizeContext(
+                    paymentId,
+                    payment.getAmount(),
+                    payment.getCurrency(),
+                    request.cardToken(),
+                    request.cardBin(),
+                    merchantId
+            )));
+        } catch (ProviderBusyException e) {
+            throw abandonInFlight(paymentId, PaymentStatus.AUTHORIZING, e, current -> current.setStatus(call.previousStatus()));
+        }
         long latencyMs = System.currentTimeMillis() - startTime;
+        recordProviderCall(call.providerName(), OperationType.AUTHORIZE, result, latencyMs);
+
+        // Faz 3: Sonucu kaydet
+        InFlightOutcome outcome = completeInFlight(paymentId, PaymentStatus.AUTHORIZING, current -> {
+            // Attempt kaydet (hangi provider kullanıldığı bilgisiyle)
+            persistAttempt(current.getId(), OperationType.AUTHORIZE, result, latencyMs, call.providerName());
+
+            if (result.status() == AttemptStatus.SUCCESS) {
+                current.setStatus(PaymentStatus.AUTHORIZED);
+                current.setProviderReference(result.providerReference());
+                publishEvent(current, "PaymentAuthorized");
+                log.info("Payment authorized successfully - paymentId: {}, provider: {}", paymentId, call.providerName());
+            } else if (result.status() == AttemptStatus.REQUIRES_3DS) {
+                // 3DS gerekli - payment tekrar CREATED'a döner
+                current.setStatus(PaymentStatus.CREATED);
+                log.info("Payment requires 3DS - paymentId: {}, url: {}", paymentId, result.threeDSUrl());
+            } else {
+                current.setStatus(PaymentStatus.FAILED);
+                publishEvent(current, "PaymentFailed");
+                return false;
+            }
+            return true;
+        }, reservation);
 
-        // Attempt kaydet (hangi provider kullanıldığı bilgisiyle)
-        saveAttempt(payment.getId(), OperationType.AUTHORIZE, result, latencyMs, routing.providerName());
-
-        // Sonuca göre güncelle
-        if (result.status() == AttemptStatus.SUCCESS) {
-            payment.setStatus(PaymentStatus.AUTHORIZED);
-            payment.setProviderReference(result.providerReference());
-            publishEvent(payment, "PaymentAuthorized");
-            log.info("Payment authorized successfully - paymentId: {}, provider: {}", paymentId, routing.providerName());
-        } else if (result.status() == AttemptStatus.REQUIRES_3DS) {
-            // 3DS gerekli - payment henüz CREATED kalır
-            log.info("Payment requires 3DS - paymentId: {}, url: {}", paymentId, result.threeDSUrl());
-        } else {
-            payment.setStatus(PaymentStatus.FAILED);
-            publishEvent(payment, "PaymentFailed");
+        if (outcome.payment().getStatus() == PaymentStatus.FAILED) {
             log.warn("Payment authorization failed - paymentId: {}, error: {}", paymentId, result.errorMessage());
-            throw new ProviderException(routing.providerName(), result.errorCode(), result.errorMessage());
-        }
-
-        payment = paymentRepository.save(payment);
-        PaymentResponse response = toResponse(payment);
-
-        // Idempotency kaydet
-        if (idempotencyKey != null) {
-            saveIdempotency(idempotencyKey, request, response);
+            throw new ProviderException(call.providerName(), result.errorCode(), result.errorMessage());
         }
 
-        return response;
+        return outcome.result();
     }
 
     // ========== CAPTURE ==========
 
-    @Transactional
-    public PaymentResponse capture(UUID paymentId, String merchantId, CapturePaymentRequest request, String idempotencyKey) {
+    public PaymentResult capture(UUID paymentId, String merchantId, CapturePaymentRequest request, String idempotencyKey,
+                                 byte[] requestFingerprint) {
         log.info("Capturing payment - paymentId: {}, amount: {}", paymentId, request != null ? request.amount() : "full");
+        return withIdempotency(idempotencyKey, () -> fingerprint(requestFingerprint, "CAPTURE " + paymentId + " " + merchantId, request),
+                reservation -> doCapture(paymentId, merchantId, request, reservation));
+    }
 
-        // Idempotency kontrolü
-        if (idempotencyKey != null) {
-            Optional<String> cachedResponse = checkIdempotency(idempotencyKey, request);
-            if (cachedResponse.isPresent()) {
-                log.info("Returning cached response for idempotencyKey: {}", idempotencyKey);
-                return deserialize(cachedResponse.get(), PaymentResponse.class);
-            }
+    private PaymentResult doCapture(UUID paymentId, String merchantId, CapturePaymentRequest request, Reservation reservation) {
+        // Faz 1: CAPTURING olarak işaretle, authorize'da kullanılan provider payment'ta kayıtlı.
+        // Capture edilen tutar refund tavanı olduğu için authorize edilen tutarı aşamaz.
+        PendingCall call = markInFlight(paymentId, merchantId, PaymentStatus.CAPTURING, "AUTHORIZED",
+                EnumSet.of(PaymentStatus.AUTHORIZED), payment -> {
+                    BigDecimal requested = captureAmount(payment, request);
+                    if (requested.compareTo(payment.getAmount()) > 0) {
+                        throw new CaptureAmountExceededException(paymentId, requested, payment.getAmount());
+                    }
+                    return resolveAuthorizeProvider(payment, "Capture");
+                });
+        PaymentEntity payment = call.payment();
+
+        BigDecimal captureAmount = captureAmount(payment, request);
+
+        // Faz 2: Provider'a capture isteği (transaction dışında)
+        long startTime = System.currentTimeMillis();
+        ProviderResult result;
+        try {
+            result = invokeProvider(call, provider -> providerInvoker.capture(provider, new CaptureContext(
+                    paymentId,
+                    payment.getProviderReference(),
+                    captureAmount,
+                    payment.getCurrency()
+            )));
+        } catch (ProviderBusyException e) {
+            throw abandonInFlight(paymentId, PaymentStatus.CAPTURING, e, current -> current.setStatus(call.previousStatus()));
         }
+        long latencyMs = System.currentTimeMillis() - startTime;
+        recordProviderCall(call.providerName(), OperationType.CAPTURE, result, latencyMs);
+
+        // Faz 3: Sonucu kaydet
+        InFlightOutcome outcome = completeInFlight(paymentId, PaymentStatus.CAPTURING, current -> {
+            persistAttempt(current.getId(), OperationType.CAPTURE, result, latencyMs, call.providerName());
+
+            if (result.status() == AttemptStatus.SUCCESS) {
+                current.setStatus(PaymentStatus.CAPTURED);
+                current.setCapturedAmount(captureAmount);
+                
+                // Transaction kaydet
+                saveTransaction(current.getId(), OperationType.CAPTURE, captureAmount, result.providerReference());
+                
+                publishEvent(current, "PaymentCaptured");
+                log.info("Payment captured successfully - paymentId: {}, amount: {}", paymentId, captureAmount);
+                return true;
+            }
+            // Başarısız capture: payment AUTHORIZED durumuna geri döner
+            current.setStatus(call.previousStatus());
+            return false;
+        }, reservation);
 
-        // Payment bul ve kontrol et
-        PaymentEntity payment = getPaymentForMerchant(paymentId, merchantId);
-        
-        if (payment.getStatus() != PaymentStatus.AUTHORIZED) {
-            throw new InvalidPaymentStateException(paymentId, payment.getStatus(), "AUTHORIZED");
+        if (outcome.payment().getStatus() != PaymentStatus.CAPTURED) {
+            log.warn("Payment capture failed - paymentId: {}, error: {}", paymentId, result.errorMessage());
+            throw new ProviderException(call.providerName(), result.errorCode(), result.errorMessage());
         }
 
-        BigDecimal captureAmount = (request != null && request.amount() != null) 
-                ? request.amount() 
-                : payment.getAmount();
+        return outcome.result();
+    }
 
-        // Authorize'da kullanılan provider'ı bul
-        String providerName = getLastAuthorizeProvider(paymentId);
-        PaymentProviderAdapter provider = providerAdapters.get(providerName);
-        if (provider == null) {
-            provider = providerAdapters.values().iterator().next(); // fallback
-            providerName = provider.providerName();
+    // ========== REFUND ==========
+
+    public PaymentResult refund(UUID paymentId, String merchantId, RefundPaymentRequest request, String idempotencyKey,
+                                byte[] requestFingerprint) {
+        log.info("Refunding payment - paymentId: {}, amount: {}", paymentId, request != null ? request.amount() : "full");
+        return withIdempotency(idempotencyKey, () -> fingerprint(requestFingerprint, "REFUND " + paymentId + " " + merchantId, request),
+                reservation -> doRefund(paymentId, merchantId, request, reservation));
+    }
+
+    /**
+     * Refund'lar payment'ı kilitlemez: her refund tutarını pending_refund_amount'a rezerve eder
+     * (version ile, çakışmada yeniden denenir), böylece eşzamanlı kısmi iadeler birbirini beklemez
+     * ama toplamları capture edilen tutarı aşamaz. Sonuç gelince rezervasyon refunded_amount'a aktarılır ya da bırakılır.
+     */
+    private PaymentResult doRefund(UUID paymentId, String merchantId, RefundPaymentRequest request, Reservation reservation) {
+        // Faz 1: Tutarı rezerve et, payment'ı REFUNDING olarak işaretle
+        BigDecimal requested = request != null ? request.amount() : null;
+        PendingRefund pending = retryOnVersionConflict(paymentId, () -> reserveRefund(paymentId, merchantId, requested));
+        PendingCall call = pending.call();
+        if (call.previousStatus() != PaymentStatus.REFUNDING) {
+            paymentMetrics.recordStatusChange(call.previousStatus(), PaymentStatus.REFUNDING);
         }
-        log.info("Capture için provider: {}", providerName);
+        PaymentEntity payment = call.payment();
+        BigDecimal refundAmount = pending.amount();
+        
+        String reason = (request != null) ? request.reason() : null;
 
-        // Provider'a capture isteği
+        // Faz 2: Provider'a refund isteği (transaction dışında)
         long startTime = System.currentTimeMillis();
-        ProviderResult result = provider.capture(new CaptureContext(
-                paymentId,
-                payment.getProviderReference(),
-                captureAmount,
-                payment.getCurrency()
-        ));
-        long latencyMs = System.currentTimeMillis() - startTime;
-
-        // Attempt kaydet
-        saveAttempt(payment.getId(), OperationType.CAPTURE, result, latencyMs, providerName);
-
-        // Sonuca göre güncelle
-        if (result.status() == AttemptStatus.SUCCESS) {
-            payment.setStatus(PaymentStatus.CAPTURED);
-            
-            // Transaction kaydet
-            saveTransaction(payment.getId(), OperationType.CAPTURE, captureAmount, result.providerReference());
-            
-            publishEvent(payment, "PaymentCaptured");
-            log.info("Payment captured successfully - paymentId: {}, amount: {}", paymentId, captureAmount);
-        } else {
-            log.warn("Payment capture failed - paymentId: {}, error: {}", paymentId, result.errorMessage());
-            throw new ProviderException(providerName, result.errorCode(), result.errorMessage());
+        ProviderResult result;
+        try {
+            result = invokeProvider(call, provider -> providerInvoker.refund(provider, new RefundContext(
+                    paymentId,
+                    payment.getProviderReference(),
+                    refundAmount,
+                    payment.getCurrency(),
+                    reason
+            )));
+        } catch (ProviderBusyException e) {
+            // Rezervasyon bırakılır, durum bakiyelerden yeniden hesaplanır
+            throw abandonInFlight(paymentId, PaymentStatus.REFUNDING, e, current -> {
+                if (current.getPendingRefundAmount().compareTo(refundAmount) < 0) {
+                    throw new ConcurrentPaymentUpdateException(paymentId);
+                }
+                current.setPendingRefundAmount(current.getPendingRefundAmount().subtract(refundAmount));
+                current.setStatus(settledRefundStatus(current));
+            });
         }
+        long latencyMs = System.currentTimeMillis() - startTime;
+        recordProviderCall(call.providerName(), OperationType.REFUND, result, latencyMs);
 
-        payment = paymentRepository.save(payment);
-        PaymentResponse response = toResponse(payment);
+        // Faz 3: Sonucu kaydet
+        InFlightOutcome outcome = completeInFlight(paymentId, PaymentStatus.REFUNDING, current -> {
+            if (current.getPendingRefundAmount().compareTo(refundAmount) < 0) {
+                // Rezervasyon bu arada elle (mutabakatta) bırakılmış
+                throw new ConcurrentPaymentUpdateException(paymentId);
+            }
+            PaymentStatus from = current.getStatus();
+            persistAttempt(current.getId(), OperationType.REFUND, result, latencyMs, call.providerName());
+            current.setPendingRefundAmount(current.getPendingRefundAmount().subtract(refundAmount));
+
+            if (result.status() == AttemptStatus.SUCCESS) {
+                current.setRefundedAmount(current.getRefundedAmount().add(refundAmount));
+                current.setStatus(settledRefundStatus(current, from));
+                
+                // Transaction kaydet
+                saveTransaction(current.getId(), OperationType.REFUND, refundAmount, result.providerReference());
+                
+                publishEvent(current, "PaymentRefunded");
+                log.info("Payment refunded successfully - paymentId: {}, amount: {}", paymentId, refundAmount);
+                return true;
+            }
+            // Başarısız refund: rezervasyon bırakılır, durum bakiyelerden yeniden hesaplanır
+            current.setStatus(settledRefundStatus(current, from));
+            return false;
+        }, reservation);
 
-        // Idempotency kaydet
-        if (idempotencyKey != null) {
-            saveIdempotency(idempotencyKey, request, response);
+        if (outcome.result() == null) {
+            log.warn("Payment refund failed - paymentId: {}, error: {}", paymentId, result.errorMessage());
+            throw new ProviderException(call.providerName(), result.errorCode(), result.errorMessage());
         }
 
-        return response;
+        return outcome.result();
     }
 
-    // ========== REFUND ==========
-
-    @Transactional
-    public PaymentResponse refund(UUID paymentId, String merchantId, RefundPaymentRequest request, String idempotencyKey) {
-        log.info("Refunding payment - paymentId: {}, amount: {}", paymentId, request != null ? request.amount() : "full");
+    /**
+     * Faz 1 (refund): iade edilebilir bakiyeyi kontrol edip tutarı rezerve eder. Tutar verilmezse kalan bakiye iade edilir.
+     */
+    private PendingRefund reserveRefund(UUID paymentId, String merchantId, BigDecimal requested) {
+        return transactionTemplate.execute(tx -> {
+            PaymentEntity payment = getPaymentForMerchant(paymentId, merchantId);
+            PaymentStatus previousStatus = payment.getStatus();
+            if (!REFUNDABLE.contains(previousStatus)) {
+                throw new InvalidPaymentStateException(paymentId, previousStatus, "CAPTURED or PARTIALLY_REFUNDED");
+            }
 
-        // Idempotency kontrolü
-        if (idempotencyKey != null) {
-            Optional<String> cachedResponse = checkIdempotency(idempotencyKey, request);
-            if (cachedResponse.isPresent()) {
-                log.info("Returning cached response for idempotencyKey: {}", idempotencyKey);
-                return deserialize(cachedResponse.get(), PaymentResponse.class);
+            BigDecimal refundable = payment.getCapturedAmount()
+                    .subtract(payment.getRefundedAmount())
+                    .subtract(payment.getPendingRefundAmount());
+            BigDecimal amount = requested != null ? requested : refundable;
+            if (amount.signum() <= 0 || amount.compareTo(refundable) > 0) {
+                throw new RefundAmountExceededException(paymentId, amount, refundable);
             }
-        }
 
-        // Payment bul ve kontrol et
-        PaymentEntity payment = getPaymentForMerchant(paymentId, merchantId);
-        
-        if (payment.getStatus() != PaymentStatus.CAPTURED && payment.getStatus() != PaymentStatus.PARTIALLY_REFUNDED) {
-            throw new InvalidPaymentStateException(paymentId, payment.getStatus(), "CAPTURED or PARTIALLY_REFUNDED");
+            ProviderChoice choice = resolveAuthorizeProvider(payment, "Refund");
+            payment.setPendingRefundAmount(payment.getPendingRefundAmount().add(amount));
+            payment.setStatus(PaymentStatus.REFUNDING);
+            payment = paymentRepository.save(payment);
+            return new PendingRefund(new PendingCall(payment, previousStatus, choice.provider(), choice.providerName()), amount);
+        });
+    }
+
+    /**
+     * Bekleyen refund kalmadıysa bakiyelere göre son durum; kaldıysa REFUNDING.
+     */
+    private static PaymentStatus settledRefundStatus(PaymentEntity payment) {
+        if (payment.getPendingRefundAmount().signum() > 0) {
+            return PaymentStatus.REFUNDING;
+        }
+        if (payment.getRefundedAmount().signum() == 0) {
+            return PaymentStatus.CAPTURED;
         }
+        return payment.getRefundedAmount().compareTo(payment.getCapturedAmount()) >= 0
+                ? PaymentStatus.REFUNDED
+                : PaymentStatus.PARTIALLY_REFUNDED;
+    }
 
-        BigDecimal refundAmount = (request != null && request.amount() != null) 
-                ? request.amount() 
-                : payment.getAmount();
-        
-        String reason = (request != null) ? request.reason() : null;
+    /**
+     * İnceleme bekleyen payment'ta sonucu gelen refund dışında rezervasyon kaldıysa onların sonucu da
+     * bilinmiyordur; payment incelemede kalır.
+     */
+    private static PaymentStatus settledRefundStatus(PaymentEntity payment, PaymentStatus from) {
+        PaymentStatus settled = settledRefundStatus(payment);
+        return from == PaymentStatus.REQUIRES_REVIEW && settled == PaymentStatus.REFUNDING
+                ? PaymentStatus.REQUIRES_REVIEW
+                : settled;
+    }
 
-        // Authorize'da kullanılan provider'ı bul
-        String providerName = getLastAuthorizeProvider(paymentId);
-        PaymentProviderAdapter provider = providerAdapters.get(providerName);
-        if (provider == null) {
-            provider = providerAdapters.values().iterator().next(); // fallback
-            providerName = provider.providerName();
+    /**
+     * Optimistic version çakışmasında işlemi yeniden dener; her denemede payment taze okunur.
+     */
+    private <T> T retryOnVersionConflict(UUID paymentId, Supplier<T> operation) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return operation.get();
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_VERSION_RETRIES) {
+                    throw new ConcurrentPaymentUpdateException(paymentId);
+                }
+                log.debug("Version conflict, retrying - paymentId: {}, attempt: {}", paymentId, attempt);
+            }
         }
-        log.info("Refund için provider: {}", providerName);
-
-        // Provider'a refund isteği
-        long startTime = System.currentTimeMillis();
-        ProviderResult result = provider.refund(new RefundContext(
-                paymentId,
-                payment.getProviderReference(),
-                refundAmount,
-                payment.getCurrency(),
-                reason
-        ));
-        long latencyMs = System.currentTimeMillis() - startTime;
+    }
 
-        // Attempt kaydet
-        saveAttempt(payment.getId(), OperationType.REFUND, result, latencyMs, providerName);
+    // ========== RECOVERY ==========
 
-        // Sonuca göre güncelle
-        if (result.status() == AttemptStatus.SUCCESS) {
-            // Tam iade mi kısmi iade mi?
-            BigDecimal totalRefunded = calculateTotalRefunded(payment.getId()).add(refundAmount);
-            
-            if (totalRefunded.compareTo(payment.getAmount()) >= 0) {
-                payment.setStatus(PaymentStatus.REFUNDED);
-            } else {
-                payment.setStatus(PaymentStatus.PARTIALLY_REFUNDED);
+    /**
+     * Uygulama provider çağrısı sırasında düştüyse payment in-flight durumda kalır.
+     * Provider'da işlemin sonucu bilinemez:
+     * - AUTHORIZING → FAILED; gerçekleşmiş bir authorize para hareketi değildir, provider'da kendiliğinden düşer.
+     * - CAPTURING / REFUNDING → REQUIRES_REVIEW; capture / refund gerçekleşmiş olabilir. Bakiyeler ve
+     *   bekleyen refund rezervasyonları olduğu gibi kalır ki tekrar capture / refund yapılamasın.
+     *   Geç gelen Faz 3 sonucu payment'ı normal şekilde çözer, gelmezse mutabakatla çözülür.
+     *
+     * @return payment çözüldüyse true, bu arada başka bir akış tamamladıysa false
+     */
+    public boolean recoverInFlight(UUID paymentId, OffsetDateTime staleBefore) {
+        Boolean recovered = transactionTemplate.execute(tx -> {
+            PaymentEntity payment = paymentRepository.findById(paymentId)
+                    .orElseThrow(() -> new PaymentNotFoundException(paymentId));
+            PaymentStatus stuck = payment.getStatus();
+            if (!stuck.isInFlight() || payment.getUpdatedAt().isAfter(staleBefore)) {
+                return false;
             }
-            
-            // Transaction kaydet
-            saveTransaction(payment.getId(), OperationType.REFUND, refundAmount, result.providerReference());
-            
-            publishEvent(payment, "PaymentRefunded");
-            log.info("Payment refunded successfully - paymentId: {}, amount: {}", paymentId, refundAmount);
-        } else {
-            log.warn("Payment refund failed - paymentId: {}, error: {}", paymentId, result.errorMessage());
-            throw new ProviderException(providerName, result.errorCode(), result.errorMessage());
-        }
 
-        payment = paymentRepository.save(payment);
-        PaymentResponse response = toResponse(payment);
+            OperationType operation;
+            switch (stuck) {
+                case AUTHORIZING -> {
+                    operation = OperationType.AUTHORIZE;
+                    payment.setStatus(PaymentStatus.FAILED);
+                    publishEvent(payment, "PaymentFailed");
+                }
+                case CAPTURING -> {
+                    operation = OperationType.CAPTURE;
+                    payment.setStatus(PaymentStatus.REQUIRES_REVIEW);
+                }
+                default -> {
+                    operation = OperationType.REFUND;
+                    payment.setStatus(PaymentStatus.REQUIRES_REVIEW);
+                }
+            }
 
-        // Idempotency kaydet
-        if (idempotencyKey != null) {
-            saveIdempotency(idempotencyKey, request, response);
-        }
+            String providerName = payment.getProviderName() != null ? payment.getProviderName() : UNKNOWN_PROVIDER;
+            ProviderResult timeout = new ProviderResult(AttemptStatus.TIMEOUT, null, "IN_FLIGHT_RECOVERED",
+                    "Payment was left in " + stuck + " and resolved by recovery", false, null);
+            persistAttempt(paymentId, operation, timeout, 0, providerName);
+            paymentMetrics.recordAttempt(providerName, operation, AttemptStatus.TIMEOUT, 0);
 
-        return response;
+            paymentRepository.save(payment);
+            paymentMetrics.recordStatusChange(stuck, payment.getStatus());
+            log.warn("Recovered in-flight payment - paymentId: {}, {} -> {}", paymentId, stuck, payment.getStatus());
+            return true;
+        });
+        return Boolean.TRUE.equals(recovered);
     }
 
     // ========== QUERY ==========
@@ -345,15 +500,121 @@ public class PaymentOrchestrator {
     // ========== HELPER METHODS ==========
 
     /**
-     * Authorize işleminde kullanılan provider'ı bul.
-     * Capture ve Refund için aynı provider kullanılmalı.
+     * Faz 1: Payment'ı kısa bir transaction içinde in-flight duruma çeker.
+     * Aynı payment için eşzamanlı gelen ikinci istek version çakışmasıyla reddedilir.
+     */
+    private PendingCall markInFlight(UUID paymentId, String merchantId, PaymentStatus inFlightStatus, String expectedStatus,
+                                     Set<PaymentStatus> allowed, Function<PaymentEntity, ProviderChoice> selectProvider) {
+        try {
+            return transactionTemplate.execute(tx -> {
+                PaymentEntity payment = getPaymentForMerchant(paymentId, merchantId);
+                PaymentStatus previousStatus = payment.getStatus();
+                if (!allowed.contains(previousStatus)) {
+                    throw new InvalidPaymentStateException(paymentId, previousStatus, expectedStatus);
+                }
+
+                ProviderChoice choice = selectProvider.apply(payment);
+                payment.setStatus(inFlightStatus);
+                payment = paymentRepository.save(payment);
+                paymentMetrics.recordStatusChange(previousStatus, inFlightStatus);
+                return new PendingCall(payment, previousStatus, choice.provider(), choice.providerName());
+            });
+        } catch (OptimisticLockingFailureException e) {
+            throw new ConcurrentPaymentUpdateException(paymentId);
+        }
+    }
+
+    /**
+     * Provider çağrısını {@link ProviderInvoker} üzerinden, deadline ile yapar.
+     * Exception sonuca çevrilir ki payment in-flight durumda kalmasın. {@link ProviderBusyException} hariç:
+     * çağrı hiç yapılmadığı için sonuç yoktur, çağıran {@link #abandonInFlight} ile payment'ı geri alır.
+     * {@link ProviderCallInterruptedException} de sonuç değildir: çağrı gitmiş olabileceği için payment geri
+     * alınmaz, in-flight kalır ve recovery job'a bırakılır; attempt ve health kaydı yazılmaz.
+     */
+    private ProviderResult invokeProvider(PendingCall call, Function<PaymentProviderAdapter, ProviderResult> operation) {
+        try {
+            return operation.apply(call.provider());
+        } catch (ProviderBusyException | ProviderCallInterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Provider call failed - provider: {}, paymentId: {}", call.providerName(), call.payment().getId(), e);
+            return ProviderResult.failure(ProviderResult.PROVIDER_ERROR, e.getMessage());
+        }
+    }
+
+    /**
+     * Provider çağrısı yapılamadığında (köprü dolu) Faz 1'i geri alır. Attempt, event ve health kaydı yazılmaz;
+     * dönen exception fırlatılınca idempotency rezervasyonu bırakılır ve istek 503 ile tekrar denenebilir.
+     *
+     * @param undo payment'ı in-flight öncesi durumuna döndürür
      */
-    private String getLastAuthorizeProvider(UUID paymentId) {
-        return attemptRepository.findByPaymentIdOrderByCreatedAtDesc(paymentId).stream()
-                .filter(a -> a.getOperation() == OperationType.AUTHORIZE && a.getStatus() == AttemptStatus.SUCCESS)
-                .findFirst()
-                .map(PaymentAttemptEntity::getProvider)
-                .orElse("MOCK_PROVIDER");
+    private ProviderBusyException abandonInFlight(UUID paymentId, PaymentStatus inFlightStatus, ProviderBusyException busy,
+                                                  Consumer<PaymentEntity> undo) {
+        log.warn("Provider call not attempted, bridge is full - paymentId: {}, status: {}", paymentId, inFlightStatus);
+        completeInFlight(paymentId, inFlightStatus, current -> {
+            undo.accept(current);
+            return false;
+        }, null);
+        return busy;
+    }
+
+    /**
+     * Faz 3: Provider sonucunu kısa bir transaction içinde yazar.
+     * Recovery job payment'ı REQUIRES_REVIEW'a aldıysa geç gelen sonuç yine yazılır ve incelemeyi çözer;
+     * payment bu arada başka bir duruma geçmişse sonuç yazılmaz.
+     * Version çakışmasında (örn. aynı payment'ta eşzamanlı refund'lar) transaction taze payment ile tekrarlanır;
+     * apply bu yüzden sadece DB'ye yazmalı, metrikler transaction dışında kaydedilir.
+     *
+     * @param apply payment'ı günceller; başarılı sonuçlarda true döner (response sadece o zaman serialize edilir
+     *              ve idempotency rezervasyonu tamamlanır)
+     */
+    private InFlightOutcome completeInFlight(UUID paymentId, PaymentStatus inFlightStatus, Function<PaymentEntity, Boolean> apply,
+                                           Reservation reservation) {
+        InFlightOutcome outcome = retryOnVersionConflict(paymentId, () -> transactionTemplate.execute(tx -> {
+            PaymentEntity payment = paymentRepository.findById(paymentId)
+                    .orElseThrow(() -> new PaymentNotFoundException(paymentId));
+            PaymentStatus from = payment.getStatus();
+            if (from != inFlightStatus && from != PaymentStatus.REQUIRES_REVIEW) {
+                throw new ConcurrentPaymentUpdateException(paymentId);
+            }
+
+            boolean succeeded = apply.apply(payment);
+            payment = paymentRepository.save(payment);
+
+            if (!succeeded) {
+                return new InFlightOutcome(payment, null, from);
+            }
+            // Idempotency rezervasyonunu tamamla; aynı byte'lar HTTP response olarak döner
+            PaymentResponse response = toResponse(payment);
+            byte[] json = serialize(response);
+            idempotencyService.complete(reservation, json);
+            return new InFlightOutcome(payment, new PaymentResult(response, json), from);
+        }));
+        if (outcome.payment().getStatus() != outcome.from()) {
+            paymentMetrics.recordStatusChange(outcome.from(), outcome.payment().getStatus());
+        }
+        return outcome;
+    }
+
+    /**
+     * Tutar verilmezse authorize edilen tutarın tamamı capture edilir.
+     */
+    private static BigDecimal captureAmount(PaymentEntity payment, CapturePaymentRequest request) {
+        return (request != null && request.amount() != null) ? request.amount() : payment.getAmount();
+    }
+
+    /**
+     * Capture ve refund, authorize'da seçilip payment'a yazılan provider ile yapılır.
+     */
+    private ProviderChoice resolveAuthorizeProvider(PaymentEntity payment, String operation) {
+        String providerName = payment.getProviderName();
+        PaymentProviderAdapter provider = providerName != null ? providerAdapters.get(providerName) : null;
+        if (provider == null) {
+            provider = providerAdapters.values().iterator().next(); // fallback
+            providerName = provider.providerName();
+        }
+        log.info("{} için provider: {}", operation, providerName);
+        return new ProviderChoice(provider, providerName);
     }
 
     private PaymentEntity getPaymentForMerchant(UUID paymentId, String merchantId) {
@@ -367,27 +628,53 @@ public class PaymentOrchestrator {
         return payment;
     }
 
-    private Optional<String> checkIdempotency(String key, Object request) {
-        return idempotencyService.find(key).map(record -> {
-            String requestHash = idempotencyService.hash(serialize(request));
-            if (!record.getRequestHash().equals(requestHash)) {
-                throw new IdempotencyConflictException(key);
-            }
-            return record.getResponseBody();
-        });
+    /**
+     * Idempotency key varsa istek başında rezerve eder; aynı key ile tamamlanmış bir istek varsa
+     * response'unu döner. İşlem hata ile biterse rezervasyon bırakılır (tekrar denenebilir).
+     */
+    private PaymentResult withIdempotency(String idempotencyKey, Supplier<byte[]> fingerprint,
+                                          Function<Reservation, PaymentResult> operation) {
+        if (idempotencyKey == null) {
+            return operation.apply(null);
+        }
+
+        Reservation reservation = idempotencyService.reserve(idempotencyKey, fingerprint.get());
+        if (reservation.isReplay()) {
+            log.info("Returning cached response for idempotencyKey: {}", idempotencyKey);
+            // Byte'lar aynen döner; DTO sadece isteyen olursa parse edilir
+            return PaymentResult.replay(reservation.replayResponse(), json -> deserialize(json, PaymentResponse.class));
+        }
+
+        try {
+            return operation.apply(reservation);
+        } catch (RuntimeException e) {
+            idempotencyService.release(reservation);
+            throw e;
+        }
     }
 
-    private void saveIdempotency(String key, Object request, Object response) {
-        idempotencyService.save(
-                key,
-                idempotencyService.hash(serialize(request)),
-                serialize(response)
-        );
+    /**
+     * HTTP katmanının hesapladığı parmak izi yoksa DTO bir kez serialize edilip hesaplanır.
+     */
+    private byte[] fingerprint(byte[] requestFingerprint, String scope, Object request) {
+        return requestFingerprint != null ? requestFingerprint : RequestFingerprint.of(scope, serialize(request));
     }
 
-    private void saveAttempt(UUID paymentId, OperationType operation, ProviderResult result, long latencyMs, String providerName) {
+    /**
+     * Provider çağrısının metrikleri; sonucu yazan transaction tekrar denenebildiği için onun dışında bir kez kaydedilir.
+     */
+    private void recordProviderCall(String providerName, OperationType operation, ProviderResult result, long latencyMs) {
+        paymentMetrics.recordAttempt(providerName, operation, result.status(), latencyMs);
+        paymentMetrics.recordProviderLatency(providerName, operation, latencyMs);
+        gatewayMetrics.recordProviderCall(providerName, operation, result.status(), latencyMs);
+
+        // Canlı sonucu circuit breaker penceresine yansıt
+        providerHealthRegistry.recordOutcome(providerName, result, latencyMs);
+    }
+
+    private void persistAttempt(UUID paymentId, OperationType operation, ProviderResult result, long latencyMs, String providerName) {
         PaymentAttemptEntity attempt = PaymentAttemptEntity.builder()
-                .id(UUID.randomUUID())
+                .id(UuidV7.next())
                 .paymentId(paymentId)
                 .provider(providerName)
                 .operation(operation)
@@ -403,7 +690,7 @@ public class PaymentOrchestrator {
 
     private void saveTransaction(UUID paymentId, OperationType type, BigDecimal amount, String providerReference) {
         TransactionEntity transaction = TransactionEntity.builder()
-                .id(UUID.randomUUID())
+                .id(UuidV7.next())
                 .paymentId(paymentId)
                 .type(type)
                 .amount(amount)
@@ -414,24 +701,24 @@ public class PaymentOrchestrator {
         transactionRepository.save(transaction);
     }
 
-    private BigDecimal calculateTotalRefunded(UUID paymentId) {
-        return transactionRepository.findByPaymentIdOrderByCreatedAtDesc(paymentId).stream()
-                .filter(t -> t.getType() == OperationType.REFUND)
-                .map(TransactionEntity::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    private void publishEvent(PaymentEntity payment, String eventType) {
+        publishEvent(payment, eventType, serialize(toResponse(payment)));
     }
 
-    private void publishEvent(PaymentEntity payment, String eventType) {
+    private void publishEvent(PaymentEntity payment, String eventType, byte[] payload) {
         OutboxEventEntity event = OutboxEventEntity.builder()
-                .id(UUID.randomUUID())
+                .id(UuidV7.next())
                 .aggregateType("Payment")
                 .aggregateId(payment.getId())
                 .eventType(eventType)
-                .payload(serialize(toResponse(payment)))
+                .payload(new String(payload, StandardCharsets.UTF_8))
                 .status(OutboxStatus.NEW)
                 .build();
         
         outboxEventRepository.save(event);
+
+        // Commit sonrası outbox worker'larını polling beklemeden uyandır
+        outboxNotifier.notifyAfterCommit(event.getId());
     }
 
     private PaymentResponse toResponse(PaymentEntity entity) {
@@ -462,19 +749,36 @@ public class PaymentOrchestrator {
         return local.charAt(0) + "***" + local.charAt(local.length() - 1) + "@" + parts[1];
     }
 
-    private String serialize(Object obj) {
+    private byte[] serialize(Object obj) {
         try {
-            return objectMapper.writeValueAsString(obj);
+            return objectMapper.writeValueAsBytes(obj);
         } catch (JsonProcessingException e) {
             throw new RuntimeException("Failed to serialize object", e);
         }
     }
 
-    private <T> T deserialize(String json, Class<T> clazz) {
+    private <T> T deserialize(byte[] json, Class<T> clazz) {
         try {
             return objectMapper.readValue(json, clazz);
-        } catch (JsonProcessingException e) {
+        } catch (IOException e) {
             throw new RuntimeException("Failed to deserialize object", e);
         }
     }
+
+    /** Faz 3'ün sonucu: güncel payment ve başarılıysa serialize edilmiş response */
+    private record InFlightOutcome(PaymentEntity payment, PaymentResult result, PaymentStatus from) {}
+
+    /** Faz 1'de seçilen provider */
+    private record ProviderChoice(PaymentProviderAdapter provider, String providerName) {}
+
+    /** Refund'ın Faz 1 sonucu: in-flight çağrı ve pending bakiyeye rezerve edilen tutar */
+    private record PendingRefund(PendingCall call, BigDecimal amount) {}
+
+    /** Faz 1'in sonucu: in-flight'a çekilen payment ve çağrılacak provider */
+    private record PendingCall(
+        PaymentEntity payment,
+        PaymentStatus previousStatus,
+        PaymentProviderAdapter provider,
+        String providerName
+    ) {}
 }
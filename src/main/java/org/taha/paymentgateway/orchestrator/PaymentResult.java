@@ -0,0 +1,55 @@
+package org.taha.paymentgateway.orchestrator;
+
+import org.taha.paymentgateway.api.dto.response.PaymentResponse;
+
+import java.util.function.Function;
+
+/**
+ * Create / authorize / capture / refund sonucu.
+ *
+ * Response bir kez serialize edilir; aynı byte'lar idempotency kaydına yazılır ve HTTP response
+ * olarak gönderilir. Tekrar oynatılan istek ilk response'un birebir aynısını alır; DTO sadece
+ * {@link #response()} çağrılırsa parse edilir, HTTP yolu byte'ları doğrudan yazar.
+ */
+public final class PaymentResult {
+
+    private final byte[] json;
+    private final Function<byte[], PaymentResponse> reader;
+    private volatile PaymentResponse response;
+
+    /**
+     * @param response payment DTO
+     * @param json     response'un JSON hali (paylaşılan dizi, değiştirilmemeli)
+     */
+    public PaymentResult(PaymentResponse response, byte[] json) {
+        this.response = response;
+        this.json = json;
+        this.reader = null;
+    }
+
+    private PaymentResult(byte[] json, Function<byte[], PaymentResponse> reader) {
+        this.json = json;
+        this.reader = reader;
+    }
+
+    /**
+     * Saklanmış response'u tekrar oynatır; DTO ilk {@link #response()} çağrısında reader ile parse edilir.
+     */
+    public static PaymentResult replay(byte[] json, Function<byte[], PaymentResponse> reader) {
+        return new PaymentResult(json, reader);
+    }
+
+    public PaymentResponse response() {
+        PaymentResponse current = response;
+        if (current == null) {
+            current = reader.apply(json);
+            response = current;
+        }
+        return current;
+    }
+
+    /** Response'un JSON hali; paylaşılan dizi, değiştirilmemeli */
+    public byte[] json() {
+        return json;
+    }
+}
@@ -0,0 +1,195 @@
+package org.taha.paymentgateway.orchestrator;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.core.exception.ProviderBusyException;
+import org.taha.paymentgateway.core.exception.ProviderCallInterruptedException;
+import org.taha.paymentgateway.provider.adapter.AsyncPaymentProviderAdapter;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.*;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Provider çağrılarını deadline ile yapar.
+ *
+ * - {@link AsyncPaymentProviderAdapter} implement eden adapter'lar async metodlarıyla, deadline verilerek çağrılır.
+ * - Bloklayan adapter'lar bir köprü executor'ında çalışır. JVM destekliyorsa (21+) ve provider.bridge.virtual-threads
+ *   açıksa köprü virtual thread'dir; eşzamanlı çağrı sınırı (provider.bridge.threads) bir Semaphore ile uygulanır.
+ *   Aksi halde sınırlı bir platform thread havuzu (provider.bridge.threads + queue-capacity) kullanılır.
+ * - Sınır doluysa çağrı yapılmaz ve {@link ProviderBusyException} fırlatılır; bu acquirer cevabı değil
+ *   gateway'in kendi yük atmasıdır, orchestrator payment'ı geri alır.
+ * - Deadline geçerse sonuç TIMEOUT olur ve çağrı cancel edilir (köprülenen çağrının thread'i interrupt edilir).
+ * - Bekleyen request thread'i interrupt edilirse çağrı cancel edilir, interrupt flag'i korunur ve
+ *   {@link ProviderCallInterruptedException} fırlatılır; bu bir provider sonucu (TIMEOUT) değildir.
+ *
+ * Request thread'i sonucu ya da deadline'ı bekler; orchestrator'ın transaction'ları senkron olduğu için
+ * sonuç aynı thread'de yazılır. Bloklayan adapter'larda bu çağrı başına ikinci bir thread demektir,
+ * köprünün varsayılan olarak virtual thread olmasının sebebi budur.
+ */
+@Slf4j
+@Component
+public class ProviderInvoker {
+
+    @Value("${provider.call.timeout-ms:10000}")
+    private long timeoutMs;
+
+    /**
+     * Aynı anda çalışabilecek bloklayan provider çağrısı sayısı. Virtual thread modunda OS thread sayısı değildir.
+     */
+    @Value("${provider.bridge.threads:64}")
+    private int bridgeThreads;
+
+    @Value("${provider.bridge.queue-capacity:256}")
+    private int bridgeQueueCapacity;
+
+    @Value("${provider.bridge.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    private Executor bridge;
+
+    /**
+     * Virtual thread modunda eşzamanlı çağrı sınırı; platform havuzunda sınırı havuz kendisi uygular (null).
+     */
+    private Semaphore permits;
+
+    @PostConstruct
+    void init() {
+        if (virtualThreads && Runtime.version().feature() >= 21) {
+            bridge = new VirtualThreadTaskExecutor("provider-call-");
+            permits = new Semaphore(bridgeThreads);
+            log.info("Provider invoker started - timeout: {}ms, virtual thread bridge, max concurrent calls: {}",
+                    timeoutMs, bridgeThreads);
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(bridgeThreads, bridgeThreads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(bridgeQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "provider-call-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        bridge = pool;
+        permits = null;
+        log.info("Provider invoker started - timeout: {}ms, bridge threads: {}, queue: {}",
+                timeoutMs, bridgeThreads, bridgeQueueCapacity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (bridge instanceof ExecutorService pool) {
+            pool.shutdownNow();
+        }
+    }
+
+    public ProviderResult authorize(PaymentProviderAdapter provider, AuthorizeContext context) {
+        Instant deadline = deadline();
+        return await(provider, context.paymentId(), deadline, provider instanceof AsyncPaymentProviderAdapter async
+                ? async.authorizeAsync(context, deadline)
+                : bridged(provider, () -> provider.authorize(context)));
+    }
+
+    public ProviderResult capture(PaymentProviderAdapter provider, CaptureContext context) {
+        Instant deadline = deadline();
+        return await(provider, context.paymentId(), deadline, provider instanceof AsyncPaymentProviderAdapter async
+                ? async.captureAsync(context, deadline)
+                : bridged(provider, () -> provider.capture(context)));
+    }
+
+    public ProviderResult refund(PaymentProviderAdapter provider, RefundContext context) {
+        Instant deadline = deadline();
+        return await(provider, context.paymentId(), deadline, provider instanceof AsyncPaymentProviderAdapter async
+                ? async.refundAsync(context, deadline)
+                : bridged(provider, () -> provider.refund(context)));
+    }
+
+    private Instant deadline() {
+        return Instant.now().plusMillis(timeoutMs);
+    }
+
+    /**
+     * Bloklayan çağrıyı köprü executor'ında çalıştırır. Dönen future cancel edilirse çalışan thread interrupt edilir.
+     * Virtual thread modunda izin çağrı bitene kadar tutulur; başlamadan cancel edilen çağrının izni hemen bırakılır.
+     *
+     * @throws ProviderBusyException eşzamanlı çağrı sınırı doluysa (adapter çağrılmaz)
+     */
+    private CompletableFuture<ProviderResult> bridged(PaymentProviderAdapter provider, Supplier<ProviderResult> call) {
+        if (permits != null && !permits.tryAcquire()) {
+            throw new ProviderBusyException(provider.providerName());
+        }
+        AtomicBoolean permitHeld = new AtomicBoolean(permits != null);
+        AtomicBoolean started = new AtomicBoolean();
+        CompletableFuture<ProviderResult> result = new CompletableFuture<>();
+        FutureTask<Void> task = new FutureTask<>(() -> {
+            started.set(true);
+            try {
+                result.complete(call.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                releasePermit(permitHeld);
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                if (isCancelled() && !started.get()) {
+                    releasePermit(permitHeld);
+                }
+            }
+        };
+        try {
+            bridge.execute(task);
+        } catch (RejectedExecutionException e) {
+            releasePermit(permitHeld);
+            throw new ProviderBusyException(provider.providerName());
+        }
+        result.whenComplete((ignored, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private void releasePermit(AtomicBoolean permitHeld) {
+        if (permitHeld.compareAndSet(true, false)) {
+            permits.release();
+        }
+    }
+
+    private ProviderResult await(PaymentProviderAdapter provider, UUID paymentId, Instant deadline,
+                                 CompletionStage<ProviderResult> stage) {
+        CompletableFuture<ProviderResult> future = stage.toCompletableFuture();
+        long remainingMs = Math.max(0, deadline.toEpochMilli() - System.currentTimeMillis());
+        try {
+            return future.get(remainingMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("Provider call timed out - provider: {}, paymentId: {}, timeout: {}ms",
+                    provider.providerName(), paymentId, timeoutMs);
+            return ProviderResult.timeout();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            log.warn("Provider call interrupted while waiting - provider: {}, paymentId: {}",
+                    provider.providerName(), paymentId);
+            throw new ProviderCallInterruptedException(provider.providerName());
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null
+                    ? e.getCause().getCause()
+                    : e.getCause();
+            log.error("Provider call failed - provider: {}, paymentId: {}", provider.providerName(), paymentId, cause);
+            return ProviderResult.failure(ProviderResult.PROVIDER_ERROR, cause.getMessage());
+        }
+    }
+}
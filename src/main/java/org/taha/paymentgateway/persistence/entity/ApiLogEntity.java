@@ -2,6 +2,7 @@ package org.taha.paymentgateway.persistence.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.taha.paymentgateway.persistence.support.UuidV7;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -55,7 +56,7 @@ public class ApiLogEntity {
 
     @PrePersist
     protected void onCreate() {
-        if (id == null) id = UUID.randomUUID();
+        if (id == null) id = UuidV7.next();
         if (createdAt == null) createdAt = OffsetDateTime.now();
     }
 }
@@ -0,0 +1,37 @@
+package org.taha.paymentgateway.persistence.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.persistence.MappedSuperclass;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Transient;
+import org.springframework.data.domain.Persistable;
+
+import java.util.UUID;
+
+/**
+ * Id'si uygulamada atanan (UuidV7), insert-yoğun entity'ler için ortak taban.
+ *
+ * Spring Data id'si dolu entity'yi varsayılan olarak mevcut kabul eder ve save()'de merge eder;
+ * merge de INSERT'ten önce bir SELECT atar. Burada yeni olma durumu JPA lifecycle'ından takip edilir:
+ * builder ile oluşturulan entity persist edilir (SELECT yok, INSERT JDBC batch'ine girer),
+ * DB'den yüklenen ya da bir kez kaydedilen entity merge edilir.
+ */
+@MappedSuperclass
+public abstract class AssignedIdEntity implements Persistable<UUID> {
+
+    @Transient
+    private transient boolean persisted;
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostPersist
+    @PostLoad
+    void markPersisted() {
+        persisted = true;
+    }
+}
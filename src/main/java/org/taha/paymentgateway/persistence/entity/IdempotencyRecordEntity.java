@@ -2,18 +2,21 @@ package org.taha.paymentgateway.persistence.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.taha.paymentgateway.core.model.IdempotencyStatus;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "idempotency_records")
+@Table(name = "idempotency_records", indexes = {
+    @Index(name = "idx_idempotency_created_at", columnList = "created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class IdempotencyRecordEntity {
+public class IdempotencyRecordEntity extends AssignedIdEntity {
 
     @Id
     @Column(columnDefinition = "BINARY(16)")
@@ -22,12 +25,25 @@ public class IdempotencyRecordEntity {
     @Column(name = "idempotency_key", nullable = false, length = 128, unique = true)
     private String idempotencyKey;
 
-    @Column(name = "request_hash", nullable = false, length = 128)
-    private String requestHash;
+    /** {@link org.taha.paymentgateway.idempotency.RequestFingerprint} (SHA-256) */
+    @Column(name = "request_hash", nullable = false, columnDefinition = "BINARY(32)")
+    private byte[] requestHash;
 
-    @Column(name = "response_body", nullable = false, columnDefinition = "TEXT")
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private IdempotencyStatus status;
+
+    /** Rezervasyonu tutan isteğin token'ı */
+    @Column(length = 64)
+    private String owner;
+
+    /** IN_PROGRESS iken null */
+    @Column(name = "response_body", columnDefinition = "TEXT")
     private String responseBody;
 
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private OffsetDateTime updatedAt;
 }
\ No newline at end of file
@@ -10,14 +10,17 @@ import java.util.UUID;
 @Entity
 @Table(name = "outbox_events", indexes = {
     @Index(name = "idx_outbox_status", columnList = "status"),
-    @Index(name = "idx_outbox_created_at", columnList = "created_at")
+    @Index(name = "idx_outbox_created_at", columnList = "created_at"),
+    @Index(name = "idx_outbox_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_outbox_lease_owner", columnList = "lease_owner"),
+    @Index(name = "idx_outbox_aggregate_id", columnList = "aggregate_id")
 })
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class OutboxEventEntity {
+public class OutboxEventEntity extends AssignedIdEntity {
 
     @Id
     @Column(columnDefinition = "BINARY(16)")
@@ -44,6 +47,17 @@ public class OutboxEventEntity {
     @Builder.Default
     private int retryCount = 0;
 
+    /** Event'i işlemek üzere sahiplenen node'un lease token'ı */
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private OffsetDateTime leaseExpiresAt;
+
+    /** Başarısız denemeden sonra en erken tekrar deneme zamanı (backoff) */
+    @Column(name = "next_attempt_at")
+    private OffsetDateTime nextAttemptAt;
+
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
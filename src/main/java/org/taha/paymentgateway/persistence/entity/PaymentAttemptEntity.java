@@ -17,7 +17,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class PaymentAttemptEntity {
+public class PaymentAttemptEntity extends AssignedIdEntity {
 
     @Id
     @Column(columnDefinition = "BINARY(16)")
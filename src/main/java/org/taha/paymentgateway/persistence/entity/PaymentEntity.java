@@ -12,7 +12,8 @@ import java.util.UUID;
 @Table(name = "payments", indexes = {
     @Index(name = "idx_payments_merchant_id", columnList = "merchant_id"),
     @Index(name = "idx_payments_order_id", columnList = "order_id"),
-    @Index(name = "idx_payments_status", columnList = "status")
+    @Index(name = "idx_payments_status", columnList = "status"),
+    @Index(name = "idx_payments_created_at", columnList = "created_at")
 })
 @Getter
 @Setter
@@ -53,7 +54,7 @@ public class PaymentEntity {
     @Column(name = "three_ds_session_id", columnDefinition = "BINARY(16)")
     private UUID threeDsSessionId;
 
-    @Column(name = "card_bin", length = 6)
+    @Column(name = "card_bin", length = 8)
     private String cardBin;
 
     @Column(name = "card_last_four", length = 4)
@@ -68,13 +69,32 @@ public class PaymentEntity {
     @Column(name = "net_amount", precision = 19, scale = 2)
     private BigDecimal netAmount;
 
+    /** Authorize'da seçilen provider; capture ve refund aynı provider ile yapılır */
     @Column(name = "provider_name", length = 64)
     private String providerName;
 
+    /** Capture edilen tutar; refund'lar transaction'lar taranmadan bu bakiyelere göre kontrol edilir */
+    @Column(name = "captured_amount", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal capturedAmount = BigDecimal.ZERO;
+
+    @Column(name = "refunded_amount", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal refundedAmount = BigDecimal.ZERO;
+
+    /** Provider'a gönderilmiş, sonucu henüz yazılmamış refund'ların toplamı */
+    @Column(name = "pending_refund_amount", nullable = false, precision = 19, scale = 2)
+    @Builder.Default
+    private BigDecimal pendingRefundAmount = BigDecimal.ZERO;
+
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 32)
     private PaymentStatus status;
 
+    /** Optimistic locking - aynı payment'a eşzamanlı iki işlem girmesini engeller */
+    @Version
+    private Long version;
+
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
@@ -35,7 +35,7 @@ public class RoutingRuleEntity {
     @Column(length = 3)
     private String currency;
 
-    @Column(name = "card_bin_prefix", length = 6)
+    @Column(name = "card_bin_prefix", length = 8)
     private String cardBinPrefix;
 
     @Column(name = "provider_name", nullable = false, length = 64)
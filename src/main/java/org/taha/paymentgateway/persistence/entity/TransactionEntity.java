@@ -17,7 +17,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class TransactionEntity {
+public class TransactionEntity extends AssignedIdEntity {
 
     @Id
     @Column(columnDefinition = "BINARY(16)")
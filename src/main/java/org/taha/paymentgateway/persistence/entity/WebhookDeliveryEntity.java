@@ -10,14 +10,18 @@ import java.util.UUID;
 @Entity
 @Table(name = "webhook_deliveries", indexes = {
     @Index(name = "idx_webhook_status", columnList = "status"),
-    @Index(name = "idx_webhook_next_retry", columnList = "next_retry_at")
+    @Index(name = "idx_webhook_next_retry", columnList = "next_retry_at"),
+    @Index(name = "idx_webhook_event_id", columnList = "event_id"),
+    @Index(name = "idx_webhook_status_created_at", columnList = "status, created_at"),
+    @Index(name = "idx_webhook_lease_owner", columnList = "lease_owner"),
+    @Index(name = "idx_webhook_merchant_status_created_at", columnList = "merchant_id, status, created_at")
 })
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class WebhookDeliveryEntity {
+public class WebhookDeliveryEntity extends AssignedIdEntity {
 
     @Id
     @Column(columnDefinition = "BINARY(16)")
@@ -50,6 +54,13 @@ public class WebhookDeliveryEntity {
     @Builder.Default
     private int retryCount = 0;
 
+    /** Delivery'yi göndermek üzere sahiplenen dispatcher turunun lease token'ı */
+    @Column(name = "lease_owner", length = 64)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private OffsetDateTime leaseExpiresAt;
+
     @Column(name = "next_retry_at")
     private OffsetDateTime nextRetryAt;
 
@@ -3,7 +3,6 @@ package org.taha.paymentgateway.persistence.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Query;
 import org.taha.paymentgateway.persistence.entity.ApiLogEntity;
 
 import java.util.List;
@@ -23,10 +22,4 @@ public interface ApiLogRepository extends JpaRepository<ApiLogEntity, UUID> {
     long countByResponseStatusBetween(int startStatus, int endStatus);
     
     long countByResponseStatusGreaterThanEqual(int status);
-    
-    @Query("SELECT AVG(a.latencyMs) FROM ApiLogEntity a WHERE a.latencyMs IS NOT NULL")
-    Double getAverageLatency();
-    
-    @Query("SELECT a.latencyMs FROM ApiLogEntity a WHERE a.latencyMs IS NOT NULL ORDER BY a.latencyMs")
-    List<Long> getAllLatenciesSorted();
 }
@@ -1,12 +1,46 @@
 package org.taha.paymentgateway.persistence.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.taha.paymentgateway.core.model.IdempotencyStatus;
 import org.taha.paymentgateway.persistence.entity.IdempotencyRecordEntity;
 
+import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecordEntity, UUID> {
 
     Optional<IdempotencyRecordEntity> findByIdempotencyKey(String idempotencyKey);
-}
\ No newline at end of file
+
+    /**
+     * Bayat IN_PROGRESS rezervasyonu (sahibi düşmüş) koşullu UPDATE ile devralır.
+     * Aynı anda devralmaya çalışan diğer istekler 0 satır günceller.
+     */
+    @Modifying
+    @Query("""
+            UPDATE IdempotencyRecordEntity r SET r.owner = :owner, r.requestHash = :requestHash, r.updatedAt = :now
+            WHERE r.idempotencyKey = :key AND r.status = :status AND r.updatedAt < :staleBefore""")
+    int takeOver(String key, IdempotencyStatus status, String owner, byte[] requestHash,
+                 OffsetDateTime now, OffsetDateTime staleBefore);
+
+    /**
+     * Rezervasyonu response ile tamamlar. Rezervasyon bu arada devralındıysa 0 döner.
+     */
+    @Modifying
+    @Query("""
+            UPDATE IdempotencyRecordEntity r SET r.status = :completed, r.responseBody = :responseBody, r.updatedAt = :now
+            WHERE r.idempotencyKey = :key AND r.owner = :owner AND r.status = :inProgress""")
+    int complete(String key, String owner, String responseBody, IdempotencyStatus inProgress,
+                 IdempotencyStatus completed, OffsetDateTime now);
+
+    /**
+     * Başarısız isteğin rezervasyonunu siler; aynı key ile tekrar denenebilir.
+     */
+    @Modifying
+    @Query("""
+            DELETE FROM IdempotencyRecordEntity r
+            WHERE r.idempotencyKey = :key AND r.owner = :owner AND r.status = :status""")
+    int deleteReservation(String key, String owner, IdempotencyStatus status);
+}
@@ -1,17 +1,88 @@
 package org.taha.paymentgateway.persistence.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.taha.paymentgateway.core.model.OutboxStatus;
 import org.taha.paymentgateway.persistence.entity.OutboxEventEntity;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface OutboxEventRepository extends JpaRepository<OutboxEventEntity, UUID> {
     
     List<OutboxEventEntity> findByStatusOrderByCreatedAtAsc(OutboxStatus status);
-    
-    @Query("SELECT e FROM OutboxEventEntity e WHERE e.status = :status AND e.retryCount < :maxRetries ORDER BY e.createdAt ASC")
-    List<OutboxEventEntity> findPendingEvents(OutboxStatus status, int maxRetries);
+
+    /**
+     * Sahiplenilebilir event id'leri (createdAt sırasıyla).
+     * Aynı aggregate'in daha eski bir event'i bu sonuçla birlikte sahiplenilemiyorsa (backoff'ta, başka node'da
+     * lease altında ya da retry'ları tükenmiş) sonraki event'ler atlanır, böylece aggregate başına sıra korunur.
+     * Sahiplenilebilir eski event'ler createdAt sırası gereği aynı sayfada, sonrakilerden önce gelir.
+     */
+    @Query("""
+            SELECT e.id FROM OutboxEventEntity e
+            WHERE e.status = :status AND e.retryCount < :maxRetries
+              AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now)
+              AND (e.leaseExpiresAt IS NULL OR e.leaseExpiresAt < :now)
+              AND NOT EXISTS (
+                  SELECT p.id FROM OutboxEventEntity p
+                  WHERE p.aggregateId = e.aggregateId AND p.status = :status AND p.createdAt < e.createdAt
+                    AND (p.retryCount >= :maxRetries OR p.nextAttemptAt > :now OR p.leaseExpiresAt >= :now))
+            ORDER BY e.createdAt ASC""")
+    List<UUID> findClaimableIds(OutboxStatus status, int maxRetries, OffsetDateTime now, Pageable pageable);
+
+    /**
+     * Commit sonrası bildirilen id'lerden sahiplenilebilir olanlar (koşullar findClaimableIds ile aynı).
+     * Bildirilen kümenin dışında kalan (bildirimi düşmüş ya da başka batch'e düşmüş) daha eski bir event de
+     * sonrakileri bekletir; onları polling sırayla toplar.
+     */
+    @Query("""
+            SELECT e.id FROM OutboxEventEntity e
+            WHERE e.id IN :ids AND e.status = :status AND e.retryCount < :maxRetries
+              AND (e.nextAttemptAt IS NULL OR e.nextAttemptAt <= :now)
+              AND (e.leaseExpiresAt IS NULL OR e.leaseExpiresAt < :now)
+              AND NOT EXISTS (
+                  SELECT p.id FROM OutboxEventEntity p
+                  WHERE p.aggregateId = e.aggregateId AND p.status = :status AND p.createdAt < e.createdAt
+                    AND (p.id NOT IN :ids OR p.retryCount >= :maxRetries
+                         OR p.nextAttemptAt > :now OR p.leaseExpiresAt >= :now))
+            ORDER BY e.createdAt ASC""")
+    List<UUID> findClaimableIdsAmong(Collection<UUID> ids, OutboxStatus status, int maxRetries, OffsetDateTime now);
+
+    /**
+     * Koşullu UPDATE ile lease alır; aynı anda claim eden diğer node'lar 0 satır günceller.
+     */
+    @Modifying
+    @Query("""
+            UPDATE OutboxEventEntity e SET e.leaseOwner = :owner, e.leaseExpiresAt = :leaseUntil
+            WHERE e.id IN :ids AND e.status = :status AND (e.leaseExpiresAt IS NULL OR e.leaseExpiresAt < :now)""")
+    int claim(Collection<UUID> ids, OutboxStatus status, String owner, OffsetDateTime leaseUntil, OffsetDateTime now);
+
+    List<OutboxEventEntity> findByLeaseOwnerOrderByCreatedAtAsc(String leaseOwner);
+
+    /**
+     * Başarılı event'leri tek statement ile SENT yapar.
+     */
+    @Modifying
+    @Query("""
+            UPDATE OutboxEventEntity e SET e.status = :status, e.processedAt = :now, e.leaseOwner = NULL, e.leaseExpiresAt = NULL
+            WHERE e.id IN :ids AND e.leaseOwner = :owner""")
+    int markProcessed(Collection<UUID> ids, String owner, OutboxStatus status, OffsetDateTime now);
+
+    @Modifying
+    @Query("""
+            UPDATE OutboxEventEntity e SET e.status = :status, e.retryCount = e.retryCount + 1, e.nextAttemptAt = :nextAttemptAt,
+                e.leaseOwner = NULL, e.leaseExpiresAt = NULL
+            WHERE e.id = :id AND e.leaseOwner = :owner""")
+    int markFailed(UUID id, String owner, OutboxStatus status, OffsetDateTime nextAttemptAt);
+
+    /**
+     * İşlenmeden kalan (örn. aggregate'in önceki event'i başarısız olduğu için atlanan) event'lerin lease'ini bırakır.
+     */
+    @Modifying
+    @Query("UPDATE OutboxEventEntity e SET e.leaseOwner = NULL, e.leaseExpiresAt = NULL WHERE e.leaseOwner = :owner")
+    int releaseLease(String owner);
 }
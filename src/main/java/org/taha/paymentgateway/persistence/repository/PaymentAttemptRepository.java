@@ -1,6 +1,9 @@
 package org.taha.paymentgateway.persistence.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.taha.paymentgateway.core.model.AttemptStatus;
+import org.taha.paymentgateway.core.model.OperationType;
 import org.taha.paymentgateway.persistence.entity.PaymentAttemptEntity;
 
 import java.util.List;
@@ -9,4 +12,22 @@ import java.util.UUID;
 public interface PaymentAttemptRepository extends JpaRepository<PaymentAttemptEntity, UUID> {
     
     List<PaymentAttemptEntity> findByPaymentIdOrderByCreatedAtDesc(UUID paymentId);
-}
\ No newline at end of file
+
+    /** Metrics rebuild: provider/operation/status başına attempt sayısı ve latency toplamları */
+    @Query("""
+            SELECT a.provider AS provider, a.operation AS operation, a.status AS status,
+                   COUNT(a) AS count, SUM(a.latencyMs) AS latencySum, MAX(a.latencyMs) AS latencyMax
+            FROM PaymentAttemptEntity a
+            GROUP BY a.provider, a.operation, a.status
+            """)
+    List<AttemptAggregate> aggregateByProviderOperationStatus();
+
+    interface AttemptAggregate {
+        String getProvider();
+        OperationType getOperation();
+        AttemptStatus getStatus();
+        long getCount();
+        Long getLatencySum();
+        Long getLatencyMax();
+    }
+}
@@ -1,9 +1,47 @@
 package org.taha.paymentgateway.persistence.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.taha.paymentgateway.core.model.PaymentStatus;
 import org.taha.paymentgateway.persistence.entity.PaymentEntity;
 
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 
 public interface PaymentRepository extends JpaRepository<PaymentEntity, UUID> {
-}
\ No newline at end of file
+
+    /** Recovery job: belirli süreden uzun in-flight durumda kalmış payment'lar */
+    List<PaymentEntity> findTop100ByStatusInAndUpdatedAtBeforeOrderByUpdatedAtAsc(
+            Collection<PaymentStatus> statuses, OffsetDateTime updatedBefore);
+
+    /** Metrics rebuild: status başına payment sayısı */
+    @Query("SELECT p.status AS status, COUNT(p) AS count FROM PaymentEntity p GROUP BY p.status")
+    List<StatusCount> countGroupByStatus();
+
+    /**
+     * Metrics rebuild: from'dan sonra oluşturulan payment'ların 5 dakikalık slot başına sayısı ve toplam tutarı.
+     * slot = epoch saniye / 300, PaymentMetricsAggregator.BUCKET_MS ile aynı olmalı.
+     */
+    @Query("""
+            SELECT FLOOR(EXTRACT(EPOCH FROM p.createdAt) / 300) AS slot, COUNT(p) AS count, SUM(p.amount) AS volume
+            FROM PaymentEntity p
+            WHERE p.createdAt >= :from
+            GROUP BY FLOOR(EXTRACT(EPOCH FROM p.createdAt) / 300)
+            """)
+    List<SlotVolume> sumCreatedBySlotSince(OffsetDateTime from);
+
+    interface StatusCount {
+        PaymentStatus getStatus();
+        long getCount();
+    }
+
+    interface SlotVolume {
+        /** Veritabanına göre Long, Double ya da BigDecimal döner */
+        Number getSlot();
+        long getCount();
+        BigDecimal getVolume();
+    }
+}
@@ -1,18 +1,75 @@
 package org.taha.paymentgateway.persistence.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.taha.paymentgateway.core.model.WebhookStatus;
 import org.taha.paymentgateway.persistence.entity.WebhookDeliveryEntity;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface WebhookDeliveryRepository extends JpaRepository<WebhookDeliveryEntity, UUID> {
     
     List<WebhookDeliveryEntity> findByEventId(UUID eventId);
-    
-    @Query("SELECT w FROM WebhookDeliveryEntity w WHERE w.status IN :statuses AND (w.nextRetryAt IS NULL OR w.nextRetryAt <= :now) ORDER BY w.createdAt ASC")
-    List<WebhookDeliveryEntity> findPendingDeliveries(List<WebhookStatus> statuses, OffsetDateTime now);
+
+    boolean existsByEventId(UUID eventId);
+
+    /**
+     * Merchant başına gönderilmeye hazır (retry zamanı gelmiş, lease'i olmayan) delivery sayısı.
+     */
+    @Query("""
+            SELECT w.merchantId AS merchantId, COUNT(w) AS due FROM WebhookDeliveryEntity w
+            WHERE w.status IN :statuses AND (w.nextRetryAt IS NULL OR w.nextRetryAt <= :now)
+              AND (w.leaseExpiresAt IS NULL OR w.leaseExpiresAt < :now)
+            GROUP BY w.merchantId""")
+    List<MerchantBacklog> countClaimableByMerchant(Collection<WebhookStatus> statuses, OffsetDateTime now);
+
+    /**
+     * Bir merchant'ın gönderilmeye hazır delivery id'leri (createdAt sırasıyla).
+     */
+    @Query("""
+            SELECT w.id FROM WebhookDeliveryEntity w
+            WHERE w.merchantId = :merchantId AND w.status IN :statuses
+              AND (w.nextRetryAt IS NULL OR w.nextRetryAt <= :now)
+              AND (w.leaseExpiresAt IS NULL OR w.leaseExpiresAt < :now)
+            ORDER BY w.createdAt ASC""")
+    List<UUID> findClaimableIdsByMerchant(String merchantId, Collection<WebhookStatus> statuses, OffsetDateTime now, Pageable pageable);
+
+    /**
+     * Koşullu UPDATE ile lease alır; başka bir tur/node'un aldığı delivery'ler güncellenmez.
+     */
+    @Modifying
+    @Query("""
+            UPDATE WebhookDeliveryEntity w SET w.leaseOwner = :owner, w.leaseExpiresAt = :leaseUntil
+            WHERE w.id IN :ids AND w.status IN :statuses AND (w.nextRetryAt IS NULL OR w.nextRetryAt <= :now)
+              AND (w.leaseExpiresAt IS NULL OR w.leaseExpiresAt < :now)""")
+    int claim(Collection<UUID> ids, Collection<WebhookStatus> statuses, String owner, OffsetDateTime leaseUntil, OffsetDateTime now);
+
+    List<WebhookDeliveryEntity> findByLeaseOwner(String leaseOwner);
+
+    @Modifying
+    @Query("UPDATE WebhookDeliveryEntity w SET w.leaseOwner = NULL, w.leaseExpiresAt = NULL WHERE w.id IN :ids AND w.leaseOwner = :owner")
+    int releaseLease(Collection<UUID> ids, String owner);
+
+    /**
+     * Gönderim sonucunu yazar ve lease'i bırakır. Lease bu arada başka bir tur/node'a geçtiyse
+     * satır güncellenmez (0 döner); sonuç yeni sahibin yazacağı sonucu ezmez.
+     */
+    @Modifying
+    @Query("""
+            UPDATE WebhookDeliveryEntity w SET w.status = :status, w.responseCode = :responseCode,
+                   w.responseBody = :responseBody, w.retryCount = :retryCount, w.nextRetryAt = :nextRetryAt,
+                   w.lastAttemptAt = :lastAttemptAt, w.leaseOwner = NULL, w.leaseExpiresAt = NULL
+            WHERE w.id = :id AND w.leaseOwner = :owner""")
+    int recordResult(UUID id, String owner, WebhookStatus status, Integer responseCode, String responseBody,
+                     int retryCount, OffsetDateTime nextRetryAt, OffsetDateTime lastAttemptAt);
+
+    interface MerchantBacklog {
+        String getMerchantId();
+        long getDue();
+    }
 }
@@ -0,0 +1,51 @@
+package org.taha.paymentgateway.persistence.support;
+
+import java.util.UUID;
+
+/**
+ * UUID ile BINARY(16) kolon değeri arasında dönüşüm.
+ *
+ * Hibernate'in UUID -> BINARY(16) eşlemesiyle aynı byte sırası kullanılır
+ * (önce most significant, sonra least significant bits, big-endian);
+ * JDBC ile yazılan satırlar entity'ler tarafından aynı id ile okunur.
+ */
+public final class UuidBytes {
+
+    private UuidBytes() {
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        if (uuid == null) {
+            return null;
+        }
+        byte[] bytes = new byte[16];
+        putLong(bytes, 0, uuid.getMostSignificantBits());
+        putLong(bytes, 8, uuid.getLeastSignificantBits());
+        return bytes;
+    }
+
+    public static UUID fromBytes(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length != 16) {
+            throw new IllegalArgumentException("UUID must be 16 bytes, got " + bytes.length);
+        }
+        return new UUID(getLong(bytes, 0), getLong(bytes, 8));
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,67 @@
+package org.taha.paymentgateway.persistence.support;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Zaman sıralı UUIDv7 (RFC 9562) üretici; tüm yeni primary key'ler buradan alınır.
+ *
+ * Bit düzeni: 48 bit unix epoch ms | 4 bit versiyon (7) | 12 bit sayaç | 2 bit variant | 62 bit rastgele.
+ * BINARY(16) olarak big-endian saklandığında ({@link UuidBytes}) id'ler neredeyse artan sırada gelir;
+ * InnoDB clustered index'inde yeni satırlar hep sağ uca eklenir, rastgele UUID'lerin sayfa bölünmeleri olmaz.
+ *
+ * Sıralılık tek bir AtomicLong (ms << 12 | sayaç) üzerinden CAS ile sağlanır, kilit yoktur:
+ * - Aynı ms içinde sayaç artar; 4096'yı aşarsa değer bir sonraki ms'e taşar (saat yetişince düzelir).
+ * - Saat geri giderse son değerden devam edilir, id'ler hiçbir zaman geriye gitmez.
+ * Rastgele kısım her thread'in kendi {@link ThreadLocalRandom}'ından gelir (virtual thread'lerde de paylaşımsız).
+ *
+ * Zaman damgası id'den okunabilir; payment id'leri merchant kontrolü olmadan hiçbir endpoint'te kullanılmaz.
+ */
+public final class UuidV7 {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+    private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+    private static final UuidV7 INSTANCE = new UuidV7(System::currentTimeMillis);
+
+    private final LongSupplier clock;
+
+    /** (unix ms << 12) | sayaç; son verilen değer */
+    private final AtomicLong last = new AtomicLong();
+
+    UuidV7(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    public static UUID next() {
+        return INSTANCE.generate();
+    }
+
+    UUID generate() {
+        long candidate = clock.getAsLong() << COUNTER_BITS;
+        long previous;
+        long stamp;
+        do {
+            previous = last.get();
+            stamp = Math.max(candidate, previous + 1);
+        } while (!last.compareAndSet(previous, stamp));
+
+        long msb = (stamp >>> COUNTER_BITS) << 16 | VERSION | (stamp & 0xFFF);
+        long lsb = VARIANT | (ThreadLocalRandom.current().nextLong() & RANDOM_MASK);
+        return new UUID(msb, lsb);
+    }
+
+    /**
+     * id'nin üretildiği unix epoch ms (sayaç taşmasında gerçek zamandan birkaç ms ileride olabilir).
+     */
+    public static long timestamp(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Not a UUIDv7: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
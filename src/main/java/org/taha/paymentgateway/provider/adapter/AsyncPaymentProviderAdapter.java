@@ -0,0 +1,26 @@
+package org.taha.paymentgateway.provider.adapter;
+
+import java.time.Instant;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Provider çağrılarını thread bloklamadan yapabilen adapter'ların arayüzü.
+ *
+ * Orchestrator bu arayüzü implement eden adapter'ları async metodlarla çağırır, diğerlerini
+ * bir köprü executor'ında bloklayan metodlarla çalıştırır (ProviderInvoker). Her iki durumda da
+ * request thread'i sonucu deadline'a kadar bekler; async adapter'lar sadece köprü thread'ini kazandırır.
+ *
+ * Sözleşme:
+ * - deadline'dan sonra gelen sonuç kullanılmaz; orchestrator TIMEOUT kaydeder ve stage'i cancel eder.
+ *   Adapter cancel'ı dinleyip (ör. whenComplete ile) acquirer isteğini iptal edebilir.
+ * - Hata, exceptionally tamamlanan stage ile bildirilir; orchestrator PROVIDER_ERROR olarak kaydeder.
+ * - Bloklayan metodlar (PaymentProviderAdapter) routing, health probe ve geriye uyumluluk için korunur.
+ */
+public interface AsyncPaymentProviderAdapter extends PaymentProviderAdapter {
+
+    CompletionStage<ProviderResult> authorizeAsync(AuthorizeContext context, Instant deadline);
+
+    CompletionStage<ProviderResult> captureAsync(CaptureContext context, Instant deadline);
+
+    CompletionStage<ProviderResult> refundAsync(RefundContext context, Instant deadline);
+}
@@ -3,6 +3,7 @@ package org.taha.paymentgateway.provider.adapter;
 import org.taha.paymentgateway.core.model.AttemptStatus;
 
 import java.math.BigDecimal;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -72,6 +73,13 @@ public interface PaymentProviderAdapter {
         boolean requires3DS,
         String threeDSUrl
     ) {
+        /** Provider'a ulaşılamadı ya da adapter beklenmeyen bir hata aldı */
+        public static final String PROVIDER_ERROR = "PROVIDER_ERROR";
+        /** Acquirer'a bağlantı kurulamadı / bağlantı koptu */
+        public static final String CONNECTION_ERROR = "CONNECTION_ERROR";
+
+        private static final Set<String> TECHNICAL_ERROR_CODES = Set.of(PROVIDER_ERROR, CONNECTION_ERROR);
+
         public static ProviderResult success(String providerReference) {
             return new ProviderResult(AttemptStatus.SUCCESS, providerReference, null, null, false, null);
         }
@@ -87,6 +95,16 @@ public interface PaymentProviderAdapter {
         public static ProviderResult requires3DS(String threeDSUrl) {
             return new ProviderResult(AttemptStatus.REQUIRES_3DS, null, null, null, true, threeDSUrl);
         }
+
+        /**
+         * Sonucun provider'ın sağlığıyla ilgili olup olmadığı.
+         * TIMEOUT ve teknik hatalar provider arızasıdır; issuer red'leri (yetersiz bakiye, geçersiz kart vb.)
+         * sağlıklı bir acquirer'ın cevabıdır ve sayılmaz.
+         */
+        public boolean isProviderFault() {
+            return status == AttemptStatus.TIMEOUT
+                    || (status == AttemptStatus.FAILURE && TECHNICAL_ERROR_CODES.contains(errorCode));
+        }
     }
 
     enum HealthStatus {
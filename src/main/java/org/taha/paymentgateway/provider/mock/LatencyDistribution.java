@@ -0,0 +1,120 @@
+package org.taha.paymentgateway.provider.mock;
+
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Simüle edilen provider çağrısının süre dağılımı (ms).
+ *
+ * Config'te kısa bir spec ile tanımlanır:
+ * - fixed:100                 her çağrı 100 ms
+ * - uniform:80-300            80 ile 300 ms arası eşit olasılık
+ * - lognormal:120,0.35        medyanı 120 ms, sigma 0.35 (sağa çarpık, gerçek acquirer'lara yakın)
+ * - bimodal:140,0.3,0.03,1800 lognormal(140, 0.3); çağrıların %3'ü medyanı 1800 ms olan kuyruğa düşer
+ */
+public interface LatencyDistribution {
+
+    long sampleMillis(RandomGenerator random);
+
+    static LatencyDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":", 2);
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Invalid latency spec '" + spec + "', expected <type>:<params>");
+        }
+        String type = parts[0].trim().toLowerCase(Locale.ROOT);
+        try {
+            return switch (type) {
+                case "fixed" -> new Fixed(Long.parseLong(parts[1].trim()));
+                case "uniform" -> {
+                    String[] range = parts[1].split("-");
+                    yield new Uniform(Long.parseLong(range[0].trim()), Long.parseLong(range[1].trim()));
+                }
+                case "lognormal" -> {
+                    double[] p = numbers(parts[1], 2);
+                    yield new LogNormal(p[0], p[1]);
+                }
+                case "bimodal" -> {
+                    double[] p = numbers(parts[1], 4);
+                    yield new Bimodal(new LogNormal(p[0], p[1]), p[2], new LogNormal(p[3], p[1]));
+                }
+                default -> throw new IllegalArgumentException("Unknown latency distribution '" + type + "' in '" + spec + "'");
+            };
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid latency spec '" + spec + "'", e);
+        }
+    }
+
+    private static double[] numbers(String params, int expected) {
+        String[] values = params.split(",");
+        if (values.length != expected) {
+            throw new IllegalArgumentException("Expected " + expected + " parameters but got '" + params + "'");
+        }
+        double[] numbers = new double[expected];
+        for (int i = 0; i < expected; i++) {
+            numbers[i] = Double.parseDouble(values[i].trim());
+        }
+        return numbers;
+    }
+
+    record Fixed(long millis) implements LatencyDistribution {
+
+        public Fixed {
+            if (millis < 0) {
+                throw new IllegalArgumentException("Latency must not be negative: " + millis);
+            }
+        }
+
+        @Override
+        public long sampleMillis(RandomGenerator random) {
+            return millis;
+        }
+    }
+
+    record Uniform(long minMillis, long maxMillis) implements LatencyDistribution {
+
+        public Uniform {
+            if (minMillis < 0 || maxMillis < minMillis) {
+                throw new IllegalArgumentException("Invalid uniform range: " + minMillis + "-" + maxMillis);
+            }
+        }
+
+        @Override
+        public long sampleMillis(RandomGenerator random) {
+            return minMillis == maxMillis ? minMillis : random.nextLong(minMillis, maxMillis + 1);
+        }
+    }
+
+    /**
+     * exp(ln(medyan) + sigma * N(0,1)); medyan parametresi doğrudan p50 olur.
+     */
+    record LogNormal(double medianMillis, double sigma) implements LatencyDistribution {
+
+        public LogNormal {
+            if (medianMillis <= 0 || sigma < 0) {
+                throw new IllegalArgumentException("Invalid lognormal parameters: median=" + medianMillis + ", sigma=" + sigma);
+            }
+        }
+
+        @Override
+        public long sampleMillis(RandomGenerator random) {
+            return Math.round(medianMillis * Math.exp(sigma * random.nextGaussian()));
+        }
+    }
+
+    /**
+     * Normal çağrılar ile seyrek ama uzun kuyruk (ör. acquirer tarafında GC ya da bağlantı havuzu beklemesi).
+     */
+    record Bimodal(LatencyDistribution body, double tailRate, LatencyDistribution tail) implements LatencyDistribution {
+
+        public Bimodal {
+            if (tailRate < 0 || tailRate > 1) {
+                throw new IllegalArgumentException("Tail rate must be between 0 and 1: " + tailRate);
+            }
+        }
+
+        @Override
+        public long sampleMillis(RandomGenerator random) {
+            return random.nextDouble() < tailRate ? tail.sampleMillis(random) : body.sampleMillis(random);
+        }
+    }
+}
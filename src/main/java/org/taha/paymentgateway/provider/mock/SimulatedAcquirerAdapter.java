@@ -0,0 +1,152 @@
+package org.taha.paymentgateway.provider.mock;
+
+import lombok.extern.slf4j.Slf4j;
+import org.taha.paymentgateway.provider.adapter.AsyncPaymentProviderAdapter;
+
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Config'ten tanımlanan, isimli bir acquirer'ı (ör. GARANTI_VPOS) simüle eden adapter.
+ *
+ * Her operasyonun kendi süre dağılımı, hata ve timeout oranı vardır ({@link OperationProfile}).
+ * Timeout'a düşen çağrı timeoutMs boyunca cevap vermez, sonra TIMEOUT döner.
+ *
+ * Gecikme Thread.sleep ile değil, cevabı taşıyan future'ın gecikmeli tamamlanmasıyla (completeOnTimeout,
+ * JDK'nın paylaşılan zamanlayıcısı) üretilir; bekleyen çağrılar köprü thread'i tutmaz (request thread'i yine
+ * sonucu bekler). Orchestrator async metodları kullanır, senkron arayüz future'ı bekler.
+ * Instance'lar {@link SimulatedAcquirers} tarafından oluşturulur.
+ */
+@Slf4j
+public class SimulatedAcquirerAdapter implements AsyncPaymentProviderAdapter {
+
+    public enum Operation {
+        AUTHORIZE("AUTH", "SIMULATED_DECLINED", "Card declined by simulated acquirer"),
+        CAPTURE("CAP", "SIMULATED_CAPTURE_FAILED", "Capture rejected by simulated acquirer"),
+        REFUND("REF", "SIMULATED_REFUND_FAILED", "Refund rejected by simulated acquirer");
+
+        private final String referencePrefix;
+        private final String errorCode;
+        private final String errorMessage;
+
+        Operation(String referencePrefix, String errorCode, String errorMessage) {
+            this.referencePrefix = referencePrefix;
+            this.errorCode = errorCode;
+            this.errorMessage = errorMessage;
+        }
+    }
+
+    /**
+     * @param latency     cevap süresi dağılımı
+     * @param errorRate   iş hatası (decline/reject) dönen çağrı oranı, 0-1
+     * @param timeoutRate cevap vermeyen çağrı oranı, 0-1
+     */
+    public record OperationProfile(LatencyDistribution latency, double errorRate, double timeoutRate) {
+
+        public OperationProfile {
+            if (errorRate < 0 || timeoutRate < 0 || errorRate + timeoutRate > 1) {
+                throw new IllegalArgumentException(
+                        "Invalid rates: error-rate=" + errorRate + ", timeout-rate=" + timeoutRate);
+            }
+        }
+    }
+
+    private final String name;
+    private final Map<Operation, OperationProfile> profiles;
+    private final long timeoutMs;
+
+    public SimulatedAcquirerAdapter(String name, Map<Operation, OperationProfile> profiles, long timeoutMs) {
+        for (Operation operation : Operation.values()) {
+            if (!profiles.containsKey(operation)) {
+                throw new IllegalArgumentException("Missing " + operation + " profile for simulated acquirer " + name);
+            }
+        }
+        this.name = name;
+        this.profiles = new EnumMap<>(profiles);
+        this.timeoutMs = timeoutMs;
+    }
+
+    @Override
+    public String providerName() {
+        return name;
+    }
+
+    public OperationProfile profile(Operation operation) {
+        return profiles.get(operation);
+    }
+
+    @Override
+    public ProviderResult authorize(AuthorizeContext context) {
+        log.debug("{} authorize called - paymentId: {}, amount: {}", name, context.paymentId(), context.amount());
+        return simulate(Operation.AUTHORIZE).join();
+    }
+
+    @Override
+    public ProviderResult capture(CaptureContext context) {
+        log.debug("{} capture called - paymentId: {}, amount: {}", name, context.paymentId(), context.amount());
+        return simulate(Operation.CAPTURE).join();
+    }
+
+    @Override
+    public ProviderResult refund(RefundContext context) {
+        log.debug("{} refund called - paymentId: {}, amount: {}", name, context.paymentId(), context.amount());
+        return simulate(Operation.REFUND).join();
+    }
+
+    @Override
+    public CompletionStage<ProviderResult> authorizeAsync(AuthorizeContext context, Instant deadline) {
+        log.debug("{} async authorize called - paymentId: {}, amount: {}", name, context.paymentId(), context.amount());
+        return simulate(Operation.AUTHORIZE);
+    }
+
+    @Override
+    public CompletionStage<ProviderResult> captureAsync(CaptureContext context, Instant deadline) {
+        log.debug("{} async capture called - paymentId: {}, amount: {}", name, context.paymentId(), context.amount());
+        return simulate(Operation.CAPTURE);
+    }
+
+    @Override
+    public CompletionStage<ProviderResult> refundAsync(RefundContext context, Instant deadline) {
+        log.debug("{} async refund called - paymentId: {}, amount: {}", name, context.paymentId(), context.amount());
+        return simulate(Operation.REFUND);
+    }
+
+    @Override
+    public HealthStatus healthCheck() {
+        return HealthStatus.HEALTHY;
+    }
+
+    /**
+     * Sonucu ve süresini baştan belirler, future'ı süre dolunca tamamlanacak şekilde zamanlar.
+     */
+    CompletableFuture<ProviderResult> simulate(Operation operation) {
+        OperationProfile profile = profiles.get(operation);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double roll = random.nextDouble();
+
+        ProviderResult result;
+        long delayMs;
+        if (roll < profile.timeoutRate()) {
+            result = ProviderResult.timeout();
+            delayMs = timeoutMs;
+        } else if (roll < profile.timeoutRate() + profile.errorRate()) {
+            result = ProviderResult.failure(operation.errorCode, operation.errorMessage);
+            delayMs = profile.latency().sampleMillis(random);
+        } else {
+            result = ProviderResult.success(name + "-" + operation.referencePrefix + "-"
+                    + UUID.randomUUID().toString().substring(0, 8));
+            delayMs = profile.latency().sampleMillis(random);
+        }
+
+        if (delayMs <= 0) {
+            return CompletableFuture.completedFuture(result);
+        }
+        return new CompletableFuture<ProviderResult>().completeOnTimeout(result, delayMs, TimeUnit.MILLISECONDS);
+    }
+}
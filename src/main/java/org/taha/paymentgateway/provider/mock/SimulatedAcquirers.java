@@ -0,0 +1,92 @@
+package org.taha.paymentgateway.provider.mock;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.provider.mock.SimulatedAcquirerAdapter.Operation;
+import org.taha.paymentgateway.provider.mock.SimulatedAcquirerAdapter.OperationProfile;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * provider.simulated.acquirers listesindeki her isim için bir {@link SimulatedAcquirerAdapter} kurar.
+ * Adapter'lar ProviderRegistry'de diğer provider'larla birlikte kaydedilir; routing kuralları bu isimlerle eşleşir.
+ *
+ * Her ayar en özelden genele aranır:
+ * provider.simulated.&lt;NAME&gt;.&lt;operation&gt;.&lt;key&gt; → provider.simulated.&lt;NAME&gt;.&lt;key&gt; → provider.simulated.&lt;key&gt;
+ * (key: latency, error-rate, timeout-rate; operation: authorize, capture, refund).
+ * İsim bazlı anahtarlar önceden bilinmediği için @Value yerine Environment'tan okunur.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SimulatedAcquirers {
+
+    private static final String PREFIX = "provider.simulated.";
+
+    private final Environment environment;
+
+    @Value("${provider.simulated.acquirers:}")
+    private List<String> names;
+
+    @Value("${provider.simulated.latency:lognormal:150,0.4}")
+    private String defaultLatency;
+
+    @Value("${provider.simulated.error-rate:0}")
+    private double defaultErrorRate;
+
+    @Value("${provider.simulated.timeout-rate:0}")
+    private double defaultTimeoutRate;
+
+    @Value("${provider.simulated.timeout-ms:5000}")
+    private long defaultTimeoutMs;
+
+    private List<SimulatedAcquirerAdapter> adapters = List.of();
+
+    @PostConstruct
+    void init() {
+        List<SimulatedAcquirerAdapter> built = new ArrayList<>();
+        for (String name : names) {
+            if (name.isBlank()) {
+                continue;
+            }
+            SimulatedAcquirerAdapter adapter = build(name.trim());
+            built.add(adapter);
+            log.info("Simulated acquirer {} registered - authorize: {}, capture: {}, refund: {}", adapter.providerName(),
+                    adapter.profile(Operation.AUTHORIZE), adapter.profile(Operation.CAPTURE), adapter.profile(Operation.REFUND));
+        }
+        adapters = List.copyOf(built);
+    }
+
+    public List<SimulatedAcquirerAdapter> adapters() {
+        return adapters;
+    }
+
+    private SimulatedAcquirerAdapter build(String name) {
+        Map<Operation, OperationProfile> profiles = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            String scope = name + "." + operation.name().toLowerCase(Locale.ROOT);
+            profiles.put(operation, new OperationProfile(
+                    LatencyDistribution.parse(lookup(scope, name, "latency", defaultLatency)),
+                    Double.parseDouble(lookup(scope, name, "error-rate", String.valueOf(defaultErrorRate))),
+                    Double.parseDouble(lookup(scope, name, "timeout-rate", String.valueOf(defaultTimeoutRate)))));
+        }
+        long timeoutMs = environment.getProperty(PREFIX + name + ".timeout-ms", Long.class, defaultTimeoutMs);
+        return new SimulatedAcquirerAdapter(name, profiles, timeoutMs);
+    }
+
+    private String lookup(String operationScope, String acquirerScope, String key, String defaultValue) {
+        String value = environment.getProperty(PREFIX + operationScope + "." + key);
+        if (value == null) {
+            value = environment.getProperty(PREFIX + acquirerScope + "." + key, defaultValue);
+        }
+        return value;
+    }
+}
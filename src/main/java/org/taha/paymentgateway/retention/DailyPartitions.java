@@ -0,0 +1,86 @@
+package org.taha.paymentgateway.retention;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * MySQL RANGE (UNIX_TIMESTAMP(created_at)) ile günlük partition'lanmış tablolar için plan hesabı.
+ *
+ * Partition adı içerdiği günün tarihidir (pYYYYMMDD), üst sınırı ertesi günün başıdır (UTC, epoch saniye).
+ * Son partition her zaman {@value #FUTURE} (MAXVALUE); yeni günler bu partition bölünerek eklenir.
+ * Burada DB'ye gidilmez, sadece düşürülecek ve eklenecek partition'lar hesaplanır.
+ */
+final class DailyPartitions {
+
+    static final String FUTURE = "p_future";
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMMdd");
+
+    private DailyPartitions() {
+    }
+
+    /**
+     * @param upperBound epoch saniye, MAXVALUE için null
+     * @param rows       information_schema'daki tahmini satır sayısı
+     */
+    record Partition(String name, Long upperBound, long rows) {}
+
+    /**
+     * Tüm satırları cutoff'tan eski olan partition'lar. MAXVALUE partition'ı hiç düşürülmez.
+     */
+    static List<Partition> expired(List<Partition> partitions, long cutoffEpochSecond) {
+        List<Partition> expired = new ArrayList<>();
+        for (Partition partition : partitions) {
+            if (partition.upperBound() != null && partition.upperBound() <= cutoffEpochSecond) {
+                expired.add(partition);
+            }
+        }
+        return expired;
+    }
+
+    /**
+     * today + daysAhead gününe kadar eksik günlük partition'lar. İlk yeni partition
+     * son sınırdan bugüne kadar olan satırları da alır; geçmiş günler tek tek açılmaz.
+     */
+    static List<Partition> missing(List<Partition> partitions, LocalDate today, int daysAhead) {
+        long lastBound = Long.MIN_VALUE;
+        for (Partition partition : partitions) {
+            if (partition.upperBound() != null) {
+                lastBound = Math.max(lastBound, partition.upperBound());
+            }
+        }
+
+        List<Partition> missing = new ArrayList<>();
+        for (LocalDate day = today; !day.isAfter(today.plusDays(daysAhead)); day = day.plusDays(1)) {
+            long bound = day.plusDays(1).atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+            if (bound > lastBound) {
+                missing.add(new Partition(day.format(NAME_FORMAT), bound, 0));
+            }
+        }
+        return missing;
+    }
+
+    static String dropSql(String table, List<Partition> partitions) {
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(table).append(" DROP PARTITION ");
+        for (int i = 0; i < partitions.size(); i++) {
+            sql.append(i > 0 ? ", " : "").append(partitions.get(i).name());
+        }
+        return sql.toString();
+    }
+
+    /**
+     * MAXVALUE partition'ını yeni günlere böler. Partition önceden açıldığı için normalde boştur,
+     * REORGANIZE veri kopyalamaz.
+     */
+    static String reorganizeSql(String table, List<Partition> partitions) {
+        StringBuilder sql = new StringBuilder("ALTER TABLE ").append(table)
+                .append(" REORGANIZE PARTITION ").append(FUTURE).append(" INTO (");
+        for (Partition partition : partitions) {
+            sql.append("PARTITION ").append(partition.name())
+                    .append(" VALUES LESS THAN (").append(partition.upperBound()).append("), ");
+        }
+        return sql.append("PARTITION ").append(FUTURE).append(" VALUES LESS THAN MAXVALUE)").toString();
+    }
+}
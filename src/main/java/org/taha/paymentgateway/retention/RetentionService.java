@@ -0,0 +1,340 @@
+package org.taha.paymentgateway.retention;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.taha.paymentgateway.retention.DailyPartitions.Partition;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Sürekli büyüyen tabloların (idempotency, outbox, webhook delivery, API log) retention'ı.
+ *
+ * - api_logs MySQL'de günlük partition'lanmıştır (V14): süresi dolan partition'lar DROP edilir,
+ *   önümüzdeki günlerin partition'ları önceden açılır. Satır bazında silme yapılmaz.
+ * - Diğer tablolar (ve partition'sız api_logs, örn. H2) created_at + id üzerinden keyset sayfalanarak
+ *   küçük chunk'lar halinde silinir. Her chunk ayrı statement olarak auto-commit edilir, lock'lar kısa tutulur;
+ *   chunk'lar arasında beklenir ve tur başına chunk sayısı sınırlıdır.
+ *
+ * Partition DDL'i ve silmeler node'lar arasında yarışmasın diye tur sadece scheduler_leases'teki
+ * {@value #LEASE_NAME} lease'ini tutan node'da çalışır (V17). Lease her tablodan önce uzatılır; uzatılamazsa
+ * (süre dolup başka node devraldıysa) tur bırakılır.
+ *
+ * Tablo başına silinen satır, düşürülen partition ve retention gecikmesi (lag) tutulur; Micrometer'a
+ * {@link org.taha.paymentgateway.config.MetricsConfig} üzerinden bağlanır.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RetentionService {
+
+    private static final RetentionTarget[] TARGETS = RetentionTarget.values();
+
+    static final String LEASE_NAME = "retention";
+
+    private static final String ACQUIRE_LEASE_SQL = """
+            UPDATE scheduler_leases SET owner = ?, expires_at = ?
+            WHERE name = ? AND (owner IS NULL OR owner = ? OR expires_at < ?)
+            """;
+
+    private static final String RELEASE_LEASE_SQL =
+            "UPDATE scheduler_leases SET owner = NULL, expires_at = NULL WHERE name = ? AND owner = ?";
+
+    private static final String PARTITIONS_SQL = """
+            SELECT PARTITION_NAME, PARTITION_DESCRIPTION, TABLE_ROWS FROM information_schema.PARTITIONS
+            WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL
+            ORDER BY PARTITION_ORDINAL_POSITION
+            """;
+
+    private static final RowMapper<KeysetRow> KEYSET_MAPPER =
+            (rs, rowNum) -> new KeysetRow(rs.getBytes("id"), rs.getTimestamp("created_at"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${retention.enabled:true}")
+    private boolean enabled = true;
+
+    @Value("${retention.chunk-size:1000}")
+    private int chunkSize = 1000;
+
+    @Value("${retention.lease-ms:600000}")
+    private long leaseMs = 600000;
+
+    @Value("${retention.chunk-pause-ms:50}")
+    private long chunkPauseMs = 50;
+
+    @Value("${retention.max-chunks-per-run:200}")
+    private int maxChunksPerRun = 200;
+
+    @Value("${retention.idempotency-records.ttl-hours:24}")
+    private long idempotencyTtlHours = 24;
+
+    @Value("${retention.outbox-events.ttl-hours:168}")
+    private long outboxTtlHours = 168;
+
+    @Value("${retention.webhook-deliveries.ttl-hours:168}")
+    private long webhookTtlHours = 168;
+
+    @Value("${retention.api-logs.ttl-hours:720}")
+    private long apiLogTtlHours = 720;
+
+    @Value("${retention.api-logs.partitions-ahead-days:3}")
+    private int partitionsAheadDays = 3;
+
+    LongSupplier clock = System::currentTimeMillis;
+
+    private final String leaseOwner = "retention:" + UUID.randomUUID();
+
+    private final LongAdder[] purgedRows = newAdders();
+    private final LongAdder[] droppedPartitions = newAdders();
+    private final AtomicLong[] lagMs = newGauges();
+
+    /** null: henüz bakılmadı */
+    private volatile Boolean mysql;
+
+    @Scheduled(fixedDelayString = "${retention.interval-ms:300000}", initialDelayString = "${retention.initial-delay-ms:60000}")
+    public void purgeExpired() {
+        if (!enabled) {
+            return;
+        }
+        if (!tryAcquireLease()) {
+            log.debug("Retention run skipped - lease held by another node");
+            return;
+        }
+        try {
+            for (RetentionTarget target : TARGETS) {
+                if (target != TARGETS[0] && !tryAcquireLease()) {
+                    log.warn("Retention lease lost, stopping run before table {}", target.table());
+                    return;
+                }
+                try {
+                    purge(target);
+                } catch (Exception e) {
+                    // Bir tablonun hatası diğerlerini engellemesin
+                    log.error("Retention purge failed - table: {}", target.table(), e);
+                }
+            }
+        } finally {
+            releaseLease();
+        }
+    }
+
+    /**
+     * Lease'i alır ya da zaten bu node'daysa süresini uzatır.
+     */
+    boolean tryAcquireLease() {
+        try {
+            long now = clock.getAsLong();
+            return jdbcTemplate.update(ACQUIRE_LEASE_SQL, leaseOwner, new Timestamp(now + leaseMs),
+                    LEASE_NAME, leaseOwner, new Timestamp(now)) == 1;
+        } catch (DataAccessException e) {
+            log.error("Failed to acquire retention lease", e);
+            return false;
+        }
+    }
+
+    private void releaseLease() {
+        try {
+            jdbcTemplate.update(RELEASE_LEASE_SQL, LEASE_NAME, leaseOwner);
+        } catch (DataAccessException e) {
+            // Bırakılamayan lease süresi dolunca devralınır
+            log.warn("Failed to release retention lease", e);
+        }
+    }
+
+    /**
+     * Tek tablo için bir retention turu.
+     *
+     * @return silinen (partition için tahmini) satır sayısı
+     */
+    long purge(RetentionTarget target) {
+        long now = clock.getAsLong();
+        Instant cutoff = Instant.ofEpochMilli(now).minus(ttlHours(target), ChronoUnit.HOURS);
+
+        long purged;
+        if (target == RetentionTarget.API_LOGS && isMysql()) {
+            List<Partition> partitions = loadPartitions(target.table());
+            purged = partitions.isEmpty()
+                    ? deleteInChunks(target, cutoff)
+                    : maintainPartitions(target, partitions, cutoff, now);
+        } else {
+            purged = deleteInChunks(target, cutoff);
+        }
+
+        purgedRows[target.ordinal()].add(purged);
+        lagMs[target.ordinal()].set(computeLag(target, cutoff));
+        if (purged > 0) {
+            log.info("Retention purged {} rows from {} (cutoff: {})", purged, target.table(), cutoff);
+        }
+        return purged;
+    }
+
+    public RetentionStats getStats(RetentionTarget target) {
+        int i = target.ordinal();
+        return new RetentionStats(purgedRows[i].sum(), droppedPartitions[i].sum(), lagMs[i].get());
+    }
+
+    private long deleteInChunks(RetentionTarget target, Instant cutoff) {
+        String table = target.table();
+        String condition = target.condition() != null ? " AND " + target.condition() : "";
+        String firstPage = "SELECT id, created_at FROM " + table + " WHERE created_at < ?" + condition
+                + " ORDER BY created_at, id LIMIT ?";
+        String nextPage = "SELECT id, created_at FROM " + table + " WHERE created_at < ?" + condition
+                + " AND (created_at > ? OR (created_at = ? AND id > ?)) ORDER BY created_at, id LIMIT ?";
+        Timestamp cutoffTs = Timestamp.from(cutoff);
+
+        long deleted = 0;
+        Timestamp lastCreatedAt = null;
+        byte[] lastId = null;
+        for (int chunk = 0; chunk < maxChunksPerRun; chunk++) {
+            List<KeysetRow> rows = lastId == null
+                    ? jdbcTemplate.query(firstPage, KEYSET_MAPPER, cutoffTs, chunkSize)
+                    : jdbcTemplate.query(nextPage, KEYSET_MAPPER, cutoffTs, lastCreatedAt, lastCreatedAt, lastId, chunkSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+
+            // Koşul DELETE'te tekrar kontrol edilir; seçim ile silme arasında değişen satır silinmez
+            Object[] ids = new Object[rows.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = rows.get(i).id();
+            }
+            deleted += jdbcTemplate.update("DELETE FROM " + table + " WHERE id IN ("
+                    + String.join(", ", Collections.nCopies(ids.length, "?")) + ")" + condition, ids);
+
+            KeysetRow last = rows.get(rows.size() - 1);
+            lastCreatedAt = last.createdAt();
+            lastId = last.id();
+            if (rows.size() < chunkSize || !pause()) {
+                break;
+            }
+        }
+        return deleted;
+    }
+
+    private long maintainPartitions(RetentionTarget target, List<Partition> partitions, Instant cutoff, long now) {
+        String table = target.table();
+        long purged = 0;
+
+        List<Partition> expired = DailyPartitions.expired(partitions, cutoff.getEpochSecond());
+        if (!expired.isEmpty()) {
+            jdbcTemplate.execute(DailyPartitions.dropSql(table, expired));
+            for (Partition partition : expired) {
+                purged += partition.rows();
+            }
+            droppedPartitions[target.ordinal()].add(expired.size());
+            log.info("Dropped {} expired partitions from {}", expired.size(), table);
+        }
+
+        boolean hasFuture = partitions.stream().anyMatch(p -> DailyPartitions.FUTURE.equals(p.name()));
+        LocalDate today = Instant.ofEpochMilli(now).atOffset(ZoneOffset.UTC).toLocalDate();
+        List<Partition> missing = DailyPartitions.missing(partitions, today, partitionsAheadDays);
+        if (!missing.isEmpty()) {
+            if (hasFuture) {
+                jdbcTemplate.execute(DailyPartitions.reorganizeSql(table, missing));
+                log.info("Added {} daily partitions to {}", missing.size(), table);
+            } else {
+                log.warn("Partitioned table {} has no {} partition, cannot add new partitions", table, DailyPartitions.FUTURE);
+            }
+        }
+        return purged;
+    }
+
+    private List<Partition> loadPartitions(String table) {
+        return jdbcTemplate.query(PARTITIONS_SQL, (rs, rowNum) -> {
+            String description = rs.getString("PARTITION_DESCRIPTION");
+            Long upperBound = description == null || "MAXVALUE".equalsIgnoreCase(description)
+                    ? null : Long.parseLong(description.trim());
+            return new Partition(rs.getString("PARTITION_NAME"), upperBound, rs.getLong("TABLE_ROWS"));
+        }, table);
+    }
+
+    /**
+     * Cutoff'tan eski olup hâlâ silinmemiş en eski satırın cutoff'a uzaklığı.
+     * Partition'lı tabloda gün sınırı nedeniyle en fazla bir gün olabilir.
+     */
+    private long computeLag(RetentionTarget target, Instant cutoff) {
+        String condition = target.condition() != null ? " AND " + target.condition() : "";
+        Timestamp oldest = jdbcTemplate.queryForObject("SELECT MIN(created_at) FROM " + target.table()
+                + " WHERE created_at < ?" + condition, Timestamp.class, Timestamp.from(cutoff));
+        return oldest == null ? 0 : Math.max(0, cutoff.toEpochMilli() - oldest.getTime());
+    }
+
+    private boolean isMysql() {
+        Boolean result = mysql;
+        if (result == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+            result = product != null && product.toLowerCase(Locale.ROOT).contains("mysql");
+            mysql = result;
+        }
+        return result;
+    }
+
+    /**
+     * @return beklemeye devam edilebiliyorsa true, thread interrupt edildiyse false
+     */
+    private boolean pause() {
+        if (chunkPauseMs <= 0) {
+            return true;
+        }
+        try {
+            TimeUnit.MILLISECONDS.sleep(chunkPauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private long ttlHours(RetentionTarget target) {
+        return switch (target) {
+            case IDEMPOTENCY_RECORDS -> idempotencyTtlHours;
+            case OUTBOX_EVENTS -> outboxTtlHours;
+            case WEBHOOK_DELIVERIES -> webhookTtlHours;
+            case API_LOGS -> apiLogTtlHours;
+        };
+    }
+
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[TARGETS.length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    private static AtomicLong[] newGauges() {
+        AtomicLong[] gauges = new AtomicLong[TARGETS.length];
+        for (int i = 0; i < gauges.length; i++) {
+            gauges[i] = new AtomicLong();
+        }
+        return gauges;
+    }
+
+    private record KeysetRow(byte[] id, Timestamp createdAt) {}
+
+    /**
+     * @param purgedRows        silinen satırlar (partition düşürmede information_schema tahmini)
+     * @param droppedPartitions düşürülen partition sayısı
+     * @param lagMs             silinmeyi bekleyen en eski satırın cutoff'a uzaklığı
+     */
+    public record RetentionStats(long purgedRows, long droppedPartitions, long lagMs) {}
+}
@@ -0,0 +1,42 @@
+package org.taha.paymentgateway.retention;
+
+/**
+ * Retention uygulanan tablolar ve silinebilir satır koşulları.
+ *
+ * Sıra önemlidir: webhook_deliveries.event_id -> outbox_events.id FK'sı nedeniyle
+ * delivery'ler outbox event'lerinden önce temizlenir.
+ */
+public enum RetentionTarget {
+
+    /** Sadece teslim edilmiş delivery'ler; FAILED / EXHAUSTED inceleme için kalır */
+    WEBHOOK_DELIVERIES("webhook_deliveries", "status = 'DELIVERED'"),
+
+    /** Gönderilmiş ve artık hiçbir delivery'nin referans vermediği event'ler */
+    OUTBOX_EVENTS("outbox_events", "status = 'SENT' AND NOT EXISTS "
+            + "(SELECT 1 FROM webhook_deliveries d WHERE d.event_id = outbox_events.id)"),
+
+    /** TTL'i dolan tamamlanmış key'ler; IN_PROGRESS rezervasyonlar IdempotencyService'te devralınarak sonuçlanır */
+    IDEMPOTENCY_RECORDS("idempotency_records", "status <> 'IN_PROGRESS'"),
+
+    /** MySQL'de günlük partition'lar düşürülür, diğer veritabanlarında satır silinir */
+    API_LOGS("api_logs", null);
+
+    private final String table;
+    private final String condition;
+
+    RetentionTarget(String table, String condition) {
+        this.table = table;
+        this.condition = condition;
+    }
+
+    public String table() {
+        return table;
+    }
+
+    /**
+     * created_at dışındaki ek silme koşulu (tablo adıyla nitelenmiş), yoksa null.
+     */
+    String condition() {
+        return condition;
+    }
+}
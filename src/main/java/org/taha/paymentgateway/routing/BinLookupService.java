@@ -1,28 +1,107 @@
 package org.taha.paymentgateway.routing;
 
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 /**
  * BIN (Bank Identification Number) lookup servisi.
  * 
- * Kart numarasının ilk 6 hanesine bakarak:
+ * Kart numarasının ilk 6-8 hanesine bakarak:
  * - Hangi bankaya ait
  * - Kart markası (VISA, MC, TROY)
  * - Kart tipi (CREDIT, DEBIT)
  * bilgilerini döner.
+ *
+ * Lookup DB'ye gitmez: bin_database (ve varsa import dosyası) memory-mapped
+ * bir {@link BinTable} dosyasına yazılır ve aramalar bu dosya üzerinde binary search ile yapılır.
+ * Yenileme sırasında yeni dosya ayrı kurulur, atomik olarak taşınır ve referans tek atamayla değişir.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BinLookupService {
 
+    private static final String BIN_QUERY =
+            "SELECT bin_prefix, bank_name, card_brand, card_type, country_code FROM bin_database";
+
     private final JdbcTemplate jdbcTemplate;
 
+    /** Memory-mapped tablo dosyasının yolu */
+    @Value("${bin.table.file:${java.io.tmpdir}/payment-gateway/bin-table.bin}")
+    private Path tableFile;
+
+    /**
+     * Opsiyonel CSV import dosyası: bin_start,bin_end,bank_name,card_brand,card_type,country_code
+     * bin_end boşsa bin_start prefix olarak yorumlanır.
+     */
+    @Value("${bin.table.import-file:}")
+    private String importFile;
+
+    private volatile BinTable table = BinTable.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    @Scheduled(
+            initialDelayString = "${bin.table.refresh-interval-ms:300000}",
+            fixedDelayString = "${bin.table.refresh-interval-ms:300000}"
+    )
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * BIN tablosunu kaynaktan yeniden kurar. Hata olursa mevcut tablo kullanılmaya devam eder.
+     *
+     * @return tablodaki kayıt (aralık) sayısı, hata durumunda -1
+     */
+    public int reload() {
+        try {
+            List<BinTable.Entry> entries = new ArrayList<>(loadFromDatabase());
+            if (importFile != null && !importFile.isBlank()) {
+                entries.addAll(loadFromImportFile(Path.of(importFile)));
+            }
+
+            // Aynı dosyayı paylaşan instance'lar birbirinin yarım yazdığı dosyayı görmesin: her yazım kendi
+            // geçici dosyasına (aynı dizinde, rename atomik kalsın diye) yapılır, sonra yerine taşınır
+            Path directory = tableFile.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            Path tmp = Files.createTempFile(directory, tableFile.getFileName().toString(), ".tmp");
+            int written;
+            try {
+                written = BinTable.write(entries, tmp);
+                Files.move(tmp, tableFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+
+            table = BinTable.open(tableFile);
+            log.info("BIN table rebuilt: {} source entries, {} ranges at {}", entries.size(), written, tableFile);
+            return written;
+        } catch (Exception e) {
+            log.error("BIN table reload failed, keeping previous table ({} ranges)", table.size(), e);
+            return -1;
+        }
+    }
+
     /**
      * BIN numarasına göre banka bilgisini getirir.
      */
@@ -32,24 +111,60 @@ public class BinLookupService {
             return Optional.empty();
         }
 
-        String bin = cardBin.substring(0, 6);
-        
-        try {
-            return jdbcTemplate.query(
-                "SELECT bin_prefix, bank_name, card_brand, card_type, country_code FROM bin_database WHERE bin_prefix = ?",
-                (rs, rowNum) -> new BinInfo(
-                    rs.getString("bin_prefix"),
-                    rs.getString("bank_name"),
-                    rs.getString("card_brand"),
-                    rs.getString("card_type"),
-                    rs.getString("country_code")
-                ),
-                bin
-            ).stream().findFirst();
-        } catch (Exception e) {
-            log.error("BIN lookup failed for: {}", bin, e);
-            return Optional.empty();
+        return Optional.ofNullable(table.find(cardBin));
+    }
+
+    private List<BinTable.Entry> loadFromDatabase() {
+        List<BinTable.Entry> entries = jdbcTemplate.query(BIN_QUERY, (rs, rowNum) -> {
+            String prefix = rs.getString("bin_prefix");
+            try {
+                return BinTable.Entry.ofPrefix(
+                        prefix,
+                        rs.getString("bank_name"),
+                        rs.getString("card_brand"),
+                        rs.getString("card_type"),
+                        rs.getString("country_code")
+                );
+            } catch (IllegalArgumentException e) {
+                log.warn("Skipping invalid BIN prefix in bin_database: {}", prefix);
+                return null;
+            }
+        });
+        return entries.stream().filter(Objects::nonNull).toList();
+    }
+
+    private List<BinTable.Entry> loadFromImportFile(Path file) throws IOException {
+        List<BinTable.Entry> entries = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank() || line.startsWith("#") || line.startsWith("bin_start")) {
+                    continue;
+                }
+                String[] cols = line.split(",", -1);
+                if (cols.length < 6) {
+                    log.warn("Skipping malformed BIN import line {}: {}", lineNo, line);
+                    continue;
+                }
+                try {
+                    String start = cols[0].trim();
+                    String end = cols[1].trim();
+                    entries.add(end.isEmpty()
+                            ? BinTable.Entry.ofPrefix(start, value(cols[2]), value(cols[3]), value(cols[4]), value(cols[5]))
+                            : BinTable.Entry.ofRange(start, end, value(cols[2]), value(cols[3]), value(cols[4]), value(cols[5])));
+                } catch (IllegalArgumentException e) {
+                    log.warn("Skipping invalid BIN import line {}: {}", lineNo, e.getMessage());
+                }
+            }
         }
+        return entries;
+    }
+
+    private static String value(String column) {
+        String trimmed = column.trim();
+        return trimmed.isEmpty() ? null : trimmed;
     }
 
     /**
@@ -0,0 +1,324 @@
+package org.taha.paymentgateway.routing;
+
+import org.taha.paymentgateway.routing.BinLookupService.BinInfo;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Memory-mapped, sıralı ve sabit genişlikli BIN aralık tablosu.
+ *
+ * Her kayıt 8 haneye normalize edilmiş [low, high] aralığıdır:
+ * 6 haneli "415679" prefix'i [41567900, 41567999] olarak saklanır.
+ * İç içe aralıklar dosya yazılırken düzleştirilir (dar olan kazanır),
+ * böylece lookup tek bir binary search ile çözülür.
+ *
+ * Dosya düzeni (big-endian):
+ * <pre>
+ * header : magic(int) version(int) recordCount(int) poolCount(int) poolBytes(int)
+ * pool   : poolCount x [len(u16) utf8-bytes]        (banka/marka/tip/ülke string'leri)
+ * records: recordCount x [low(int) high(int) bank(u16) brand(u16) type(u16) country(u16) prefixLen(int)]
+ * </pre>
+ *
+ * Kayıtlar heap dışında (page cache) durur; heap'te sadece intern edilmiş string havuzu tutulur.
+ */
+final class BinTable {
+
+    static final int KEY_DIGITS = 8;
+
+    private static final int MAGIC = 0x42494E54; // "BINT"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int RECORD_SIZE = 20;
+    private static final int NO_STRING = 0xFFFF;
+
+    static final BinTable EMPTY = new BinTable(ByteBuffer.allocate(0), new String[0], 0);
+
+    private final ByteBuffer records;
+    private final String[] pool;
+    private final int size;
+
+    private BinTable(ByteBuffer records, String[] pool, int size) {
+        this.records = records;
+        this.pool = pool;
+        this.size = size;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Kart numarasının ilk 6-8 hanesine göre aralık araması yapar.
+     * 8 haneden kısa BIN'ler sağdan sıfırla tamamlanır.
+     *
+     * @return eşleşen BIN bilgisi, yoksa null
+     */
+    BinInfo find(String cardBin) {
+        int digits = Math.min(cardBin.length(), KEY_DIGITS);
+        int key = 0;
+        for (int i = 0; i < KEY_DIGITS; i++) {
+            int digit = 0;
+            if (i < digits) {
+                digit = cardBin.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return null;
+                }
+            }
+            key = key * 10 + digit;
+        }
+
+        // low <= key olan son kaydı bul
+        int lo = 0;
+        int hi = size - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (records.getInt(mid * RECORD_SIZE) <= key) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return null;
+        }
+
+        int offset = found * RECORD_SIZE;
+        if (key > records.getInt(offset + 4)) {
+            return null;
+        }
+
+        int prefixLength = records.getInt(offset + 16);
+        int binLength = Math.min(prefixLength > 0 ? prefixLength : KEY_DIGITS, digits);
+        return new BinInfo(
+                cardBin.substring(0, binLength),
+                string(records.getChar(offset + 8)),
+                string(records.getChar(offset + 10)),
+                string(records.getChar(offset + 12)),
+                string(records.getChar(offset + 14))
+        );
+    }
+
+    private String string(char index) {
+        return index == NO_STRING ? null : pool[index];
+    }
+
+    /**
+     * Dosyayı read-only olarak map eder. Kanal kapansa da mapping geçerli kalır.
+     */
+    static BinTable open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (mapped.capacity() < HEADER_SIZE || mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION) {
+            throw new IOException("Unsupported BIN table file: " + file);
+        }
+        int recordCount = mapped.getInt(8);
+        int poolCount = mapped.getInt(12);
+        int poolBytes = mapped.getInt(16);
+
+        ByteBuffer poolBuffer = mapped.duplicate();
+        poolBuffer.position(HEADER_SIZE);
+        String[] pool = new String[poolCount];
+        for (int i = 0; i < poolCount; i++) {
+            byte[] bytes = new byte[poolBuffer.getShort() & 0xFFFF];
+            poolBuffer.get(bytes);
+            pool[i] = new String(bytes, StandardCharsets.UTF_8).intern();
+        }
+
+        ByteBuffer records = mapped.slice(HEADER_SIZE + poolBytes, recordCount * RECORD_SIZE);
+        return new BinTable(records, pool, recordCount);
+    }
+
+    /**
+     * Kayıtları düzleştirip sıralı olarak dosyaya yazar.
+     *
+     * @return yazılan kayıt sayısı
+     */
+    static int write(List<Entry> entries, Path file) throws IOException {
+        List<Entry> flat = flatten(entries);
+
+        Map<String, Integer> poolIndex = new LinkedHashMap<>();
+        for (Entry entry : flat) {
+            intern(poolIndex, entry.bankName());
+            intern(poolIndex, entry.cardBrand());
+            intern(poolIndex, entry.cardType());
+            intern(poolIndex, entry.countryCode());
+        }
+        if (poolIndex.size() >= NO_STRING) {
+            throw new IllegalStateException("Too many distinct BIN strings: " + poolIndex.size());
+        }
+
+        List<byte[]> poolData = new ArrayList<>(poolIndex.size());
+        int poolBytes = 0;
+        for (String value : poolIndex.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            poolData.add(bytes);
+            poolBytes += 2 + bytes.length;
+        }
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(flat.size());
+            out.writeInt(poolData.size());
+            out.writeInt(poolBytes);
+            for (byte[] bytes : poolData) {
+                out.writeShort(bytes.length);
+                out.write(bytes);
+            }
+            for (Entry entry : flat) {
+                out.writeInt(entry.low());
+                out.writeInt(entry.high());
+                out.writeChar(indexOf(poolIndex, entry.bankName()));
+                out.writeChar(indexOf(poolIndex, entry.cardBrand()));
+                out.writeChar(indexOf(poolIndex, entry.cardType()));
+                out.writeChar(indexOf(poolIndex, entry.countryCode()));
+                out.writeInt(entry.prefixLength());
+            }
+        }
+        return flat.size();
+    }
+
+    /**
+     * Çakışan aralıkları ayrık parçalara böler. Her parçada en dar aralık kazanır;
+     * aynı genişlikte listede sonra gelen (örn. import dosyası) kazanır.
+     */
+    static List<Entry> flatten(List<Entry> entries) {
+        int n = entries.size();
+        Integer[] order = new Integer[n];
+        int[] bounds = new int[n * 2];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+            bounds[i * 2] = entries.get(i).low();
+            bounds[i * 2 + 1] = entries.get(i).high() + 1;
+        }
+        Arrays.sort(order, Comparator.comparingInt(i -> entries.get(i).low()));
+        Arrays.sort(bounds);
+
+        PriorityQueue<Integer> active = new PriorityQueue<>(
+                Comparator.<Integer>comparingInt(i -> entries.get(i).width())
+                        .thenComparing(Comparator.<Integer>naturalOrder().reversed()));
+
+        List<Entry> result = new ArrayList<>();
+        int next = 0;
+        int lastWinner = -1;
+        for (int b = 0; b < bounds.length - 1; b++) {
+            int start = bounds[b];
+            int end = bounds[b + 1] - 1;
+            if (end < start) {
+                continue;
+            }
+            while (next < n && entries.get(order[next]).low() <= start) {
+                active.add(order[next++]);
+            }
+            while (!active.isEmpty() && entries.get(active.peek()).high() < start) {
+                active.poll();
+            }
+            if (active.isEmpty()) {
+                lastWinner = -1;
+                continue;
+            }
+
+            int winner = active.peek();
+            if (winner == lastWinner) {
+                Entry previous = result.get(result.size() - 1);
+                result.set(result.size() - 1, previous.withRange(previous.low(), end));
+            } else {
+                result.add(entries.get(winner).withRange(start, end));
+            }
+            lastWinner = winner;
+        }
+        return result;
+    }
+
+    private static void intern(Map<String, Integer> poolIndex, String value) {
+        if (value != null) {
+            poolIndex.putIfAbsent(value, poolIndex.size());
+        }
+    }
+
+    private static int indexOf(Map<String, Integer> poolIndex, String value) {
+        return value == null ? NO_STRING : poolIndex.get(value);
+    }
+
+    /**
+     * Tabloya yazılacak tek bir BIN aralığı.
+     *
+     * @param prefixLength kayıt bir prefix'ten geldiyse uzunluğu, açık aralık ise 0
+     */
+    record Entry(
+        int low,
+        int high,
+        int prefixLength,
+        String bankName,
+        String cardBrand,
+        String cardType,
+        String countryCode
+    ) {
+        /**
+         * 1-8 haneli prefix'i [prefix00.., prefix99..] aralığına çevirir.
+         */
+        static Entry ofPrefix(String prefix, String bankName, String cardBrand, String cardType, String countryCode) {
+            requireDigits(prefix);
+            return new Entry(pad(prefix, '0'), pad(prefix, '9'), prefix.length(),
+                    bankName, cardBrand, cardType, countryCode);
+        }
+
+        /**
+         * Açık BIN aralığı. Uçlar 8 haneden kısaysa low sıfırla, high dokuzla tamamlanır.
+         */
+        static Entry ofRange(String lowBin, String highBin, String bankName, String cardBrand, String cardType, String countryCode) {
+            requireDigits(lowBin);
+            requireDigits(highBin);
+            int low = pad(lowBin, '0');
+            int high = pad(highBin, '9');
+            if (high < low) {
+                throw new IllegalArgumentException("BIN range end is before start: " + lowBin + "-" + highBin);
+            }
+            return new Entry(low, high, 0, bankName, cardBrand, cardType, countryCode);
+        }
+
+        int width() {
+            return high - low;
+        }
+
+        Entry withRange(int newLow, int newHigh) {
+            return new Entry(newLow, newHigh, prefixLength, bankName, cardBrand, cardType, countryCode);
+        }
+
+        private static int pad(String digits, char filler) {
+            int value = 0;
+            for (int i = 0; i < KEY_DIGITS; i++) {
+                char c = i < digits.length() ? digits.charAt(i) : filler;
+                value = value * 10 + (c - '0');
+            }
+            return value;
+        }
+
+        private static void requireDigits(String value) {
+            if (value == null || value.isEmpty() || value.length() > KEY_DIGITS) {
+                throw new IllegalArgumentException("BIN must be 1-" + KEY_DIGITS + " digits: " + value);
+            }
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    throw new IllegalArgumentException("BIN must be numeric: " + value);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,331 @@
+package org.taha.paymentgateway.routing;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.HealthStatus;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.ProviderResult;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Provider sağlık durumlarını tutan registry (circuit breaker).
+ *
+ * Her provider için CLOSED / OPEN / HALF_OPEN durumunda bir devre tutulur:
+ * - Canlı sonuçlar (saveAttempt) kayan pencereye yazılır; hata veya yavaş çağrı oranı
+ *   eşiği aşınca devre OPEN olur ve routing sıradaki kurala geçer.
+ * - OPEN süresi dolunca HALF_OPEN'a geçilir ve sınırlı sayıda deneme çağrısına izin verilir.
+ *   Denemeler başarılıysa CLOSED, biri bile başarısızsa tekrar OPEN.
+ * - Arka plandaki probe'lar healthCheck() sonucunu periyodik olarak okur; UNHEALTHY devreyi açar.
+ *
+ * Routing tarafındaki {@link #isAvailable(String)} sadece volatile/atomic alanları okur, kilit almaz
+ * ve provider'a network çağrısı yapmaz.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProviderHealthRegistry {
+
+    private final Map<String, PaymentProviderAdapter> providerAdapters;
+
+    /** Kayan pencere uzunluğu (1 saniyelik bucket sayısı) */
+    @Value("${provider.health.window-seconds:30}")
+    private int windowSeconds;
+
+    /** Oran hesaplamak için penceredeki minimum çağrı sayısı */
+    @Value("${provider.health.minimum-calls:10}")
+    private int minimumCalls;
+
+    /** Devreyi açan hata oranı (%) */
+    @Value("${provider.health.failure-rate-threshold:50}")
+    private int failureRateThreshold;
+
+    /** Bu süreden uzun çağrılar yavaş sayılır */
+    @Value("${provider.health.slow-call-threshold-ms:2000}")
+    private long slowCallThresholdMs;
+
+    /** Devreyi açan yavaş çağrı oranı (%) */
+    @Value("${provider.health.slow-call-rate-threshold:80}")
+    private int slowCallRateThreshold;
+
+    /** OPEN durumunda kalma süresi */
+    @Value("${provider.health.open-duration-ms:30000}")
+    private long openDurationMs;
+
+    /** HALF_OPEN durumunda izin verilen deneme çağrısı sayısı */
+    @Value("${provider.health.half-open-permitted-calls:3}")
+    private int halfOpenPermittedCalls;
+
+    private volatile Map<String, ProviderCircuit> circuits = Map.of();
+
+    @PostConstruct
+    public void init() {
+        Map<String, ProviderCircuit> created = new LinkedHashMap<>();
+        providerAdapters.keySet().forEach(name -> created.put(name, new ProviderCircuit(name, windowSeconds)));
+        circuits = Map.copyOf(created);
+        log.info("Provider health registry initialized for {}", created.keySet());
+    }
+
+    /**
+     * Routing'in provider'ı kullanıp kullanamayacağını döner.
+     * HALF_OPEN durumunda her çağrı bir deneme hakkı tüketir.
+     */
+    public boolean isAvailable(String providerName) {
+        ProviderCircuit circuit = circuits.get(providerName);
+        if (circuit == null) {
+            return true;
+        }
+
+        CircuitState state = circuit.state.get();
+        if (state == CircuitState.OPEN) {
+            if (!tryHalfOpen(circuit, System.currentTimeMillis())) {
+                return false;
+            }
+            state = CircuitState.HALF_OPEN;
+        }
+        if (state == CircuitState.HALF_OPEN) {
+            return circuit.halfOpenPermits.getAndDecrement() > 0;
+        }
+        return true;
+    }
+
+    public CircuitState getState(String providerName) {
+        ProviderCircuit circuit = circuits.get(providerName);
+        return circuit == null ? CircuitState.CLOSED : circuit.state.get();
+    }
+
+    /**
+     * Provider çağrısının sonucunu kaydeder.
+     * Sadece provider arızaları ({@link ProviderResult#isProviderFault()}: TIMEOUT ve teknik hatalar) hata sayılır;
+     * issuer red'leri SUCCESS / REQUIRES_3DS gibi başarılı çağrıdır. Bir merchant'ın red patlaması devreyi açmaz.
+     */
+    public void recordOutcome(String providerName, ProviderResult result, long latencyMs) {
+        ProviderCircuit circuit = circuits.get(providerName);
+        if (circuit == null) {
+            return;
+        }
+
+        boolean failure = result.isProviderFault();
+        boolean slow = latencyMs >= slowCallThresholdMs;
+        long now = System.currentTimeMillis();
+
+        switch (circuit.state.get()) {
+            case HALF_OPEN -> {
+                if (failure || slow) {
+                    trip(circuit, CircuitState.HALF_OPEN, now, "trial call failed");
+                } else if (circuit.halfOpenSuccesses.incrementAndGet() >= halfOpenPermittedCalls
+                        && circuit.state.compareAndSet(CircuitState.HALF_OPEN, CircuitState.CLOSED)) {
+                    circuit.window.reset();
+                    log.info("Circuit CLOSED for provider {} after successful trial calls", providerName);
+                }
+            }
+            case CLOSED -> {
+                circuit.window.record(now, failure, slow, latencyMs);
+                WindowStats stats = circuit.window.stats(now);
+                if (stats.calls() >= minimumCalls) {
+                    if (stats.failureRate() >= failureRateThreshold) {
+                        trip(circuit, CircuitState.CLOSED, now, "failure rate " + stats.failureRate() + "%");
+                    } else if (stats.slowCallRate() >= slowCallRateThreshold) {
+                        trip(circuit, CircuitState.CLOSED, now, "slow call rate " + stats.slowCallRate() + "%");
+                    }
+                }
+            }
+            case OPEN -> {
+                // Devre açıkken biten (önceden başlamış) çağrılar durumu değiştirmez
+            }
+        }
+    }
+
+    /**
+     * Arka plan health probe'u. Routing'den bağımsız olarak her provider'ın healthCheck()'ini çağırır.
+     */
+    @Scheduled(fixedDelayString = "${provider.health.probe-interval-ms:10000}")
+    public void probe() {
+        long now = System.currentTimeMillis();
+        circuits.values().forEach(circuit -> {
+            HealthStatus status;
+            try {
+                status = providerAdapters.get(circuit.providerName).healthCheck();
+            } catch (Exception e) {
+                log.warn("Health probe failed for provider {}: {}", circuit.providerName, e.getMessage());
+                status = HealthStatus.UNHEALTHY;
+            }
+            circuit.lastProbeStatus = status;
+
+            CircuitState state = circuit.state.get();
+            if (status == HealthStatus.UNHEALTHY) {
+                if (state != CircuitState.OPEN) {
+                    trip(circuit, state, now, "health probe UNHEALTHY");
+                }
+            } else if (state == CircuitState.OPEN) {
+                tryHalfOpen(circuit, now);
+            } else if (state == CircuitState.HALF_OPEN && now - circuit.openedAt >= 2 * openDurationMs) {
+                // Deneme hakları sonuç kaydedilmeden tükendiyse devre HALF_OPEN'da takılı kalmasın
+                circuit.halfOpenSuccesses.set(0);
+                circuit.halfOpenPermits.set(halfOpenPermittedCalls);
+                circuit.openedAt = now - openDurationMs;
+            }
+        });
+    }
+
+    /**
+     * Admin ekranı için anlık görüntü.
+     */
+    public Map<String, ProviderHealth> snapshot() {
+        long now = System.currentTimeMillis();
+        Map<String, ProviderHealth> result = new LinkedHashMap<>();
+        circuits.values().forEach(circuit -> {
+            WindowStats stats = circuit.window.stats(now);
+            result.put(circuit.providerName, new ProviderHealth(
+                    circuit.providerName,
+                    circuit.state.get(),
+                    circuit.lastProbeStatus,
+                    stats.calls(),
+                    stats.failureRate(),
+                    stats.slowCallRate(),
+                    stats.avgLatencyMs()
+            ));
+        });
+        return result;
+    }
+
+    private void trip(ProviderCircuit circuit, CircuitState from, long now, String reason) {
+        if (circuit.state.compareAndSet(from, CircuitState.OPEN)) {
+            circuit.openedAt = now;
+            log.warn("Circuit OPEN for provider {} ({})", circuit.providerName, reason);
+        }
+    }
+
+    private boolean tryHalfOpen(ProviderCircuit circuit, long now) {
+        if (now - circuit.openedAt < openDurationMs) {
+            return false;
+        }
+        circuit.halfOpenSuccesses.set(0);
+        circuit.halfOpenPermits.set(halfOpenPermittedCalls);
+        if (circuit.state.compareAndSet(CircuitState.OPEN, CircuitState.HALF_OPEN)) {
+            log.info("Circuit HALF_OPEN for provider {}", circuit.providerName);
+        }
+        return circuit.state.get() == CircuitState.HALF_OPEN;
+    }
+
+    public enum CircuitState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    /**
+     * Admin response için provider sağlık özeti.
+     */
+    public record ProviderHealth(
+        String providerName,
+        CircuitState state,
+        HealthStatus lastProbeStatus,
+        long windowCalls,
+        int failureRate,
+        int slowCallRate,
+        long avgLatencyMs
+    ) {}
+
+    record WindowStats(long calls, long failures, long slowCalls, long latencySum) {
+        int failureRate() {
+            return calls == 0 ? 0 : (int) (failures * 100 / calls);
+        }
+
+        int slowCallRate() {
+            return calls == 0 ? 0 : (int) (slowCalls * 100 / calls);
+        }
+
+        long avgLatencyMs() {
+            return calls == 0 ? 0 : latencySum / calls;
+        }
+    }
+
+    private static final class ProviderCircuit {
+        private final String providerName;
+        private final AtomicReference<CircuitState> state = new AtomicReference<>(CircuitState.CLOSED);
+        private final AtomicInteger halfOpenPermits = new AtomicInteger();
+        private final AtomicInteger halfOpenSuccesses = new AtomicInteger();
+        private final RollingWindow window;
+        private volatile long openedAt;
+        private volatile HealthStatus lastProbeStatus;
+
+        private ProviderCircuit(String providerName, int windowSeconds) {
+            this.providerName = providerName;
+            this.window = new RollingWindow(windowSeconds);
+        }
+    }
+
+    /**
+     * Saniyelik bucket'lardan oluşan kayan pencere.
+     * Bucket devri CAS ile yapılır; devir anında kaybolan birkaç sayım kabul edilebilir (yaklaşık istatistik).
+     */
+    static final class RollingWindow {
+        private static final int CALLS = 0;
+        private static final int FAILURES = 1;
+        private static final int SLOW = 2;
+        private static final int LATENCY = 3;
+        private static final int FIELDS = 4;
+
+        private final int buckets;
+        private final AtomicLongArray epochs;
+        private final AtomicLongArray counters;
+
+        RollingWindow(int buckets) {
+            this.buckets = Math.max(1, buckets);
+            this.epochs = new AtomicLongArray(this.buckets);
+            this.counters = new AtomicLongArray(this.buckets * FIELDS);
+        }
+
+        void record(long nowMs, boolean failure, boolean slow, long latencyMs) {
+            long second = nowMs / 1000;
+            int bucket = (int) (second % buckets);
+            long epoch = epochs.get(bucket);
+            if (epoch != second && epochs.compareAndSet(bucket, epoch, second)) {
+                for (int f = 0; f < FIELDS; f++) {
+                    counters.set(bucket * FIELDS + f, 0);
+                }
+            }
+
+            int base = bucket * FIELDS;
+            counters.incrementAndGet(base + CALLS);
+            if (failure) {
+                counters.incrementAndGet(base + FAILURES);
+            }
+            if (slow) {
+                counters.incrementAndGet(base + SLOW);
+            }
+            counters.addAndGet(base + LATENCY, latencyMs);
+        }
+
+        WindowStats stats(long nowMs) {
+            long oldest = nowMs / 1000 - buckets + 1;
+            long calls = 0, failures = 0, slow = 0, latency = 0;
+            for (int b = 0; b < buckets; b++) {
+                if (epochs.get(b) < oldest) {
+                    continue;
+                }
+                int base = b * FIELDS;
+                calls += counters.get(base + CALLS);
+                failures += counters.get(base + FAILURES);
+                slow += counters.get(base + SLOW);
+                latency += counters.get(base + LATENCY);
+            }
+            return new WindowStats(calls, failures, slow, latency);
+        }
+
+        void reset() {
+            for (int b = 0; b < buckets; b++) {
+                epochs.set(b, 0);
+            }
+        }
+    }
+}
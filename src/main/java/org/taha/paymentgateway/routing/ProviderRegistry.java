@@ -3,22 +3,26 @@ package org.taha.paymentgateway.routing;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
+import org.taha.paymentgateway.provider.mock.SimulatedAcquirers;
 
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Provider adapter'ları registry'e kaydeder.
- * Her adapter providerName() ile map'e eklenir.
+ * Her adapter providerName() ile map'e eklenir; config'ten tanımlanan simüle acquirer'lar da dahil.
+ * Aynı isimle iki adapter tanımlanırsa uygulama açılmaz.
  */
 @Configuration
 public class ProviderRegistry {
 
     @Bean
-    public Map<String, PaymentProviderAdapter> providerAdapters(List<PaymentProviderAdapter> adapters) {
-        return adapters.stream()
+    public Map<String, PaymentProviderAdapter> providerAdapters(List<PaymentProviderAdapter> adapters,
+                                                                SimulatedAcquirers simulatedAcquirers) {
+        return Stream.concat(adapters.stream(), simulatedAcquirers.adapters().stream())
                 .collect(Collectors.toMap(
                         PaymentProviderAdapter::providerName,
                         Function.identity()
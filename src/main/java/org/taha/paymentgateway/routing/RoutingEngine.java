@@ -3,11 +3,11 @@ package org.taha.paymentgateway.routing;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.taha.paymentgateway.persistence.entity.RoutingRuleEntity;
-import org.taha.paymentgateway.persistence.repository.RoutingRuleRepository;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.metrics.GatewayMetrics.RoutingOutcome;
 import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
-import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.HealthStatus;
 import org.taha.paymentgateway.routing.BinLookupService.BinInfo;
+import org.taha.paymentgateway.routing.RoutingRuleIndex.Rule;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -24,15 +24,20 @@ import java.util.Optional;
  * 2. Merchant Anlaşma: Merchant'ın özel anlaşması varsa ona yönlendir
  * 3. Currency Bazlı: TRY → Türk bankaları, USD/EUR → Uluslararası
  * 4. Fallback: Hiçbiri yoksa varsayılan provider
+ *
+ * Kurallar her istekte DB'den okunmaz, {@link RoutingRuleIndex} üzerinden eşleştirilir.
+ * Provider sağlığı için healthCheck() çağrılmaz; {@link ProviderHealthRegistry}'deki devre durumu okunur.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class RoutingEngine {
 
-    private final RoutingRuleRepository routingRuleRepository;
+    private final RoutingRuleIndex routingRuleIndex;
     private final Map<String, PaymentProviderAdapter> providerAdapters;
     private final BinLookupService binLookupService;
+    private final ProviderHealthRegistry providerHealthRegistry;
+    private final GatewayMetrics gatewayMetrics;
 
     /**
      * İşlem için en uygun (düşük komisyonlu) provider'ı seçer.
@@ -41,6 +46,7 @@ public class RoutingEngine {
      * @return Routing sonucu (seçilen provider + neden seçildi)
      */
     public RoutingResult selectProvider(RoutingContext context) {
+        long start = System.nanoTime();
         log.info("=== ROUTING BAŞLIYOR ===");
         log.info("Merchant: {}, Currency: {}, BIN: {}", 
                 context.merchantId(), context.currency(), maskBin(context.cardBin()));
@@ -57,8 +63,8 @@ public class RoutingEngine {
             log.warn("BIN bulunamadı: {}", maskBin(context.cardBin()));
         }
 
-        // DB'den eşleşen kuralları al (priority'ye göre sıralı)
-        List<RoutingRuleEntity> rules = routingRuleRepository.findMatchingRules(
+        // İndeksten eşleşen kuralları al (priority'ye göre sıralı)
+        List<Rule> rules = routingRuleIndex.match(
                 context.merchantId(),
                 context.currency(),
                 context.cardBin()
@@ -67,35 +73,38 @@ public class RoutingEngine {
         log.info("Eşleşen {} kural bulundu", rules.size());
 
         // Eşleşen kuralları dene
-        for (RoutingRuleEntity rule : rules) {
+        for (Rule rule : rules) {
             log.debug("Kural deneniyor: {} (priority: {}, komisyon: {}%)", 
-                    rule.getProviderName(), rule.getPriority(), rule.getCommissionRate());
+                    rule.providerName(), rule.priority(), rule.commissionRate());
             
-            Optional<PaymentProviderAdapter> adapter = tryProvider(rule.getProviderName());
+            Optional<PaymentProviderAdapter> adapter = tryProvider(rule.providerName());
             if (adapter.isPresent()) {
                 String reason = buildReason(rule, binInfo.orElse(null));
                 log.info("✅ SEÇİLEN PROVIDER: {} - Komisyon: {}% - Sebep: {}", 
-                        rule.getProviderName(), 
-                        rule.getCommissionRate(),
+                        rule.providerName(), 
+                        rule.commissionRate(),
                         reason);
+                gatewayMetrics.recordRouting(rule.providerName(), RoutingOutcome.RULE, rules.size(), System.nanoTime() - start);
                 
                 return new RoutingResult(
                         adapter.get(),
-                        rule.getProviderName(),
-                        rule.getCommissionRate(),
+                        rule.providerName(),
+                        rule.commissionRate(),
                         reason,
                         binInfo.orElse(null)
                 );
             }
         }
 
-        // Fallback: herhangi bir healthy provider
-        Optional<PaymentProviderAdapter> fallback = providerAdapters.values().stream()
-                .filter(this::isHealthy)
+        // Fallback: devresi açık olmayan herhangi bir provider
+        Optional<PaymentProviderAdapter> fallback = providerAdapters.entrySet().stream()
+                .filter(entry -> providerHealthRegistry.isAvailable(entry.getKey()))
+                .map(Map.Entry::getValue)
                 .findFirst();
 
         if (fallback.isPresent()) {
             log.warn("⚠️ FALLBACK PROVIDER: {}", fallback.get().providerName());
+            gatewayMetrics.recordRouting(fallback.get().providerName(), RoutingOutcome.FALLBACK, rules.size(), System.nanoTime() - start);
             return new RoutingResult(
                     fallback.get(),
                     fallback.get().providerName(),
@@ -111,6 +120,7 @@ public class RoutingEngine {
                 .orElseThrow(() -> new IllegalStateException("No payment providers available"));
 
         log.error("❌ TÜM PROVIDER'LAR UNHEALTHY, zorunlu kullanım: {}", anyProvider.providerName());
+        gatewayMetrics.recordRouting(anyProvider.providerName(), RoutingOutcome.FORCED, rules.size(), System.nanoTime() - start);
         return new RoutingResult(
                 anyProvider,
                 anyProvider.providerName(),
@@ -120,16 +130,16 @@ public class RoutingEngine {
         );
     }
 
-    private String buildReason(RoutingRuleEntity rule, BinInfo binInfo) {
+    private String buildReason(Rule rule, BinInfo binInfo) {
         StringBuilder reason = new StringBuilder();
         
-        if (rule.getCardBinPrefix() != null && binInfo != null) {
+        if (rule.cardBinPrefix() != null && binInfo != null) {
             reason.append("ON-US: ").append(binInfo.bankName()).append(" kartı → ")
-                  .append(rule.getProviderName()).append(" (düşük komisyon)");
-        } else if (rule.getMerchantId() != null) {
-            reason.append("Merchant anlaşması: ").append(rule.getMerchantId());
-        } else if (rule.getCurrency() != null) {
-            reason.append("Currency bazlı: ").append(rule.getCurrency());
+                  .append(rule.providerName()).append(" (düşük komisyon)");
+        } else if (rule.merchantId() != null) {
+            reason.append("Merchant anlaşması: ").append(rule.merchantId());
+        } else if (rule.currency() != null) {
+            reason.append("Currency bazlı: ").append(rule.currency());
         } else {
             reason.append("Varsayılan kural");
         }
@@ -139,7 +149,7 @@ public class RoutingEngine {
 
     /**
      * Belirli bir provider'ı dene.
-     * Healthy değilse Optional.empty döner.
+     * Devresi açıksa (OPEN) Optional.empty döner.
      */
     private Optional<PaymentProviderAdapter> tryProvider(String providerName) {
         PaymentProviderAdapter adapter = providerAdapters.get(providerName);
@@ -149,24 +159,14 @@ public class RoutingEngine {
             return Optional.empty();
         }
 
-        if (!isHealthy(adapter)) {
-            log.warn("Provider unhealthy, skipping: {}", providerName);
+        if (!providerHealthRegistry.isAvailable(providerName)) {
+            log.warn("Provider circuit {}, skipping: {}", providerHealthRegistry.getState(providerName), providerName);
             return Optional.empty();
         }
 
         return Optional.of(adapter);
     }
 
-    private boolean isHealthy(PaymentProviderAdapter adapter) {
-        try {
-            HealthStatus status = adapter.healthCheck();
-            return status == HealthStatus.HEALTHY || status == HealthStatus.DEGRADED;
-        } catch (Exception e) {
-            log.error("Health check failed for provider: {}", adapter.providerName(), e);
-            return false;
-        }
-    }
-
     private String maskBin(String bin) {
         if (bin == null || bin.length() < 4) {
             return "****";
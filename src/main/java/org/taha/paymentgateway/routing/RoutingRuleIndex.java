@@ -0,0 +1,241 @@
+package org.taha.paymentgateway.routing;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.persistence.entity.RoutingRuleEntity;
+import org.taha.paymentgateway.persistence.repository.RoutingRuleRepository;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * Routing kurallarının bellek içi indeksi.
+ *
+ * Aktif kurallar başlangıçta routing_rules tablosundan okunur ve
+ * merchantId → currency → BIN prefix trie yapısına yerleştirilir.
+ * Authorize sırasında DB'ye gidilmez; eşleşme sadece trie üzerinde yürüyerek bulunur.
+ *
+ * Kurallar değiştiğinde yeni snapshot arka planda kurulur ve tek bir
+ * volatile atama ile değiştirilir (copy-on-write). Okuyucular hiçbir zaman kilit beklemez.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoutingRuleIndex {
+
+    private final RoutingRuleRepository routingRuleRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * Kural tablosundaki değişiklikleri periyodik olarak indekse yansıtır.
+     */
+    @Scheduled(
+            initialDelayString = "${routing.index.refresh-interval-ms:60000}",
+            fixedDelayString = "${routing.index.refresh-interval-ms:60000}"
+    )
+    public void scheduledReload() {
+        reload();
+    }
+
+    /**
+     * Aktif kuralları DB'den okuyup yeni snapshot kurar ve atomik olarak değiştirir.
+     * Hata olursa mevcut snapshot korunur.
+     *
+     * @return indekslenen kural sayısı, hata durumunda -1
+     */
+    public int reload() {
+        try {
+            List<RoutingRuleEntity> rules = routingRuleRepository.findByIsActiveTrue();
+            snapshot = Snapshot.build(rules);
+            log.info("Routing index rebuilt with {} active rules", rules.size());
+            return rules.size();
+        } catch (Exception e) {
+            log.error("Routing index reload failed, keeping previous snapshot", e);
+            return -1;
+        }
+    }
+
+    /**
+     * Verilen merchant, currency ve BIN için eşleşen kuralları priority'ye göre (yüksekten düşüğe) döner.
+     *
+     * Eşleşme kuralları eski SQL sorgusuyla aynıdır:
+     * null merchantId/currency/cardBinPrefix alanları joker kabul edilir.
+     */
+    public List<Rule> match(String merchantId, String currency, String cardBin) {
+        return snapshot.match(merchantId, currency, cardBin);
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    /**
+     * İndekste tutulan, entity'den bağımsız (immutable) kural kopyası.
+     */
+    public record Rule(
+        String merchantId,
+        String currency,
+        String cardBinPrefix,
+        String providerName,
+        int priority,
+        BigDecimal commissionRate
+    ) {
+        static Rule from(RoutingRuleEntity entity) {
+            return new Rule(
+                    entity.getMerchantId(),
+                    normalizeCurrency(entity.getCurrency()),
+                    entity.getCardBinPrefix(),
+                    entity.getProviderName(),
+                    entity.getPriority(),
+                    entity.getCommissionRate()
+            );
+        }
+
+        int prefixLength() {
+            return cardBinPrefix == null ? 0 : cardBinPrefix.length();
+        }
+    }
+
+    /**
+     * Yüksek priority önce; eşitlikte daha spesifik (uzun prefix, merchant'a özel) kural önce.
+     */
+    private static final Comparator<Rule> RULE_ORDER = Comparator
+            .comparingInt(Rule::priority).reversed()
+            .thenComparing(Comparator.comparingInt(Rule::prefixLength).reversed())
+            .thenComparing(r -> r.merchantId() == null);
+
+    private static String normalizeCurrency(String currency) {
+        return currency == null ? null : currency.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * Tek bir BIN trie düğümü. Her hane (0-9) için bir çocuk tutar.
+     */
+    private static final class Node {
+        private final Node[] children = new Node[10];
+        private Rule[] rules = new Rule[0];
+
+        private Node child(int digit) {
+            Node child = children[digit];
+            if (child == null) {
+                child = new Node();
+                children[digit] = child;
+            }
+            return child;
+        }
+
+        private void add(Rule rule) {
+            rules = Arrays.copyOf(rules, rules.length + 1);
+            rules[rules.length - 1] = rule;
+        }
+    }
+
+    /**
+     * Kuralların değişmez görüntüsü. Kurulduktan sonra hiç yazılmaz.
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new HashMap<>(), 0);
+
+        /** merchantId (null = tüm merchant'lar) → currency (null = tüm currency'ler) → trie kökü */
+        private final Map<String, Map<String, Node>> roots;
+        private final int size;
+
+        private Snapshot(Map<String, Map<String, Node>> roots, int size) {
+            this.roots = roots;
+            this.size = size;
+        }
+
+        private static Snapshot build(List<RoutingRuleEntity> entities) {
+            Map<String, Map<String, Node>> roots = new HashMap<>();
+            int size = 0;
+
+            for (RoutingRuleEntity entity : entities) {
+                Rule rule = Rule.from(entity);
+                String prefix = rule.cardBinPrefix();
+                if (prefix != null && !isDigits(prefix)) {
+                    log.warn("Skipping routing rule with non-numeric BIN prefix: {} -> {}", prefix, rule.providerName());
+                    continue;
+                }
+
+                Node node = roots
+                        .computeIfAbsent(rule.merchantId(), k -> new HashMap<>())
+                        .computeIfAbsent(rule.currency(), k -> new Node());
+                if (prefix != null) {
+                    for (int i = 0; i < prefix.length(); i++) {
+                        node = node.child(prefix.charAt(i) - '0');
+                    }
+                }
+                node.add(rule);
+                size++;
+            }
+
+            return new Snapshot(roots, size);
+        }
+
+        private List<Rule> match(String merchantId, String currency, String cardBin) {
+            String normalizedCurrency = normalizeCurrency(currency);
+            List<Rule> result = new ArrayList<>(4);
+
+            if (merchantId != null) {
+                collect(roots.get(merchantId), normalizedCurrency, cardBin, result);
+            }
+            collect(roots.get(null), normalizedCurrency, cardBin, result);
+
+            if (result.size() > 1) {
+                result.sort(RULE_ORDER);
+            }
+            return result;
+        }
+
+        private static void collect(Map<String, Node> byCurrency, String currency, String cardBin, List<Rule> result) {
+            if (byCurrency == null) {
+                return;
+            }
+            if (currency != null) {
+                walk(byCurrency.get(currency), cardBin, result);
+            }
+            walk(byCurrency.get(null), cardBin, result);
+        }
+
+        private static void walk(Node node, String cardBin, List<Rule> result) {
+            if (node == null) {
+                return;
+            }
+            Collections.addAll(result, node.rules);
+            if (cardBin == null) {
+                return;
+            }
+            for (int i = 0; i < cardBin.length(); i++) {
+                int digit = cardBin.charAt(i) - '0';
+                if (digit < 0 || digit > 9) {
+                    return;
+                }
+                node = node.children[digit];
+                if (node == null) {
+                    return;
+                }
+                Collections.addAll(result, node.rules);
+            }
+        }
+
+        private static boolean isDigits(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c < '0' || c > '9') {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -11,6 +11,7 @@ import org.taha.paymentgateway.persistence.entity.PaymentEntity;
 import org.taha.paymentgateway.persistence.entity.ThreeDsSessionEntity;
 import org.taha.paymentgateway.persistence.repository.PaymentRepository;
 import org.taha.paymentgateway.persistence.repository.ThreeDsSessionRepository;
+import org.taha.paymentgateway.persistence.support.UuidV7;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -41,7 +42,7 @@ public class ThreeDsService {
         return sessionRepository.findByPaymentId(paymentId)
                 .orElseGet(() -> {
                     ThreeDsSessionEntity session = ThreeDsSessionEntity.builder()
-                            .id(UUID.randomUUID())
+                            .id(UuidV7.next())
                             .paymentId(paymentId)
                             .otpCode(VALID_OTP)
                             .status("PENDING")
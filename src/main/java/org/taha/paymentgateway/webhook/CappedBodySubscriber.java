@@ -0,0 +1,84 @@
+package org.taha.paymentgateway.webhook;
+
+import java.io.ByteArrayOutputStream;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Merchant response body'sinin sadece ilk {@code keepBytes} byte'ını tutan subscriber.
+ *
+ * Body kaydedilirken zaten kırpıldığı için fazlası bellekte biriktirilmez. Bağlantı tekrar kullanılabilsin diye
+ * fazlası {@code drainBytes}'a kadar okunup atılır; daha uzun body'lerde abonelik iptal edilir (bağlantı kapanır)
+ * ve o ana kadar tutulan kısım döner.
+ */
+final class CappedBodySubscriber implements HttpResponse.BodySubscriber<String> {
+
+    private final int keepBytes;
+    private final long drainBytes;
+    private final ByteArrayOutputStream kept;
+    private final CompletableFuture<String> body = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+    private long received;
+
+    CappedBodySubscriber(int keepBytes, long drainBytes) {
+        this.keepBytes = keepBytes;
+        this.drainBytes = drainBytes;
+        this.kept = new ByteArrayOutputStream(Math.min(keepBytes, 256));
+    }
+
+    static HttpResponse.BodyHandler<String> handler(int keepBytes, long drainBytes) {
+        return responseInfo -> new CappedBodySubscriber(keepBytes, drainBytes);
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> items) {
+        if (body.isDone()) {
+            return;
+        }
+        for (ByteBuffer item : items) {
+            int remaining = item.remaining();
+            received += remaining;
+            int keep = Math.min(remaining, keepBytes - kept.size());
+            if (keep > 0) {
+                byte[] chunk = new byte[keep];
+                item.get(chunk);
+                kept.write(chunk, 0, keep);
+            }
+        }
+        if (received > drainBytes) {
+            subscription.cancel();
+            complete();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        body.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        complete();
+    }
+
+    @Override
+    public CompletionStage<String> getBody() {
+        return body;
+    }
+
+    private void complete() {
+        // Kırpılan çok byte'lı karakter replacement karakterine dönüşür
+        body.complete(kept.toString(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,86 @@
+package org.taha.paymentgateway.webhook;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.persistence.entity.MerchantConfigEntity;
+import org.taha.paymentgateway.persistence.repository.MerchantConfigRepository;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Merchant webhook ayarları için TTL'li cache.
+ *
+ * Delivery oluşturma ve imzalama her webhook için merchant_configs'e gitmesin diye
+ * webhook URL ve secret burada tutulur. Entity yerine immutable snapshot saklanır,
+ * böylece thread'ler arasında JPA entity paylaşılmaz.
+ * Olmayan merchant'lar da (negatif sonuç) TTL süresince cache'lenir.
+ *
+ * Config değiştiğinde {@link #invalidate(String)} ile hemen yenilenebilir;
+ * aksi halde değişiklik en geç TTL sonunda görülür.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MerchantConfigCache {
+
+    private final MerchantConfigRepository merchantConfigRepository;
+
+    @Value("${merchant.config-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private LongSupplier clock = System::currentTimeMillis;
+
+    /**
+     * Merchant'ın webhook ayarlarını döner; cache'te yoksa ya da süresi dolduysa DB'den yükler.
+     */
+    public Optional<MerchantWebhookConfig> get(String merchantId) {
+        long now = clock.getAsLong();
+        Entry entry = entries.get(merchantId);
+        if (entry == null || entry.expiresAt() <= now) {
+            // Yükleme map dışında yapılır; aynı anda iki yükleme olursa sonuncusu kalır
+            MerchantWebhookConfig config = merchantConfigRepository.findByMerchantId(merchantId)
+                    .map(MerchantWebhookConfig::from)
+                    .orElse(null);
+            entry = new Entry(config, now + ttlMs);
+            entries.put(merchantId, entry);
+        }
+        return Optional.ofNullable(entry.config());
+    }
+
+    public void invalidate(String merchantId) {
+        entries.remove(merchantId);
+        log.info("Merchant config cache invalidated - merchantId: {}", merchantId);
+    }
+
+    public void invalidateAll() {
+        entries.clear();
+        log.info("Merchant config cache cleared");
+    }
+
+    private record Entry(MerchantWebhookConfig config, long expiresAt) {}
+
+    /**
+     * Webhook için gereken merchant ayarları.
+     */
+    public record MerchantWebhookConfig(
+        String merchantId,
+        String webhookUrl,
+        String webhookSecret,
+        boolean active
+    ) {
+        static MerchantWebhookConfig from(MerchantConfigEntity entity) {
+            return new MerchantWebhookConfig(
+                    entity.getMerchantId(),
+                    entity.getWebhookUrl(),
+                    entity.getWebhookSecret(),
+                    entity.isActive()
+            );
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.taha.paymentgateway.webhook;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Merchant bazlı webhook kuyrukları (bulkhead) ve adil zamanlama.
+ *
+ * Tek bir merchant'ın (örn. ölü endpoint'i olan) binlerce delivery'si diğer merchant'ları
+ * bekletmesin diye:
+ * - Her poll turundaki batch, merchant'lar arasında smooth weighted round-robin ile paylaştırılır
+ * - Her merchant'ın aynı anda en fazla maxInFlightPerMerchant isteği olabilir
+ * - Üst üste failureThreshold kez başarısız olan merchant duraklatılır (circuit);
+ *   süre dolunca tek bir deneme isteğine izin verilir, o da başarısızsa süre ikiye katlanır
+ */
+@Slf4j
+@Component
+public class MerchantDeliveryScheduler {
+
+    public enum LaneState {
+        ACTIVE,
+        PAUSED,
+        PROBING
+    }
+
+    @Value("${webhook.fairness.default-weight:1}")
+    private int defaultWeight;
+
+    /** merchantId:weight listesi, örn. "merchant-a:3,merchant-b:2" */
+    @Value("${webhook.fairness.weights:}")
+    private String weightsConfig;
+
+    @Value("${webhook.fairness.max-in-flight-per-merchant:16}")
+    private int maxInFlightPerMerchant;
+
+    @Value("${webhook.fairness.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${webhook.fairness.pause-ms:30000}")
+    private long pauseMs;
+
+    @Value("${webhook.fairness.max-pause-ms:600000}")
+    private long maxPauseMs;
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private Map<String, Integer> weights = Map.of();
+    private LongSupplier clock = System::currentTimeMillis;
+
+    @PostConstruct
+    void init() {
+        Map<String, Integer> parsed = new HashMap<>();
+        if (weightsConfig != null && !weightsConfig.isBlank()) {
+            for (String entry : weightsConfig.split(",")) {
+                String[] parts = entry.trim().split(":");
+                if (parts.length == 2) {
+                    parsed.put(parts[0].trim(), Math.max(1, Integer.parseInt(parts[1].trim())));
+                }
+            }
+        }
+        weights = Map.copyOf(parsed);
+    }
+
+    /**
+     * Bir poll turunda hangi merchant'tan kaç delivery alınacağını belirler.
+     * Duraklatılmış ve in-flight limiti dolu merchant'lar atlanır.
+     * Sadece poll thread'i tarafından çağrılır (round-robin ağırlıkları turlar arası korunur).
+     *
+     * @param due merchant başına gönderilmeye hazır delivery sayısı
+     * @return merchant başına alınacak delivery sayısı (sıra korunur)
+     */
+    public Map<String, Integer> plan(Map<String, Long> due, int batchSize) {
+        long now = clock.getAsLong();
+        Map<String, Long> remaining = new LinkedHashMap<>();
+        List<Lane> candidates = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : due.entrySet()) {
+            Lane lane = lane(entry.getKey());
+            long capacity = Math.min(entry.getValue(), lane.capacity(now));
+            if (capacity > 0) {
+                remaining.put(lane.merchantId, capacity);
+                candidates.add(lane);
+            }
+        }
+
+        // Smooth weighted round-robin: her slot'ta en yüksek currentWeight kazanır
+        Map<String, Integer> allocation = new LinkedHashMap<>();
+        int allocated = 0;
+        while (allocated < batchSize && !candidates.isEmpty()) {
+            int totalWeight = 0;
+            Lane selected = null;
+            for (Lane lane : candidates) {
+                lane.currentWeight += lane.weight;
+                totalWeight += lane.weight;
+                if (selected == null || lane.currentWeight > selected.currentWeight) {
+                    selected = lane;
+                }
+            }
+            selected.currentWeight -= totalWeight;
+            allocation.merge(selected.merchantId, 1, Integer::sum);
+            allocated++;
+
+            if (remaining.merge(selected.merchantId, -1L, Long::sum) == 0) {
+                candidates.remove(selected);
+            }
+        }
+        return allocation;
+    }
+
+    /**
+     * Merchant için bir in-flight slot almaya çalışır.
+     *
+     * @return false ise delivery bu turda gönderilmemeli (duraklatılmış ya da limit dolu)
+     */
+    public boolean tryAcquire(String merchantId) {
+        Lane lane = lane(merchantId);
+        int limit = lane.limit(clock.getAsLong());
+        while (true) {
+            int current = lane.inFlight.get();
+            if (current >= limit) {
+                lane.deferred.increment();
+                return false;
+            }
+            if (lane.inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * tryAcquire ile alınan slot'u bırakır ve sonucu circuit'e yansıtır.
+     */
+    public void release(String merchantId, boolean success) {
+        Lane lane = lane(merchantId);
+        lane.inFlight.decrementAndGet();
+
+        if (success) {
+            lane.delivered.increment();
+            lane.consecutiveFailures.set(0);
+            if (lane.pauseLevel.getAndSet(0) > 0) {
+                log.info("Webhook lane resumed - merchantId: {}", merchantId);
+            }
+            return;
+        }
+
+        lane.failed.increment();
+        long now = clock.getAsLong();
+        if (lane.pausedUntil.get() > now) {
+            // Duraklatılmadan önce gönderilmiş isteklerin sonuçları süreyi tekrar uzatmaz
+            return;
+        }
+        int failures = lane.consecutiveFailures.incrementAndGet();
+        // Deneme (probe) isteği başarısızsa ya da eşik aşıldıysa duraklat
+        if (lane.pauseLevel.get() > 0 || failures >= failureThreshold) {
+            int level = lane.pauseLevel.incrementAndGet();
+            long pause = Math.min(pauseMs << Math.min(level - 1, 20), maxPauseMs);
+            lane.pausedUntil.set(now + pause);
+            lane.consecutiveFailures.set(0);
+            log.warn("Webhook lane paused - merchantId: {}, pauseMs: {}, level: {}", merchantId, pause, level);
+        }
+    }
+
+    /**
+     * Kullanılmadan geri verilen slot (örn. host limiti dolu olduğu için istek gönderilmedi).
+     */
+    public void cancel(String merchantId) {
+        lane(merchantId).inFlight.decrementAndGet();
+    }
+
+    /**
+     * Duraklatılmış merchant'ı elle devam ettirir (örn. endpoint düzeltildikten sonra).
+     */
+    public void resume(String merchantId) {
+        Lane lane = lane(merchantId);
+        lane.pausedUntil.set(0);
+        lane.pauseLevel.set(0);
+        lane.consecutiveFailures.set(0);
+        log.info("Webhook lane resumed manually - merchantId: {}", merchantId);
+    }
+
+    public LaneState getState(String merchantId) {
+        Lane lane = lanes.get(merchantId);
+        return lane == null ? LaneState.ACTIVE : lane.state(clock.getAsLong());
+    }
+
+    /**
+     * Admin/metrics için merchant kuyruklarının anlık durumu.
+     */
+    public Map<String, MerchantLaneStatus> snapshot() {
+        long now = clock.getAsLong();
+        Map<String, MerchantLaneStatus> result = new TreeMap<>();
+        lanes.values().forEach(lane -> result.put(lane.merchantId, new MerchantLaneStatus(
+                lane.merchantId,
+                lane.state(now),
+                lane.weight,
+                lane.inFlight.get(),
+                lane.consecutiveFailures.get(),
+                Math.max(0, lane.pausedUntil.get() - now),
+                lane.delivered.sum(),
+                lane.failed.sum(),
+                lane.deferred.sum()
+        )));
+        return result;
+    }
+
+    private Lane lane(String merchantId) {
+        return lanes.computeIfAbsent(merchantId,
+                id -> new Lane(id, weights.getOrDefault(id, Math.max(1, defaultWeight))));
+    }
+
+    /**
+     * Tek bir merchant'ın delivery kuyruğu durumu.
+     */
+    private final class Lane {
+        final String merchantId;
+        final int weight;
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger consecutiveFailures = new AtomicInteger();
+        final AtomicInteger pauseLevel = new AtomicInteger();
+        final AtomicLong pausedUntil = new AtomicLong();
+        final LongAdder delivered = new LongAdder();
+        final LongAdder failed = new LongAdder();
+        final LongAdder deferred = new LongAdder();
+
+        /** Round-robin sayacı - sadece plan() içinde (poll thread) güncellenir */
+        long currentWeight;
+
+        Lane(String merchantId, int weight) {
+            this.merchantId = merchantId;
+            this.weight = weight;
+        }
+
+        LaneState state(long now) {
+            if (pausedUntil.get() > now) {
+                return LaneState.PAUSED;
+            }
+            return pauseLevel.get() > 0 ? LaneState.PROBING : LaneState.ACTIVE;
+        }
+
+        /** Duraklatılmışsa 0, deneme aşamasında 1, aksi halde merchant limiti */
+        int limit(long now) {
+            return switch (state(now)) {
+                case PAUSED -> 0;
+                case PROBING -> 1;
+                case ACTIVE -> maxInFlightPerMerchant;
+            };
+        }
+
+        int capacity(long now) {
+            return Math.max(0, limit(now) - inFlight.get());
+        }
+    }
+
+    public record MerchantLaneStatus(
+        String merchantId,
+        LaneState state,
+        int weight,
+        int inFlight,
+        int consecutiveFailures,
+        long pausedForMs,
+        long delivered,
+        long failed,
+        long deferred
+    ) {}
+}
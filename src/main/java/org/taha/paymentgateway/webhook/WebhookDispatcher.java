@@ -1,32 +1,51 @@
 package org.taha.paymentgateway.webhook;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestClientException;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.taha.paymentgateway.core.model.WebhookStatus;
-import org.taha.paymentgateway.persistence.entity.MerchantConfigEntity;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
 import org.taha.paymentgateway.persistence.entity.WebhookDeliveryEntity;
-import org.taha.paymentgateway.persistence.repository.MerchantConfigRepository;
 import org.taha.paymentgateway.persistence.repository.WebhookDeliveryRepository;
 
-import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.OffsetDateTime;
-import java.util.HexFormat;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 
 /**
  * Webhook dispatcher.
- * 
+ *
  * Pending webhook'ları merchant endpoint'lerine gönderir.
  * Exponential backoff ile retry yapar.
+ *
+ * Yeni delivery'ler {@link WebhookNotifier} ile commit sonrası hemen gönderilir;
+ * periyodik polling retry'ları ve bildirimi kaçan delivery'leri toplar.
+ *
+ * Gönderim akışı:
+ * - Batch, {@link MerchantDeliveryScheduler} ile merchant'lar arasında adil paylaştırılır;
+ *   merchant başına in-flight limiti ve sürekli hata veren endpoint'ler için duraklatma uygulanır
+ * - Delivery'ler batch halinde lease ile sahiplenilir (birden fazla node aynı webhook'u göndermez)
+ * - HTTP çağrıları non-blocking HttpClient ile yapılır, keep-alive bağlantılar tekrar kullanılır
+ * - Host başına eşzamanlı istek sınırlıdır; yavaş bir merchant diğerlerini bekletmez,
+ *   limiti dolu host'un delivery'leri bir sonraki tura bırakılır. Boştaki host'ların sayaçları her turda silinir
+ * - Merchant response body'sinin sadece kaydedilen kısmı bellekte tutulur
+ * - Merchant secret'ı {@link MerchantConfigCache}'ten alınır, imza {@link WebhookSigner} ile atılır
+ * - Sonuçlar kuyrukta toplanır ve kısa aralıklarla tek transaction'da DB'ye yazılır; sadece lease hâlâ
+ *   bu turdaysa yazılır, transaction başarısız olursa sonuçlar kuyruğa geri konur
  */
 @Slf4j
 @Service
@@ -35,86 +54,266 @@ public class WebhookDispatcher {
 
     private static final int MAX_RETRIES = 5;
     private static final int[] BACKOFF_SECONDS = {0, 30, 120, 600, 3600}; // 0, 30s, 2m, 10m, 1h
+    private static final List<WebhookStatus> CLAIMABLE = List.of(WebhookStatus.PENDING, WebhookStatus.FAILED);
+    private static final int RESPONSE_BODY_LIMIT = 1000;
+    /** Bu boyuta kadar body okunup atılır ki keep-alive bağlantı tekrar kullanılabilsin */
+    private static final long RESPONSE_DRAIN_LIMIT = 64 * 1024;
 
     private final WebhookDeliveryRepository webhookDeliveryRepository;
-    private final MerchantConfigRepository merchantConfigRepository;
-    private final RestTemplate restTemplate;
+    private final MerchantConfigCache merchantConfigCache;
+    private final WebhookSigner webhookSigner;
+    private final HttpClient webhookHttpClient;
+    private final WebhookNotifier webhookNotifier;
+    private final TransactionTemplate transactionTemplate;
+    private final MerchantDeliveryScheduler merchantDeliveryScheduler;
+    private final GatewayMetrics gatewayMetrics;
+
+    /** Host başına eşzamanlı istek limiti; izin alma ve boştaki host'u silme aynı key üzerinde atomiktir */
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    /** Tamamlanan, DB'ye yazılmayı bekleyen delivery'ler */
+    private final Queue<CompletedDelivery> completed = new ConcurrentLinkedQueue<>();
 
     @Value("${webhook.timeout-ms:5000}")
     private int timeoutMs;
 
+    @Value("${webhook.notify-batch-size:50}")
+    private int notifyBatchSize;
+
+    @Value("${webhook.batch-size:100}")
+    private int batchSize;
+
+    @Value("${webhook.max-concurrency-per-host:8}")
+    private int maxConcurrencyPerHost;
+
+    @Value("${webhook.lease-ms:60000}")
+    private long leaseMs;
+
+    @PostConstruct
+    void init() {
+        webhookNotifier.start("webhook-notify-drainer", notifyBatchSize, this::dispatchNotified);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        webhookNotifier.stop();
+        flushResults();
+    }
+
+    /**
+     * Hızlı yol: commit sonrası bildirilen yeni delivery'leri polling beklemeden gönderir.
+     */
+    void dispatchNotified(List<UUID> deliveryIds) {
+        String leaseToken = newLeaseToken();
+        dispatch(claim(deliveryIds, leaseToken), leaseToken);
+    }
+
     /**
-     * Her 10 saniyede bir pending webhook'ları gönder.
+     * Her 10 saniyede bir gönderilmeye hazır webhook'ları gönder.
+     * Çağrılar async olduğu için tur, yanıtları beklemeden biter.
      */
     @Scheduled(fixedDelayString = "${webhook.poll-interval-ms:10000}")
     public void dispatchWebhooks() {
-        List<WebhookDeliveryEntity> pendingDeliveries = webhookDeliveryRepository
-                .findPendingDeliveries(
-                        List.of(WebhookStatus.PENDING, WebhookStatus.FAILED),
-                        OffsetDateTime.now()
-                );
+        evictIdleHosts();
+        OffsetDateTime now = OffsetDateTime.now();
+        Map<String, Long> due = new LinkedHashMap<>();
+        webhookDeliveryRepository.countClaimableByMerchant(CLAIMABLE, now)
+                .forEach(backlog -> due.put(backlog.getMerchantId(), backlog.getDue()));
+        gatewayMetrics.setWebhookQueueDepth(due.values().stream().mapToLong(Long::longValue).sum());
+        if (due.isEmpty()) {
+            return;
+        }
 
-        if (pendingDeliveries.isEmpty()) {
+        // Batch'i merchant'lar arasında paylaştır, her merchant'ın en eski delivery'lerini al
+        List<UUID> candidates = new ArrayList<>();
+        merchantDeliveryScheduler.plan(due, batchSize).forEach((merchantId, count) ->
+                candidates.addAll(webhookDeliveryRepository.findClaimableIdsByMerchant(
+                        merchantId, CLAIMABLE, now, PageRequest.of(0, count))));
+        if (candidates.isEmpty()) {
             return;
         }
 
-        log.debug("Dispatching {} webhooks", pendingDeliveries.size());
+        String leaseToken = newLeaseToken();
+        List<WebhookDeliveryEntity> deliveries = claim(candidates, leaseToken);
+        log.debug("Dispatching {} webhooks for {} merchants", deliveries.size(), due.size());
+        dispatch(deliveries, leaseToken);
+    }
+
+    /**
+     * Tamamlanan delivery sonuçlarını tek transaction'da yazar ve lease'lerini bırakır.
+     * Lease'i süresi dolup başka bir tura geçmiş delivery'nin sonucu yazılmaz; yeni sahip kendi sonucunu yazar.
+     */
+    @Scheduled(fixedDelayString = "${webhook.result-flush-ms:200}")
+    public void flushResults() {
+        List<CompletedDelivery> results = new ArrayList<>();
+        CompletedDelivery result;
+        while ((result = completed.poll()) != null) {
+            results.add(result);
+        }
+        if (results.isEmpty()) {
+            return;
+        }
+
+        int written;
+        try {
+            written = transactionTemplate.execute(tx -> {
+                int count = 0;
+                for (CompletedDelivery completedDelivery : results) {
+                    count += writeResult(completedDelivery);
+                }
+                return count;
+            });
+        } catch (RuntimeException e) {
+            // Sonuçlar kaybolmasın, bir sonraki flush'ta tekrar denenir
+            completed.addAll(results);
+            log.error("Failed to flush {} webhook results, will retry", results.size(), e);
+            return;
+        }
+        if (written < results.size()) {
+            log.warn("Skipped {} webhook results whose lease was taken over", results.size() - written);
+        }
+        log.debug("Flushed {} webhook results", written);
+    }
+
+    private int writeResult(CompletedDelivery result) {
+        WebhookDeliveryEntity delivery = result.delivery();
+        return webhookDeliveryRepository.recordResult(delivery.getId(), result.leaseToken(), delivery.getStatus(),
+                delivery.getResponseCode(), delivery.getResponseBody(), delivery.getRetryCount(),
+                delivery.getNextRetryAt(), delivery.getLastAttemptAt());
+    }
+
+    /**
+     * Şu an isteği olmayan host'ların sayaçlarını siler; harita sadece aktif host'lar kadar büyür.
+     * Silme computeIfPresent ile yapıldığı için aynı anda izin alan tur eski sayaçla kalmaz.
+     */
+    void evictIdleHosts() {
+        for (String host : hostPermits.keySet()) {
+            hostPermits.computeIfPresent(host, (key, permits) ->
+                    permits.availablePermits() >= maxConcurrencyPerHost ? null : permits);
+        }
+    }
+
+    private List<WebhookDeliveryEntity> claim(List<UUID> candidates, String leaseToken) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        return transactionTemplate.execute(tx -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            int claimed = webhookDeliveryRepository.claim(
+                    candidates, CLAIMABLE, leaseToken, now.plusNanos(leaseMs * 1_000_000), now);
+            return claimed == 0 ? List.<WebhookDeliveryEntity>of() : webhookDeliveryRepository.findByLeaseOwner(leaseToken);
+        });
+    }
+
+    private void dispatch(List<WebhookDeliveryEntity> deliveries, String leaseToken) {
+        List<UUID> deferred = new ArrayList<>();
+        for (WebhookDeliveryEntity delivery : deliveries) {
+            // Merchant duraklatılmış ya da in-flight limiti dolu: bu tur gönderme, lease'i bırak
+            if (!merchantDeliveryScheduler.tryAcquire(delivery.getMerchantId())) {
+                deferred.add(delivery.getId());
+                continue;
+            }
+            Semaphore permits = tryAcquireHost(hostKey(delivery.getTargetUrl()));
+            if (permits == null) {
+                // Host limiti dolu
+                merchantDeliveryScheduler.cancel(delivery.getMerchantId());
+                deferred.add(delivery.getId());
+                continue;
+            }
+            dispatchWebhook(delivery, leaseToken, permits);
+        }
 
-        for (WebhookDeliveryEntity delivery : pendingDeliveries) {
-            dispatchWebhook(delivery);
+        if (!deferred.isEmpty()) {
+            log.debug("Deferred {} webhooks due to merchant or host concurrency limits", deferred.size());
+            gatewayMetrics.recordWebhookDeferred(deferred.size());
+            transactionTemplate.executeWithoutResult(tx -> webhookDeliveryRepository.releaseLease(deferred, leaseToken));
         }
     }
 
-    @Transactional
-    public void dispatchWebhook(WebhookDeliveryEntity delivery) {
-        log.info("Dispatching webhook - id: {}, url: {}, attempt: {}", 
+    /**
+     * Host için izin alır; limit doluysa null döner.
+     */
+    private Semaphore tryAcquireHost(String host) {
+        Semaphore[] acquired = new Semaphore[1];
+        hostPermits.compute(host, (key, permits) -> {
+            Semaphore current = permits != null ? permits : new Semaphore(maxConcurrencyPerHost);
+            if (current.tryAcquire()) {
+                acquired[0] = current;
+            }
+            return current;
+        });
+        return acquired[0];
+    }
+
+    private void dispatchWebhook(WebhookDeliveryEntity delivery, String leaseToken, Semaphore permits) {
+        log.info("Dispatching webhook - id: {}, url: {}, attempt: {}",
                 delivery.getId(), delivery.getTargetUrl(), delivery.getRetryCount() + 1);
 
         try {
-            // HMAC signature oluştur
-            String signature = generateSignature(delivery);
+            // Payload bir kez encode edilir; hem imza hem body için kullanılır
+            byte[] payload = delivery.getPayload().getBytes(StandardCharsets.UTF_8);
+            // Header'daki timestamp imzalanan timestamp ile aynı olmalı
+            long timestamp = System.currentTimeMillis();
+            String signature = generateSignature(delivery, payload, timestamp);
 
             // HTTP request hazırla
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("X-Webhook-Id", delivery.getId().toString());
-            headers.set("X-Webhook-Signature", signature);
-            headers.set("X-Webhook-Timestamp", String.valueOf(System.currentTimeMillis()));
-
-            HttpEntity<String> request = new HttpEntity<>(delivery.getPayload(), headers);
-
-            // Gönder
-            ResponseEntity<String> response = restTemplate.exchange(
-                    delivery.getTargetUrl(),
-                    HttpMethod.POST,
-                    request,
-                    String.class
-            );
-
-            // Response'u kaydet
-            delivery.setResponseCode(response.getStatusCode().value());
-            delivery.setResponseBody(truncate(response.getBody(), 1000));
-            delivery.setLastAttemptAt(OffsetDateTime.now());
-
-            if (response.getStatusCode().is2xxSuccessful()) {
-                delivery.setStatus(WebhookStatus.DELIVERED);
-                log.info("Webhook delivered successfully - id: {}", delivery.getId());
-            } else {
-                handleFailure(delivery, "Non-2xx response: " + response.getStatusCode());
-            }
+            HttpRequest request = HttpRequest.newBuilder(URI.create(delivery.getTargetUrl()))
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .header("Content-Type", "application/json")
+                    .header("X-Webhook-Id", delivery.getId().toString())
+                    .header("X-Webhook-Signature", signature)
+                    .header("X-Webhook-Timestamp", String.valueOf(timestamp))
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(payload))
+                    .build();
 
-        } catch (RestClientException e) {
+            // Gönder (non-blocking), sonuç callback'te işlenir
+            long sentAt = System.nanoTime();
+            webhookHttpClient.sendAsync(request, CappedBodySubscriber.handler(RESPONSE_BODY_LIMIT, RESPONSE_DRAIN_LIMIT))
+                    .whenComplete((response, error) -> {
+                        try {
+                            if (error != null) {
+                                log.error("Webhook delivery failed - id: {}, error: {}", delivery.getId(), error.getMessage());
+                                handleFailure(delivery, error.getMessage());
+                            } else {
+                                handleResponse(delivery, response);
+                            }
+                            completed.add(new CompletedDelivery(delivery, leaseToken));
+                            gatewayMetrics.recordWebhookDelivery(
+                                    delivery.getStatus() == WebhookStatus.DELIVERED, System.nanoTime() - sentAt);
+                        } finally {
+                            permits.release();
+                            merchantDeliveryScheduler.release(delivery.getMerchantId(),
+                                    delivery.getStatus() == WebhookStatus.DELIVERED);
+                        }
+                    });
+        } catch (Exception e) {
+            // Geçersiz URL vb. - istek hiç gönderilemedi
+            permits.release();
             log.error("Webhook delivery failed - id: {}, error: {}", delivery.getId(), e.getMessage());
             handleFailure(delivery, e.getMessage());
+            completed.add(new CompletedDelivery(delivery, leaseToken));
+            merchantDeliveryScheduler.release(delivery.getMerchantId(), false);
         }
+    }
+
+    private void handleResponse(WebhookDeliveryEntity delivery, HttpResponse<String> response) {
+        // Response'u kaydet
+        delivery.setResponseCode(response.statusCode());
+        delivery.setResponseBody(truncate(response.body(), RESPONSE_BODY_LIMIT));
+        delivery.setLastAttemptAt(OffsetDateTime.now());
 
-        webhookDeliveryRepository.save(delivery);
+        if (response.statusCode() >= 200 && response.statusCode() < 300) {
+            delivery.setStatus(WebhookStatus.DELIVERED);
+            log.info("Webhook delivered successfully - id: {}", delivery.getId());
+        } else {
+            handleFailure(delivery, "Non-2xx response: " + response.statusCode());
+        }
     }
 
     private void handleFailure(WebhookDeliveryEntity delivery, String errorMessage) {
         delivery.setRetryCount(delivery.getRetryCount() + 1);
         delivery.setLastAttemptAt(OffsetDateTime.now());
-        delivery.setResponseBody(truncate(errorMessage, 1000));
+        delivery.setResponseBody(truncate(errorMessage, RESPONSE_BODY_LIMIT));
 
         if (delivery.getRetryCount() >= MAX_RETRIES) {
             delivery.setStatus(WebhookStatus.EXHAUSTED);
@@ -124,36 +323,45 @@ public class WebhookDispatcher {
             // Exponential backoff
             int backoffIndex = Math.min(delivery.getRetryCount(), BACKOFF_SECONDS.length - 1);
             delivery.setNextRetryAt(OffsetDateTime.now().plusSeconds(BACKOFF_SECONDS[backoffIndex]));
-            log.warn("Webhook will be retried - id: {}, nextRetry: {}", 
+            log.warn("Webhook will be retried - id: {}, nextRetry: {}",
                     delivery.getId(), delivery.getNextRetryAt());
         }
     }
 
-    private String generateSignature(WebhookDeliveryEntity delivery) {
+    private String generateSignature(WebhookDeliveryEntity delivery, byte[] payload, long timestamp) {
         // Merchant'ın webhook secret'ını al
-        String secret = merchantConfigRepository.findByMerchantId(delivery.getMerchantId())
-                .map(MerchantConfigEntity::getWebhookSecret)
+        String secret = merchantConfigCache.get(delivery.getMerchantId())
+                .map(MerchantConfigCache.MerchantWebhookConfig::webhookSecret)
                 .orElse("default-secret");
 
         try {
-            Mac mac = Mac.getInstance("HmacSHA256");
-            SecretKeySpec secretKey = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
-            mac.init(secretKey);
-            
-            String payload = delivery.getPayload() + "." + System.currentTimeMillis();
-            byte[] hash = mac.doFinal(payload.getBytes(StandardCharsets.UTF_8));
-            
-            return HexFormat.of().formatHex(hash);
+            return webhookSigner.signHex(secret, payload, timestamp);
         } catch (Exception e) {
             log.error("Failed to generate webhook signature", e);
             return "";
         }
     }
 
+    private static String hostKey(String targetUrl) {
+        try {
+            URI uri = URI.create(targetUrl);
+            return uri.getHost() + ":" + uri.getPort();
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    private static String newLeaseToken() {
+        return "webhook:" + UUID.randomUUID();
+    }
+
     private String truncate(String str, int maxLength) {
         if (str == null) {
             return null;
         }
         return str.length() > maxLength ? str.substring(0, maxLength) : str;
     }
+
+    /** Sonucu yazılmayı bekleyen delivery ve onu gönderen turun lease'i */
+    private record CompletedDelivery(WebhookDeliveryEntity delivery, String leaseToken) {}
 }
@@ -0,0 +1,16 @@
+package org.taha.paymentgateway.webhook;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.taha.paymentgateway.event.AfterCommitNotifier;
+
+/**
+ * Yeni webhook delivery id'lerini commit sonrası WebhookDispatcher'a iletir.
+ */
+@Component
+public class WebhookNotifier extends AfterCommitNotifier {
+
+    public WebhookNotifier(@Value("${webhook.notify-queue-capacity:10000}") int capacity) {
+        super(capacity);
+    }
+}
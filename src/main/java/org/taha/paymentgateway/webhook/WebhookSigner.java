@@ -0,0 +1,155 @@
+package org.taha.paymentgateway.webhook;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Webhook HMAC-SHA256 imzalayıcı.
+ *
+ * İmza: HMAC(secret, payload + "." + timestamp), hex olarak X-Webhook-Signature header'ında gönderilir.
+ *
+ * Her secret için init edilmiş Mac'ler havuzda tutulur; her istekte Mac.getInstance
+ * ve SecretKeySpec oluşturulmaz. Havuz thread'e bağlı olmadığı için virtual thread'lerle de
+ * çalışır ve en fazla eşzamanlı imza sayısı kadar Mac içerir. Havuzlar secret başına sınırlı bir
+ * LRU'da tutulur; rotasyonla kullanılmaz olan secret'ların havuzları tek tek düşer.
+ * Havuz dolduktan sonra {@link #sign(String, byte[], long, byte[])} allocation yapmaz,
+ * {@link #signHex(String, byte[], long)} sadece döndürdüğü String'i oluşturur.
+ */
+@Component
+public class WebhookSigner {
+
+    public static final String ALGORITHM = "HmacSHA256";
+    public static final int SIGNATURE_LENGTH = 32;
+
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    @Value("${webhook.signer.max-secrets:10000}")
+    private int maxSecrets = 10_000;
+
+    /**
+     * Secret başına init edilmiş Mac havuzu, erişim sırasına göre LRU. Erişim sırası değiştiği için okuma da
+     * lock altındadır. Düşen havuzdaki kullanımdaki context'ler imza bitince o havuza döner ve havuzla birlikte
+     * toplanır; yeni istekler yeni havuz açar.
+     */
+    private final ReentrantLock poolsLock = new ReentrantLock();
+    private final LinkedHashMap<String, Queue<SigningContext>> pools = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Queue<SigningContext>> eldest) {
+            return size() > maxSecrets;
+        }
+    };
+
+    /**
+     * payload + "." + timestamp için imza hesaplar ve out'a yazar.
+     *
+     * @param out en az {@link #SIGNATURE_LENGTH} byte
+     */
+    public void sign(String secret, byte[] payload, long timestamp, byte[] out) {
+        SigningContext context = acquire(secret);
+        try {
+            context.sign(payload, timestamp, out);
+        } finally {
+            context.pool.offer(context);
+        }
+    }
+
+    /**
+     * Hex encode edilmiş imza (header değeri). İmza ve hex context'in buffer'larında hesaplanır.
+     */
+    public String signHex(String secret, byte[] payload, long timestamp) {
+        SigningContext context = acquire(secret);
+        try {
+            return context.signHex(payload, timestamp);
+        } finally {
+            context.pool.offer(context);
+        }
+    }
+
+    private SigningContext acquire(String secret) {
+        Queue<SigningContext> pool;
+        poolsLock.lock();
+        try {
+            pool = pools.get(secret);
+            if (pool == null) {
+                pool = new ConcurrentLinkedQueue<>();
+                pools.put(secret, pool);
+            }
+        } finally {
+            poolsLock.unlock();
+        }
+        SigningContext context = pool.poll();
+        return context != null ? context : new SigningContext(secret, pool);
+    }
+
+    /**
+     * Init edilmiş Mac, ait olduğu havuz ve tekrar kullanılan timestamp, imza ve hex buffer'ları.
+     * Aynı anda tek thread tarafından kullanılır (havuzdan alınıp geri verilir).
+     */
+    private static final class SigningContext {
+        private final Mac mac;
+        private final Queue<SigningContext> pool;
+        private final byte[] digits = new byte[20];
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+        private final byte[] hex = new byte[SIGNATURE_LENGTH * 2];
+
+        SigningContext(String secret, Queue<SigningContext> pool) {
+            this.pool = pool;
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Failed to initialize webhook signer", e);
+            }
+        }
+
+        String signHex(byte[] payload, long timestamp) {
+            sign(payload, timestamp, signature);
+            for (int i = 0; i < SIGNATURE_LENGTH; i++) {
+                hex[2 * i] = HEX_DIGITS[(signature[i] >> 4) & 0xF];
+                hex[2 * i + 1] = HEX_DIGITS[signature[i] & 0xF];
+            }
+            // ASCII: Latin-1 String tek kopya ile oluşur
+            return new String(hex, StandardCharsets.ISO_8859_1);
+        }
+
+        void sign(byte[] payload, long timestamp, byte[] out) {
+            try {
+                mac.update(payload);
+                mac.update((byte) '.');
+                int start = writeDigits(timestamp);
+                mac.update(digits, start, digits.length - start);
+                // doFinal Mac'i sıfırlar, aynı key ile tekrar kullanılabilir
+                mac.doFinal(out, 0);
+            } catch (GeneralSecurityException e) {
+                mac.reset();
+                throw new IllegalStateException("Failed to sign webhook payload", e);
+            }
+        }
+
+        /** Timestamp'in ondalık gösterimini buffer'ın sonuna yazar, başlangıç index'ini döner */
+        private int writeDigits(long value) {
+            int pos = digits.length;
+            boolean negative = value < 0;
+            long remaining = value;
+            do {
+                int digit = (int) (remaining % 10);
+                digits[--pos] = (byte) ('0' + (negative ? -digit : digit));
+                remaining /= 10;
+            } while (remaining != 0);
+            if (negative) {
+                digits[--pos] = '-';
+            }
+            return pos;
+        }
+    }
+}
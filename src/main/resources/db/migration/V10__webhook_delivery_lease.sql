@@ -0,0 +1,10 @@
+-- V10: Webhook delivery lease
+-- Dispatcher delivery'leri batch halinde lease ile sahiplenir; HTTP çağrıları async
+-- yürürken aynı delivery başka bir node ya da poll turu tarafından tekrar gönderilmez.
+
+ALTER TABLE webhook_deliveries
+    ADD COLUMN lease_owner VARCHAR(64) NULL AFTER retry_count,
+    ADD COLUMN lease_expires_at TIMESTAMP NULL AFTER lease_owner;
+
+CREATE INDEX idx_webhook_status_created_at ON webhook_deliveries(status, created_at);
+CREATE INDEX idx_webhook_lease_owner ON webhook_deliveries(lease_owner);
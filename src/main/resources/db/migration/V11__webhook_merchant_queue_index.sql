@@ -0,0 +1,5 @@
+-- V11: Merchant bazlı webhook kuyrukları
+-- Dispatcher her turda merchant başına hazır delivery sayısını ve merchant'ın
+-- en eski delivery'lerini okur.
+
+CREATE INDEX idx_webhook_merchant_status_created_at ON webhook_deliveries(merchant_id, status, created_at);
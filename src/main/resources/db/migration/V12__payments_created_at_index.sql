@@ -0,0 +1,3 @@
+-- V12: Metrik rebuild'i son 24 saati 5 dakikalık aralıklarla created_at üzerinden toplar
+
+CREATE INDEX idx_payments_created_at ON payments(created_at);
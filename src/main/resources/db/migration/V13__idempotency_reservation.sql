@@ -0,0 +1,9 @@
+-- V13: Reservation-first idempotency
+-- Key istek başında IN_PROGRESS olarak rezerve edilir, response işlem bitince yazılır (COMPLETED).
+-- owner: rezervasyonu tutan isteğin token'ı; updated_at üzerinden bayat rezervasyonlar devralınır.
+
+ALTER TABLE idempotency_records
+    ADD COLUMN status VARCHAR(20) NOT NULL DEFAULT 'COMPLETED' AFTER request_hash,
+    ADD COLUMN owner VARCHAR(64) NULL AFTER status,
+    ADD COLUMN updated_at TIMESTAMP NULL AFTER created_at,
+    MODIFY COLUMN response_body TEXT NULL;
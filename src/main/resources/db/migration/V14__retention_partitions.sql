@@ -0,0 +1,24 @@
+-- V14: Retention
+-- api_logs created_at üzerinden günlük RANGE partition'lanır; RetentionService süresi dolan
+-- partition'ları DROP eder (satır bazında DELETE yok) ve önümüzdeki günleri p_future'ı bölerek açar.
+-- MySQL'de partition kolonu her unique key'de yer almalı, bu yüzden primary key (id, created_at) olur.
+-- p_initial mevcut tüm satırları alır: sınırı migration'ın çalıştığı günün ertesi 00:00 UTC'sidir.
+-- Sınır session time zone'undan bağımsız hesaplanır (UNIX_TIMESTAMP(date) session zone'unu kullanır)
+-- ve partition tanımı literal istediği için DDL prepared statement ile kurulur.
+
+ALTER TABLE api_logs DROP PRIMARY KEY, ADD PRIMARY KEY (id, created_at);
+
+SET @p_initial_bound = TIMESTAMPDIFF(SECOND, '1970-01-01 00:00:00', UTC_DATE() + INTERVAL 1 DAY);
+
+SET @partition_ddl = CONCAT(
+    'ALTER TABLE api_logs PARTITION BY RANGE (UNIX_TIMESTAMP(created_at)) (',
+    'PARTITION p_initial VALUES LESS THAN (', @p_initial_bound, '), ',
+    'PARTITION p_future VALUES LESS THAN MAXVALUE)');
+
+PREPARE partition_stmt FROM @partition_ddl;
+EXECUTE partition_stmt;
+DEALLOCATE PREPARE partition_stmt;
+
+-- Diğer tablolar chunk'lı DELETE ile temizlenir: created_at + id keyset sayfalaması için indeksler
+CREATE INDEX idx_idempotency_created_at ON idempotency_records(created_at);
+-- outbox_events(status, created_at) ve webhook_deliveries(status, created_at) V9 / V10'da mevcut
@@ -0,0 +1,12 @@
+-- V15: Idempotency request fingerprint BINARY(32)
+-- Parmak izi artık ham request body'sinden (METHOD URI + body) hesaplanır ve hex string yerine
+-- 32 byte olarak tutulur. Eski kayıtların hash'i (serialize edilmiş DTO) yeni parmak iziyle eşleşmez;
+-- bu key'ler retention süresi dolana kadar tekrar kullanılırsa IDEMPOTENCY_CONFLICT döner.
+
+ALTER TABLE idempotency_records ADD COLUMN request_fingerprint BINARY(32) NULL AFTER request_hash;
+
+UPDATE idempotency_records SET request_fingerprint = UNHEX(request_hash);
+
+ALTER TABLE idempotency_records DROP COLUMN request_hash;
+
+ALTER TABLE idempotency_records CHANGE COLUMN request_fingerprint request_hash BINARY(32) NOT NULL;
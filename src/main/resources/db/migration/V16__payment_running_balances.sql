@@ -0,0 +1,36 @@
+-- V16: Payment üzerinde capture/refund bakiyeleri
+-- Refund limiti artık her istekte transactions taranarak değil bu kolonlardan hesaplanır;
+-- kolonlar payment satırıyla birlikte @Version altında güncellenir.
+-- pending_refund_amount: provider'a gönderilmiş, sonucu henüz yazılmamış refund'lar.
+
+ALTER TABLE payments
+    ADD COLUMN captured_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+    ADD COLUMN refunded_amount DECIMAL(19,2) NOT NULL DEFAULT 0,
+    ADD COLUMN pending_refund_amount DECIMAL(19,2) NOT NULL DEFAULT 0;
+
+-- Mevcut kayıtlar: bakiyeler transaction geçmişinden
+UPDATE payments p
+    JOIN (SELECT payment_id,
+                 SUM(CASE WHEN type = 'CAPTURE' THEN amount ELSE 0 END) AS captured,
+                 SUM(CASE WHEN type = 'REFUND' THEN amount ELSE 0 END) AS refunded
+          FROM transactions
+          GROUP BY payment_id) t ON t.payment_id = p.id
+SET p.captured_amount = t.captured,
+    p.refunded_amount = t.refunded;
+
+-- Transaction kaydı olmadan capture edilmiş (demo) payment'lar tam tutar üzerinden
+UPDATE payments
+SET captured_amount = amount
+WHERE captured_amount = 0
+  AND status IN ('CAPTURED', 'PARTIALLY_REFUNDED', 'REFUNDING', 'REFUNDED');
+
+-- provider_name boş kalan eski kayıtlar: son başarılı AUTHORIZE denemesinin provider'ı
+UPDATE payments p
+SET p.provider_name = (SELECT a.provider
+                       FROM payment_attempts a
+                       WHERE a.payment_id = p.id
+                         AND a.operation = 'AUTHORIZE'
+                         AND a.status = 'SUCCESS'
+                       ORDER BY a.created_at DESC
+                       LIMIT 1)
+WHERE p.provider_name IS NULL;
@@ -0,0 +1,10 @@
+-- V17: Cluster genelinde tek çalışması gereken job'lar için lease satırları
+-- Job çalışmadan önce kendi satırını koşullu UPDATE ile alır; süresi dolmuş lease başka node tarafından devralınabilir.
+
+CREATE TABLE scheduler_leases (
+    name VARCHAR(64) NOT NULL PRIMARY KEY,
+    owner VARCHAR(64) NULL,
+    expires_at TIMESTAMP NULL
+);
+
+INSERT INTO scheduler_leases (name) VALUES ('retention');
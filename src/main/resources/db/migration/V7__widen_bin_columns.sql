@@ -0,0 +1,11 @@
+-- V7: 8 haneli BIN desteği
+-- Kart şemaları 8 haneli BIN'lere geçiyor; prefix kolonlarını genişletiyoruz.
+
+ALTER TABLE bin_database
+    MODIFY bin_prefix VARCHAR(8) NOT NULL;
+
+ALTER TABLE routing_rules
+    MODIFY card_bin_prefix VARCHAR(8) NULL;
+
+ALTER TABLE payments
+    MODIFY card_bin VARCHAR(8) NULL;
@@ -0,0 +1,9 @@
+-- V8: Optimistic locking ve in-flight durumlar
+-- Provider çağrısı transaction dışına alındı; payment AUTHORIZING / CAPTURING / REFUNDING
+-- durumlarında bekleyebilir. version kolonu eşzamanlı güncellemeleri engeller.
+
+ALTER TABLE payments
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0 AFTER status;
+
+-- Recovery job takılı kalan in-flight payment'ları bu index ile bulur
+CREATE INDEX idx_payments_status_updated_at ON payments (status, updated_at);
@@ -0,0 +1,16 @@
+-- V9: Outbox lease tabanlı claim ve retry backoff
+-- Birden fazla node aynı event'i işlemesin diye event'ler lease ile sahiplenilir;
+-- lease süresi dolan (node düştü) event'ler başka bir node tarafından tekrar alınır.
+
+ALTER TABLE outbox_events
+    ADD COLUMN lease_owner VARCHAR(64) NULL AFTER retry_count,
+    ADD COLUMN lease_expires_at TIMESTAMP NULL AFTER lease_owner,
+    ADD COLUMN next_attempt_at TIMESTAMP NULL AFTER lease_expires_at;
+
+-- Claim sorgusu: status + createdAt sırası, lease sahibine göre geri okuma
+CREATE INDEX idx_outbox_status_created_at ON outbox_events(status, created_at);
+CREATE INDEX idx_outbox_lease_owner ON outbox_events(lease_owner);
+CREATE INDEX idx_outbox_aggregate_id ON outbox_events(aggregate_id);
+
+-- Webhook handler tekrar işlenen event için delivery var mı diye bakar
+CREATE INDEX idx_webhook_event_id ON webhook_deliveries(event_id);
@@ -0,0 +1,60 @@
+package org.taha.paymentgateway.perf;
+
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * JMH ve load test sonuçlarının baseline karşılaştırmasında ortak eşik kuralı.
+ *
+ * Bir metrik, baseline'a göre izin verilen yüzdeden (ya da metriğe özgü en küçük farktan, hangisi büyükse)
+ * fazla kötüleşmişse regression sayılır. Sonuç dosyalarının okunması ve hangi metriklerin karşılaştırılacağı
+ * {@code JmhResultComparator} ve {@code LoadTestResultComparator}'dadır.
+ */
+public class BaselineComparator {
+
+    private final double tolerance;
+
+    /**
+     * @param tolerancePercent izin verilen kötüleşme yüzdesi
+     */
+    public BaselineComparator(double tolerancePercent) {
+        this.tolerance = tolerancePercent / 100;
+    }
+
+    /**
+     * Artışı kötüleşme olan metrik (latency, allocation, statement sayısı).
+     *
+     * @param minSlack yüzdeden bağımsız gürültü sayılan fark; yoksa 0
+     */
+    public void checkHigherIsWorse(List<Regression> regressions, String metric, String unit,
+                                   double baseline, double current, double minSlack) {
+        if (current > baseline + slack(baseline, minSlack)) {
+            regressions.add(new Regression(metric, unit, baseline, current));
+        }
+    }
+
+    /**
+     * Düşüşü kötüleşme olan metrik (throughput).
+     *
+     * @param minSlack yüzdeden bağımsız gürültü sayılan fark; yoksa 0
+     */
+    public void checkLowerIsWorse(List<Regression> regressions, String metric, String unit,
+                                  double baseline, double current, double minSlack) {
+        if (current < baseline - slack(baseline, minSlack)) {
+            regressions.add(new Regression(metric, unit, baseline, current));
+        }
+    }
+
+    private double slack(double baseline, double minSlack) {
+        return Math.max(Math.abs(baseline) * tolerance, minSlack);
+    }
+
+    public record Regression(String metric, String unit, double baseline, double current) {
+
+        @Override
+        public String toString() {
+            double change = baseline == 0 ? 0 : (current - baseline) / baseline * 100;
+            return String.format(Locale.ROOT, "%s: %.3f -> %.3f %s (%+.1f%%)", metric, baseline, current, unit, change);
+        }
+    }
+}
@@ -17,10 +17,13 @@ import org.taha.paymentgateway.api.dto.request.RefundPaymentRequest;
 import org.taha.paymentgateway.api.dto.response.PaymentResponse;
 import org.taha.paymentgateway.core.exception.PaymentNotFoundException;
 import org.taha.paymentgateway.core.model.PaymentStatus;
+import org.taha.paymentgateway.idempotency.RequestFingerprint;
 import org.taha.paymentgateway.orchestrator.PaymentOrchestrator;
+import org.taha.paymentgateway.orchestrator.PaymentResult;
 import org.taha.paymentgateway.persistence.entity.PaymentAttemptEntity;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.UUID;
@@ -68,6 +71,10 @@ class PaymentControllerTest {
                 .build();
     }
 
+    private PaymentResult result(PaymentResponse response) throws Exception {
+        return new PaymentResult(response, objectMapper.writeValueAsBytes(response));
+    }
+
     @Nested
     @DisplayName("POST /v1/payments - Create Payment")
     class CreatePaymentTests {
@@ -83,8 +90,8 @@ class PaymentControllerTest {
                     .customerEmail("test@example.com")
                     .build();
 
-            when(orchestrator.createPayment(eq(merchantId), any(CreatePaymentRequest.class), isNull()))
-                    .thenReturn(sampleResponse);
+            when(orchestrator.createPayment(eq(merchantId), any(CreatePaymentRequest.class), isNull(), isNull()))
+                    .thenReturn(result(sampleResponse));
 
             // when/then
             mockMvc.perform(post(BASE_URL)
@@ -98,7 +105,7 @@ class PaymentControllerTest {
                     .andExpect(jsonPath("$.currency").value("TRY"))
                     .andExpect(jsonPath("$.status").value("CREATED"));
 
-            verify(orchestrator).createPayment(eq(merchantId), any(CreatePaymentRequest.class), isNull());
+            verify(orchestrator).createPayment(eq(merchantId), any(CreatePaymentRequest.class), isNull(), isNull());
         }
 
         @Test
@@ -111,8 +118,8 @@ class PaymentControllerTest {
                     .currency("TRY")
                     .build();
 
-            when(orchestrator.createPayment(eq(merchantId), any(CreatePaymentRequest.class), eq(idempotencyKey)))
-                    .thenReturn(sampleResponse);
+            when(orchestrator.createPayment(eq(merchantId), any(CreatePaymentRequest.class), eq(idempotencyKey), any(byte[].class)))
+                    .thenReturn(result(sampleResponse));
 
             // when/then
             mockMvc.perform(post(BASE_URL)
@@ -122,7 +129,28 @@ class PaymentControllerTest {
                             .content(objectMapper.writeValueAsString(request)))
                     .andExpect(status().isCreated());
 
-            verify(orchestrator).createPayment(eq(merchantId), any(CreatePaymentRequest.class), eq(idempotencyKey));
+            verify(orchestrator).createPayment(eq(merchantId), any(CreatePaymentRequest.class), eq(idempotencyKey), any(byte[].class));
+        }
+
+        @Test
+        @DisplayName("should pass fingerprint of raw request body when idempotency key is present")
+        void shouldPassFingerprintOfRawBody_WhenIdempotencyKeyPresent() throws Exception {
+            // given
+            String idempotencyKey = "unique-key-456";
+            byte[] body = "{\"amount\": 100.00, \"currency\": \"TRY\"}".getBytes(StandardCharsets.UTF_8);
+            byte[] expected = RequestFingerprint.of("POST " + BASE_URL + " " + merchantId, body);
+
+            when(orchestrator.createPayment(eq(merchantId), any(CreatePaymentRequest.class), eq(idempotencyKey), eq(expected)))
+                    .thenReturn(result(sampleResponse));
+
+            // when/then
+            mockMvc.perform(post(BASE_URL)
+                            .header(MERCHANT_HEADER, merchantId)
+                            .header(IDEMPOTENCY_HEADER, idempotencyKey)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body))
+                    .andExpect(status().isCreated())
+                    .andExpect(content().bytes(objectMapper.writeValueAsBytes(sampleResponse)));
         }
 
         @Test
@@ -197,8 +225,8 @@ class PaymentControllerTest {
                     .updatedAt(OffsetDateTime.now())
                     .build();
 
-            when(orchestrator.authorize(eq(paymentId), eq(merchantId), any(AuthorizePaymentRequest.class), isNull()))
-                    .thenReturn(authorizedResponse);
+            when(orchestrator.authorize(eq(paymentId), eq(merchantId), any(AuthorizePaymentRequest.class), isNull(), isNull()))
+                    .thenReturn(result(authorizedResponse));
 
             // when/then
             mockMvc.perform(post(BASE_URL + "/{paymentId}/authorize", paymentId)
@@ -219,7 +247,7 @@ class PaymentControllerTest {
                     .cardBin("415679")
                     .build();
 
-            when(orchestrator.authorize(eq(paymentId), eq(merchantId), any(AuthorizePaymentRequest.class), isNull()))
+            when(orchestrator.authorize(eq(paymentId), eq(merchantId), any(AuthorizePaymentRequest.class), isNull(), isNull()))
                     .thenThrow(new PaymentNotFoundException("Payment not found: " + paymentId));
 
             // when/then
@@ -253,8 +281,8 @@ class PaymentControllerTest {
                     .updatedAt(OffsetDateTime.now())
                     .build();
 
-            when(orchestrator.capture(eq(paymentId), eq(merchantId), any(), isNull()))
-                    .thenReturn(capturedResponse);
+            when(orchestrator.capture(eq(paymentId), eq(merchantId), any(), isNull(), isNull()))
+                    .thenReturn(result(capturedResponse));
 
             // when/then
             mockMvc.perform(post(BASE_URL + "/{paymentId}/capture", paymentId)
@@ -277,8 +305,8 @@ class PaymentControllerTest {
                     .updatedAt(OffsetDateTime.now())
                     .build();
 
-            when(orchestrator.capture(eq(paymentId), eq(merchantId), isNull(), isNull()))
-                    .thenReturn(capturedResponse);
+            when(orchestrator.capture(eq(paymentId), eq(merchantId), isNull(), isNull(), isNull()))
+                    .thenReturn(result(capturedResponse));
 
             // when/then
             mockMvc.perform(post(BASE_URL + "/{paymentId}/capture", paymentId)
@@ -309,8 +337,8 @@ class PaymentControllerTest {
                     .updatedAt(OffsetDateTime.now())
                     .build();
 
-            when(orchestrator.refund(eq(paymentId), eq(merchantId), any(), isNull()))
-                    .thenReturn(refundedResponse);
+            when(orchestrator.refund(eq(paymentId), eq(merchantId), any(), isNull(), isNull()))
+                    .thenReturn(result(refundedResponse));
 
             // when/then
             mockMvc.perform(post(BASE_URL + "/{paymentId}/refund", paymentId)
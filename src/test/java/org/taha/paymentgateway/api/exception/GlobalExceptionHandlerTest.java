@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
@@ -15,6 +16,7 @@ import org.taha.paymentgateway.api.dto.response.ApiErrorResponse;
 import org.taha.paymentgateway.core.exception.*;
 
 import java.util.List;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -94,6 +96,68 @@ class GlobalExceptionHandlerTest {
         }
     }
 
+    @Nested
+    @DisplayName("IdempotencyInProgressException handling")
+    class IdempotencyInProgressTests {
+
+        @Test
+        @DisplayName("should return 409 CONFLICT with Retry-After for IdempotencyInProgressException")
+        void shouldReturn409WithRetryAfter_ForIdempotencyInProgressException() {
+            // given
+            IdempotencyInProgressException ex = new IdempotencyInProgressException("idem-key-123");
+
+            // when
+            ResponseEntity<ApiErrorResponse> response = exceptionHandler.handleIdempotencyInProgress(ex);
+
+            // then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+            assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            assertThat(response.getBody()).isNotNull();
+            assertThat(response.getBody().errorCode()).isEqualTo("IDEMPOTENCY_IN_PROGRESS");
+        }
+    }
+
+    @Nested
+    @DisplayName("ProviderBusyException handling")
+    class ProviderBusyTests {
+
+        @Test
+        @DisplayName("should return 503 SERVICE_UNAVAILABLE with Retry-After for ProviderBusyException")
+        void shouldReturn503WithRetryAfter_ForProviderBusyException() {
+            // given
+            ProviderBusyException ex = new ProviderBusyException("MOCK_PROVIDER");
+
+            // when
+            ResponseEntity<ApiErrorResponse> response = exceptionHandler.handleProviderBusy(ex);
+
+            // then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+            assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+            assertThat(response.getBody()).isNotNull();
+            assertThat(response.getBody().errorCode()).isEqualTo("PROVIDER_BUSY");
+        }
+    }
+
+    @Nested
+    @DisplayName("ConcurrentPaymentUpdateException handling")
+    class ConcurrentPaymentUpdateTests {
+
+        @Test
+        @DisplayName("should return 409 CONFLICT for ConcurrentPaymentUpdateException")
+        void shouldReturn409_ForConcurrentPaymentUpdateException() {
+            // given
+            ConcurrentPaymentUpdateException ex = new ConcurrentPaymentUpdateException(UUID.randomUUID());
+
+            // when
+            ResponseEntity<ApiErrorResponse> response = exceptionHandler.handleConcurrentUpdate(ex);
+
+            // then
+            assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+            assertThat(response.getBody()).isNotNull();
+            assertThat(response.getBody().errorCode()).isEqualTo("CONCURRENT_PAYMENT_UPDATE");
+        }
+    }
+
     @Nested
     @DisplayName("ProviderException handling")
     class ProviderExceptionTests {
@@ -0,0 +1,57 @@
+package org.taha.paymentgateway.config;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Java 21'de synchronized blok içinde bloklayan bir çağrı (DB, HTTP, sleep)
+ * virtual thread'i carrier thread'e sabitler (pinning). vthreads modunda
+ * eşzamanlılığın ölçeklenebilmesi için main kodda synchronized kullanılmamalı;
+ * gerekiyorsa ReentrantLock veya java.util.concurrent yapıları tercih edilir.
+ */
+@DisplayName("Virtual thread pinning guard")
+class VirtualThreadPinningGuardTest {
+
+    private static final Path MAIN_SOURCES = Path.of("src/main/java");
+    private static final Pattern SYNCHRONIZED = Pattern.compile("\\bsynchronized\\b");
+
+    @Test
+    @DisplayName("main sources should not use synchronized")
+    void mainSourcesShouldNotUseSynchronized() throws IOException {
+        // given
+        List<Path> sources;
+        try (Stream<Path> files = Files.walk(MAIN_SOURCES)) {
+            sources = files.filter(f -> f.toString().endsWith(".java")).toList();
+        }
+
+        // when
+        List<String> offenders = sources.stream()
+                .filter(VirtualThreadPinningGuardTest::usesSynchronized)
+                .map(Path::toString)
+                .toList();
+
+        // then
+        assertThat(sources).isNotEmpty();
+        assertThat(offenders).isEmpty();
+    }
+
+    private static boolean usesSynchronized(Path file) {
+        try {
+            return Files.readAllLines(file).stream()
+                    .map(String::trim)
+                    .filter(line -> !line.startsWith("*") && !line.startsWith("//") && !line.startsWith("/*"))
+                    .anyMatch(line -> SYNCHRONIZED.matcher(line).find());
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read " + file, e);
+        }
+    }
+}
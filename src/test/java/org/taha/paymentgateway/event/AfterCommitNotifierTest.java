@@ -0,0 +1,85 @@
+package org.taha.paymentgateway.event;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AfterCommitNotifier Tests")
+class AfterCommitNotifierTest {
+
+    private final OutboxNotifier notifier = new OutboxNotifier(2);
+
+    @AfterEach
+    void tearDown() {
+        notifier.stop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @DisplayName("should deliver id immediately when no transaction is active")
+    void shouldDeliverImmediately_WithoutTransaction() throws Exception {
+        // given
+        List<UUID> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        notifier.start("test-drainer", 10, ids -> {
+            received.addAll(ids);
+            latch.countDown();
+        });
+        UUID id = UUID.randomUUID();
+
+        // when
+        notifier.notifyAfterCommit(id);
+
+        // then
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactly(id);
+    }
+
+    @Test
+    @DisplayName("should enqueue only after commit inside a transaction")
+    void shouldEnqueueOnlyAfterCommit() throws Exception {
+        // given
+        List<UUID> received = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        TransactionSynchronizationManager.initSynchronization();
+        UUID id = UUID.randomUUID();
+
+        // when
+        notifier.notifyAfterCommit(id);
+        notifier.start("test-drainer", 10, ids -> {
+            received.addAll(ids);
+            latch.countDown();
+        });
+
+        // then - commit öncesi kuyruğa girmez
+        assertThat(latch.await(200, TimeUnit.MILLISECONDS)).isFalse();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        assertThat(latch.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(received).containsExactly(id);
+    }
+
+    @Test
+    @DisplayName("should drop notifications when queue is full")
+    void shouldDrop_WhenQueueFull() {
+        // when - drainer başlamadığı için kuyruk boşalmaz
+        notifier.notifyAfterCommit(UUID.randomUUID());
+        notifier.notifyAfterCommit(UUID.randomUUID());
+        notifier.notifyAfterCommit(UUID.randomUUID());
+
+        // then
+        assertThat(notifier.getDroppedCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,141 @@
+package org.taha.paymentgateway.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.taha.paymentgateway.core.model.OutboxStatus;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.persistence.entity.OutboxEventEntity;
+import org.taha.paymentgateway.persistence.repository.OutboxEventRepository;
+import org.taha.paymentgateway.persistence.support.UuidV7;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Claim sorgularının aggregate başına sırayı gerçek JPA/H2 üzerinde koruduğunu doğrular.
+ * Processor kendi transaction'larını ve worker thread'lerini kullandığı için test transaction'ı kapalıdır.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("OutboxProcessor ordering Tests")
+class OutboxProcessorOrderingTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+
+    private OutboxProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        EventHandler recordingHandler = new EventHandler() {
+            @Override
+            public boolean canHandle(String eventType) {
+                return true;
+            }
+
+            @Override
+            public void handle(OutboxEventEntity event) {
+                handled.add(event.getEventType());
+            }
+        };
+        processor = new OutboxProcessor(
+                outboxEventRepository,
+                List.of(recordingHandler),
+                new TransactionTemplate(transactionManager),
+                mock(OutboxNotifier.class),
+                new GatewayMetrics(new SimpleMeterRegistry())
+        );
+        ReflectionTestUtils.setField(processor, "batchSize", 10);
+        ReflectionTestUtils.setField(processor, "workerThreads", 2);
+        ReflectionTestUtils.setField(processor, "leaseMs", 30_000L);
+        ReflectionTestUtils.setField(processor, "retryBackoffMs", 1000L);
+        ReflectionTestUtils.setField(processor, "maxBackoffMs", 60_000L);
+        ReflectionTestUtils.setField(processor, "nodeId", "node-1");
+        processor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+        outboxEventRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("notified event should wait for an older unnotified event of the same aggregate")
+    void notifiedEventShouldWaitForOlderUnclaimedEvent() {
+        // given: PaymentAuthorized'ın bildirimi düşmüş, sadece PaymentCaptured bildirilmiş
+        UUID paymentId = UuidV7.next();
+        OffsetDateTime createdAt = OffsetDateTime.now().minusSeconds(1);
+        OutboxEventEntity authorized = save(paymentId, "PaymentAuthorized", createdAt);
+        OutboxEventEntity captured = save(paymentId, "PaymentCaptured", createdAt.plusNanos(1_000_000));
+
+        // when
+        processor.processNotified(List.of(captured.getId()));
+
+        // then: sırası gelmemiş event işlenmez ve sahiplenilmeden bırakılır
+        assertThat(handled).isEmpty();
+        assertThat(outboxEventRepository.findById(captured.getId())).get()
+                .satisfies(event -> {
+                    assertThat(event.getStatus()).isEqualTo(OutboxStatus.NEW);
+                    assertThat(event.getLeaseOwner()).isNull();
+                });
+
+        // when: safety net polling ikisini birlikte toplar
+        processor.processBatch();
+
+        // then
+        assertThat(handled).containsExactly("PaymentAuthorized", "PaymentCaptured");
+        assertThat(outboxEventRepository.findAllById(List.of(authorized.getId(), captured.getId())))
+                .allMatch(event -> event.getStatus() == OutboxStatus.SENT);
+    }
+
+    @Test
+    @DisplayName("events notified together should be processed in creation order")
+    void eventsNotifiedTogetherShouldBeProcessedInOrder() {
+        // given
+        UUID paymentId = UuidV7.next();
+        OffsetDateTime createdAt = OffsetDateTime.now().minusSeconds(1);
+        OutboxEventEntity authorized = save(paymentId, "PaymentAuthorized", createdAt);
+        OutboxEventEntity captured = save(paymentId, "PaymentCaptured", createdAt.plusNanos(1_000_000));
+
+        // when
+        processor.processNotified(List.of(captured.getId(), authorized.getId()));
+
+        // then
+        assertThat(handled).containsExactly("PaymentAuthorized", "PaymentCaptured");
+    }
+
+    private OutboxEventEntity save(UUID aggregateId, String eventType, OffsetDateTime createdAt) {
+        return outboxEventRepository.save(OutboxEventEntity.builder()
+                .id(UuidV7.next())
+                .aggregateType("Payment")
+                .aggregateId(aggregateId)
+                .eventType(eventType)
+                .payload("{}")
+                .createdAt(createdAt)
+                .build());
+    }
+}
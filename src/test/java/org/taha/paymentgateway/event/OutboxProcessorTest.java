@@ -0,0 +1,238 @@
+package org.taha.paymentgateway.event;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.taha.paymentgateway.core.model.OutboxStatus;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.persistence.entity.OutboxEventEntity;
+import org.taha.paymentgateway.persistence.repository.OutboxEventRepository;
+
+import java.time.OffsetDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("OutboxProcessor Tests")
+class OutboxProcessorTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private EventHandler eventHandler;
+
+    @Mock
+    private OutboxNotifier outboxNotifier;
+
+    private OutboxProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = new OutboxProcessor(
+                outboxEventRepository,
+                List.of(eventHandler),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                outboxNotifier,
+                new GatewayMetrics(new SimpleMeterRegistry())
+        );
+        ReflectionTestUtils.setField(processor, "batchSize", 10);
+        ReflectionTestUtils.setField(processor, "workerThreads", 2);
+        ReflectionTestUtils.setField(processor, "leaseMs", 30_000L);
+        ReflectionTestUtils.setField(processor, "retryBackoffMs", 1000L);
+        ReflectionTestUtils.setField(processor, "maxBackoffMs", 60_000L);
+        ReflectionTestUtils.setField(processor, "nodeId", "node-1");
+        processor.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    private OutboxEventEntity event(UUID aggregateId, String type, int retryCount) {
+        return OutboxEventEntity.builder()
+                .id(UUID.randomUUID())
+                .aggregateType("Payment")
+                .aggregateId(aggregateId)
+                .eventType(type)
+                .payload("{}")
+                .retryCount(retryCount)
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+
+    private void givenClaimed(OutboxEventEntity... events) {
+        List<UUID> ids = Arrays.stream(events).map(OutboxEventEntity::getId).toList();
+        when(outboxEventRepository.findClaimableIds(eq(OutboxStatus.NEW), anyInt(), any(OffsetDateTime.class), any(Pageable.class)))
+                .thenReturn(ids);
+        when(outboxEventRepository.claim(eq(ids), eq(OutboxStatus.NEW), anyString(), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+                .thenReturn(events.length);
+        when(outboxEventRepository.findByLeaseOwnerOrderByCreatedAtAsc(startsWith("node-1:")))
+                .thenReturn(List.of(events));
+        when(eventHandler.canHandle(anyString())).thenReturn(true);
+    }
+
+    @Nested
+    @DisplayName("batch processing tests")
+    class BatchTests {
+
+        @Test
+        @DisplayName("should do nothing when no event is claimable")
+        void shouldDoNothing_WhenNoEventClaimable() {
+            // given
+            when(outboxEventRepository.findClaimableIds(eq(OutboxStatus.NEW), anyInt(), any(OffsetDateTime.class), any(Pageable.class)))
+                    .thenReturn(List.of());
+
+            // when
+            int claimed = processor.processBatch();
+
+            // then
+            assertThat(claimed).isZero();
+            verify(outboxEventRepository, never()).claim(any(), any(), any(), any(), any());
+            verifyNoInteractions(eventHandler);
+        }
+
+        @Test
+        @DisplayName("should mark all processed events SENT with a single update")
+        @SuppressWarnings("unchecked")
+        void shouldMarkProcessedEventsSent_InSingleUpdate() {
+            // given
+            OutboxEventEntity first = event(UUID.randomUUID(), "PaymentCreated", 0);
+            OutboxEventEntity second = event(UUID.randomUUID(), "PaymentAuthorized", 0);
+            givenClaimed(first, second);
+
+            // when
+            int claimed = processor.processBatch();
+
+            // then
+            assertThat(claimed).isEqualTo(2);
+            ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+            verify(outboxEventRepository).markProcessed(ids.capture(), startsWith("node-1:"), eq(OutboxStatus.SENT), any());
+            assertThat(ids.getValue()).containsExactlyInAnyOrder(first.getId(), second.getId());
+            verify(outboxEventRepository).releaseLease(startsWith("node-1:"));
+        }
+    }
+
+    @Nested
+    @DisplayName("notification tests")
+    class NotificationTests {
+
+        @Test
+        @DisplayName("should start notify drainer on init")
+        void shouldStartNotifyDrainer_OnInit() {
+            verify(outboxNotifier).start(eq("outbox-notify-drainer"), eq(10), any());
+        }
+
+        @Test
+        @DisplayName("should claim and process notified events without polling")
+        @SuppressWarnings("unchecked")
+        void shouldProcessNotifiedEvents() {
+            // given
+            OutboxEventEntity event = event(UUID.randomUUID(), "PaymentCaptured", 0);
+            List<UUID> ids = List.of(event.getId());
+            when(outboxEventRepository.findClaimableIdsAmong(eq(ids), eq(OutboxStatus.NEW), anyInt(), any(OffsetDateTime.class)))
+                    .thenReturn(ids);
+            when(outboxEventRepository.claim(eq(ids), eq(OutboxStatus.NEW), anyString(), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+                    .thenReturn(1);
+            when(outboxEventRepository.findByLeaseOwnerOrderByCreatedAtAsc(startsWith("node-1:")))
+                    .thenReturn(List.of(event));
+            when(eventHandler.canHandle("PaymentCaptured")).thenReturn(true);
+
+            // when
+            processor.processNotified(ids);
+
+            // then
+            verify(eventHandler).handle(event);
+            ArgumentCaptor<Collection<UUID>> processed = ArgumentCaptor.forClass(Collection.class);
+            verify(outboxEventRepository).markProcessed(processed.capture(), anyString(), eq(OutboxStatus.SENT), any());
+            assertThat(processed.getValue()).containsExactly(event.getId());
+            verify(outboxEventRepository, never()).findClaimableIds(any(), anyInt(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should skip notified events already claimed elsewhere")
+        void shouldSkipNotifiedEvents_AlreadyClaimed() {
+            // given
+            List<UUID> ids = List.of(UUID.randomUUID());
+            when(outboxEventRepository.findClaimableIdsAmong(eq(ids), eq(OutboxStatus.NEW), anyInt(), any(OffsetDateTime.class)))
+                    .thenReturn(List.of());
+
+            // when
+            processor.processNotified(ids);
+
+            // then
+            verify(outboxEventRepository, never()).claim(any(), any(), any(), any(), any());
+            verifyNoInteractions(eventHandler);
+        }
+    }
+
+    @Nested
+    @DisplayName("failure tests")
+    class FailureTests {
+
+        @Test
+        @DisplayName("should stop aggregate on failure and keep other aggregates going")
+        @SuppressWarnings("unchecked")
+        void shouldStopAggregate_OnFailure() {
+            // given
+            UUID failingAggregate = UUID.randomUUID();
+            OutboxEventEntity failing = event(failingAggregate, "PaymentCreated", 0);
+            OutboxEventEntity blocked = event(failingAggregate, "PaymentAuthorized", 0);
+            OutboxEventEntity other = event(UUID.randomUUID(), "PaymentCreated", 0);
+            givenClaimed(failing, blocked, other);
+            doThrow(new IllegalStateException("boom")).when(eventHandler).handle(failing);
+
+            // when
+            processor.processBatch();
+
+            // then
+            verify(eventHandler, never()).handle(blocked);
+            verify(eventHandler).handle(other);
+            verify(outboxEventRepository).markFailed(eq(failing.getId()), startsWith("node-1:"), eq(OutboxStatus.NEW), any());
+
+            ArgumentCaptor<Collection<UUID>> ids = ArgumentCaptor.forClass(Collection.class);
+            verify(outboxEventRepository).markProcessed(ids.capture(), anyString(), eq(OutboxStatus.SENT), any());
+            assertThat(ids.getValue()).containsExactly(other.getId());
+        }
+
+        @Test
+        @DisplayName("should mark event FAILED when retries are exhausted")
+        void shouldMarkFailed_WhenRetriesExhausted() {
+            // given
+            OutboxEventEntity event = event(UUID.randomUUID(), "PaymentCreated", 2);
+            givenClaimed(event);
+            doThrow(new IllegalStateException("boom")).when(eventHandler).handle(event);
+
+            // when
+            processor.processBatch();
+
+            // then
+            verify(outboxEventRepository).markFailed(eq(event.getId()), anyString(), eq(OutboxStatus.FAILED), any());
+            verify(outboxEventRepository, never()).markProcessed(any(), any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should back off exponentially up to the cap")
+        void shouldBackOffExponentially() {
+            assertThat(processor.backoffMs(1)).isEqualTo(1000);
+            assertThat(processor.backoffMs(2)).isEqualTo(2000);
+            assertThat(processor.backoffMs(3)).isEqualTo(4000);
+            assertThat(processor.backoffMs(20)).isEqualTo(60_000);
+        }
+    }
+}
@@ -1,36 +1,95 @@
 package org.taha.paymentgateway.idempotency;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.taha.paymentgateway.core.exception.IdempotencyConflictException;
+import org.taha.paymentgateway.core.exception.IdempotencyInProgressException;
+import org.taha.paymentgateway.core.model.IdempotencyStatus;
+import org.taha.paymentgateway.idempotency.IdempotencyService.Reservation;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
 import org.taha.paymentgateway.persistence.entity.IdempotencyRecordEntity;
 import org.taha.paymentgateway.persistence.repository.IdempotencyRecordRepository;
 
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("IdempotencyService Tests")
 class IdempotencyServiceTest {
 
+    private static final String KEY = "payment-key-123";
+    private static final byte[] HASH = RequestFingerprint.of("POST /v1/payments merchant-1",
+            "{\"amount\":100}".getBytes(StandardCharsets.UTF_8));
+    private static final byte[] OTHER_HASH = RequestFingerprint.of("POST /v1/payments merchant-1",
+            "{\"amount\":200}".getBytes(StandardCharsets.UTF_8));
+    private static final byte[] RESPONSE = "{\"id\":\"1\"}".getBytes(StandardCharsets.UTF_8);
+
     @Mock
     private IdempotencyRecordRepository repository;
 
-    @InjectMocks
+    private SimpleMeterRegistry meterRegistry;
     private IdempotencyService idempotencyService;
 
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        idempotencyService = new IdempotencyService(repository, mock(PlatformTransactionManager.class),
+                new GatewayMetrics(meterRegistry));
+    }
+
+    /**
+     * complete()'i aktif bir transaction içinde çağırıp transaction'ın rollback olduğunu bildirir.
+     */
+    private void completeAndRollBack(Reservation reservation) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            idempotencyService.complete(reservation, RESPONSE);
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("gateway.idempotency.lookups").tag("result", result).counter().count();
+    }
+
+    private IdempotencyRecordEntity record(IdempotencyStatus status, byte[] requestHash, String responseBody,
+                                           OffsetDateTime updatedAt) {
+        return IdempotencyRecordEntity.builder()
+                .id(UUID.randomUUID())
+                .idempotencyKey(KEY)
+                .requestHash(requestHash)
+                .status(status)
+                .owner("other-owner")
+                .responseBody(responseBody)
+                .createdAt(updatedAt)
+                .updatedAt(updatedAt)
+                .build();
+    }
+
     @Nested
     @DisplayName("find() method tests")
     class FindTests {
@@ -39,139 +98,276 @@ class IdempotencyServiceTest {
         @DisplayName("should return existing record when key exists")
         void shouldReturnExistingRecord_WhenKeyExists() {
             // given
-            String idempotencyKey = "test-key-123";
-            IdempotencyRecordEntity expectedRecord = IdempotencyRecordEntity.builder()
-                    .id(UUID.randomUUID())
-                    .idempotencyKey(idempotencyKey)
-                    .requestHash("hash123")
-                    .responseBody("{\"status\":\"success\"}")
-                    .createdAt(OffsetDateTime.now())
-                    .build();
-            
-            when(repository.findByIdempotencyKey(idempotencyKey))
-                    .thenReturn(Optional.of(expectedRecord));
+            IdempotencyRecordEntity expectedRecord = record(IdempotencyStatus.COMPLETED, HASH,
+                    "{\"status\":\"success\"}", OffsetDateTime.now());
+            when(repository.findByIdempotencyKey(KEY)).thenReturn(Optional.of(expectedRecord));
 
             // when
-            Optional<IdempotencyRecordEntity> result = idempotencyService.find(idempotencyKey);
+            Optional<IdempotencyRecordEntity> result = idempotencyService.find(KEY);
 
             // then
             assertThat(result).isPresent();
-            assertThat(result.get().getIdempotencyKey()).isEqualTo(idempotencyKey);
-            assertThat(result.get().getRequestHash()).isEqualTo("hash123");
-            verify(repository).findByIdempotencyKey(idempotencyKey);
+            assertThat(result.get().getIdempotencyKey()).isEqualTo(KEY);
+            assertThat(result.get().getRequestHash()).isEqualTo(HASH);
         }
 
         @Test
         @DisplayName("should return empty when key does not exist")
         void shouldReturnEmpty_WhenKeyDoesNotExist() {
             // given
-            String idempotencyKey = "non-existent-key";
-            when(repository.findByIdempotencyKey(idempotencyKey))
-                    .thenReturn(Optional.empty());
+            when(repository.findByIdempotencyKey("non-existent-key")).thenReturn(Optional.empty());
+
+            // when/then
+            assertThat(idempotencyService.find("non-existent-key")).isEmpty();
+        }
+    }
+
+    @Nested
+    @DisplayName("reserve() method tests")
+    class ReserveTests {
+
+        @Test
+        @DisplayName("should insert IN_PROGRESS reservation for new key")
+        void shouldInsertReservation_ForNewKey() {
+            // given
+            ArgumentCaptor<IdempotencyRecordEntity> captor = ArgumentCaptor.forClass(IdempotencyRecordEntity.class);
+
+            // when
+            Reservation reservation = idempotencyService.reserve(KEY, HASH);
+
+            // then
+            assertThat(reservation.isReplay()).isFalse();
+            assertThat(reservation.key()).isEqualTo(KEY);
+            verify(repository).saveAndFlush(captor.capture());
+            IdempotencyRecordEntity saved = captor.getValue();
+            assertThat(saved.getIdempotencyKey()).isEqualTo(KEY);
+            assertThat(saved.getRequestHash()).isEqualTo(HASH);
+            assertThat(saved.getStatus()).isEqualTo(IdempotencyStatus.IN_PROGRESS);
+            assertThat(saved.getOwner()).isNotBlank();
+            assertThat(saved.getResponseBody()).isNull();
+            assertThat(lookups("miss")).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("should replay completed response for same request")
+        void shouldReplayCompletedResponse() {
+            // given
+            when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+            when(repository.findByIdempotencyKey(KEY)).thenReturn(Optional.of(
+                    record(IdempotencyStatus.COMPLETED, HASH, "{\"id\":\"1\"}", OffsetDateTime.now())));
+
+            // when
+            Reservation reservation = idempotencyService.reserve(KEY, HASH);
+
+            // then
+            assertThat(reservation.isReplay()).isTrue();
+            assertThat(reservation.replayResponse()).isEqualTo(RESPONSE);
+            assertThat(lookups("hit")).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("should throw conflict when key was used with a different request")
+        void shouldThrowConflict_ForDifferentRequest() {
+            // given
+            when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+            when(repository.findByIdempotencyKey(KEY)).thenReturn(Optional.of(
+                    record(IdempotencyStatus.COMPLETED, OTHER_HASH, "{}", OffsetDateTime.now())));
+
+            // when/then
+            assertThatThrownBy(() -> idempotencyService.reserve(KEY, HASH))
+                    .isInstanceOf(IdempotencyConflictException.class);
+            assertThat(lookups("conflict")).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("should throw in-progress while another node owns a fresh reservation")
+        void shouldThrowInProgress_ForFreshReservation() {
+            // given
+            when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+            when(repository.findByIdempotencyKey(KEY)).thenReturn(Optional.of(
+                    record(IdempotencyStatus.IN_PROGRESS, HASH, null, OffsetDateTime.now())));
+            when(repository.takeOver(eq(KEY), eq(IdempotencyStatus.IN_PROGRESS), anyString(), eq(HASH), any(), any()))
+                    .thenReturn(0);
+
+            // when/then
+            assertThatThrownBy(() -> idempotencyService.reserve(KEY, HASH))
+                    .isInstanceOf(IdempotencyInProgressException.class);
+            assertThat(lookups("in_progress")).isEqualTo(1.0);
+        }
+
+        @Test
+        @DisplayName("should take over stale reservation")
+        void shouldTakeOverStaleReservation() {
+            // given
+            when(repository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+            when(repository.findByIdempotencyKey(KEY)).thenReturn(Optional.of(
+                    record(IdempotencyStatus.IN_PROGRESS, HASH, null, OffsetDateTime.now().minusMinutes(10))));
+            when(repository.takeOver(eq(KEY), eq(IdempotencyStatus.IN_PROGRESS), anyString(), eq(HASH), any(), any()))
+                    .thenReturn(1);
 
             // when
-            Optional<IdempotencyRecordEntity> result = idempotencyService.find(idempotencyKey);
+            Reservation reservation = idempotencyService.reserve(KEY, HASH);
 
             // then
-            assertThat(result).isEmpty();
-            verify(repository).findByIdempotencyKey(idempotencyKey);
+            assertThat(reservation.isReplay()).isFalse();
+            assertThat(lookups("miss")).isEqualTo(1.0);
         }
     }
 
     @Nested
-    @DisplayName("hash() method tests")
-    class HashTests {
+    @DisplayName("complete() and release() tests")
+    class CompleteTests {
+
+        @Test
+        @DisplayName("should store response and serve repeats from memory")
+        void shouldServeRepeatsFromMemory_AfterComplete() {
+            // given
+            when(repository.complete(eq(KEY), anyString(), eq(new String(RESPONSE, StandardCharsets.UTF_8)),
+                    eq(IdempotencyStatus.IN_PROGRESS), eq(IdempotencyStatus.COMPLETED), any())).thenReturn(1);
+            Reservation reservation = idempotencyService.reserve(KEY, HASH);
+
+            // when
+            idempotencyService.complete(reservation, RESPONSE);
+            Reservation repeat = idempotencyService.reserve(KEY, HASH);
+
+            // then
+            assertThat(repeat.isReplay()).isTrue();
+            assertThat(repeat.replayResponse()).isSameAs(RESPONSE);
+            verify(repository, times(1)).saveAndFlush(any());
+            verify(repository, never()).findByIdempotencyKey(any());
+        }
 
         @Test
-        @DisplayName("should generate consistent SHA-256 hash for same input")
-        void shouldGenerateConsistentHash_ForSameInput() {
+        @DisplayName("should delete reservation on release so the key can be retried")
+        void shouldDeleteReservation_OnRelease() {
             // given
-            String input = "test-input-string";
+            Reservation reservation = idempotencyService.reserve(KEY, HASH);
 
             // when
-            String hash1 = idempotencyService.hash(input);
-            String hash2 = idempotencyService.hash(input);
+            idempotencyService.release(reservation);
+            Reservation retry = idempotencyService.reserve(KEY, HASH);
 
             // then
-            assertThat(hash1).isEqualTo(hash2);
-            assertThat(hash1).hasSize(64); // SHA-256 produces 64 hex characters
+            verify(repository).deleteReservation(eq(KEY), anyString(), eq(IdempotencyStatus.IN_PROGRESS));
+            assertThat(retry.isReplay()).isFalse();
+            verify(repository, times(2)).saveAndFlush(any());
         }
 
         @Test
-        @DisplayName("should generate different hashes for different inputs")
-        void shouldGenerateDifferentHashes_ForDifferentInputs() {
+        @DisplayName("should delete reservation on release when the completing transaction rolled back")
+        void shouldDeleteReservation_WhenCompletionRolledBack() {
             // given
-            String input1 = "input-one";
-            String input2 = "input-two";
+            Reservation reservation = idempotencyService.reserve(KEY, HASH);
+            completeAndRollBack(reservation);
 
             // when
-            String hash1 = idempotencyService.hash(input1);
-            String hash2 = idempotencyService.hash(input2);
+            idempotencyService.release(reservation);
 
             // then
-            assertThat(hash1).isNotEqualTo(hash2);
+            verify(repository).deleteReservation(eq(KEY), anyString(), eq(IdempotencyStatus.IN_PROGRESS));
         }
 
         @Test
-        @DisplayName("should generate valid hex string")
-        void shouldGenerateValidHexString() {
+        @DisplayName("should not touch repository for replayed reservations")
+        void shouldIgnoreReplay_OnCompleteAndRelease() {
             // given
-            String input = "test-input";
+            Reservation replay = Reservation.replay(KEY, RESPONSE);
 
             // when
-            String hash = idempotencyService.hash(input);
+            idempotencyService.complete(replay, RESPONSE);
+            idempotencyService.release(replay);
 
             // then
-            assertThat(hash).matches("^[0-9a-f]+$");
+            verifyNoInteractions(repository);
         }
     }
 
     @Nested
-    @DisplayName("save() method tests")
-    class SaveTests {
+    @DisplayName("in-flight coalescing tests")
+    class CoalescingTests {
 
         @Test
-        @DisplayName("should save new idempotency record with correct data")
-        void shouldSaveNewRecord_WithCorrectData() {
+        @DisplayName("should let concurrent duplicate wait for the first request's response")
+        void shouldCoalesceConcurrentDuplicate() throws Exception {
             // given
-            String key = "payment-key-123";
-            String requestHash = "abc123hash";
-            String responseBody = "{\"id\":\"uuid\",\"status\":\"success\"}";
-            
-            ArgumentCaptor<IdempotencyRecordEntity> captor = 
-                    ArgumentCaptor.forClass(IdempotencyRecordEntity.class);
+            when(repository.complete(eq(KEY), anyString(), eq(new String(RESPONSE, StandardCharsets.UTF_8)),
+                    eq(IdempotencyStatus.IN_PROGRESS), eq(IdempotencyStatus.COMPLETED), any())).thenReturn(1);
+            Reservation first = idempotencyService.reserve(KEY, HASH);
+            CountDownLatch started = new CountDownLatch(1);
 
             // when
-            idempotencyService.save(key, requestHash, responseBody);
+            CompletableFuture<Reservation> duplicate = CompletableFuture.supplyAsync(() -> {
+                started.countDown();
+                return idempotencyService.reserve(KEY, HASH);
+            });
+            started.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+            idempotencyService.complete(first, RESPONSE);
+
+            // then
+            Reservation second = duplicate.get(5, TimeUnit.SECONDS);
+            assertThat(second.isReplay()).isTrue();
+            assertThat(second.replayResponse()).isSameAs(RESPONSE);
+            verify(repository, times(1)).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("should reject concurrent request with different payload immediately")
+        void shouldRejectConcurrentConflict() {
+            // given
+            idempotencyService.reserve(KEY, HASH);
+
+            // when/then
+            assertThatThrownBy(() -> idempotencyService.reserve(KEY, OTHER_HASH))
+                    .isInstanceOf(IdempotencyConflictException.class);
+            verify(repository, times(1)).saveAndFlush(any());
+        }
+
+        @Test
+        @DisplayName("should keep duplicates waiting while a rolled back completion is retried")
+        void shouldKeepDuplicatesWaiting_WhenCompletionIsRetried() throws Exception {
+            // given
+            Reservation first = idempotencyService.reserve(KEY, HASH);
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<Reservation> duplicate = CompletableFuture.supplyAsync(() -> {
+                started.countDown();
+                return idempotencyService.reserve(KEY, HASH);
+            });
+            started.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+
+            // when: ilk tamamlama rollback olur, ikinci deneme commit edilir
+            completeAndRollBack(first);
+            assertThat(duplicate).isNotDone();
+            idempotencyService.complete(first, RESPONSE);
 
             // then
-            verify(repository).save(captor.capture());
-            
-            IdempotencyRecordEntity savedEntity = captor.getValue();
-            assertThat(savedEntity.getId()).isNotNull();
-            assertThat(savedEntity.getIdempotencyKey()).isEqualTo(key);
-            assertThat(savedEntity.getRequestHash()).isEqualTo(requestHash);
-            assertThat(savedEntity.getResponseBody()).isEqualTo(responseBody);
-            assertThat(savedEntity.getCreatedAt()).isNotNull();
+            Reservation second = duplicate.get(5, TimeUnit.SECONDS);
+            assertThat(second.isReplay()).isTrue();
+            assertThat(second.replayResponse()).isSameAs(RESPONSE);
+            verify(repository, never()).deleteReservation(any(), any(), any());
         }
 
         @Test
-        @DisplayName("should generate unique UUID for each save")
-        void shouldGenerateUniqueUUID_ForEachSave() {
+        @DisplayName("should let waiting duplicate claim the key after first request fails")
+        void shouldClaimAfterFirstRequestReleases() throws Exception {
             // given
-            ArgumentCaptor<IdempotencyRecordEntity> captor = 
-                    ArgumentCaptor.forClass(IdempotencyRecordEntity.class);
+            Reservation first = idempotencyService.reserve(KEY, HASH);
+            CountDownLatch started = new CountDownLatch(1);
 
             // when
-            idempotencyService.save("key1", "hash1", "response1");
-            idempotencyService.save("key2", "hash2", "response2");
+            CompletableFuture<Reservation> duplicate = CompletableFuture.supplyAsync(() -> {
+                started.countDown();
+                return idempotencyService.reserve(KEY, HASH);
+            });
+            started.await(5, TimeUnit.SECONDS);
+            Thread.sleep(50);
+            idempotencyService.release(first);
 
             // then
-            verify(repository, times(2)).save(captor.capture());
-            
-            var savedEntities = captor.getAllValues();
-            assertThat(savedEntities.get(0).getId())
-                    .isNotEqualTo(savedEntities.get(1).getId());
+            Reservation second = duplicate.get(5, TimeUnit.SECONDS);
+            assertThat(second.isReplay()).isFalse();
+            verify(repository, times(2)).saveAndFlush(any());
         }
     }
 }
@@ -0,0 +1,75 @@
+package org.taha.paymentgateway.idempotency;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RequestFingerprint Tests")
+class RequestFingerprintTest {
+
+    private static final byte[] BODY = "{\"amount\":100.00,\"currency\":\"TRY\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    @DisplayName("should produce a 32 byte SHA-256 of scope and body")
+    void shouldProduceSha256() throws Exception {
+        // given
+        MessageDigest expected = MessageDigest.getInstance("SHA-256");
+        expected.update("POST /v1/payments merchant-1\n".getBytes(StandardCharsets.UTF_8));
+        expected.update(BODY);
+
+        // when
+        byte[] fingerprint = RequestFingerprint.of("POST /v1/payments merchant-1", BODY);
+
+        // then
+        assertThat(fingerprint).hasSize(RequestFingerprint.LENGTH).isEqualTo(expected.digest());
+    }
+
+    @Test
+    @DisplayName("should be stable for same input and differ by scope or body")
+    void shouldDependOnScopeAndBody() {
+        byte[] fingerprint = RequestFingerprint.of("POST /v1/payments merchant-1", BODY);
+
+        assertThat(RequestFingerprint.of("POST /v1/payments merchant-1", BODY)).isEqualTo(fingerprint);
+        assertThat(RequestFingerprint.of("POST /v1/payments merchant-2", BODY)).isNotEqualTo(fingerprint);
+        assertThat(RequestFingerprint.of("POST /v1/payments merchant-1", "{}".getBytes(StandardCharsets.UTF_8)))
+                .isNotEqualTo(fingerprint);
+    }
+
+    @Test
+    @DisplayName("should treat missing body as empty body")
+    void shouldTreatNullBodyAsEmpty() {
+        assertThat(RequestFingerprint.of("POST /capture", null))
+                .isEqualTo(RequestFingerprint.of("POST /capture", new byte[0]));
+    }
+
+    @Test
+    @DisplayName("should give consistent results when pooled digests are shared across threads")
+    void shouldBeThreadSafe() throws Exception {
+        // given
+        byte[] expected = RequestFingerprint.of("POST /v1/payments merchant-1", BODY);
+        List<Future<byte[]>> results = new ArrayList<>();
+
+        // when
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            for (int i = 0; i < 1_000; i++) {
+                results.add(executor.submit(() -> RequestFingerprint.of("POST /v1/payments merchant-1", BODY)));
+            }
+            // then
+            for (Future<byte[]> result : results) {
+                assertThat(result.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package org.taha.paymentgateway.metrics;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.taha.paymentgateway.core.model.AttemptStatus;
+import org.taha.paymentgateway.core.model.OperationType;
+import org.taha.paymentgateway.metrics.GatewayMetrics.RoutingOutcome;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("GatewayMetrics Tests")
+class GatewayMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GatewayMetrics gatewayMetrics = new GatewayMetrics(registry);
+
+    @Test
+    @DisplayName("should record provider calls by provider, operation and result")
+    void shouldRecordProviderCalls() {
+        // when
+        gatewayMetrics.recordProviderCall("GARANTI_VPOS", OperationType.AUTHORIZE, AttemptStatus.SUCCESS, 120);
+        gatewayMetrics.recordProviderCall("GARANTI_VPOS", OperationType.AUTHORIZE, AttemptStatus.SUCCESS, 80);
+        gatewayMetrics.recordProviderCall("GARANTI_VPOS", OperationType.CAPTURE, AttemptStatus.TIMEOUT, 5000);
+
+        // then
+        Timer authorize = registry.get("gateway.provider.call")
+                .tags("provider", "GARANTI_VPOS", "operation", "authorize", "result", "success")
+                .timer();
+        assertThat(authorize.count()).isEqualTo(2);
+        assertThat(authorize.totalTime(TimeUnit.MILLISECONDS)).isEqualTo(200.0);
+        assertThat(registry.get("gateway.provider.call")
+                .tags("operation", "capture", "result", "timeout")
+                .timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("should register provider meters once and reuse them")
+    void shouldReuseMeters() {
+        // given
+        gatewayMetrics.recordProviderCall("ISBANK_VPOS", OperationType.REFUND, AttemptStatus.FAILURE, 10);
+        int meters = registry.getMeters().size();
+
+        // when
+        for (int i = 0; i < 100; i++) {
+            gatewayMetrics.recordProviderCall("ISBANK_VPOS", OperationType.REFUND, AttemptStatus.FAILURE, 10);
+            gatewayMetrics.recordRouting("ISBANK_VPOS", RoutingOutcome.RULE, 2, 1_000);
+        }
+
+        // then - sadece ilk routing kaydında provider'ın outcome counter'ları eklenir
+        assertThat(registry.getMeters()).hasSize(meters + RoutingOutcome.values().length);
+    }
+
+    @Test
+    @DisplayName("should count routing decisions by outcome")
+    void shouldCountRoutingDecisions() {
+        // when
+        gatewayMetrics.recordRouting("GARANTI_VPOS", RoutingOutcome.RULE, 3, 50_000);
+        gatewayMetrics.recordRouting("IYZICO", RoutingOutcome.FALLBACK, 0, 20_000);
+
+        // then
+        assertThat(registry.get("gateway.routing.decisions")
+                .tags("provider", "IYZICO", "outcome", "fallback").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("gateway.routing.matched.rules").summary().totalAmount()).isEqualTo(3.0);
+        assertThat(registry.get("gateway.routing.select").timer().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should track outbox batches, lag and webhook queue depth")
+    void shouldTrackOutboxAndWebhooks() {
+        // when
+        gatewayMetrics.recordOutboxBatch(true, 7);
+        gatewayMetrics.recordOutboxBatch(false, 100);
+        gatewayMetrics.recordOutboxEvent(true, 250);
+        gatewayMetrics.recordOutboxEvent(false, 1_000);
+        gatewayMetrics.setWebhookQueueDepth(42);
+        gatewayMetrics.recordWebhookDelivery(true, TimeUnit.MILLISECONDS.toNanos(30));
+        gatewayMetrics.recordWebhookDeferred(3);
+
+        // then
+        assertThat(registry.get("gateway.outbox.batch.size").tag("source", "notify").summary().totalAmount()).isEqualTo(7.0);
+        assertThat(registry.get("gateway.outbox.lag").timer().max(TimeUnit.MILLISECONDS)).isEqualTo(1_000.0);
+        assertThat(registry.get("gateway.outbox.events").tag("result", "failed").counter().count()).isEqualTo(1.0);
+        assertThat(registry.get("gateway.webhook.queue.depth").gauge().value()).isEqualTo(42.0);
+        assertThat(registry.get("gateway.webhook.delivery").tag("result", "delivered").timer().count()).isEqualTo(1);
+        assertThat(registry.get("gateway.webhook.deferred").counter().count()).isEqualTo(3.0);
+    }
+}
@@ -0,0 +1,174 @@
+package org.taha.paymentgateway.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LatencyHistogram Tests")
+class LatencyHistogramTest {
+
+    @Nested
+    @DisplayName("bucket tests")
+    class BucketTests {
+
+        @Test
+        @DisplayName("should keep small values exact")
+        void shouldKeepSmallValuesExact() {
+            for (long value = 0; value < 32; value++) {
+                assertThat(LatencyHistogram.highestValueAt(LatencyHistogram.indexOf(value))).isEqualTo(value);
+            }
+        }
+
+        @Test
+        @DisplayName("should map every value into a bucket whose upper bound is within relative error")
+        void shouldBoundRelativeError() {
+            // given
+            long[] values = {32, 33, 100, 1_000, 12_345, 60_000, 3_600_000, Long.MAX_VALUE / 3, Long.MAX_VALUE};
+
+            for (long value : values) {
+                // when
+                int index = LatencyHistogram.indexOf(value);
+                long upper = LatencyHistogram.highestValueAt(index);
+
+                // then
+                assertThat(index).isBetween(0, LatencyHistogram.BUCKET_COUNT - 1);
+                assertThat(upper).isGreaterThanOrEqualTo(value);
+                assertThat((double) (upper - value) / value).isLessThanOrEqualTo(1.0 / 16);
+            }
+        }
+
+        @Test
+        @DisplayName("should produce monotonic indexes")
+        void shouldProduceMonotonicIndexes() {
+            int previous = 0;
+            for (long value = 0; value < 100_000; value++) {
+                int index = LatencyHistogram.indexOf(value);
+                assertThat(index).isGreaterThanOrEqualTo(previous);
+                previous = index;
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("percentile tests")
+    class PercentileTests {
+
+        @Test
+        @DisplayName("should return zero for empty histogram")
+        void shouldReturnZero_WhenEmpty() {
+            LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+            assertThat(snapshot.count()).isZero();
+            assertThat(snapshot.percentile(99)).isZero();
+            assertThat(snapshot.mean()).isZero();
+        }
+
+        @Test
+        @DisplayName("should match exact percentiles within bucket precision")
+        void shouldMatchExactPercentiles() {
+            // given
+            LatencyHistogram histogram = new LatencyHistogram();
+            Random random = new Random(42);
+            long[] values = new long[50_000];
+            for (int i = 0; i < values.length; i++) {
+                // Log-normal benzeri, uzun kuyruklu dağılım
+                values[i] = (long) Math.exp(4 + random.nextGaussian());
+                histogram.record(values[i]);
+            }
+            Arrays.sort(values);
+
+            // when
+            LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+            // then
+            for (double percentile : new double[]{50, 95, 99, 99.9}) {
+                long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+                assertThat(snapshot.percentile(percentile))
+                        .as("p%s", percentile)
+                        .isBetween(exact, exact + Math.max(1, exact / 16));
+            }
+            assertThat(snapshot.max()).isEqualTo(values[values.length - 1]);
+            assertThat(snapshot.percentile(100)).isEqualTo(values[values.length - 1]);
+        }
+
+        @Test
+        @DisplayName("should clamp negative values to zero")
+        void shouldClampNegative() {
+            LatencyHistogram histogram = new LatencyHistogram();
+
+            histogram.record(-5);
+
+            assertThat(histogram.snapshot().percentile(50)).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("interval snapshot tests")
+    class IntervalTests {
+
+        @Test
+        @DisplayName("should only contain values recorded since the previous interval")
+        void shouldReturnDelta() {
+            // given
+            LatencyHistogram histogram = new LatencyHistogram();
+            histogram.record(1000);
+            histogram.record(1000);
+            histogram.intervalSnapshot();
+
+            // when
+            histogram.record(10);
+            LatencyHistogram.Snapshot interval = histogram.intervalSnapshot();
+
+            // then
+            assertThat(interval.count()).isEqualTo(1);
+            assertThat(interval.percentile(99)).isEqualTo(10);
+            assertThat(interval.mean()).isEqualTo(10.0);
+            assertThat(histogram.snapshot().count()).isEqualTo(3);
+            assertThat(histogram.intervalSnapshot().count()).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("should not lose records under concurrent writers")
+    void shouldNotLoseRecords_UnderConcurrency() throws Exception {
+        // given
+        LatencyHistogram histogram = new LatencyHistogram();
+        int threads = 8;
+        int perThread = 50_000;
+        CountDownLatch start = new CountDownLatch(1);
+
+        // when
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        histogram.record(i % 500);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+
+        // then
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertThat(snapshot.count()).isEqualTo((long) threads * perThread);
+        assertThat(snapshot.max()).isEqualTo(499);
+    }
+}
@@ -0,0 +1,77 @@
+package org.taha.paymentgateway.metrics;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.api.dto.response.MetricsSummaryResponse.LatencyPercentiles;
+import org.taha.paymentgateway.core.model.OperationType;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("LatencyMetrics Tests")
+class LatencyMetricsTest {
+
+    private final LatencyMetrics latencyMetrics = new LatencyMetrics();
+
+    @Test
+    @DisplayName("should replace identifiers in endpoint paths")
+    void shouldNormalizePath() {
+        assertThat(LatencyMetrics.normalizePath("/api/payments/3f2a9c1e-0b4d-4e5f-8a7b-9c0d1e2f3a4b/capture"))
+                .isEqualTo("/api/payments/{id}/capture");
+        assertThat(LatencyMetrics.normalizePath("/api/demo/orders/42")).isEqualTo("/api/demo/orders/{id}");
+        assertThat(LatencyMetrics.normalizePath("/api/v1/3ds/verify")).isEqualTo("/api/v1/3ds/verify");
+        assertThat(LatencyMetrics.normalizePath("/api/payments")).isEqualTo("/api/payments");
+    }
+
+    @Test
+    @DisplayName("should group endpoint latencies by method and path template")
+    void shouldGroupEndpoints() {
+        // when
+        latencyMetrics.recordEndpoint("POST", "/api/payments/11111111-1111-1111-1111-111111111111/authorize", 10);
+        latencyMetrics.recordEndpoint("POST", "/api/payments/22222222-2222-2222-2222-222222222222/authorize", 30);
+        latencyMetrics.recordEndpoint("GET", "/api/payments", 5);
+
+        // then
+        Map<String, LatencyPercentiles> endpoints = latencyMetrics.endpointPercentiles();
+        assertThat(endpoints).containsOnlyKeys("POST /api/payments/{id}/authorize", "GET /api/payments");
+        assertThat(endpoints.get("POST /api/payments/{id}/authorize").count()).isEqualTo(2);
+        assertThat(endpoints.get("POST /api/payments/{id}/authorize").maxMs()).isEqualTo(30);
+        assertThat(latencyMetrics.apiSnapshot().count()).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("should record overflow endpoints under OTHER when limit is reached")
+    void shouldCapEndpointCardinality() {
+        // given
+        ReflectionTestUtils.setField(latencyMetrics, "maxEndpoints", 2);
+
+        // when
+        latencyMetrics.recordEndpoint("GET", "/api/a", 1);
+        latencyMetrics.recordEndpoint("GET", "/api/b", 1);
+        latencyMetrics.recordEndpoint("GET", "/api/c", 1);
+        latencyMetrics.recordEndpoint("GET", "/api/d", 1);
+
+        // then
+        Map<String, LatencyPercentiles> endpoints = latencyMetrics.endpointPercentiles();
+        assertThat(endpoints).containsOnlyKeys("GET /api/a", "GET /api/b", LatencyMetrics.OTHER);
+        assertThat(endpoints.get(LatencyMetrics.OTHER).count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("should keep provider latencies per operation")
+    void shouldKeepProviderLatencies() {
+        // when
+        latencyMetrics.recordProvider("GARANTI", OperationType.AUTHORIZE, 120);
+        latencyMetrics.recordProvider("GARANTI", OperationType.REFUND, 400);
+        latencyMetrics.recordProvider("ISBANK", OperationType.AUTHORIZE, 80);
+
+        // then
+        assertThat(latencyMetrics.providerPercentiles("GARANTI").count()).isEqualTo(2);
+        assertThat(latencyMetrics.operationPercentiles("GARANTI")).containsOnlyKeys("AUTHORIZE", "REFUND");
+        assertThat(latencyMetrics.providerPercentiles("UNKNOWN_PROVIDER")).isNull();
+        assertThat(latencyMetrics.providerPercentiles().count()).isEqualTo(3);
+        assertThat(latencyMetrics.providerPercentiles().maxMs()).isEqualTo(400);
+    }
+}
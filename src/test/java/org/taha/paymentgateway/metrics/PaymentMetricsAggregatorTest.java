@@ -0,0 +1,213 @@
+package org.taha.paymentgateway.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.api.dto.response.MetricsSummaryResponse;
+import org.taha.paymentgateway.core.model.AttemptStatus;
+import org.taha.paymentgateway.core.model.OperationType;
+import org.taha.paymentgateway.core.model.PaymentStatus;
+import org.taha.paymentgateway.persistence.repository.PaymentAttemptRepository;
+import org.taha.paymentgateway.persistence.repository.PaymentRepository;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("PaymentMetricsAggregator Tests")
+class PaymentMetricsAggregatorTest {
+
+    @Mock
+    private PaymentRepository paymentRepository;
+
+    @Mock
+    private PaymentAttemptRepository attemptRepository;
+
+    private final AtomicLong now = new AtomicLong(PaymentMetricsAggregator.BUCKET_MS * 1_000_000L);
+
+    private PaymentMetricsAggregator aggregator;
+
+    @BeforeEach
+    void setUp() {
+        aggregator = new PaymentMetricsAggregator(paymentRepository, attemptRepository, new LatencyMetrics());
+        ReflectionTestUtils.setField(aggregator, "clock", (LongSupplier) now::get);
+    }
+
+    @Nested
+    @DisplayName("incremental update tests")
+    class IncrementalTests {
+
+        @Test
+        @DisplayName("should count created payments and status transitions")
+        void shouldCountStatuses() {
+            // when
+            aggregator.recordPaymentCreated(PaymentStatus.CREATED, new BigDecimal("100.00"));
+            aggregator.recordPaymentCreated(PaymentStatus.CREATED, new BigDecimal("50.25"));
+            aggregator.recordStatusChange(PaymentStatus.CREATED, PaymentStatus.AUTHORIZING);
+            aggregator.recordStatusChange(PaymentStatus.AUTHORIZING, PaymentStatus.FAILED);
+
+            // then
+            MetricsSummaryResponse summary = aggregator.summary();
+            assertThat(summary.totalPayments()).isEqualTo(2);
+            assertThat(summary.totalFailed()).isEqualTo(1);
+            assertThat(summary.paymentsByStatus()).containsEntry("CREATED", 1L).containsEntry("FAILED", 1L)
+                    .doesNotContainKey("AUTHORIZING");
+            assertThat(summary.paymentsLast24h()).isEqualTo(2);
+            assertThat(summary.volumeLast24h()).isEqualByComparingTo("150.25");
+        }
+
+        @Test
+        @DisplayName("should aggregate attempts per provider and operation")
+        void shouldAggregateAttempts() {
+            // when
+            aggregator.recordAttempt("GARANTI", OperationType.AUTHORIZE, AttemptStatus.SUCCESS, 100);
+            aggregator.recordAttempt("GARANTI", OperationType.CAPTURE, AttemptStatus.FAILURE, 300);
+            aggregator.recordAttempt("ISBANK", OperationType.AUTHORIZE, AttemptStatus.TIMEOUT, 800);
+
+            // then
+            MetricsSummaryResponse summary = aggregator.summary();
+            MetricsSummaryResponse.ProviderMetrics garanti = summary.providerMetrics().get("GARANTI");
+            assertThat(garanti.totalAttempts()).isEqualTo(2);
+            assertThat(garanti.successRate()).isEqualTo(50.0);
+            assertThat(garanti.avgLatencyMs()).isEqualTo(200.0);
+            assertThat(garanti.attemptsByOperation()).containsEntry("AUTHORIZE", 1L).containsEntry("CAPTURE", 1L);
+            assertThat(summary.providerMetrics().get("ISBANK").timeoutCount()).isEqualTo(1);
+            assertThat(summary.avgLatencyMs()).isEqualTo(400.0);
+            assertThat(summary.maxLatencyMs()).isEqualTo(800);
+        }
+
+        @Test
+        @DisplayName("should report latency percentiles per provider and operation")
+        void shouldReportLatencyPercentiles() {
+            // given
+            for (int i = 1; i <= 100; i++) {
+                aggregator.recordProviderLatency("GARANTI", OperationType.AUTHORIZE, i);
+            }
+            aggregator.recordProviderLatency("GARANTI", OperationType.CAPTURE, 20);
+            aggregator.recordAttempt("GARANTI", OperationType.AUTHORIZE, AttemptStatus.SUCCESS, 100);
+
+            // when
+            MetricsSummaryResponse summary = aggregator.summary();
+
+            // then
+            MetricsSummaryResponse.ProviderMetrics garanti = summary.providerMetrics().get("GARANTI");
+            assertThat(garanti.latency().count()).isEqualTo(101);
+            assertThat(garanti.latencyByOperation()).containsOnlyKeys("AUTHORIZE", "CAPTURE");
+            MetricsSummaryResponse.LatencyPercentiles authorize = garanti.latencyByOperation().get("AUTHORIZE");
+            assertThat(authorize.p50Ms()).isBetween(50L, 53L);
+            assertThat(authorize.p99Ms()).isBetween(99L, 100L);
+            assertThat(authorize.p999Ms()).isEqualTo(100);
+            assertThat(summary.providerLatency().count()).isEqualTo(101);
+        }
+
+        @Test
+        @DisplayName("should drop volume older than 24 hours")
+        void shouldExpireOldBuckets() {
+            // given
+            aggregator.recordPaymentCreated(PaymentStatus.CREATED, new BigDecimal("10.00"));
+
+            // when
+            now.addAndGet(PaymentMetricsAggregator.BUCKET_MS * PaymentMetricsAggregator.BUCKETS);
+            aggregator.recordPaymentCreated(PaymentStatus.CREATED, new BigDecimal("5.00"));
+
+            // then
+            MetricsSummaryResponse summary = aggregator.summary();
+            assertThat(summary.totalPayments()).isEqualTo(2);
+            assertThat(summary.paymentsLast24h()).isEqualTo(1);
+            assertThat(summary.volumeLast24h()).isEqualByComparingTo("5.00");
+        }
+    }
+
+    @Nested
+    @DisplayName("rebuild tests")
+    class RebuildTests {
+
+        @Test
+        @DisplayName("should rebuild counters from aggregate queries")
+        void shouldRebuildFromDatabase() {
+            // given
+            PaymentRepository.StatusCount captured = mock(PaymentRepository.StatusCount.class);
+            when(captured.getStatus()).thenReturn(PaymentStatus.CAPTURED);
+            when(captured.getCount()).thenReturn(7L);
+            when(paymentRepository.countGroupByStatus()).thenReturn(List.of(captured));
+
+            PaymentAttemptRepository.AttemptAggregate attempts = mock(PaymentAttemptRepository.AttemptAggregate.class);
+            when(attempts.getProvider()).thenReturn("GARANTI");
+            when(attempts.getOperation()).thenReturn(OperationType.AUTHORIZE);
+            when(attempts.getStatus()).thenReturn(AttemptStatus.SUCCESS);
+            when(attempts.getCount()).thenReturn(7L);
+            when(attempts.getLatencySum()).thenReturn(700L);
+            when(attempts.getLatencyMax()).thenReturn(250L);
+            when(attemptRepository.aggregateByProviderOperationStatus()).thenReturn(List.of(attempts));
+
+            long currentSlot = now.get() / PaymentMetricsAggregator.BUCKET_MS;
+            PaymentRepository.SlotVolume volume = slotVolume(currentSlot - 10, 3, "30.00");
+            when(paymentRepository.sumCreatedBySlotSince(any(OffsetDateTime.class))).thenReturn(List.of(volume));
+            aggregator.recordPaymentCreated(PaymentStatus.CREATED, BigDecimal.ONE);
+
+            // when
+            aggregator.rebuild();
+
+            // then
+            MetricsSummaryResponse summary = aggregator.summary();
+            assertThat(summary.totalPayments()).isEqualTo(7);
+            assertThat(summary.totalSuccessful()).isEqualTo(7);
+            assertThat(summary.paymentsByStatus()).containsOnlyKeys("CAPTURED");
+            assertThat(summary.providerMetrics().get("GARANTI").avgLatencyMs()).isEqualTo(100.0);
+            assertThat(summary.maxLatencyMs()).isEqualTo(250);
+            assertThat(summary.paymentsLast24h()).isEqualTo(3);
+            assertThat(summary.volumeLast24h()).isEqualByComparingTo("30.00");
+            verify(paymentRepository).sumCreatedBySlotSince(OffsetDateTime.ofInstant(
+                    Instant.ofEpochMilli((currentSlot - PaymentMetricsAggregator.BUCKETS + 1) * PaymentMetricsAggregator.BUCKET_MS),
+                    ZoneOffset.UTC));
+        }
+
+        @Test
+        @DisplayName("should keep serving the previous counters until the rebuilt ones are swapped in")
+        void shouldSwapCountersAtomically() {
+            // given
+            aggregator.recordPaymentCreated(PaymentStatus.CREATED, BigDecimal.TEN);
+            PaymentRepository.StatusCount created = mock(PaymentRepository.StatusCount.class);
+            when(created.getStatus()).thenReturn(PaymentStatus.CREATED);
+            when(created.getCount()).thenReturn(5L);
+            when(paymentRepository.countGroupByStatus()).thenReturn(List.of(created));
+            when(attemptRepository.aggregateByProviderOperationStatus()).thenAnswer(invocation -> {
+                // rebuild ortasında: eski sayaçlar sıfırlanmadı, commit'ler hâlâ onlara yazılıyor
+                aggregator.recordPaymentCreated(PaymentStatus.CREATED, BigDecimal.ONE);
+                assertThat(aggregator.summary().totalPayments()).isEqualTo(2);
+                return List.of();
+            });
+            when(paymentRepository.sumCreatedBySlotSince(any(OffsetDateTime.class))).thenReturn(List.of());
+
+            // when
+            aggregator.rebuild();
+
+            // then
+            assertThat(aggregator.summary().totalPayments()).isEqualTo(5);
+            aggregator.recordPaymentCreated(PaymentStatus.CREATED, BigDecimal.ONE);
+            assertThat(aggregator.summary().totalPayments()).isEqualTo(6);
+        }
+    }
+
+    private static PaymentRepository.SlotVolume slotVolume(long slot, long count, String volume) {
+        PaymentRepository.SlotVolume result = mock(PaymentRepository.SlotVolume.class);
+        when(result.getSlot()).thenReturn(slot);
+        when(result.getCount()).thenReturn(count);
+        when(result.getVolume()).thenReturn(new BigDecimal(volume));
+        return result;
+    }
+}
@@ -0,0 +1,108 @@
+package org.taha.paymentgateway.observability;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ApiLogRingBuffer Tests")
+class ApiLogRingBufferTest {
+
+    @Test
+    @DisplayName("should round capacity up to power of two")
+    void shouldRoundCapacity() {
+        assertThat(new ApiLogRingBuffer<Integer>(1000).capacity()).isEqualTo(1024);
+        assertThat(new ApiLogRingBuffer<Integer>(1024).capacity()).isEqualTo(1024);
+    }
+
+    @Test
+    @DisplayName("should drain elements in insertion order")
+    void shouldDrainInOrder() {
+        // given
+        ApiLogRingBuffer<Integer> buffer = new ApiLogRingBuffer<>(8);
+        for (int i = 0; i < 5; i++) {
+            buffer.offer(i);
+        }
+
+        // when
+        List<Integer> first = new ArrayList<>();
+        List<Integer> rest = new ArrayList<>();
+        int drained = buffer.drainTo(first, 3);
+        buffer.drainTo(rest, 10);
+
+        // then
+        assertThat(drained).isEqualTo(3);
+        assertThat(first).containsExactly(0, 1, 2);
+        assertThat(rest).containsExactly(3, 4);
+        assertThat(buffer.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("should reject offer when full and accept again after drain")
+    void shouldReject_WhenFull() {
+        // given
+        ApiLogRingBuffer<Integer> buffer = new ApiLogRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+
+        // when
+        boolean overflow = buffer.offer(99);
+        buffer.drainTo(new ArrayList<>(), 1);
+        boolean afterDrain = buffer.offer(4);
+
+        // then
+        assertThat(overflow).isFalse();
+        assertThat(afterDrain).isTrue();
+        List<Integer> remaining = new ArrayList<>();
+        buffer.drainTo(remaining, 10);
+        assertThat(remaining).containsExactly(1, 2, 3, 4);
+    }
+
+    @Test
+    @DisplayName("should not lose or duplicate elements with concurrent producers")
+    void shouldKeepAllElements_WithConcurrentProducers() throws Exception {
+        // given
+        ApiLogRingBuffer<Integer> buffer = new ApiLogRingBuffer<>(256);
+        int producers = 4;
+        int perProducer = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int base = p * perProducer;
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < perProducer; i++) {
+                    while (!buffer.offer(base + i)) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // when
+        start.countDown();
+        Set<Integer> seen = new HashSet<>();
+        List<Integer> batch = new ArrayList<>();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (seen.size() < producers * perProducer && System.nanoTime() < deadline) {
+            batch.clear();
+            buffer.drainTo(batch, 64);
+            for (Integer value : batch) {
+                assertThat(seen.add(value)).isTrue();
+            }
+        }
+        for (Future<?> future : futures) {
+            future.get(5, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then
+        assertThat(seen).hasSize(producers * perProducer);
+    }
+}
@@ -0,0 +1,127 @@
+package org.taha.paymentgateway.observability;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ApiLogWriter Tests")
+class ApiLogWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ApiLogWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        writer = new ApiLogWriter(jdbcTemplate);
+        ReflectionTestUtils.setField(writer, "batchSize", 3);
+        ReflectionTestUtils.setField(writer, "sampleThreshold", 0.5);
+        ReflectionTestUtils.setField(writer, "sampleRate", 1_000_000);
+        // Writer thread başlatılmaz, flush testte elle çağrılır
+        ReflectionTestUtils.setField(writer, "buffer", new ApiLogRingBuffer<ApiLogRecord>(8));
+    }
+
+    private ApiLogRecord record(int status) {
+        return new ApiLogRecord(UUID.randomUUID(), "corr-1", null, "POST", "/api/payments",
+                "{}", "{}", status, "{}", 12L, OffsetDateTime.now());
+    }
+
+    @Nested
+    @DisplayName("flush tests")
+    class FlushTests {
+
+        @Test
+        @DisplayName("should write buffered records in JDBC batches")
+        @SuppressWarnings("unchecked")
+        void shouldWriteInBatches() {
+            // given
+            for (int i = 0; i < 4; i++) {
+                writer.submit(record(500));
+            }
+
+            // when
+            int flushed = writer.flush();
+
+            // then
+            ArgumentCaptor<Collection<ApiLogRecord>> captor = ArgumentCaptor.forClass(Collection.class);
+            verify(jdbcTemplate, times(2)).batchUpdate(startsWith("INSERT INTO api_logs"), captor.capture(),
+                    anyInt(), any(ParameterizedPreparedStatementSetter.class));
+            assertThat(captor.getAllValues()).extracting(Collection::size).containsExactly(3, 1);
+            assertThat(flushed).isEqualTo(4);
+            assertThat(writer.getStats().written()).isEqualTo(4);
+            assertThat(writer.getStats().buffered()).isZero();
+        }
+
+        @Test
+        @DisplayName("should count failed batch and keep going")
+        void shouldCountFailures() {
+            // given
+            writer.submit(record(500));
+            when(jdbcTemplate.batchUpdate(anyString(), anyCollection(), anyInt(), any(ParameterizedPreparedStatementSetter.class)))
+                    .thenThrow(new RuntimeException("db down"));
+
+            // when
+            int flushed = writer.flush();
+
+            // then
+            assertThat(flushed).isZero();
+            assertThat(writer.getStats().writeFailures()).isEqualTo(1);
+        }
+    }
+
+    @Nested
+    @DisplayName("buffer policy tests")
+    class PolicyTests {
+
+        @Test
+        @DisplayName("should drop records when buffer is full")
+        void shouldDrop_WhenFull() {
+            // when
+            for (int i = 0; i < 10; i++) {
+                writer.submit(record(500));
+            }
+
+            // then
+            ApiLogWriter.ApiLogWriterStats stats = writer.getStats();
+            assertThat(stats.accepted()).isEqualTo(8);
+            assertThat(stats.dropped()).isEqualTo(2);
+            verifyNoInteractions(jdbcTemplate);
+        }
+
+        @Test
+        @DisplayName("should sample successful requests above threshold but keep errors")
+        void shouldSampleSuccess_AboveThreshold() {
+            // given - kuyruk yarıya kadar dolu
+            for (int i = 0; i < 4; i++) {
+                writer.submit(record(200));
+            }
+
+            // when
+            boolean success = writer.submit(record(200));
+            boolean error = writer.submit(record(502));
+
+            // then
+            assertThat(success).isFalse();
+            assertThat(error).isTrue();
+            assertThat(writer.getStats().sampledOut()).isEqualTo(1);
+        }
+    }
+}
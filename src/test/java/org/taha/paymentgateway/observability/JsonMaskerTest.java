@@ -0,0 +1,148 @@
+package org.taha.paymentgateway.observability;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("JsonMasker Tests")
+class JsonMaskerTest {
+
+    private final JsonMasker masker = new JsonMasker(List.of("cardNumber", "cvv", "cardToken", "email"));
+
+    private String mask(String json) {
+        return masker.mask(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Nested
+    @DisplayName("field masking tests")
+    class FieldTests {
+
+        @Test
+        @DisplayName("should keep first and last four digits of 16 digit card number")
+        void shouldMaskCardNumber() {
+            String masked = mask("{\"cardNumber\":\"4111111111111111\",\"amount\":100}");
+
+            assertThat(masked).isEqualTo("{\"cardNumber\":\"4111********1111\",\"amount\":100}");
+        }
+
+        @Test
+        @DisplayName("should mask card numbers of any length and with separators")
+        void shouldMaskCardNumber_AnyLength() {
+            assertThat(mask("{\"cardNumber\":\"375987654321001\"}"))
+                    .isEqualTo("{\"cardNumber\":\"3759*******1001\"}");
+            assertThat(mask("{\"cardNumber\":\"4111 1111 1111 1111 111\"}"))
+                    .isEqualTo("{\"cardNumber\":\"4111 **** **** ***1 111\"}");
+        }
+
+        @Test
+        @DisplayName("should mask cvv, token and numeric values")
+        void shouldMaskFullFields() {
+            String masked = mask("{\"cvv\": 123, \"cardToken\": \"tok_abc\", \"currency\": \"TRY\"}");
+
+            assertThat(masked).isEqualTo("{\"cvv\": \"***\", \"cardToken\": \"***\", \"currency\": \"TRY\"}");
+        }
+
+        @Test
+        @DisplayName("should keep email domain")
+        void shouldMaskEmail() {
+            assertThat(mask("{\"email\":\"jane.doe@example.com\"}"))
+                    .isEqualTo("{\"email\":\"j***@example.com\"}");
+        }
+
+        @Test
+        @DisplayName("should match field names case-insensitively")
+        void shouldMatchCaseInsensitive() {
+            assertThat(mask("{\"CVV\":\"999\"}")).isEqualTo("{\"CVV\":\"***\"}");
+        }
+
+        @Test
+        @DisplayName("should leave null values as is")
+        void shouldKeepNull() {
+            assertThat(mask("{\"cvv\":null}")).isEqualTo("{\"cvv\":null}");
+        }
+    }
+
+    @Nested
+    @DisplayName("structure tests")
+    class StructureTests {
+
+        @Test
+        @DisplayName("should mask fields in nested objects and arrays")
+        void shouldMaskNestedFields() {
+            String masked = mask("{\"card\":{\"cardNumber\":\"5555444433331111\",\"cvv\":\"123\"},"
+                    + "\"items\":[{\"email\":\"a.b@x.com\"}]}");
+
+            assertThat(masked).isEqualTo("{\"card\":{\"cardNumber\":\"5555********1111\",\"cvv\":\"***\"},"
+                    + "\"items\":[{\"email\":\"a***@x.com\"}]}");
+        }
+
+        @Test
+        @DisplayName("should mask every value inside a sensitive object")
+        void shouldMaskSensitiveContainer() {
+            String masked = mask("{\"cardToken\":{\"id\":\"t1\",\"parts\":[1,2]},\"next\":\"ok\"}");
+
+            assertThat(masked).isEqualTo("{\"cardToken\":{\"id\":\"***\",\"parts\":[\"***\",\"***\"]},\"next\":\"ok\"}");
+        }
+
+        @Test
+        @DisplayName("should not treat escaped quotes as string end")
+        void shouldHandleEscapes() {
+            String masked = mask("{\"note\":\"say \\\"cvv\\\"\",\"cvv\":\"123\"}");
+
+            assertThat(masked).isEqualTo("{\"note\":\"say \\\"cvv\\\"\",\"cvv\":\"***\"}");
+        }
+
+        @Test
+        @DisplayName("should mask long digit runs when body is not valid JSON")
+        void shouldFallback_WhenNotJson() {
+            String masked = mask("cardNumber=4111111111111111&cvv=123");
+
+            assertThat(masked).isEqualTo("cardNumber=4111********1111&cvv=123");
+        }
+
+        @Test
+        @DisplayName("should fall back for truncated JSON")
+        void shouldFallback_WhenTruncated() {
+            String masked = mask("{\"cardNumber\":\"4111111111111111\",\"cvv\":\"12");
+
+            assertThat(masked).doesNotContain("4111111111111111");
+        }
+
+        @Test
+        @DisplayName("should still mask sensitive fields of a body cut off at the log size limit")
+        void shouldMaskKnownFields_WhenTruncated() {
+            // given: 10 KB sınırında kesilmiş body
+            String body = "{\"cvv\": \"123\", \"cardToken\":\"tok_abc\", \"email\":\"jane@example.com\","
+                    + " \"meta\":{\"cvv\":[\"999\"]}, \"amount\":100, \"description\":\"" + "x".repeat(10 * 1024);
+            String truncated = body.substring(0, 10 * 1024);
+
+            // when
+            String masked = mask(truncated);
+
+            // then
+            assertThat(masked).startsWith("{\"cvv\": \"***\", \"cardToken\":\"***\", \"email\":\"j***@example.com\","
+                    + " \"meta\":{\"cvv\":\"***\"}, \"amount\":100, \"description\":\"xxx");
+            assertThat(masked).doesNotContain("123", "tok_abc", "jane", "999");
+        }
+
+        @Test
+        @DisplayName("should mask a sensitive value that is itself cut off")
+        void shouldMaskCutOffValue_WhenTruncated() {
+            String masked = mask("{\"amount\":100,\"cardToken\":\"tok_ab");
+
+            assertThat(masked).isEqualTo("{\"amount\":100,\"cardToken\":\"***\"");
+        }
+
+        @Test
+        @DisplayName("should return null for empty body")
+        void shouldReturnNull_WhenEmpty() {
+            assertThat(masker.mask(new byte[0])).isNull();
+            assertThat(masker.mask(null)).isNull();
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package org.taha.paymentgateway.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.taha.paymentgateway.api.dto.request.AuthorizePaymentRequest;
+import org.taha.paymentgateway.api.dto.request.CapturePaymentRequest;
+import org.taha.paymentgateway.api.dto.request.CreatePaymentRequest;
+import org.taha.paymentgateway.api.dto.request.RefundPaymentRequest;
+import org.taha.paymentgateway.core.exception.ConcurrentPaymentUpdateException;
+import org.taha.paymentgateway.core.exception.RefundAmountExceededException;
+import org.taha.paymentgateway.core.model.AttemptStatus;
+import org.taha.paymentgateway.core.model.OperationType;
+import org.taha.paymentgateway.core.model.PaymentStatus;
+import org.taha.paymentgateway.event.OutboxNotifier;
+import org.taha.paymentgateway.idempotency.IdempotencyService;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.metrics.PaymentMetricsAggregator;
+import org.taha.paymentgateway.persistence.entity.OutboxEventEntity;
+import org.taha.paymentgateway.persistence.entity.PaymentAttemptEntity;
+import org.taha.paymentgateway.persistence.entity.PaymentEntity;
+import org.taha.paymentgateway.persistence.repository.*;
+import org.taha.paymentgateway.persistence.support.UuidV7;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.ProviderResult;
+import org.taha.paymentgateway.routing.ProviderHealthRegistry;
+import org.taha.paymentgateway.routing.RoutingEngine;
+import org.taha.paymentgateway.routing.RoutingEngine.RoutingResult;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Orchestrator işlemlerinin gerçek JPA/H2 üzerinde kaç JDBC statement'ı (round trip) çalıştırdığını sayar.
+ *
+ * Sayım Hibernate istatistiklerindeki prepared statement sayısıdır; batch'lenen insert'ler tablo başına
+ * bir statement olarak görünür. Yeni entity'ler için INSERT öncesi SELECT atılmamalıdır.
+ * Orchestrator'ın kendi transaction'ları commit edilsin diye test transaction'ı kapalıdır; aynı kurulum
+ * eşzamanlı refund'ların version kilidi altında bakiyeyi aşmadığını da doğrular.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("PaymentOrchestrator statement count Tests")
+class PaymentOrchestratorStatementCountTest {
+
+    private static final String MERCHANT_ID = "merchant-batching";
+    private static final String PROVIDER = "MOCK_PROVIDER";
+
+    private static final AuthorizePaymentRequest AUTHORIZE_REQUEST = AuthorizePaymentRequest.builder()
+            .cardToken("token-1")
+            .cardBin("415679")
+            .build();
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentAttemptRepository attemptRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final PaymentProviderAdapter provider = mock(PaymentProviderAdapter.class);
+    private final RoutingEngine routingEngine = mock(RoutingEngine.class);
+
+    private PaymentOrchestrator orchestrator;
+    private TransactionTemplate transactionTemplate;
+    private ProviderInvoker providerInvoker;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper();
+        objectMapper.findAndRegisterModules();
+        GatewayMetrics gatewayMetrics = new GatewayMetrics(new SimpleMeterRegistry());
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        providerInvoker = new ProviderInvoker();
+        ReflectionTestUtils.setField(providerInvoker, "timeoutMs", 5_000L);
+        ReflectionTestUtils.setField(providerInvoker, "bridgeThreads", 8);
+        ReflectionTestUtils.setField(providerInvoker, "bridgeQueueCapacity", 16);
+        providerInvoker.init();
+
+        orchestrator = new PaymentOrchestrator(
+                paymentRepository,
+                attemptRepository,
+                transactionRepository,
+                outboxEventRepository,
+                mock(OutboxNotifier.class),
+                new IdempotencyService(idempotencyRecordRepository, transactionManager, gatewayMetrics),
+                routingEngine,
+                mock(ProviderHealthRegistry.class),
+                mock(PaymentMetricsAggregator.class),
+                gatewayMetrics,
+                Map.of(PROVIDER, provider),
+                providerInvoker,
+                objectMapper,
+                transactionTemplate
+        );
+
+        when(routingEngine.selectProvider(any())).thenReturn(
+                new RoutingResult(provider, PROVIDER, new BigDecimal("1.50"), "test", null));
+        when(provider.authorize(any())).thenReturn(ProviderResult.success("AUTH-1"));
+        when(provider.capture(any())).thenReturn(ProviderResult.success("CAP-1"));
+        when(provider.refund(any())).thenReturn(ProviderResult.success("REF-1"));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        providerInvoker.shutdown();
+    }
+
+    @Test
+    @DisplayName("create should insert payment and outbox event without pre-selects")
+    void createShouldUseTwoStatements() {
+        long statements = count(() -> createPayment(null));
+
+        // INSERT payments + INSERT outbox_events
+        assertThat(statements).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("create with idempotency key should add only the claim insert and the completion update")
+    void createWithIdempotencyKeyShouldUseFourStatements() {
+        long statements = count(() -> createPayment("batching-" + UUID.randomUUID()));
+
+        // claim (kendi transaction'ı, create'ten önce commit edilir): INSERT idempotency_records
+        // create transaction'ı: INSERT payments + INSERT outbox_events + UPDATE idempotency_records
+        assertThat(statements).isEqualTo(4);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("authorize should take two statements to go in flight and one read plus one batch per table to complete")
+    void authorizeShouldBatchCompletionWrites() {
+        UUID paymentId = createPayment(null).response().id();
+
+        long statements = count(() -> orchestrator.authorize(paymentId, MERCHANT_ID, AUTHORIZE_REQUEST, null, null));
+
+        // in-flight: SELECT + UPDATE payments
+        // sonuç: SELECT payments + INSERT payment_attempts + INSERT outbox_events + UPDATE payments
+        assertThat(statements).isEqualTo(6);
+        assertThat(paymentRepository.findById(paymentId)).get()
+                .extracting(PaymentEntity::getStatus).isEqualTo(PaymentStatus.AUTHORIZED);
+    }
+
+    @Test
+    @DisplayName("capture should write attempt, transaction and outbox event as batched inserts")
+    void captureShouldBatchCompletionWrites() {
+        UUID paymentId = createPayment(null).response().id();
+        orchestrator.authorize(paymentId, MERCHANT_ID, AUTHORIZE_REQUEST, null, null);
+
+        long statements = count(() -> orchestrator.capture(paymentId, MERCHANT_ID,
+                CapturePaymentRequest.builder().build(), null, null));
+
+        // in-flight: SELECT + UPDATE payments (provider payment satırından okunur)
+        // sonuç: SELECT payments + INSERT payment_attempts + INSERT transactions + INSERT outbox_events + UPDATE payments
+        assertThat(statements).isEqualTo(7);
+        assertThat(paymentRepository.findById(paymentId)).get()
+                .extracting(PaymentEntity::getCapturedAmount).usingComparator(BigDecimal::compareTo)
+                .isEqualTo(new BigDecimal("100.00"));
+    }
+
+    @Test
+    @DisplayName("refund should read balances from the payment row instead of scanning transactions")
+    void refundShouldNotScanHistory() {
+        UUID paymentId = capturedPayment();
+
+        long statements = count(() -> orchestrator.refund(paymentId, MERCHANT_ID,
+                RefundPaymentRequest.builder().amount(new BigDecimal("40.00")).build(), null, null));
+
+        // rezervasyon: SELECT + UPDATE payments
+        // sonuç: SELECT payments + INSERT payment_attempts + INSERT transactions + INSERT outbox_events + UPDATE payments
+        assertThat(statements).isEqualTo(7);
+        assertThat(paymentRepository.findById(paymentId)).get().satisfies(payment -> {
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PARTIALLY_REFUNDED);
+            assertThat(payment.getRefundedAmount()).isEqualByComparingTo("40.00");
+            assertThat(payment.getPendingRefundAmount()).isZero();
+        });
+    }
+
+    @Test
+    @DisplayName("concurrent partial refunds should never exceed the captured amount")
+    void concurrentRefundsShouldNotOverRefund() throws Exception {
+        UUID paymentId = capturedPayment();
+        int threads = 8;
+        RefundPaymentRequest request = RefundPaymentRequest.builder().amount(new BigDecimal("30.00")).build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        orchestrator.refund(paymentId, MERCHANT_ID, request, null, null);
+                        return true;
+                    } catch (RefundAmountExceededException | ConcurrentPaymentUpdateException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<Boolean> result : results) {
+                succeeded += result.get(30, TimeUnit.SECONDS) ? 1 : 0;
+            }
+
+            // 100 / 30 → en fazla 3 refund sığar
+            PaymentEntity payment = paymentRepository.findById(paymentId).orElseThrow();
+            assertThat(succeeded).isBetween(1, 3);
+            assertThat(payment.getRefundedAmount()).isEqualByComparingTo(new BigDecimal(30 * succeeded));
+            assertThat(payment.getPendingRefundAmount()).isZero();
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.PARTIALLY_REFUNDED);
+            assertThat(transactionRepository.findByPaymentIdOrderByCreatedAtDesc(paymentId))
+                    .filteredOn(transaction -> transaction.getType() == OperationType.REFUND)
+                    .hasSize(succeeded);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("saveAll of new entities should be a single batched insert")
+    void saveAllShouldBatchInserts() {
+        List<PaymentAttemptEntity> attempts = new ArrayList<>();
+        UUID paymentId = UuidV7.next();
+        for (int i = 0; i < 20; i++) {
+            attempts.add(PaymentAttemptEntity.builder()
+                    .id(UuidV7.next())
+                    .paymentId(paymentId)
+                    .provider(PROVIDER)
+                    .operation(OperationType.AUTHORIZE)
+                    .status(AttemptStatus.SUCCESS)
+                    .latencyMs(1)
+                    .build());
+        }
+
+        long statements = count(() -> transactionTemplate.execute(tx -> attemptRepository.saveAll(attempts)));
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(20);
+        assertThat(attempts).allMatch(attempt -> !attempt.isNew());
+    }
+
+    @Test
+    @DisplayName("entities loaded from the database should be merged, not inserted again")
+    void loadedEntitiesShouldNotBeNew() {
+        createPayment(null);
+
+        List<OutboxEventEntity> events = outboxEventRepository.findAll();
+
+        assertThat(events).isNotEmpty().allMatch(event -> !event.isNew());
+    }
+
+    private UUID capturedPayment() {
+        UUID paymentId = createPayment(null).response().id();
+        orchestrator.authorize(paymentId, MERCHANT_ID, AUTHORIZE_REQUEST, null, null);
+        orchestrator.capture(paymentId, MERCHANT_ID, CapturePaymentRequest.builder().build(), null, null);
+        return paymentId;
+    }
+
+    private PaymentResult createPayment(String idempotencyKey) {
+        CreatePaymentRequest request = CreatePaymentRequest.builder()
+                .amount(new BigDecimal("100.00"))
+                .currency("TRY")
+                .orderId("order-" + UUID.randomUUID())
+                .build();
+        return orchestrator.createPayment(MERCHANT_ID, request, idempotencyKey, null);
+    }
+
+    private long count(Supplier<?> operation) {
+        statistics.clear();
+        operation.get();
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -1,12 +1,15 @@
 package org.taha.paymentgateway.orchestrator;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -14,24 +17,44 @@ import org.taha.paymentgateway.api.dto.request.AuthorizePaymentRequest;
 import org.taha.paymentgateway.api.dto.request.CapturePaymentRequest;
 import org.taha.paymentgateway.api.dto.request.CreatePaymentRequest;
 import org.taha.paymentgateway.api.dto.request.RefundPaymentRequest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.taha.paymentgateway.api.dto.response.PaymentResponse;
+import org.taha.paymentgateway.core.exception.CaptureAmountExceededException;
+import org.taha.paymentgateway.core.exception.ConcurrentPaymentUpdateException;
 import org.taha.paymentgateway.core.exception.IdempotencyConflictException;
 import org.taha.paymentgateway.core.exception.InvalidPaymentStateException;
 import org.taha.paymentgateway.core.exception.PaymentNotFoundException;
+import org.taha.paymentgateway.core.exception.ProviderBusyException;
+import org.taha.paymentgateway.core.exception.ProviderCallInterruptedException;
 import org.taha.paymentgateway.core.exception.ProviderException;
+import org.taha.paymentgateway.core.exception.RefundAmountExceededException;
 import org.taha.paymentgateway.core.model.*;
+import org.taha.paymentgateway.event.OutboxNotifier;
 import org.taha.paymentgateway.idempotency.IdempotencyService;
+import org.taha.paymentgateway.idempotency.IdempotencyService.Reservation;
+import org.taha.paymentgateway.idempotency.RequestFingerprint;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.metrics.PaymentMetricsAggregator;
 import org.taha.paymentgateway.persistence.entity.*;
 import org.taha.paymentgateway.persistence.repository.*;
 import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
 import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.*;
+import org.taha.paymentgateway.routing.ProviderHealthRegistry;
 import org.taha.paymentgateway.routing.RoutingEngine;
 import org.taha.paymentgateway.routing.RoutingEngine.RoutingContext;
 import org.taha.paymentgateway.routing.RoutingEngine.RoutingResult;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -53,21 +76,37 @@ class PaymentOrchestratorTest {
     
     @Mock
     private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxNotifier outboxNotifier;
     
     @Mock
     private IdempotencyService idempotencyService;
     
     @Mock
     private RoutingEngine routingEngine;
+
+    @Mock
+    private ProviderHealthRegistry providerHealthRegistry;
+
+    @Mock
+    private PaymentMetricsAggregator paymentMetrics;
     
     @Mock
     private PaymentProviderAdapter providerAdapter;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final GatewayMetrics gatewayMetrics = new GatewayMetrics(new SimpleMeterRegistry());
+
     private PaymentOrchestrator orchestrator;
+    private ProviderInvoker providerInvoker;
     private ObjectMapper objectMapper;
     private Map<String, PaymentProviderAdapter> providerAdapters;
 
     private static final String MERCHANT_ID = "merchant-123";
+    private static final long PROVIDER_TIMEOUT_MS = 300;
     private static final UUID PAYMENT_ID = UUID.randomUUID();
 
     @BeforeEach
@@ -77,19 +116,47 @@ class PaymentOrchestratorTest {
         
         providerAdapters = new HashMap<>();
         providerAdapters.put("MOCK_PROVIDER", providerAdapter);
+
+        providerInvoker = new ProviderInvoker();
+        ReflectionTestUtils.setField(providerInvoker, "timeoutMs", PROVIDER_TIMEOUT_MS);
+        ReflectionTestUtils.setField(providerInvoker, "bridgeThreads", 4);
+        ReflectionTestUtils.setField(providerInvoker, "bridgeQueueCapacity", 16);
+        providerInvoker.init();
         
         orchestrator = new PaymentOrchestrator(
                 paymentRepository,
                 attemptRepository,
                 transactionRepository,
                 outboxEventRepository,
+                outboxNotifier,
                 idempotencyService,
                 routingEngine,
+                providerHealthRegistry,
+                paymentMetrics,
+                gatewayMetrics,
                 providerAdapters,
-                objectMapper
+                providerInvoker,
+                objectMapper,
+                new TransactionTemplate(transactionManager)
         );
     }
 
+    @AfterEach
+    void tearDown() {
+        providerInvoker.shutdown();
+    }
+
+    /**
+     * Köprü executor'ını her işi reddeden bir executor ile değiştirir (kapasite dolu).
+     */
+    private void fillBridge() {
+        providerInvoker.shutdown();
+        Executor full = task -> {
+            throw new RejectedExecutionException("bridge is full");
+        };
+        ReflectionTestUtils.setField(providerInvoker, "bridge", full);
+    }
+
     @Nested
     @DisplayName("createPayment() tests")
     class CreatePaymentTests {
@@ -113,7 +180,7 @@ class PaymentOrchestratorTest {
             });
 
             // when
-            PaymentResponse response = orchestrator.createPayment(MERCHANT_ID, request, null);
+            PaymentResponse response = orchestrator.createPayment(MERCHANT_ID, request, null, null).response();
 
             // then
             assertThat(response).isNotNull();
@@ -125,6 +192,8 @@ class PaymentOrchestratorTest {
             
             verify(paymentRepository).save(any(PaymentEntity.class));
             verify(outboxEventRepository).save(any(OutboxEventEntity.class));
+            verify(outboxNotifier).notifyAfterCommit(any(UUID.class));
+            verify(paymentMetrics).recordPaymentCreated(PaymentStatus.CREATED, new BigDecimal("100.00"));
         }
 
         @Test
@@ -146,7 +215,7 @@ class PaymentOrchestratorTest {
             });
 
             // when
-            orchestrator.createPayment(MERCHANT_ID, request, null);
+            orchestrator.createPayment(MERCHANT_ID, request, null, null);
 
             // then
             verify(paymentRepository).save(captor.capture());
@@ -175,26 +244,42 @@ class PaymentOrchestratorTest {
                     .updatedAt(OffsetDateTime.now())
                     .build();
 
-            String cachedJson = objectMapper.writeValueAsString(cachedResponse);
-            String requestHash = "hash123";
+            byte[] cachedJson = objectMapper.writeValueAsBytes(cachedResponse);
+            byte[] fingerprint = RequestFingerprint.of("POST /v1/payments", "{}".getBytes(StandardCharsets.UTF_8));
 
-            IdempotencyRecordEntity record = IdempotencyRecordEntity.builder()
-                    .id(UUID.randomUUID())
-                    .idempotencyKey(idempotencyKey)
-                    .requestHash(requestHash)
-                    .responseBody(cachedJson)
-                    .createdAt(OffsetDateTime.now())
+            when(idempotencyService.reserve(idempotencyKey, fingerprint))
+                    .thenReturn(Reservation.replay(idempotencyKey, cachedJson));
+
+            // when
+            PaymentResult result = orchestrator.createPayment(MERCHANT_ID, request, idempotencyKey, fingerprint);
+
+            // then - ilk response'un byte'ları aynen döner
+            assertThat(result.response().id()).isEqualTo(PAYMENT_ID);
+            assertThat(result.json()).isSameAs(cachedJson);
+            verify(paymentRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should replay stored bytes without parsing them")
+        void shouldReplayBytesWithoutParsing() {
+            // given: parse edilseydi hata verirdi
+            String idempotencyKey = "idem-key-raw";
+            byte[] storedJson = "{not json".getBytes(StandardCharsets.UTF_8);
+            byte[] fingerprint = RequestFingerprint.of("POST /v1/payments", "{}".getBytes(StandardCharsets.UTF_8));
+            CreatePaymentRequest request = CreatePaymentRequest.builder()
+                    .amount(new BigDecimal("100.00"))
+                    .currency("TRY")
                     .build();
 
-            when(idempotencyService.find(idempotencyKey)).thenReturn(Optional.of(record));
-            when(idempotencyService.hash(anyString())).thenReturn(requestHash);
+            when(idempotencyService.reserve(idempotencyKey, fingerprint))
+                    .thenReturn(Reservation.replay(idempotencyKey, storedJson));
 
             // when
-            PaymentResponse response = orchestrator.createPayment(MERCHANT_ID, request, idempotencyKey);
+            PaymentResult result = orchestrator.createPayment(MERCHANT_ID, request, idempotencyKey, fingerprint);
 
             // then
-            assertThat(response.id()).isEqualTo(PAYMENT_ID);
-            verify(paymentRepository, never()).save(any());
+            assertThat(result.json()).isSameAs(storedJson);
+            assertThatThrownBy(result::response).isInstanceOf(RuntimeException.class);
         }
 
         @Test
@@ -207,20 +292,46 @@ class PaymentOrchestratorTest {
                     .currency("TRY")
                     .build();
 
-            IdempotencyRecordEntity record = IdempotencyRecordEntity.builder()
-                    .id(UUID.randomUUID())
-                    .idempotencyKey(idempotencyKey)
-                    .requestHash("original-hash")
-                    .responseBody("{}")
-                    .createdAt(OffsetDateTime.now())
-                    .build();
-
-            when(idempotencyService.find(idempotencyKey)).thenReturn(Optional.of(record));
-            when(idempotencyService.hash(anyString())).thenReturn("different-hash");
+            when(idempotencyService.reserve(eq(idempotencyKey), any(byte[].class)))
+                    .thenThrow(new IdempotencyConflictException(idempotencyKey));
 
             // when/then
-            assertThatThrownBy(() -> orchestrator.createPayment(MERCHANT_ID, request, idempotencyKey))
+            assertThatThrownBy(() -> orchestrator.createPayment(MERCHANT_ID, request, idempotencyKey, null))
                     .isInstanceOf(IdempotencyConflictException.class);
+            verify(paymentRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should complete idempotency reservation with the bytes returned to the client")
+        void shouldCompleteReservation_OnCreate() throws Exception {
+            // given
+            String idempotencyKey = "idem-key-123";
+            CreatePaymentRequest request = CreatePaymentRequest.builder()
+                    .amount(new BigDecimal("100.00"))
+                    .currency("TRY")
+                    .build();
+            Reservation reservation = mock(Reservation.class);
+
+            // HTTP dışı çağrı: parmak izi DTO'dan hesaplanır
+            byte[] fingerprint = RequestFingerprint.of("CREATE " + MERCHANT_ID, objectMapper.writeValueAsBytes(request));
+
+            when(idempotencyService.reserve(idempotencyKey, fingerprint)).thenReturn(reservation);
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // when
+            PaymentResult result = orchestrator.createPayment(MERCHANT_ID, request, idempotencyKey, null);
+
+            // then
+            assertThat(new String(result.json(), StandardCharsets.UTF_8)).contains(result.response().id().toString());
+            verify(idempotencyService).complete(reservation, result.json());
+            verify(idempotencyService, never()).release(any());
+
+            // rezervasyon create transaction'ı açılmadan yapılır, tamamlama aynı transaction içinde
+            InOrder inOrder = inOrder(idempotencyService, transactionManager);
+            inOrder.verify(idempotencyService).reserve(idempotencyKey, fingerprint);
+            inOrder.verify(transactionManager).getTransaction(any());
+            inOrder.verify(idempotencyService).complete(reservation, result.json());
+            inOrder.verify(transactionManager).commit(any());
         }
     }
 
@@ -261,7 +372,7 @@ class PaymentOrchestratorTest {
             when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
             // when
-            PaymentResponse response = orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null);
+            PaymentResponse response = orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null, null).response();
 
             // then
             assertThat(response.status()).isEqualTo(PaymentStatus.AUTHORIZED);
@@ -269,6 +380,8 @@ class PaymentOrchestratorTest {
             
             verify(attemptRepository).save(any(PaymentAttemptEntity.class));
             verify(outboxEventRepository).save(any(OutboxEventEntity.class));
+            verify(providerHealthRegistry).recordOutcome(eq("MOCK_PROVIDER"), argThat(r -> r.status() == AttemptStatus.SUCCESS), anyLong());
+            verify(paymentMetrics).recordProviderLatency(eq("MOCK_PROVIDER"), eq(OperationType.AUTHORIZE), anyLong());
         }
 
         @Test
@@ -284,7 +397,7 @@ class PaymentOrchestratorTest {
             when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
 
             // when/then
-            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null))
+            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null, null))
                     .isInstanceOf(InvalidPaymentStateException.class);
         }
 
@@ -301,7 +414,7 @@ class PaymentOrchestratorTest {
             when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
 
             // when/then
-            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, "wrong-merchant", request, null))
+            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, "wrong-merchant", request, null, null))
                     .isInstanceOf(PaymentNotFoundException.class);
         }
 
@@ -326,9 +439,172 @@ class PaymentOrchestratorTest {
             when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
             // when/then
-            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null))
+            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null, null))
                     .isInstanceOf(ProviderException.class);
         }
+
+        @Test
+        @DisplayName("should mark payment FAILED when provider call throws")
+        void shouldMarkFailed_WhenProviderCallThrows() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.CREATED);
+            AuthorizePaymentRequest request = AuthorizePaymentRequest.builder()
+                    .cardToken("token-123")
+                    .cardBin("415679")
+                    .build();
+
+            RoutingResult routingResult = new RoutingResult(
+                    providerAdapter, "MOCK_PROVIDER", new BigDecimal("1.50"), "Test routing", null
+            );
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(routingEngine.selectProvider(any(RoutingContext.class))).thenReturn(routingResult);
+            when(providerAdapter.authorize(any(AuthorizeContext.class)))
+                    .thenThrow(new IllegalStateException("connection reset"));
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null, null))
+                    .isInstanceOf(ProviderException.class);
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+            assertThat(payment.getProviderName()).isEqualTo("MOCK_PROVIDER");
+            verify(providerHealthRegistry).recordOutcome(eq("MOCK_PROVIDER"), argThat(ProviderResult::isProviderFault), anyLong());
+        }
+
+        @Test
+        @DisplayName("should restore CREATED without an attempt when the provider bridge is full")
+        void shouldRestoreCreated_WhenBridgeIsFull() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.CREATED);
+            AuthorizePaymentRequest request = AuthorizePaymentRequest.builder()
+                    .cardToken("token-123")
+                    .cardBin("415679")
+                    .build();
+
+            RoutingResult routingResult = new RoutingResult(
+                    providerAdapter, "MOCK_PROVIDER", new BigDecimal("1.50"), "Test routing", null
+            );
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(routingEngine.selectProvider(any(RoutingContext.class))).thenReturn(routingResult);
+            when(providerAdapter.providerName()).thenReturn("MOCK_PROVIDER");
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+            fillBridge();
+
+            // when/then: acquirer'a gidilmedi, payment tekrar denenebilir durumda kalır
+            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null, null))
+                    .isInstanceOf(ProviderBusyException.class);
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.CREATED);
+            verify(providerAdapter, never()).authorize(any());
+            verify(attemptRepository, never()).save(any());
+            verify(outboxEventRepository, never()).save(any());
+            verify(providerHealthRegistry, never()).recordOutcome(any(), any(), anyLong());
+            verify(paymentMetrics).recordStatusChange(PaymentStatus.AUTHORIZING, PaymentStatus.CREATED);
+        }
+
+        @Test
+        @DisplayName("should leave the payment in flight without a provider fault when the request thread is interrupted")
+        void shouldLeaveInFlight_WhenInterrupted() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.CREATED);
+            AuthorizePaymentRequest request = AuthorizePaymentRequest.builder()
+                    .cardToken("token-123")
+                    .cardBin("415679")
+                    .build();
+
+            RoutingResult routingResult = new RoutingResult(
+                    providerAdapter, "MOCK_PROVIDER", new BigDecimal("1.50"), "Test routing", null
+            );
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(routingEngine.selectProvider(any(RoutingContext.class))).thenReturn(routingResult);
+            when(providerAdapter.providerName()).thenReturn("MOCK_PROVIDER");
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // when
+            Thread.currentThread().interrupt();
+            try {
+                assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null, null))
+                        .isInstanceOf(ProviderCallInterruptedException.class);
+                assertThat(Thread.currentThread().isInterrupted()).isTrue();
+            } finally {
+                Thread.interrupted();
+            }
+
+            // then: sonuç bilinmiyor, payment recovery job'a kalır
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.AUTHORIZING);
+            verify(attemptRepository, never()).save(any());
+            verify(providerHealthRegistry, never()).recordOutcome(any(), any(), anyLong());
+        }
+
+        @Test
+        @DisplayName("should record TIMEOUT and cancel the call when provider misses the deadline")
+        void shouldRecordTimeout_WhenProviderMissesDeadline() throws InterruptedException {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.CREATED);
+            AuthorizePaymentRequest request = AuthorizePaymentRequest.builder()
+                    .cardToken("token-123")
+                    .cardBin("415679")
+                    .build();
+
+            RoutingResult routingResult = new RoutingResult(
+                    providerAdapter, "MOCK_PROVIDER", new BigDecimal("1.50"), "Test routing", null
+            );
+            CountDownLatch interrupted = new CountDownLatch(1);
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(routingEngine.selectProvider(any(RoutingContext.class))).thenReturn(routingResult);
+            when(providerAdapter.authorize(any(AuthorizeContext.class))).thenAnswer(inv -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return ProviderResult.success("AUTH-LATE");
+            });
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // when
+            long start = System.nanoTime();
+            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null, null))
+                    .isInstanceOf(ProviderException.class);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // then
+            assertThat(elapsedMs).isLessThan(5_000);
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+            ArgumentCaptor<PaymentAttemptEntity> captor = ArgumentCaptor.forClass(PaymentAttemptEntity.class);
+            verify(attemptRepository).save(captor.capture());
+            assertThat(captor.getValue().getStatus()).isEqualTo(AttemptStatus.TIMEOUT);
+            assertThat(captor.getValue().getLatencyMs()).isGreaterThanOrEqualTo(PROVIDER_TIMEOUT_MS - 10);
+            verify(providerHealthRegistry).recordOutcome(eq("MOCK_PROVIDER"), argThat(r -> r.status() == AttemptStatus.TIMEOUT), anyLong());
+            assertThat(interrupted.await(1, TimeUnit.SECONDS)).isTrue();
+        }
+
+        @Test
+        @DisplayName("should throw ConcurrentPaymentUpdateException on version conflict")
+        void shouldThrowConcurrentUpdate_OnVersionConflict() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.CREATED);
+            AuthorizePaymentRequest request = AuthorizePaymentRequest.builder()
+                    .cardToken("token-123")
+                    .cardBin("415679")
+                    .build();
+
+            RoutingResult routingResult = new RoutingResult(
+                    providerAdapter, "MOCK_PROVIDER", new BigDecimal("1.50"), "Test routing", null
+            );
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(routingEngine.selectProvider(any(RoutingContext.class))).thenReturn(routingResult);
+            when(paymentRepository.save(any(PaymentEntity.class)))
+                    .thenThrow(new OptimisticLockingFailureException("stale version"));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.authorize(PAYMENT_ID, MERCHANT_ID, request, null, null))
+                    .isInstanceOf(ConcurrentPaymentUpdateException.class);
+            verifyNoInteractions(providerAdapter);
+        }
     }
 
     @Nested
@@ -342,6 +618,7 @@ class PaymentOrchestratorTest {
                     .amount(new BigDecimal("100.00"))
                     .currency("TRY")
                     .status(status)
+                    .providerName("MOCK_PROVIDER")
                     .providerReference("AUTH-REF-123")
                     .createdAt(OffsetDateTime.now())
                     .updatedAt(OffsetDateTime.now())
@@ -357,28 +634,19 @@ class PaymentOrchestratorTest {
                     .amount(new BigDecimal("100.00"))
                     .build();
 
-            PaymentAttemptEntity authorizeAttempt = PaymentAttemptEntity.builder()
-                    .id(UUID.randomUUID())
-                    .paymentId(PAYMENT_ID)
-                    .provider("MOCK_PROVIDER")
-                    .operation(OperationType.AUTHORIZE)
-                    .status(AttemptStatus.SUCCESS)
-                    .createdAt(OffsetDateTime.now())
-                    .build();
-
             when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
-            when(attemptRepository.findByPaymentIdOrderByCreatedAtDesc(PAYMENT_ID))
-                    .thenReturn(List.of(authorizeAttempt));
             when(providerAdapter.capture(any(CaptureContext.class)))
                     .thenReturn(ProviderResult.success("CAP-REF-456"));
             when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
             // when
-            PaymentResponse response = orchestrator.capture(PAYMENT_ID, MERCHANT_ID, request, null);
+            PaymentResponse response = orchestrator.capture(PAYMENT_ID, MERCHANT_ID, request, null, null).response();
 
             // then
             assertThat(response.status()).isEqualTo(PaymentStatus.CAPTURED);
+            assertThat(payment.getCapturedAmount()).isEqualByComparingTo("100.00");
             verify(transactionRepository).save(any(TransactionEntity.class));
+            verify(attemptRepository, never()).findByPaymentIdOrderByCreatedAtDesc(any());
         }
 
         @Test
@@ -393,139 +661,412 @@ class PaymentOrchestratorTest {
             when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
 
             // when/then
-            assertThatThrownBy(() -> orchestrator.capture(PAYMENT_ID, MERCHANT_ID, request, null))
+            assertThatThrownBy(() -> orchestrator.capture(PAYMENT_ID, MERCHANT_ID, request, null, null))
                     .isInstanceOf(InvalidPaymentStateException.class);
         }
+
+        @Test
+        @DisplayName("should reject capture above the authorized amount before any state change")
+        void shouldRejectCapture_ExceedingAuthorizedAmount() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.AUTHORIZED);
+            CapturePaymentRequest request = CapturePaymentRequest.builder()
+                    .amount(new BigDecimal("100.01"))
+                    .build();
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.capture(PAYMENT_ID, MERCHANT_ID, request, null, null))
+                    .isInstanceOf(CaptureAmountExceededException.class);
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.AUTHORIZED);
+            verify(paymentRepository, never()).save(any());
+            verify(providerAdapter, never()).capture(any());
+        }
+
+        @Test
+        @DisplayName("should revert to AUTHORIZED on capture failure")
+        void shouldRevertToAuthorized_OnCaptureFailure() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.AUTHORIZED);
+            CapturePaymentRequest request = CapturePaymentRequest.builder()
+                    .amount(new BigDecimal("100.00"))
+                    .build();
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(providerAdapter.capture(any(CaptureContext.class)))
+                    .thenReturn(ProviderResult.failure("CAPTURE_REJECTED", "Capture rejected"));
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.capture(PAYMENT_ID, MERCHANT_ID, request, null, null))
+                    .isInstanceOf(ProviderException.class);
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.AUTHORIZED);
+            assertThat(payment.getCapturedAmount()).isZero();
+            verify(attemptRepository).save(any(PaymentAttemptEntity.class));
+            verify(transactionRepository, never()).save(any());
+        }
     }
 
     @Nested
     @DisplayName("refund() tests")
     class RefundTests {
 
-        private PaymentEntity createPayment(PaymentStatus status) {
+        private PaymentEntity createPayment(PaymentStatus status, String refundedAmount) {
             return PaymentEntity.builder()
                     .id(PAYMENT_ID)
                     .merchantId(MERCHANT_ID)
                     .amount(new BigDecimal("100.00"))
                     .currency("TRY")
                     .status(status)
+                    .providerName("MOCK_PROVIDER")
                     .providerReference("CAP-REF-456")
+                    .capturedAmount(new BigDecimal("100.00"))
+                    .refundedAmount(new BigDecimal(refundedAmount))
                     .createdAt(OffsetDateTime.now())
                     .updatedAt(OffsetDateTime.now())
                     .build();
         }
 
+        private RefundPaymentRequest refundOf(String amount) {
+            return RefundPaymentRequest.builder()
+                    .amount(new BigDecimal(amount))
+                    .reason("Customer request")
+                    .build();
+        }
+
         @Test
         @DisplayName("should refund full payment successfully")
         void shouldRefundFullPayment_Successfully() {
             // given
-            PaymentEntity payment = createPayment(PaymentStatus.CAPTURED);
-            RefundPaymentRequest request = RefundPaymentRequest.builder()
-                    .amount(new BigDecimal("100.00"))
-                    .reason("Customer request")
-                    .build();
-
-            PaymentAttemptEntity authorizeAttempt = PaymentAttemptEntity.builder()
-                    .id(UUID.randomUUID())
-                    .paymentId(PAYMENT_ID)
-                    .provider("MOCK_PROVIDER")
-                    .operation(OperationType.AUTHORIZE)
-                    .status(AttemptStatus.SUCCESS)
-                    .createdAt(OffsetDateTime.now())
-                    .build();
+            PaymentEntity payment = createPayment(PaymentStatus.CAPTURED, "0");
 
             when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
-            when(attemptRepository.findByPaymentIdOrderByCreatedAtDesc(PAYMENT_ID))
-                    .thenReturn(List.of(authorizeAttempt));
-            when(transactionRepository.findByPaymentIdOrderByCreatedAtDesc(PAYMENT_ID))
-                    .thenReturn(Collections.emptyList());
             when(providerAdapter.refund(any(RefundContext.class)))
                     .thenReturn(ProviderResult.success("REF-789"));
             when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
             // when
-            PaymentResponse response = orchestrator.refund(PAYMENT_ID, MERCHANT_ID, request, null);
+            PaymentResponse response = orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("100.00"), null, null).response();
 
             // then
             assertThat(response.status()).isEqualTo(PaymentStatus.REFUNDED);
+            assertThat(payment.getRefundedAmount()).isEqualByComparingTo("100.00");
+            assertThat(payment.getPendingRefundAmount()).isZero();
             verify(transactionRepository).save(any(TransactionEntity.class));
+            verify(transactionRepository, never()).findByPaymentIdOrderByCreatedAtDesc(any());
+        }
+
+        @Test
+        @DisplayName("should refund remaining balance when no amount is given")
+        void shouldRefundRemainingBalance_WhenNoAmount() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.PARTIALLY_REFUNDED, "30.00");
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(providerAdapter.refund(any(RefundContext.class)))
+                    .thenReturn(ProviderResult.success("REF-789"));
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // when
+            orchestrator.refund(PAYMENT_ID, MERCHANT_ID, null, null, null);
+
+            // then
+            ArgumentCaptor<RefundContext> captor = ArgumentCaptor.forClass(RefundContext.class);
+            verify(providerAdapter).refund(captor.capture());
+            assertThat(captor.getValue().amount()).isEqualByComparingTo("70.00");
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.REFUNDED);
         }
 
         @Test
         @DisplayName("should mark as partially refunded for partial refund")
         void shouldMarkAsPartiallyRefunded_ForPartialRefund() {
             // given
-            PaymentEntity payment = createPayment(PaymentStatus.CAPTURED);
-            RefundPaymentRequest request = RefundPaymentRequest.builder()
-                    .amount(new BigDecimal("50.00"))
-                    .reason("Partial refund")
-                    .build();
-
-            PaymentAttemptEntity authorizeAttempt = PaymentAttemptEntity.builder()
-                    .id(UUID.randomUUID())
-                    .paymentId(PAYMENT_ID)
-                    .provider("MOCK_PROVIDER")
-                    .operation(OperationType.AUTHORIZE)
-                    .status(AttemptStatus.SUCCESS)
-                    .createdAt(OffsetDateTime.now())
-                    .build();
+            PaymentEntity payment = createPayment(PaymentStatus.CAPTURED, "0");
 
             when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
-            when(attemptRepository.findByPaymentIdOrderByCreatedAtDesc(PAYMENT_ID))
-                    .thenReturn(List.of(authorizeAttempt));
-            when(transactionRepository.findByPaymentIdOrderByCreatedAtDesc(PAYMENT_ID))
-                    .thenReturn(Collections.emptyList());
             when(providerAdapter.refund(any(RefundContext.class)))
                     .thenReturn(ProviderResult.success("REF-789"));
             when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
             // when
-            PaymentResponse response = orchestrator.refund(PAYMENT_ID, MERCHANT_ID, request, null);
+            PaymentResponse response = orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("50.00"), null, null).response();
 
             // then
             assertThat(response.status()).isEqualTo(PaymentStatus.PARTIALLY_REFUNDED);
+            assertThat(payment.getRefundedAmount()).isEqualByComparingTo("50.00");
         }
 
         @Test
         @DisplayName("should allow refund for partially refunded payment")
         void shouldAllowRefund_ForPartiallyRefundedPayment() {
             // given
-            PaymentEntity payment = createPayment(PaymentStatus.PARTIALLY_REFUNDED);
-            RefundPaymentRequest request = RefundPaymentRequest.builder()
-                    .amount(new BigDecimal("50.00"))
-                    .build();
+            PaymentEntity payment = createPayment(PaymentStatus.PARTIALLY_REFUNDED, "50.00");
 
-            PaymentAttemptEntity authorizeAttempt = PaymentAttemptEntity.builder()
-                    .id(UUID.randomUUID())
-                    .paymentId(PAYMENT_ID)
-                    .provider("MOCK_PROVIDER")
-                    .operation(OperationType.AUTHORIZE)
-                    .status(AttemptStatus.SUCCESS)
-                    .createdAt(OffsetDateTime.now())
-                    .build();
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(providerAdapter.refund(any(RefundContext.class)))
+                    .thenReturn(ProviderResult.success("REF-789"));
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
-            TransactionEntity previousRefund = TransactionEntity.builder()
-                    .id(UUID.randomUUID())
-                    .paymentId(PAYMENT_ID)
-                    .type(OperationType.REFUND)
-                    .amount(new BigDecimal("50.00"))
-                    .createdAt(OffsetDateTime.now())
-                    .build();
+            // when
+            PaymentResponse response = orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("50.00"), null, null).response();
+
+            // then
+            assertThat(response.status()).isEqualTo(PaymentStatus.REFUNDED);
+        }
+
+        @Test
+        @DisplayName("should reject refund exceeding the remaining balance without calling the provider")
+        void shouldRejectRefund_ExceedingRemainingBalance() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.PARTIALLY_REFUNDED, "60.00");
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("50.00"), null, null))
+                    .isInstanceOf(RefundAmountExceededException.class);
+            verifyNoInteractions(providerAdapter);
+            verify(paymentRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should count amounts reserved by in-flight refunds against the balance")
+        void shouldCountPendingRefunds_AgainstBalance() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.REFUNDING, "0");
+            payment.setPendingRefundAmount(new BigDecimal("80.00"));
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("30.00"), null, null))
+                    .isInstanceOf(RefundAmountExceededException.class);
+            verifyNoInteractions(providerAdapter);
+        }
+
+        @Test
+        @DisplayName("should keep REFUNDING while another refund is still in flight")
+        void shouldStayRefunding_WhileAnotherRefundIsInFlight() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.REFUNDING, "0");
+            payment.setPendingRefundAmount(new BigDecimal("40.00"));
 
             when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
-            when(attemptRepository.findByPaymentIdOrderByCreatedAtDesc(PAYMENT_ID))
-                    .thenReturn(List.of(authorizeAttempt));
-            when(transactionRepository.findByPaymentIdOrderByCreatedAtDesc(PAYMENT_ID))
-                    .thenReturn(List.of(previousRefund));
             when(providerAdapter.refund(any(RefundContext.class)))
                     .thenReturn(ProviderResult.success("REF-789"));
             when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
 
             // when
-            PaymentResponse response = orchestrator.refund(PAYMENT_ID, MERCHANT_ID, request, null);
+            PaymentResponse response = orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("30.00"), null, null).response();
 
             // then
-            assertThat(response.status()).isEqualTo(PaymentStatus.REFUNDED);
+            assertThat(response.status()).isEqualTo(PaymentStatus.REFUNDING);
+            assertThat(payment.getRefundedAmount()).isEqualByComparingTo("30.00");
+            assertThat(payment.getPendingRefundAmount()).isEqualByComparingTo("40.00");
+            verify(paymentMetrics, never()).recordStatusChange(any(), any());
+        }
+
+        @Test
+        @DisplayName("should release the reservation when the provider rejects the refund")
+        void shouldReleaseReservation_OnRefundFailure() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.CAPTURED, "0");
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(providerAdapter.refund(any(RefundContext.class)))
+                    .thenReturn(ProviderResult.failure("REFUND_REJECTED", "Refund rejected"));
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("50.00"), null, null))
+                    .isInstanceOf(ProviderException.class);
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.CAPTURED);
+            assertThat(payment.getPendingRefundAmount()).isZero();
+            assertThat(payment.getRefundedAmount()).isZero();
+            verify(transactionRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("should release the reservation without an attempt when the provider bridge is full")
+        void shouldReleaseReservation_WhenBridgeIsFull() {
+            // given
+            PaymentEntity payment = createPayment(PaymentStatus.CAPTURED, "0");
+
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(providerAdapter.providerName()).thenReturn("MOCK_PROVIDER");
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+            fillBridge();
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("50.00"), null, null))
+                    .isInstanceOf(ProviderBusyException.class);
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.CAPTURED);
+            assertThat(payment.getPendingRefundAmount()).isZero();
+            verify(providerAdapter, never()).refund(any());
+            verify(attemptRepository, never()).save(any());
+            verify(providerHealthRegistry, never()).recordOutcome(any(), any(), anyLong());
+        }
+
+        @Test
+        @DisplayName("should retry the reservation on version conflict with a fresh payment")
+        void shouldRetryReservation_OnVersionConflict() {
+            // given
+            PaymentEntity stale = createPayment(PaymentStatus.CAPTURED, "0");
+            // Eşzamanlı bir refund 60'ı rezerve etmiş
+            PaymentEntity fresh = createPayment(PaymentStatus.REFUNDING, "0");
+            fresh.setPendingRefundAmount(new BigDecimal("60.00"));
+
+            when(paymentRepository.findById(PAYMENT_ID))
+                    .thenReturn(Optional.of(stale))
+                    .thenReturn(Optional.of(fresh));
+            when(paymentRepository.save(any(PaymentEntity.class)))
+                    .thenThrow(new OptimisticLockingFailureException("version"))
+                    .thenAnswer(inv -> inv.getArgument(0));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("50.00"), null, null))
+                    .isInstanceOf(RefundAmountExceededException.class);
+            verify(paymentRepository, times(2)).findById(PAYMENT_ID);
+            verifyNoInteractions(providerAdapter);
+        }
+
+        @Test
+        @DisplayName("should give up after repeated version conflicts")
+        void shouldThrowConcurrentUpdate_AfterRepeatedVersionConflicts() {
+            // given
+            when(paymentRepository.findById(PAYMENT_ID))
+                    .thenAnswer(inv -> Optional.of(createPayment(PaymentStatus.CAPTURED, "0")));
+            when(paymentRepository.save(any(PaymentEntity.class)))
+                    .thenThrow(new OptimisticLockingFailureException("version"));
+
+            // when/then
+            assertThatThrownBy(() -> orchestrator.refund(PAYMENT_ID, MERCHANT_ID, refundOf("50.00"), null, null))
+                    .isInstanceOf(ConcurrentPaymentUpdateException.class);
+            verify(paymentRepository, times(5)).save(any());
+            verifyNoInteractions(providerAdapter);
+        }
+    }
+
+    @Nested
+    @DisplayName("recoverInFlight() tests")
+    class RecoverInFlightTests {
+
+        private PaymentEntity createPayment(PaymentStatus status, OffsetDateTime updatedAt) {
+            return PaymentEntity.builder()
+                    .id(PAYMENT_ID)
+                    .merchantId(MERCHANT_ID)
+                    .amount(new BigDecimal("100.00"))
+                    .currency("TRY")
+                    .status(status)
+                    .providerName("MOCK_PROVIDER")
+                    .createdAt(updatedAt)
+                    .updatedAt(updatedAt)
+                    .build();
+        }
+
+        @Test
+        @DisplayName("should fail stale AUTHORIZING payment")
+        void shouldFailStaleAuthorizingPayment() {
+            // given
+            OffsetDateTime now = OffsetDateTime.now();
+            PaymentEntity payment = createPayment(PaymentStatus.AUTHORIZING, now.minusMinutes(10));
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+
+            // when
+            boolean recovered = orchestrator.recoverInFlight(PAYMENT_ID, now.minusMinutes(5));
+
+            // then
+            assertThat(recovered).isTrue();
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.FAILED);
+
+            ArgumentCaptor<PaymentAttemptEntity> captor = ArgumentCaptor.forClass(PaymentAttemptEntity.class);
+            verify(attemptRepository).save(captor.capture());
+            assertThat(captor.getValue().getStatus()).isEqualTo(AttemptStatus.TIMEOUT);
+            assertThat(captor.getValue().getErrorCode()).isEqualTo("IN_FLIGHT_RECOVERED");
+            verify(outboxEventRepository).save(any(OutboxEventEntity.class));
+            verifyNoInteractions(providerHealthRegistry);
+        }
+
+        @Test
+        @DisplayName("should move stale REFUNDING payment to review and keep its pending refunds")
+        void shouldRequireReview_ForStaleRefundingPayment() {
+            // given
+            OffsetDateTime now = OffsetDateTime.now();
+            PaymentEntity payment = createPayment(PaymentStatus.REFUNDING, now.minusMinutes(10));
+            payment.setCapturedAmount(new BigDecimal("100.00"));
+            payment.setPendingRefundAmount(new BigDecimal("40.00"));
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+
+            // when
+            boolean recovered = orchestrator.recoverInFlight(PAYMENT_ID, now.minusMinutes(5));
+
+            // then: refund gerçekleşmiş olabilir, rezervasyon bırakılmaz
+            assertThat(recovered).isTrue();
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.REQUIRES_REVIEW);
+            assertThat(payment.getPendingRefundAmount()).isEqualByComparingTo("40.00");
+            verify(paymentRepository).save(payment);
+            verify(paymentMetrics).recordStatusChange(PaymentStatus.REFUNDING, PaymentStatus.REQUIRES_REVIEW);
+        }
+
+        @Test
+        @DisplayName("should move stale CAPTURING payment to review instead of AUTHORIZED")
+        void shouldRequireReview_ForStaleCapturingPayment() {
+            // given
+            OffsetDateTime now = OffsetDateTime.now();
+            PaymentEntity payment = createPayment(PaymentStatus.CAPTURING, now.minusMinutes(10));
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+
+            // when
+            boolean recovered = orchestrator.recoverInFlight(PAYMENT_ID, now.minusMinutes(5));
+
+            // then: tekrar capture edilemez
+            assertThat(recovered).isTrue();
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.REQUIRES_REVIEW);
+            assertThat(payment.getCapturedAmount()).isZero();
+            verifyNoInteractions(outboxEventRepository);
+        }
+
+        @Test
+        @DisplayName("should resolve review with a late refund result")
+        void shouldResolveReview_WithLateRefundResult() {
+            // given: refund sürerken payment incelemeye alınır
+            PaymentEntity payment = createPayment(PaymentStatus.CAPTURED, OffsetDateTime.now().minusMinutes(10));
+            payment.setProviderReference("CAP-REF-456");
+            payment.setCapturedAmount(new BigDecimal("100.00"));
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+            when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+            when(providerAdapter.refund(any(RefundContext.class))).thenAnswer(inv -> {
+                payment.setStatus(PaymentStatus.REQUIRES_REVIEW);
+                return ProviderResult.success("REF-REF-789");
+            });
+            RefundPaymentRequest request = RefundPaymentRequest.builder()
+                    .amount(new BigDecimal("40.00"))
+                    .build();
+
+            // when
+            PaymentResponse response = orchestrator.refund(PAYMENT_ID, MERCHANT_ID, request, null, null).response();
+
+            // then
+            assertThat(response.status()).isEqualTo(PaymentStatus.PARTIALLY_REFUNDED);
+            assertThat(payment.getRefundedAmount()).isEqualByComparingTo("40.00");
+            assertThat(payment.getPendingRefundAmount()).isZero();
+            verify(paymentMetrics).recordStatusChange(PaymentStatus.REQUIRES_REVIEW, PaymentStatus.PARTIALLY_REFUNDED);
+        }
+
+        @Test
+        @DisplayName("should skip payment that is not stale yet")
+        void shouldSkip_WhenNotStale() {
+            // given
+            OffsetDateTime now = OffsetDateTime.now();
+            PaymentEntity payment = createPayment(PaymentStatus.CAPTURING, now);
+            when(paymentRepository.findById(PAYMENT_ID)).thenReturn(Optional.of(payment));
+
+            // when
+            boolean recovered = orchestrator.recoverInFlight(PAYMENT_ID, now.minusMinutes(5));
+
+            // then
+            assertThat(recovered).isFalse();
+            assertThat(payment.getStatus()).isEqualTo(PaymentStatus.CAPTURING);
+            verify(paymentRepository, never()).save(any());
         }
     }
 
@@ -0,0 +1,302 @@
+package org.taha.paymentgateway.orchestrator;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.core.exception.ProviderBusyException;
+import org.taha.paymentgateway.core.exception.ProviderCallInterruptedException;
+import org.taha.paymentgateway.core.model.AttemptStatus;
+import org.taha.paymentgateway.provider.adapter.AsyncPaymentProviderAdapter;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("ProviderInvoker Tests")
+class ProviderInvokerTest {
+
+    private static final long TIMEOUT_MS = 200;
+    private static final AuthorizeContext AUTHORIZE = new AuthorizeContext(
+            UUID.randomUUID(), new BigDecimal("100.00"), "TRY", "token123", "454678", "merchant-1");
+    private static final CaptureContext CAPTURE = new CaptureContext(
+            UUID.randomUUID(), "MOCK-AUTH-12345678", new BigDecimal("100.00"), "TRY");
+
+    private ProviderInvoker invoker;
+
+    @BeforeEach
+    void setUp() {
+        invoker = invoker(2, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        invoker.shutdown();
+    }
+
+    @Nested
+    @DisplayName("blocking adapter tests")
+    class BlockingAdapterTests {
+
+        @Test
+        @DisplayName("should run the blocking call on a bridge thread and return its result")
+        void shouldReturnBridgedResult() {
+            // given
+            PaymentProviderAdapter provider = mock(PaymentProviderAdapter.class);
+            when(provider.authorize(any())).thenAnswer(inv -> ProviderResult.success(Thread.currentThread().getName()));
+
+            // when
+            ProviderResult result = invoker.authorize(provider, AUTHORIZE);
+
+            // then
+            assertThat(result.status()).isEqualTo(AttemptStatus.SUCCESS);
+            assertThat(result.providerReference()).startsWith("provider-call-");
+        }
+
+        @Test
+        @DisplayName("should return TIMEOUT at the deadline and interrupt the abandoned call")
+        void shouldTimeOutAndInterrupt() throws InterruptedException {
+            // given
+            CountDownLatch interrupted = new CountDownLatch(1);
+            PaymentProviderAdapter provider = mock(PaymentProviderAdapter.class);
+            when(provider.authorize(any())).thenAnswer(inv -> {
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return ProviderResult.success("MOCK-AUTH-late");
+            });
+
+            // when
+            long start = System.nanoTime();
+            ProviderResult result = invoker.authorize(provider, AUTHORIZE);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // then
+            assertThat(result.status()).isEqualTo(AttemptStatus.TIMEOUT);
+            assertThat(elapsedMs).isBetween(TIMEOUT_MS - 10, 2_000L);
+            assertThat(interrupted.await(2, TimeUnit.SECONDS)).isTrue();
+        }
+
+        @Test
+        @DisplayName("should map an adapter exception to PROVIDER_ERROR")
+        void shouldMapExceptionToProviderError() {
+            // given
+            PaymentProviderAdapter provider = mock(PaymentProviderAdapter.class);
+            when(provider.providerName()).thenReturn("MOCK_PROVIDER");
+            when(provider.capture(any())).thenThrow(new IllegalStateException("connection reset"));
+
+            // when
+            ProviderResult result = invoker.capture(provider, CAPTURE);
+
+            // then
+            assertThat(result.status()).isEqualTo(AttemptStatus.FAILURE);
+            assertThat(result.errorCode()).isEqualTo(ProviderResult.PROVIDER_ERROR);
+            assertThat(result.errorMessage()).isEqualTo("connection reset");
+        }
+
+        @Test
+        @DisplayName("should keep the interrupt and fail distinctly instead of reporting a timeout")
+        void shouldPropagateInterrupt() throws InterruptedException {
+            // given
+            CountDownLatch started = new CountDownLatch(1);
+            CountDownLatch cancelled = new CountDownLatch(1);
+            PaymentProviderAdapter provider = mock(PaymentProviderAdapter.class);
+            when(provider.providerName()).thenReturn("MOCK_PROVIDER");
+            when(provider.authorize(any())).thenAnswer(inv -> {
+                started.countDown();
+                try {
+                    Thread.sleep(10_000);
+                } catch (InterruptedException e) {
+                    cancelled.countDown();
+                }
+                return ProviderResult.success("late");
+            });
+            Thread.currentThread().interrupt();
+
+            // when & then
+            try {
+                assertThatThrownBy(() -> invoker.authorize(provider, AUTHORIZE))
+                        .isInstanceOf(ProviderCallInterruptedException.class);
+                assertThat(Thread.currentThread().isInterrupted()).isTrue();
+            } finally {
+                Thread.interrupted();
+            }
+            // köprüde başlamış çağrı cancel ile interrupt edilir
+            if (started.await(1, TimeUnit.SECONDS)) {
+                assertThat(cancelled.await(2, TimeUnit.SECONDS)).isTrue();
+            }
+        }
+
+        @Test
+        @DisplayName("should throw ProviderBusyException without calling the adapter when the bridge is full")
+        void shouldRejectWhenBridgeIsFull() {
+            // given: 1 thread + 1 kuyruk yeri, ikisi de dolu
+            invoker.shutdown();
+            invoker = invoker(1, 1);
+            CountDownLatch release = new CountDownLatch(1);
+            ThreadPoolExecutor bridge = (ThreadPoolExecutor) ReflectionTestUtils.getField(invoker, "bridge");
+            bridge.execute(() -> awaitQuietly(release));
+            bridge.execute(() -> awaitQuietly(release));
+            PaymentProviderAdapter provider = mock(PaymentProviderAdapter.class);
+            when(provider.providerName()).thenReturn("MOCK_PROVIDER");
+
+            // when & then
+            assertThatThrownBy(() -> invoker.authorize(provider, AUTHORIZE))
+                    .isInstanceOf(ProviderBusyException.class);
+            verify(provider, never()).authorize(any());
+            release.countDown();
+        }
+
+        private void awaitQuietly(CountDownLatch latch) {
+            try {
+                latch.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Nested
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @DisplayName("virtual thread bridge tests")
+    class VirtualThreadBridgeTests {
+
+        @BeforeEach
+        void setUpVirtualBridge() {
+            invoker.shutdown();
+            invoker = invoker(1, 0, true);
+        }
+
+        @Test
+        @DisplayName("should bound concurrent calls with permits and free the permit when the call ends")
+        void shouldBoundConcurrentCallsWithPermits() throws Exception {
+            // given: tek izin, ilk çağrı provider içinde bekliyor
+            CountDownLatch entered = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            PaymentProviderAdapter slow = mock(PaymentProviderAdapter.class);
+            when(slow.authorize(any())).thenAnswer(inv -> {
+                entered.countDown();
+                release.await();
+                return ProviderResult.success("MOCK-AUTH-slow");
+            });
+            PaymentProviderAdapter fast = mock(PaymentProviderAdapter.class);
+            when(fast.providerName()).thenReturn("MOCK_PROVIDER");
+            when(fast.authorize(any())).thenReturn(ProviderResult.success("MOCK-AUTH-fast"));
+            CompletableFuture<ProviderResult> first = CompletableFuture.supplyAsync(() -> invoker.authorize(slow, AUTHORIZE));
+            assertThat(entered.await(2, TimeUnit.SECONDS)).isTrue();
+
+            // when & then: izin dolu
+            assertThatThrownBy(() -> invoker.authorize(fast, AUTHORIZE))
+                    .isInstanceOf(ProviderBusyException.class);
+            verify(fast, never()).authorize(any());
+
+            // when & then: ilk çağrı bitince izin geri gelir
+            release.countDown();
+            assertThat(first.get(2, TimeUnit.SECONDS).providerReference()).isEqualTo("MOCK-AUTH-slow");
+            assertThat(invoker.authorize(fast, AUTHORIZE).providerReference()).isEqualTo("MOCK-AUTH-fast");
+        }
+
+        @Test
+        @DisplayName("should free the permit of a timed out call once it is interrupted")
+        void shouldFreePermitAfterTimeout() {
+            // given
+            PaymentProviderAdapter provider = mock(PaymentProviderAdapter.class);
+            when(provider.authorize(any())).thenAnswer(inv -> {
+                Thread.sleep(10_000);
+                return ProviderResult.success("MOCK-AUTH-late");
+            }).thenReturn(ProviderResult.success("MOCK-AUTH-next"));
+
+            // when
+            ProviderResult timedOut = invoker.authorize(provider, AUTHORIZE);
+
+            // then
+            assertThat(timedOut.status()).isEqualTo(AttemptStatus.TIMEOUT);
+            Semaphore permits = (Semaphore) ReflectionTestUtils.getField(invoker, "permits");
+            await(() -> permits.availablePermits() == 1);
+            assertThat(invoker.authorize(provider, AUTHORIZE).providerReference()).isEqualTo("MOCK-AUTH-next");
+        }
+
+        private void await(BooleanSupplier condition) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+            assertThat(condition.getAsBoolean()).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("async adapter tests")
+    class AsyncAdapterTests {
+
+        @Test
+        @DisplayName("should pass the deadline to the async method instead of using the bridge")
+        void shouldCallAsyncMethodWithDeadline() {
+            // given
+            AsyncPaymentProviderAdapter provider = mock(AsyncPaymentProviderAdapter.class);
+            when(provider.authorizeAsync(any(), any()))
+                    .thenReturn(CompletableFuture.completedFuture(ProviderResult.success("SIM-AUTH-1")));
+            Instant before = Instant.now();
+
+            // when
+            ProviderResult result = invoker.authorize(provider, AUTHORIZE);
+
+            // then
+            assertThat(result.providerReference()).isEqualTo("SIM-AUTH-1");
+            verify(provider, never()).authorize(any());
+            verify(provider).authorizeAsync(eq(AUTHORIZE), argThat(deadline ->
+                    !deadline.isBefore(before.plus(Duration.ofMillis(TIMEOUT_MS)))));
+        }
+
+        @Test
+        @DisplayName("should cancel the pending stage when the deadline passes")
+        void shouldCancelPendingStageOnTimeout() {
+            // given
+            CompletableFuture<ProviderResult> pending = new CompletableFuture<>();
+            AsyncPaymentProviderAdapter provider = mock(AsyncPaymentProviderAdapter.class);
+            when(provider.providerName()).thenReturn("GARANTI_VPOS");
+            when(provider.captureAsync(any(), any())).thenReturn(pending);
+
+            // when
+            ProviderResult result = invoker.capture(provider, CAPTURE);
+
+            // then
+            assertThat(result.status()).isEqualTo(AttemptStatus.TIMEOUT);
+            assertThat(pending).isCancelled();
+        }
+    }
+
+    private static ProviderInvoker invoker(int threads, int queueCapacity) {
+        return invoker(threads, queueCapacity, false);
+    }
+
+    private static ProviderInvoker invoker(int threads, int queueCapacity, boolean virtualThreads) {
+        ProviderInvoker invoker = new ProviderInvoker();
+        ReflectionTestUtils.setField(invoker, "timeoutMs", TIMEOUT_MS);
+        ReflectionTestUtils.setField(invoker, "bridgeThreads", threads);
+        ReflectionTestUtils.setField(invoker, "bridgeQueueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(invoker, "virtualThreads", virtualThreads);
+        invoker.init();
+        return invoker;
+    }
+}
@@ -0,0 +1,37 @@
+package org.taha.paymentgateway.persistence.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("UuidBytes Tests")
+class UuidBytesTest {
+
+    @Test
+    @DisplayName("should encode UUID big-endian and decode back")
+    void shouldRoundTrip() {
+        // given
+        UUID uuid = UUID.fromString("0191e4d2-7c3a-7b1e-9f00-a1b2c3d4e5f6");
+
+        // when
+        byte[] bytes = UuidBytes.toBytes(uuid);
+
+        // then
+        ByteBuffer expected = ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits());
+        assertThat(bytes).isEqualTo(expected.array());
+        assertThat(UuidBytes.fromBytes(bytes)).isEqualTo(uuid);
+    }
+
+    @Test
+    @DisplayName("should map null to null")
+    void shouldHandleNull() {
+        assertThat(UuidBytes.toBytes(null)).isNull();
+        assertThat(UuidBytes.fromBytes(null)).isNull();
+    }
+}
@@ -0,0 +1,147 @@
+package org.taha.paymentgateway.persistence.support;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("UuidV7 Tests")
+class UuidV7Test {
+
+    private static final long NOW = 1_790_000_000_000L;
+
+    @Nested
+    @DisplayName("layout")
+    class Layout {
+
+        @Test
+        @DisplayName("should set version 7, RFC variant and millisecond timestamp")
+        void shouldEncodeVersionVariantAndTimestamp() {
+            // given
+            UuidV7 generator = new UuidV7(() -> NOW);
+
+            // when
+            UUID uuid = generator.generate();
+
+            // then
+            assertThat(uuid.version()).isEqualTo(7);
+            assertThat(uuid.variant()).isEqualTo(2);
+            assertThat(UuidV7.timestamp(uuid)).isEqualTo(NOW);
+        }
+
+        @Test
+        @DisplayName("should reject timestamp extraction from random UUIDs")
+        void shouldRejectNonV7() {
+            assertThatThrownBy(() -> UuidV7.timestamp(UUID.randomUUID()))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("ordering")
+    class Ordering {
+
+        @Test
+        @DisplayName("should increase within the same millisecond")
+        void shouldIncreaseWithinSameMillisecond() {
+            // given
+            UuidV7 generator = new UuidV7(() -> NOW);
+
+            // when
+            List<byte[]> ids = generate(generator, 1_000);
+
+            // then
+            assertAscending(ids);
+        }
+
+        @Test
+        @DisplayName("should not go backwards when the clock regresses")
+        void shouldSurviveClockRegression() {
+            // given
+            AtomicLong clock = new AtomicLong(NOW);
+            UuidV7 generator = new UuidV7(clock::get);
+            UUID before = generator.generate();
+
+            // when
+            clock.set(NOW - 5_000);
+            UUID after = generator.generate();
+
+            // then
+            assertThat(compare(UuidBytes.toBytes(after), UuidBytes.toBytes(before))).isPositive();
+            assertThat(UuidV7.timestamp(after)).isEqualTo(NOW);
+        }
+
+        @Test
+        @DisplayName("should carry counter overflow into the next millisecond")
+        void shouldCarryCounterOverflow() {
+            // given
+            UuidV7 generator = new UuidV7(() -> NOW);
+
+            // when
+            List<byte[]> ids = generate(generator, 4_097);
+
+            // then
+            assertAscending(ids);
+            assertThat(UuidV7.timestamp(UuidBytes.fromBytes(ids.get(ids.size() - 1)))).isEqualTo(NOW + 1);
+        }
+
+        @Test
+        @DisplayName("should stay unique and ordered per thread under contention")
+        void shouldBeUniqueUnderContention() throws Exception {
+            // given
+            UuidV7 generator = new UuidV7(System::currentTimeMillis);
+            List<Future<List<byte[]>>> futures = new ArrayList<>();
+
+            // when
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            try {
+                for (int t = 0; t < 8; t++) {
+                    futures.add(executor.submit(() -> generate(generator, 10_000)));
+                }
+
+                // then
+                Set<UUID> all = new HashSet<>();
+                for (Future<List<byte[]>> future : futures) {
+                    List<byte[]> ids = future.get();
+                    assertAscending(ids);
+                    ids.forEach(id -> all.add(UuidBytes.fromBytes(id)));
+                }
+                assertThat(all).hasSize(80_000);
+            } finally {
+                executor.shutdownNow();
+            }
+        }
+    }
+
+    private static List<byte[]> generate(UuidV7 generator, int count) {
+        List<byte[]> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(UuidBytes.toBytes(generator.generate()));
+        }
+        return ids;
+    }
+
+    /** BINARY(16) kolonlarının sıralaması: işaretsiz byte karşılaştırması */
+    private static void assertAscending(List<byte[]> ids) {
+        for (int i = 1; i < ids.size(); i++) {
+            assertThat(compare(ids.get(i), ids.get(i - 1))).as("id #%d", i).isPositive();
+        }
+    }
+
+    private static int compare(byte[] a, byte[] b) {
+        return Arrays.compareUnsigned(a, b);
+    }
+}
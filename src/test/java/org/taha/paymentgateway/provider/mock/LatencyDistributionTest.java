@@ -0,0 +1,110 @@
+package org.taha.paymentgateway.provider.mock;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.taha.paymentgateway.provider.mock.LatencyDistribution.Bimodal;
+import org.taha.paymentgateway.provider.mock.LatencyDistribution.Fixed;
+import org.taha.paymentgateway.provider.mock.LatencyDistribution.LogNormal;
+import org.taha.paymentgateway.provider.mock.LatencyDistribution.Uniform;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@DisplayName("LatencyDistribution Tests")
+class LatencyDistributionTest {
+
+    private static final int SAMPLES = 20_000;
+
+    private final Random random = new Random(42);
+
+    @Nested
+    @DisplayName("parse() tests")
+    class ParseTests {
+
+        @Test
+        @DisplayName("should parse every supported distribution")
+        void shouldParseSupportedDistributions() {
+            assertThat(LatencyDistribution.parse("fixed:100")).isEqualTo(new Fixed(100));
+            assertThat(LatencyDistribution.parse("uniform:80-300")).isEqualTo(new Uniform(80, 300));
+            assertThat(LatencyDistribution.parse("lognormal:120,0.35")).isEqualTo(new LogNormal(120, 0.35));
+            assertThat(LatencyDistribution.parse(" BIMODAL: 140, 0.3, 0.03, 1800 ")).isEqualTo(
+                    new Bimodal(new LogNormal(140, 0.3), 0.03, new LogNormal(1800, 0.3)));
+        }
+
+        @Test
+        @DisplayName("should reject unknown or malformed specs")
+        void shouldRejectMalformedSpecs() {
+            assertThatThrownBy(() -> LatencyDistribution.parse("100")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> LatencyDistribution.parse("gamma:1,2")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> LatencyDistribution.parse("uniform:300-80")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> LatencyDistribution.parse("lognormal:120")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> LatencyDistribution.parse("fixed:abc")).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> LatencyDistribution.parse("bimodal:140,0.3,1.5,1800")).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("sampleMillis() tests")
+    class SampleTests {
+
+        @Test
+        @DisplayName("should keep uniform samples within the range")
+        void shouldKeepUniformSamplesInRange() {
+            // given
+            LatencyDistribution distribution = new Uniform(80, 300);
+
+            // when
+            long[] samples = sample(distribution);
+
+            // then
+            assertThat(Arrays.stream(samples).min().orElseThrow()).isGreaterThanOrEqualTo(80);
+            assertThat(Arrays.stream(samples).max().orElseThrow()).isLessThanOrEqualTo(300);
+        }
+
+        @Test
+        @DisplayName("should use the configured median as p50 of lognormal samples")
+        void shouldMatchLogNormalMedian() {
+            // given
+            LatencyDistribution distribution = new LogNormal(120, 0.35);
+
+            // when
+            long[] samples = sample(distribution);
+
+            // then
+            assertThat((double) percentile(samples, 50)).isCloseTo(120, within(6.0));
+            assertThat(percentile(samples, 99)).isGreaterThan(200);
+        }
+
+        @Test
+        @DisplayName("should send roughly the tail rate of bimodal samples to the tail")
+        void shouldSendTailRateToTail() {
+            // given
+            LatencyDistribution distribution = LatencyDistribution.parse("bimodal:100,0.1,0.05,2000");
+
+            // when
+            long[] samples = sample(distribution);
+
+            // then
+            long tail = Arrays.stream(samples).filter(sample -> sample > 1000).count();
+            assertThat((double) tail / SAMPLES).isCloseTo(0.05, within(0.01));
+            assertThat(percentile(samples, 90)).isLessThan(200);
+            assertThat(percentile(samples, 99)).isGreaterThan(1000);
+        }
+
+        private long[] sample(LatencyDistribution distribution) {
+            return LongStream.range(0, SAMPLES).map(i -> distribution.sampleMillis(random)).toArray();
+        }
+
+        private long percentile(long[] samples, int percentile) {
+            long[] sorted = samples.clone();
+            Arrays.sort(sorted);
+            return sorted[(int) Math.ceil(percentile / 100.0 * sorted.length) - 1];
+        }
+    }
+}
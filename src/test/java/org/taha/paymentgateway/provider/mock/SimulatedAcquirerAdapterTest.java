@@ -0,0 +1,231 @@
+package org.taha.paymentgateway.provider.mock;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.core.model.AttemptStatus;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.AuthorizeContext;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.CaptureContext;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.ProviderResult;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.RefundContext;
+import org.taha.paymentgateway.provider.mock.LatencyDistribution.Fixed;
+import org.taha.paymentgateway.provider.mock.SimulatedAcquirerAdapter.Operation;
+import org.taha.paymentgateway.provider.mock.SimulatedAcquirerAdapter.OperationProfile;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("SimulatedAcquirerAdapter Tests")
+class SimulatedAcquirerAdapterTest {
+
+    private static final AuthorizeContext AUTHORIZE = new AuthorizeContext(
+            UUID.randomUUID(), new BigDecimal("100.00"), "TRY", "token123", "454678", "merchant-1");
+    private static final CaptureContext CAPTURE = new CaptureContext(
+            UUID.randomUUID(), "GARANTI_VPOS-AUTH-12345678", new BigDecimal("100.00"), "TRY");
+    private static final RefundContext REFUND = new RefundContext(
+            UUID.randomUUID(), "GARANTI_VPOS-CAP-12345678", new BigDecimal("50.00"), "TRY", "Customer request");
+
+    @Nested
+    @DisplayName("outcome tests")
+    class OutcomeTests {
+
+        @Test
+        @DisplayName("should answer every operation successfully with a provider reference")
+        void shouldSucceedWithoutErrorRates() {
+            // given
+            SimulatedAcquirerAdapter adapter = adapter(new OperationProfile(new Fixed(0), 0, 0));
+
+            // when
+            ProviderResult authorize = adapter.authorize(AUTHORIZE);
+            ProviderResult capture = adapter.capture(CAPTURE);
+            ProviderResult refund = adapter.refund(REFUND);
+
+            // then
+            assertThat(adapter.providerName()).isEqualTo("GARANTI_VPOS");
+            assertThat(authorize.status()).isEqualTo(AttemptStatus.SUCCESS);
+            assertThat(authorize.providerReference()).startsWith("GARANTI_VPOS-AUTH-");
+            assertThat(capture.providerReference()).startsWith("GARANTI_VPOS-CAP-");
+            assertThat(refund.providerReference()).startsWith("GARANTI_VPOS-REF-");
+        }
+
+        @Test
+        @DisplayName("should decline with the operation error code when error rate is 1")
+        void shouldFailWithOperationErrorCode() {
+            // given
+            SimulatedAcquirerAdapter adapter = adapter(new OperationProfile(new Fixed(0), 1, 0));
+
+            // when
+            ProviderResult authorize = adapter.authorize(AUTHORIZE);
+            ProviderResult refund = adapter.refund(REFUND);
+
+            // then
+            assertThat(authorize.status()).isEqualTo(AttemptStatus.FAILURE);
+            assertThat(authorize.errorCode()).isEqualTo("SIMULATED_DECLINED");
+            assertThat(refund.errorCode()).isEqualTo("SIMULATED_REFUND_FAILED");
+        }
+
+        @Test
+        @DisplayName("should answer TIMEOUT only after the timeout elapses")
+        void shouldTimeOutAfterTimeoutMs() {
+            // given
+            SimulatedAcquirerAdapter adapter = new SimulatedAcquirerAdapter("GARANTI_VPOS",
+                    profiles(new OperationProfile(new Fixed(0), 0, 1)), 200);
+
+            // when
+            long start = System.nanoTime();
+            ProviderResult result = adapter.authorize(AUTHORIZE);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // then
+            assertThat(result.status()).isEqualTo(AttemptStatus.TIMEOUT);
+            assertThat(elapsedMs).isGreaterThanOrEqualTo(190);
+        }
+
+        @Test
+        @DisplayName("should reject profiles whose rates exceed 1")
+        void shouldRejectInvalidRates() {
+            assertThatThrownBy(() -> new OperationProfile(new Fixed(0), 0.7, 0.4))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Nested
+    @DisplayName("latency tests")
+    class LatencyTests {
+
+        @Test
+        @DisplayName("should not answer before the sampled latency")
+        void shouldWaitForSampledLatency() {
+            // given
+            SimulatedAcquirerAdapter adapter = adapter(new OperationProfile(new Fixed(100), 0, 0));
+
+            // when
+            long start = System.nanoTime();
+            adapter.capture(CAPTURE);
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // then
+            assertThat(elapsedMs).isGreaterThanOrEqualTo(95);
+        }
+
+        @Test
+        @DisplayName("should keep pending calls on the shared timer instead of a thread each")
+        void shouldOverlapPendingCalls() {
+            // given
+            SimulatedAcquirerAdapter adapter = adapter(new OperationProfile(new Fixed(200), 0, 0));
+
+            // when: 500 çağrı tek thread'den başlatılır
+            long start = System.nanoTime();
+            List<CompletableFuture<ProviderResult>> pending = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                pending.add(adapter.simulate(Operation.AUTHORIZE));
+            }
+            CompletableFuture.allOf(pending.toArray(CompletableFuture[]::new)).join();
+            long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // then: sırayla beklenseydi 100 saniye sürerdi
+            assertThat(pending).allMatch(future -> future.join().status() == AttemptStatus.SUCCESS);
+            assertThat(elapsedMs).isLessThan(2_000);
+        }
+
+        @Test
+        @DisplayName("should return from async calls before the sampled latency")
+        void shouldNotBlockOnAsyncCalls() {
+            // given
+            SimulatedAcquirerAdapter adapter = adapter(new OperationProfile(new Fixed(300), 0, 0));
+
+            // when
+            long start = System.nanoTime();
+            CompletableFuture<ProviderResult> pending = adapter
+                    .authorizeAsync(AUTHORIZE, Instant.now().plusSeconds(5)).toCompletableFuture();
+            long returnedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // then
+            assertThat(returnedMs).isLessThan(100);
+            assertThat(pending.join().status()).isEqualTo(AttemptStatus.SUCCESS);
+        }
+    }
+
+    @Nested
+    @DisplayName("SimulatedAcquirers tests")
+    class RegistryTests {
+
+        @Test
+        @DisplayName("should resolve settings from operation, acquirer and global scopes in that order")
+        void shouldResolveMostSpecificSetting() {
+            // given
+            MockEnvironment environment = new MockEnvironment()
+                    .withProperty("provider.simulated.IYZICO.latency", "uniform:200-400")
+                    .withProperty("provider.simulated.IYZICO.authorize.error-rate", "0.05")
+                    .withProperty("provider.simulated.IYZICO.refund.latency", "fixed:300")
+                    .withProperty("provider.simulated.IYZICO.timeout-ms", "8000");
+            SimulatedAcquirers acquirers = acquirers(environment, List.of("GARANTI_VPOS", " IYZICO ", ""));
+
+            // when
+            acquirers.init();
+
+            // then
+            assertThat(acquirers.adapters()).extracting(SimulatedAcquirerAdapter::providerName)
+                    .containsExactly("GARANTI_VPOS", "IYZICO");
+            SimulatedAcquirerAdapter garanti = acquirers.adapters().get(0);
+            SimulatedAcquirerAdapter iyzico = acquirers.adapters().get(1);
+
+            assertThat(garanti.profile(Operation.AUTHORIZE))
+                    .isEqualTo(new OperationProfile(new LatencyDistribution.LogNormal(150, 0.4), 0.02, 0.001));
+            assertThat(iyzico.profile(Operation.AUTHORIZE))
+                    .isEqualTo(new OperationProfile(new LatencyDistribution.Uniform(200, 400), 0.05, 0.001));
+            assertThat(iyzico.profile(Operation.CAPTURE))
+                    .isEqualTo(new OperationProfile(new LatencyDistribution.Uniform(200, 400), 0.02, 0.001));
+            assertThat(iyzico.profile(Operation.REFUND).latency()).isEqualTo(new Fixed(300));
+            assertThat(ReflectionTestUtils.getField(iyzico, "timeoutMs")).isEqualTo(8000L);
+            assertThat(ReflectionTestUtils.getField(garanti, "timeoutMs")).isEqualTo(5000L);
+        }
+
+        @Test
+        @DisplayName("should fail fast on an invalid latency spec")
+        void shouldFailOnInvalidSpec() {
+            // given
+            MockEnvironment environment = new MockEnvironment()
+                    .withProperty("provider.simulated.GARANTI_VPOS.capture.latency", "normal:100");
+            SimulatedAcquirers acquirers = acquirers(environment, List.of("GARANTI_VPOS"));
+
+            // when / then
+            assertThatThrownBy(acquirers::init).isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining("normal");
+        }
+
+        private SimulatedAcquirers acquirers(MockEnvironment environment, List<String> names) {
+            SimulatedAcquirers acquirers = new SimulatedAcquirers(environment);
+            ReflectionTestUtils.setField(acquirers, "names", names);
+            ReflectionTestUtils.setField(acquirers, "defaultLatency", "lognormal:150,0.4");
+            ReflectionTestUtils.setField(acquirers, "defaultErrorRate", 0.02);
+            ReflectionTestUtils.setField(acquirers, "defaultTimeoutRate", 0.001);
+            ReflectionTestUtils.setField(acquirers, "defaultTimeoutMs", 5000L);
+            return acquirers;
+        }
+    }
+
+    private static SimulatedAcquirerAdapter adapter(OperationProfile profile) {
+        return new SimulatedAcquirerAdapter("GARANTI_VPOS", profiles(profile), 5000);
+    }
+
+    private static Map<Operation, OperationProfile> profiles(OperationProfile profile) {
+        Map<Operation, OperationProfile> profiles = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            profiles.put(operation, profile);
+        }
+        return profiles;
+    }
+}
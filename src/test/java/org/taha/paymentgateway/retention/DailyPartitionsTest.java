@@ -0,0 +1,86 @@
+package org.taha.paymentgateway.retention;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.taha.paymentgateway.retention.DailyPartitions.Partition;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("DailyPartitions Tests")
+class DailyPartitionsTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 11, 10);
+
+    private static long startOf(LocalDate day) {
+        return day.atStartOfDay().toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private final List<Partition> partitions = List.of(
+            new Partition("p_initial", startOf(LocalDate.of(2026, 10, 18)), 5_000),
+            new Partition("p20261108", startOf(TODAY.minusDays(1)), 300),
+            new Partition("p20261109", startOf(TODAY), 200),
+            new Partition("p20261110", startOf(TODAY.plusDays(1)), 100),
+            new Partition(DailyPartitions.FUTURE, null, 0)
+    );
+
+    @Test
+    @DisplayName("should expire only partitions whose upper bound is before the cutoff")
+    void shouldExpirePartitionsBeforeCutoff() {
+        // when - cutoff 9 Kasım 12:00; p20261109'da cutoff'tan yeni satırlar olabilir
+        List<Partition> expired = DailyPartitions.expired(partitions, startOf(TODAY.minusDays(1)) + 12 * 3600);
+
+        // then
+        assertThat(expired).extracting(Partition::name).containsExactly("p_initial", "p20261108");
+    }
+
+    @Test
+    @DisplayName("should never expire the MAXVALUE partition")
+    void shouldKeepFuturePartition() {
+        assertThat(DailyPartitions.expired(partitions, Long.MAX_VALUE))
+                .extracting(Partition::name)
+                .doesNotContain(DailyPartitions.FUTURE);
+    }
+
+    @Test
+    @DisplayName("should add missing days up to the look-ahead window")
+    void shouldAddMissingDays() {
+        // when
+        List<Partition> missing = DailyPartitions.missing(partitions, TODAY, 3);
+
+        // then
+        assertThat(missing).extracting(Partition::name).containsExactly("p20261111", "p20261112", "p20261113");
+        assertThat(missing.get(0).upperBound()).isEqualTo(startOf(TODAY.plusDays(2)));
+    }
+
+    @Test
+    @DisplayName("should start from today when partitions lag behind")
+    void shouldStartFromToday_WhenBehind() {
+        // given - migration sonrası sadece p_initial ve p_future var
+        List<Partition> initial = List.of(partitions.get(0), partitions.get(4));
+
+        // when
+        List<Partition> missing = DailyPartitions.missing(initial, TODAY, 1);
+
+        // then - aradaki günler tek partition'a (bugün) düşer
+        assertThat(missing).extracting(Partition::name).containsExactly("p20261110", "p20261111");
+    }
+
+    @Test
+    @DisplayName("should build drop and reorganize statements")
+    void shouldBuildDdl() {
+        // given
+        List<Partition> missing = DailyPartitions.missing(partitions, TODAY, 1);
+
+        // when/then
+        assertThat(DailyPartitions.dropSql("api_logs", partitions.subList(0, 2)))
+                .isEqualTo("ALTER TABLE api_logs DROP PARTITION p_initial, p20261108");
+        assertThat(DailyPartitions.reorganizeSql("api_logs", missing))
+                .isEqualTo("ALTER TABLE api_logs REORGANIZE PARTITION p_future INTO ("
+                        + "PARTITION p20261111 VALUES LESS THAN (" + startOf(TODAY.plusDays(2)) + "), "
+                        + "PARTITION p_future VALUES LESS THAN MAXVALUE)");
+    }
+}
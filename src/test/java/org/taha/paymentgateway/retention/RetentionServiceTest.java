@@ -0,0 +1,256 @@
+package org.taha.paymentgateway.retention;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.persistence.support.UuidBytes;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Keyset DELETE yolu gerçek SQL ile H2 (MySQL modu) üzerinde test edilir.
+ */
+@DisplayName("RetentionService Tests")
+class RetentionServiceTest {
+
+    private static final Instant NOW = Instant.parse("2026-11-10T12:00:00Z");
+
+    private JdbcTemplate jdbcTemplate;
+    private RetentionService retentionService;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:retention-" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE outbox_events (id BINARY(16) PRIMARY KEY, status VARCHAR(32) NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE webhook_deliveries (id BINARY(16) PRIMARY KEY, event_id BINARY(16) NOT NULL, "
+                + "status VARCHAR(32) NOT NULL, created_at TIMESTAMP NOT NULL, "
+                + "CONSTRAINT fk_webhook_event FOREIGN KEY (event_id) REFERENCES outbox_events(id))");
+        jdbcTemplate.execute("CREATE TABLE idempotency_records (id BINARY(16) PRIMARY KEY, "
+                + "idempotency_key VARCHAR(128) NOT NULL, status VARCHAR(20) NOT NULL, created_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE api_logs (id BINARY(16) PRIMARY KEY, created_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE scheduler_leases (name VARCHAR(64) PRIMARY KEY, owner VARCHAR(64), "
+                + "expires_at TIMESTAMP)");
+        jdbcTemplate.update("INSERT INTO scheduler_leases (name) VALUES (?)", RetentionService.LEASE_NAME);
+
+        retentionService = new RetentionService(jdbcTemplate);
+        retentionService.clock = NOW::toEpochMilli;
+        ReflectionTestUtils.setField(retentionService, "chunkPauseMs", 0L);
+    }
+
+    private Timestamp hoursAgo(long hours) {
+        return Timestamp.from(NOW.minus(Duration.ofHours(hours)));
+    }
+
+    private UUID outboxEvent(String status, long hoursAgo) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO outbox_events (id, status, created_at) VALUES (?, ?, ?)",
+                UuidBytes.toBytes(id), status, hoursAgo(hoursAgo));
+        return id;
+    }
+
+    private void delivery(UUID eventId, String status, long hoursAgo) {
+        jdbcTemplate.update("INSERT INTO webhook_deliveries (id, event_id, status, created_at) VALUES (?, ?, ?, ?)",
+                UuidBytes.toBytes(UUID.randomUUID()), UuidBytes.toBytes(eventId), status, hoursAgo(hoursAgo));
+    }
+
+    private void idempotencyRecord(long hoursAgo) {
+        idempotencyRecord("COMPLETED", hoursAgo);
+    }
+
+    private void idempotencyRecord(String status, long hoursAgo) {
+        jdbcTemplate.update("INSERT INTO idempotency_records (id, idempotency_key, status, created_at) VALUES (?, ?, ?, ?)",
+                UuidBytes.toBytes(UUID.randomUUID()), UUID.randomUUID().toString(), status, hoursAgo(hoursAgo));
+    }
+
+    private void leaseHeldBy(String owner, Instant expiresAt) {
+        jdbcTemplate.update("UPDATE scheduler_leases SET owner = ?, expires_at = ? WHERE name = ?",
+                owner, Timestamp.from(expiresAt), RetentionService.LEASE_NAME);
+    }
+
+    private String leaseOwner() {
+        return jdbcTemplate.queryForObject("SELECT owner FROM scheduler_leases WHERE name = ?",
+                String.class, RetentionService.LEASE_NAME);
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    @Nested
+    @DisplayName("outbox and webhook purge tests")
+    class OutboxTests {
+
+        @Test
+        @DisplayName("should purge delivered webhooks before their sent outbox events")
+        void shouldPurgeDeliveriesThenEvents() {
+            // given
+            UUID delivered = outboxEvent("SENT", 200);
+            delivery(delivered, "DELIVERED", 200);
+            UUID exhausted = outboxEvent("SENT", 200);
+            delivery(exhausted, "EXHAUSTED", 200);
+            outboxEvent("NEW", 200);
+            outboxEvent("SENT", 1);
+
+            // when
+            retentionService.purgeExpired();
+
+            // then - EXHAUSTED delivery ve event'i, NEW event ve yeni event kalır
+            assertThat(count("webhook_deliveries")).isEqualTo(1);
+            assertThat(count("outbox_events")).isEqualTo(3);
+            assertThat(retentionService.getStats(RetentionTarget.WEBHOOK_DELIVERIES).purgedRows()).isEqualTo(1);
+            assertThat(retentionService.getStats(RetentionTarget.OUTBOX_EVENTS).purgedRows()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should not delete sent events that still have deliveries")
+        void shouldKeepReferencedEvents() {
+            // given - delivery retention süresi dolmadı
+            UUID event = outboxEvent("SENT", 200);
+            delivery(event, "DELIVERED", 1);
+
+            // when
+            retentionService.purge(RetentionTarget.OUTBOX_EVENTS);
+
+            // then
+            assertThat(count("outbox_events")).isEqualTo(1);
+            assertThat(retentionService.getStats(RetentionTarget.OUTBOX_EVENTS).lagMs()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("chunked delete tests")
+    class ChunkTests {
+
+        @Test
+        @DisplayName("should delete expired rows across multiple keyset chunks")
+        void shouldDeleteAcrossChunks() {
+            // given
+            ReflectionTestUtils.setField(retentionService, "chunkSize", 2);
+            for (int i = 0; i < 5; i++) {
+                idempotencyRecord(48);
+            }
+            idempotencyRecord(48 + 1);
+            idempotencyRecord(1);
+
+            // when
+            long purged = retentionService.purge(RetentionTarget.IDEMPOTENCY_RECORDS);
+
+            // then
+            assertThat(purged).isEqualTo(6);
+            assertThat(count("idempotency_records")).isEqualTo(1);
+            assertThat(retentionService.getStats(RetentionTarget.IDEMPOTENCY_RECORDS).lagMs()).isZero();
+        }
+
+        @Test
+        @DisplayName("should keep expired in-progress idempotency reservations")
+        void shouldKeepInProgressReservations() {
+            // given
+            idempotencyRecord("IN_PROGRESS", 48);
+            idempotencyRecord("COMPLETED", 48);
+
+            // when
+            long purged = retentionService.purge(RetentionTarget.IDEMPOTENCY_RECORDS);
+
+            // then
+            assertThat(purged).isEqualTo(1);
+            assertThat(jdbcTemplate.queryForObject("SELECT status FROM idempotency_records", String.class))
+                    .isEqualTo("IN_PROGRESS");
+        }
+
+        @Test
+        @DisplayName("should stop at the chunk limit and report lag")
+        void shouldReportLag_WhenChunkLimitReached() {
+            // given
+            ReflectionTestUtils.setField(retentionService, "chunkSize", 2);
+            ReflectionTestUtils.setField(retentionService, "maxChunksPerRun", 1);
+            idempotencyRecord(30);
+            idempotencyRecord(29);
+            idempotencyRecord(28);
+
+            // when
+            long purged = retentionService.purge(RetentionTarget.IDEMPOTENCY_RECORDS);
+
+            // then - en eski iki satır silindi, 28 saatlik satır cutoff'u (24 saat) 4 saat geçti
+            assertThat(purged).isEqualTo(2);
+            assertThat(retentionService.getStats(RetentionTarget.IDEMPOTENCY_RECORDS).lagMs())
+                    .isEqualTo(Duration.ofHours(4).toMillis());
+        }
+
+        @Test
+        @DisplayName("should fall back to row deletes for api logs on non-MySQL databases")
+        void shouldDeleteApiLogs_WithoutPartitions() {
+            // given
+            jdbcTemplate.update("INSERT INTO api_logs (id, created_at) VALUES (?, ?)",
+                    UuidBytes.toBytes(UUID.randomUUID()), hoursAgo(800));
+            jdbcTemplate.update("INSERT INTO api_logs (id, created_at) VALUES (?, ?)",
+                    UuidBytes.toBytes(UUID.randomUUID()), hoursAgo(10));
+
+            // when
+            retentionService.purge(RetentionTarget.API_LOGS);
+
+            // then
+            assertThat(count("api_logs")).isEqualTo(1);
+            assertThat(retentionService.getStats(RetentionTarget.API_LOGS).droppedPartitions()).isZero();
+        }
+    }
+
+    @Nested
+    @DisplayName("lease tests")
+    class LeaseTests {
+
+        @Test
+        @DisplayName("should skip the run while another node holds the lease")
+        void shouldSkip_WhenLeaseHeldByAnotherNode() {
+            // given
+            leaseHeldBy("retention:other", NOW.plus(Duration.ofMinutes(5)));
+            idempotencyRecord(100);
+
+            // when
+            retentionService.purgeExpired();
+
+            // then
+            assertThat(count("idempotency_records")).isEqualTo(1);
+            assertThat(leaseOwner()).isEqualTo("retention:other");
+        }
+
+        @Test
+        @DisplayName("should take over an expired lease and release it after the run")
+        void shouldTakeOverExpiredLease() {
+            // given
+            leaseHeldBy("retention:other", NOW.minus(Duration.ofMinutes(1)));
+            idempotencyRecord(100);
+
+            // when
+            retentionService.purgeExpired();
+
+            // then
+            assertThat(count("idempotency_records")).isZero();
+            assertThat(leaseOwner()).isNull();
+        }
+    }
+
+    @Test
+    @DisplayName("should do nothing when disabled")
+    void shouldSkip_WhenDisabled() {
+        // given
+        ReflectionTestUtils.setField(retentionService, "enabled", false);
+        idempotencyRecord(100);
+
+        // when
+        retentionService.purgeExpired();
+
+        // then
+        assertThat(count("idempotency_records")).isEqualTo(1);
+    }
+}
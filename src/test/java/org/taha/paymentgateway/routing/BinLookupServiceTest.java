@@ -5,20 +5,24 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.taha.paymentgateway.routing.BinLookupService.BinInfo;
 
-import java.util.Collections;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.ResultSet;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,9 +32,17 @@ class BinLookupServiceTest {
     @Mock
     private JdbcTemplate jdbcTemplate;
 
-    @InjectMocks
+    @TempDir
+    Path tempDir;
+
     private BinLookupService binLookupService;
 
+    @BeforeEach
+    void setUp() {
+        binLookupService = new BinLookupService(jdbcTemplate);
+        ReflectionTestUtils.setField(binLookupService, "tableFile", tempDir.resolve("bin-table.bin"));
+    }
+
     @Nested
     @DisplayName("lookup() method tests")
     class LookupTests {
@@ -39,23 +51,11 @@ class BinLookupServiceTest {
         @DisplayName("should return BinInfo when valid BIN exists in database")
         void shouldReturnBinInfo_WhenValidBinExists() {
             // given
-            String cardBin = "415679123456";
-            BinInfo expectedBinInfo = new BinInfo(
-                    "415679",
-                    "Garanti BBVA",
-                    "VISA",
-                    "CREDIT",
-                    "TR"
-            );
-            
-            when(jdbcTemplate.query(
-                    any(String.class),
-                    any(RowMapper.class),
-                    eq("415679")
-            )).thenReturn(List.of(expectedBinInfo));
+            givenDatabaseBins(new String[]{"415679", "Garanti BBVA", "VISA", "CREDIT", "TR"});
+            binLookupService.reload();
 
             // when
-            Optional<BinInfo> result = binLookupService.lookup(cardBin);
+            Optional<BinInfo> result = binLookupService.lookup("415679123456");
 
             // then
             assertThat(result).isPresent();
@@ -67,19 +67,14 @@ class BinLookupServiceTest {
         }
 
         @Test
-        @DisplayName("should return empty when BIN not found in database")
+        @DisplayName("should return empty when BIN not found in table")
         void shouldReturnEmpty_WhenBinNotFound() {
             // given
-            String cardBin = "999999123456";
-            
-            when(jdbcTemplate.query(
-                    any(String.class),
-                    any(RowMapper.class),
-                    eq("999999")
-            )).thenReturn(Collections.emptyList());
+            givenDatabaseBins(new String[]{"415679", "Garanti BBVA", "VISA", "CREDIT", "TR"});
+            binLookupService.reload();
 
             // when
-            Optional<BinInfo> result = binLookupService.lookup(cardBin);
+            Optional<BinInfo> result = binLookupService.lookup("999999123456");
 
             // then
             assertThat(result).isEmpty();
@@ -108,46 +103,121 @@ class BinLookupServiceTest {
         }
 
         @Test
-        @DisplayName("should use first 6 digits of cardBin for lookup")
-        void shouldUseFirst6Digits_ForLookup() {
+        @DisplayName("should not query database on lookup")
+        void shouldNotQueryDatabase_OnLookup() {
             // given
-            String cardBin = "415679999999999";
-            
-            when(jdbcTemplate.query(
-                    any(String.class),
-                    any(RowMapper.class),
-                    eq("415679")
-            )).thenReturn(Collections.emptyList());
+            givenDatabaseBins(new String[]{"415679", "Garanti BBVA", "VISA", "CREDIT", "TR"});
+            binLookupService.reload();
 
             // when
-            binLookupService.lookup(cardBin);
+            binLookupService.lookup("415679999999999");
+            binLookupService.lookup("415679000000000");
 
             // then
-            verify(jdbcTemplate).query(
-                    any(String.class),
-                    any(RowMapper.class),
-                    eq("415679")
+            verify(jdbcTemplate, times(1)).query(anyString(), any(RowMapper.class));
+        }
+
+        @Test
+        @DisplayName("should prefer 8-digit BIN over 6-digit prefix")
+        void shouldPrefer8DigitBin_Over6DigitPrefix() {
+            // given
+            givenDatabaseBins(
+                    new String[]{"415679", "Garanti BBVA", "VISA", "CREDIT", "TR"},
+                    new String[]{"41567912", "Garanti BBVA", "VISA", "PREPAID", "TR"}
             );
+            binLookupService.reload();
+
+            // when
+            Optional<BinInfo> eightDigit = binLookupService.lookup("4156791299");
+            Optional<BinInfo> sixDigit = binLookupService.lookup("4156791399");
+
+            // then
+            assertThat(eightDigit).get().extracting(BinInfo::cardType, BinInfo::binPrefix)
+                    .containsExactly("PREPAID", "41567912");
+            assertThat(sixDigit).get().extracting(BinInfo::cardType, BinInfo::binPrefix)
+                    .containsExactly("CREDIT", "415679");
+        }
+
+        @Test
+        @DisplayName("should load range entries from import file")
+        void shouldLoadRangeEntries_FromImportFile() throws Exception {
+            // given
+            Path csv = tempDir.resolve("bins.csv");
+            Files.writeString(csv, """
+                    bin_start,bin_end,bank_name,card_brand,card_type,country_code
+                    51000000,51999999,Test Bank,MASTERCARD,DEBIT,US
+                    """);
+            ReflectionTestUtils.setField(binLookupService, "importFile", csv.toString());
+            givenDatabaseBins();
+            binLookupService.reload();
+
+            // when
+            Optional<BinInfo> result = binLookupService.lookup("512345");
+
+            // then
+            assertThat(result).get().extracting(BinInfo::bankName).isEqualTo("Test Bank");
         }
 
         @Test
-        @DisplayName("should return empty when database exception occurs")
-        void shouldReturnEmpty_WhenDatabaseExceptionOccurs() {
+        @DisplayName("should keep previous table when database exception occurs")
+        void shouldKeepPreviousTable_WhenDatabaseExceptionOccurs() {
             // given
-            String cardBin = "415679123456";
-            
-            when(jdbcTemplate.query(
-                    any(String.class),
-                    any(RowMapper.class),
-                    any(String.class)
-            )).thenThrow(new RuntimeException("Database error"));
+            givenDatabaseBins(new String[]{"415679", "Garanti BBVA", "VISA", "CREDIT", "TR"});
+            binLookupService.reload();
+            doThrow(new RuntimeException("Database error"))
+                    .when(jdbcTemplate).query(anyString(), any(RowMapper.class));
 
             // when
-            Optional<BinInfo> result = binLookupService.lookup(cardBin);
+            int result = binLookupService.reload();
+
+            // then
+            assertThat(result).isEqualTo(-1);
+            assertThat(binLookupService.lookup("415679123456")).isPresent();
+        }
+
+        @Test
+        @DisplayName("should return empty before table is loaded")
+        void shouldReturnEmpty_BeforeTableIsLoaded() {
+            // when
+            Optional<BinInfo> result = binLookupService.lookup("415679123456");
 
             // then
             assertThat(result).isEmpty();
         }
+
+        @Test
+        @DisplayName("should replace the table file without leaving temp files behind")
+        void shouldReplaceTableFile_WithoutTempFiles() throws Exception {
+            // given
+            givenDatabaseBins(new String[]{"415679", "Garanti BBVA", "VISA", "CREDIT", "TR"});
+            binLookupService.reload();
+
+            // when
+            binLookupService.reload();
+
+            // then
+            try (var files = Files.list(tempDir)) {
+                assertThat(files).containsExactly(tempDir.resolve("bin-table.bin"));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenDatabaseBins(String[]... rows) {
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenAnswer(invocation -> {
+            RowMapper<Object> mapper = invocation.getArgument(1);
+            List<Object> result = new ArrayList<>();
+            for (int i = 0; i < rows.length; i++) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getString("bin_prefix")).thenReturn(rows[i][0]);
+                when(rs.getString("bank_name")).thenReturn(rows[i][1]);
+                when(rs.getString("card_brand")).thenReturn(rows[i][2]);
+                when(rs.getString("card_type")).thenReturn(rows[i][3]);
+                when(rs.getString("country_code")).thenReturn(rows[i][4]);
+                result.add(mapper.mapRow(rs, i));
+            }
+            return result;
+        });
     }
 
     @Nested
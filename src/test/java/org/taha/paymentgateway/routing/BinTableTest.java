@@ -0,0 +1,124 @@
+package org.taha.paymentgateway.routing;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.taha.paymentgateway.routing.BinLookupService.BinInfo;
+import org.taha.paymentgateway.routing.BinTable.Entry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@DisplayName("BinTable Tests")
+class BinTableTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Nested
+    @DisplayName("flatten() tests")
+    class FlattenTests {
+
+        @Test
+        @DisplayName("should split outer range around nested narrower range")
+        void shouldSplitOuterRange_AroundNestedRange() {
+            // given
+            Entry outer = Entry.ofPrefix("4156", "Outer", "VISA", "CREDIT", "TR");
+            Entry inner = Entry.ofPrefix("415679", "Inner", "VISA", "DEBIT", "TR");
+
+            // when
+            List<Entry> flat = BinTable.flatten(List.of(outer, inner));
+
+            // then
+            assertThat(flat).extracting(Entry::low, Entry::high, Entry::bankName)
+                    .containsExactly(
+                            tuple(41560000, 41567899, "Outer"),
+                            tuple(41567900, 41567999, "Inner"),
+                            tuple(41568000, 41569999, "Outer")
+                    );
+        }
+
+        @Test
+        @DisplayName("should let later entry win on identical ranges")
+        void shouldLetLaterEntryWin_OnIdenticalRanges() {
+            // given
+            Entry database = Entry.ofPrefix("415679", "Old Name", "VISA", "CREDIT", "TR");
+            Entry imported = Entry.ofPrefix("415679", "New Name", "VISA", "CREDIT", "TR");
+
+            // when
+            List<Entry> flat = BinTable.flatten(List.of(database, imported));
+
+            // then
+            assertThat(flat).extracting(Entry::bankName).containsExactly("New Name");
+        }
+    }
+
+    @Nested
+    @DisplayName("write()/open() tests")
+    class FileTests {
+
+        @Test
+        @DisplayName("should find entries after round trip through mapped file")
+        void shouldFindEntries_AfterRoundTrip() throws Exception {
+            // given
+            Path file = tempDir.resolve("bins.bin");
+            BinTable.write(List.of(
+                    Entry.ofPrefix("454678", "Garanti BBVA", "VISA", "CREDIT", "TR"),
+                    Entry.ofPrefix("552879", "İş Bankası", "MASTERCARD", "CREDIT", "TR"),
+                    Entry.ofRange("600000", "600999", "Range Bank", "TROY", "DEBIT", null)
+            ), file);
+
+            // when
+            BinTable table = BinTable.open(file);
+
+            // then
+            assertThat(table.size()).isEqualTo(3);
+            assertThat(table.find("552879")).extracting(BinInfo::bankName).isEqualTo("İş Bankası");
+            assertThat(table.find("60050012")).extracting(BinInfo::cardBrand, BinInfo::countryCode)
+                    .containsExactly("TROY", null);
+            assertThat(table.find("454677")).isNull();
+            assertThat(table.find("45467A")).isNull();
+        }
+
+        @Test
+        @DisplayName("should share interned strings between lookups")
+        void shouldShareInternedStrings() throws Exception {
+            // given
+            Path file = tempDir.resolve("bins.bin");
+            BinTable.write(List.of(Entry.ofPrefix("454678", "Garanti BBVA", "VISA", "CREDIT", "TR")), file);
+            BinTable table = BinTable.open(file);
+
+            // when
+            BinInfo first = table.find("454678");
+            BinInfo second = table.find("45467899");
+
+            // then
+            assertThat(first.bankName()).isSameAs(second.bankName());
+        }
+
+        @Test
+        @DisplayName("should reject file with unknown header")
+        void shouldRejectFile_WithUnknownHeader() throws Exception {
+            // given
+            Path file = tempDir.resolve("garbage.bin");
+            Files.write(file, new byte[64]);
+
+            // when/then
+            assertThatThrownBy(() -> BinTable.open(file))
+                    .hasMessageContaining("Unsupported BIN table file");
+        }
+    }
+
+    @Test
+    @DisplayName("should reject non-numeric prefix")
+    void shouldRejectNonNumericPrefix() {
+        assertThatThrownBy(() -> Entry.ofPrefix("41AB", "Bank", "VISA", "CREDIT", "TR"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
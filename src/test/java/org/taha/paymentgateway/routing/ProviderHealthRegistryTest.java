@@ -0,0 +1,217 @@
+package org.taha.paymentgateway.routing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.HealthStatus;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.ProviderResult;
+import org.taha.paymentgateway.routing.ProviderHealthRegistry.CircuitState;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("ProviderHealthRegistry Tests")
+class ProviderHealthRegistryTest {
+
+    private static final String PROVIDER = "MOCK_PROVIDER";
+    private static final ProviderResult SUCCESS = ProviderResult.success("MOCK-AUTH-1");
+    private static final ProviderResult TIMEOUT = ProviderResult.timeout();
+    private static final ProviderResult PROVIDER_ERROR =
+            ProviderResult.failure(ProviderResult.PROVIDER_ERROR, "connection reset");
+    private static final ProviderResult DECLINED =
+            ProviderResult.failure("MOCK_DECLINED", "Card declined by issuer");
+
+    @Mock
+    private PaymentProviderAdapter providerAdapter;
+
+    private ProviderHealthRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new ProviderHealthRegistry(Map.of(PROVIDER, providerAdapter));
+        ReflectionTestUtils.setField(registry, "windowSeconds", 30);
+        ReflectionTestUtils.setField(registry, "minimumCalls", 4);
+        ReflectionTestUtils.setField(registry, "failureRateThreshold", 50);
+        ReflectionTestUtils.setField(registry, "slowCallThresholdMs", 2000L);
+        ReflectionTestUtils.setField(registry, "slowCallRateThreshold", 80);
+        ReflectionTestUtils.setField(registry, "openDurationMs", 60_000L);
+        ReflectionTestUtils.setField(registry, "halfOpenPermittedCalls", 2);
+        registry.init();
+    }
+
+    @Nested
+    @DisplayName("live outcome tests")
+    class OutcomeTests {
+
+        @Test
+        @DisplayName("should stay CLOSED below minimum call count")
+        void shouldStayClosed_BelowMinimumCalls() {
+            // when
+            registry.recordOutcome(PROVIDER, TIMEOUT, 100);
+            registry.recordOutcome(PROVIDER, TIMEOUT, 100);
+            registry.recordOutcome(PROVIDER, TIMEOUT, 100);
+
+            // then
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.CLOSED);
+            assertThat(registry.isAvailable(PROVIDER)).isTrue();
+        }
+
+        @Test
+        @DisplayName("should open circuit when failure rate exceeds threshold")
+        void shouldOpenCircuit_WhenFailureRateExceedsThreshold() {
+            // when
+            registry.recordOutcome(PROVIDER, SUCCESS, 100);
+            registry.recordOutcome(PROVIDER, PROVIDER_ERROR, 100);
+            registry.recordOutcome(PROVIDER, TIMEOUT, 100);
+            registry.recordOutcome(PROVIDER, SUCCESS, 100);
+
+            // then
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.OPEN);
+            assertThat(registry.isAvailable(PROVIDER)).isFalse();
+        }
+
+        @Test
+        @DisplayName("should keep circuit CLOSED on a burst of issuer declines")
+        void shouldStayClosed_OnIssuerDeclines() {
+            // when
+            for (int i = 0; i < 10; i++) {
+                registry.recordOutcome(PROVIDER, DECLINED, 100);
+            }
+
+            // then
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.CLOSED);
+            assertThat(registry.isAvailable(PROVIDER)).isTrue();
+            assertThat(registry.snapshot().get(PROVIDER).failureRate()).isZero();
+        }
+
+        @Test
+        @DisplayName("should open circuit when most calls are slow")
+        void shouldOpenCircuit_WhenMostCallsAreSlow() {
+            // when
+            for (int i = 0; i < 4; i++) {
+                registry.recordOutcome(PROVIDER, SUCCESS, 2500);
+            }
+
+            // then
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.OPEN);
+        }
+
+        @Test
+        @DisplayName("should ignore unknown providers")
+        void shouldIgnoreUnknownProviders() {
+            // when
+            registry.recordOutcome("UNKNOWN", TIMEOUT, 100);
+
+            // then
+            assertThat(registry.isAvailable("UNKNOWN")).isTrue();
+            assertThat(registry.snapshot()).containsOnlyKeys(PROVIDER);
+        }
+    }
+
+    @Nested
+    @DisplayName("half-open tests")
+    class HalfOpenTests {
+
+        @BeforeEach
+        void openCircuit() {
+            ReflectionTestUtils.setField(registry, "openDurationMs", 0L);
+            for (int i = 0; i < 4; i++) {
+                registry.recordOutcome(PROVIDER, TIMEOUT, 100);
+            }
+        }
+
+        @Test
+        @DisplayName("should allow limited trial calls after open duration")
+        void shouldAllowLimitedTrialCalls() {
+            // when / then
+            assertThat(registry.isAvailable(PROVIDER)).isTrue();
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.HALF_OPEN);
+            assertThat(registry.isAvailable(PROVIDER)).isTrue();
+            assertThat(registry.isAvailable(PROVIDER)).isFalse();
+        }
+
+        @Test
+        @DisplayName("should close circuit after successful trial calls")
+        void shouldCloseCircuit_AfterSuccessfulTrials() {
+            // given
+            registry.isAvailable(PROVIDER);
+
+            // when
+            registry.recordOutcome(PROVIDER, SUCCESS, 100);
+            registry.recordOutcome(PROVIDER, SUCCESS, 100);
+
+            // then
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.CLOSED);
+            assertThat(registry.snapshot().get(PROVIDER).windowCalls()).isZero();
+        }
+
+        @Test
+        @DisplayName("should reopen circuit when a trial call fails")
+        void shouldReopenCircuit_WhenTrialCallFails() {
+            // given
+            registry.isAvailable(PROVIDER);
+            ReflectionTestUtils.setField(registry, "openDurationMs", 60_000L);
+
+            // when
+            registry.recordOutcome(PROVIDER, TIMEOUT, 100);
+
+            // then
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.OPEN);
+            assertThat(registry.isAvailable(PROVIDER)).isFalse();
+        }
+    }
+
+    @Nested
+    @DisplayName("probe() tests")
+    class ProbeTests {
+
+        @Test
+        @DisplayName("should open circuit when probe reports UNHEALTHY")
+        void shouldOpenCircuit_WhenProbeUnhealthy() {
+            // given
+            when(providerAdapter.healthCheck()).thenReturn(HealthStatus.UNHEALTHY);
+
+            // when
+            registry.probe();
+
+            // then
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.OPEN);
+            assertThat(registry.snapshot().get(PROVIDER).lastProbeStatus()).isEqualTo(HealthStatus.UNHEALTHY);
+        }
+
+        @Test
+        @DisplayName("should treat probe exception as UNHEALTHY")
+        void shouldTreatProbeException_AsUnhealthy() {
+            // given
+            when(providerAdapter.healthCheck()).thenThrow(new RuntimeException("connection refused"));
+
+            // when
+            registry.probe();
+
+            // then
+            assertThat(registry.getState(PROVIDER)).isEqualTo(CircuitState.OPEN);
+        }
+
+        @Test
+        @DisplayName("should keep DEGRADED provider available")
+        void shouldKeepDegradedProvider_Available() {
+            // given
+            when(providerAdapter.healthCheck()).thenReturn(HealthStatus.DEGRADED);
+
+            // when
+            registry.probe();
+
+            // then
+            assertThat(registry.isAvailable(PROVIDER)).isTrue();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.taha.paymentgateway.routing;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -7,10 +8,10 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
 import org.taha.paymentgateway.persistence.entity.RoutingRuleEntity;
 import org.taha.paymentgateway.persistence.repository.RoutingRuleRepository;
 import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
-import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter.HealthStatus;
 import org.taha.paymentgateway.routing.BinLookupService.BinInfo;
 import org.taha.paymentgateway.routing.RoutingEngine.RoutingContext;
 import org.taha.paymentgateway.routing.RoutingEngine.RoutingResult;
@@ -20,7 +21,6 @@ import java.util.*;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
-import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,12 +33,16 @@ class RoutingEngineTest {
     @Mock
     private BinLookupService binLookupService;
 
+    @Mock
+    private ProviderHealthRegistry providerHealthRegistry;
+
     @Mock
     private PaymentProviderAdapter mockProviderAdapter;
 
     @Mock
     private PaymentProviderAdapter fallbackProviderAdapter;
 
+    private RoutingRuleIndex routingRuleIndex;
     private RoutingEngine routingEngine;
     private Map<String, PaymentProviderAdapter> providerAdapters;
 
@@ -48,7 +52,9 @@ class RoutingEngineTest {
         providerAdapters.put("MOCK_PROVIDER", mockProviderAdapter);
         providerAdapters.put("FALLBACK_PROVIDER", fallbackProviderAdapter);
         
-        routingEngine = new RoutingEngine(routingRuleRepository, providerAdapters, binLookupService);
+        routingRuleIndex = new RoutingRuleIndex(routingRuleRepository);
+        routingEngine = new RoutingEngine(routingRuleIndex, providerAdapters, binLookupService, providerHealthRegistry,
+                new GatewayMetrics(new SimpleMeterRegistry()));
     }
 
     @Nested
@@ -64,10 +70,8 @@ class RoutingEngineTest {
             RoutingRuleEntity rule = createRoutingRule("MOCK_PROVIDER", 1, new BigDecimal("1.50"));
             
             when(binLookupService.lookup("415679")).thenReturn(Optional.empty());
-            when(routingRuleRepository.findMatchingRules("merchant-1", "TRY", "415679"))
-                    .thenReturn(List.of(rule));
-            when(mockProviderAdapter.providerName()).thenReturn("MOCK_PROVIDER");
-            when(mockProviderAdapter.healthCheck()).thenReturn(HealthStatus.HEALTHY);
+            givenRules(rule);
+            when(providerHealthRegistry.isAvailable("MOCK_PROVIDER")).thenReturn(true);
 
             // when
             RoutingResult result = routingEngine.selectProvider(context);
@@ -79,20 +83,18 @@ class RoutingEngineTest {
         }
 
         @Test
-        @DisplayName("should skip unhealthy provider and use next in list")
-        void shouldSkipUnhealthyProvider_AndUseNext() {
+        @DisplayName("should skip provider with open circuit and use next in list")
+        void shouldSkipOpenCircuitProvider_AndUseNext() {
             // given
             RoutingContext context = RoutingContext.of("merchant-1", "TRY", "415679");
             
-            RoutingRuleEntity unhealthyRule = createRoutingRule("MOCK_PROVIDER", 1, new BigDecimal("1.00"));
-            RoutingRuleEntity healthyRule = createRoutingRule("FALLBACK_PROVIDER", 2, new BigDecimal("1.75"));
+            RoutingRuleEntity unhealthyRule = createRoutingRule("MOCK_PROVIDER", 2, new BigDecimal("1.00"));
+            RoutingRuleEntity healthyRule = createRoutingRule("FALLBACK_PROVIDER", 1, new BigDecimal("1.75"));
             
             when(binLookupService.lookup("415679")).thenReturn(Optional.empty());
-            when(routingRuleRepository.findMatchingRules("merchant-1", "TRY", "415679"))
-                    .thenReturn(List.of(unhealthyRule, healthyRule));
-            when(mockProviderAdapter.healthCheck()).thenReturn(HealthStatus.UNHEALTHY);
-            when(fallbackProviderAdapter.providerName()).thenReturn("FALLBACK_PROVIDER");
-            when(fallbackProviderAdapter.healthCheck()).thenReturn(HealthStatus.HEALTHY);
+            givenRules(unhealthyRule, healthyRule);
+            when(providerHealthRegistry.isAvailable("MOCK_PROVIDER")).thenReturn(false);
+            when(providerHealthRegistry.isAvailable("FALLBACK_PROVIDER")).thenReturn(true);
 
             // when
             RoutingResult result = routingEngine.selectProvider(context);
@@ -109,9 +111,8 @@ class RoutingEngineTest {
             RoutingContext context = RoutingContext.of("merchant-1", "TRY", "415679");
             
             when(binLookupService.lookup("415679")).thenReturn(Optional.empty());
-            when(routingRuleRepository.findMatchingRules("merchant-1", "TRY", "415679"))
-                    .thenReturn(Collections.emptyList());
-            when(mockProviderAdapter.healthCheck()).thenReturn(HealthStatus.HEALTHY);
+            givenRules();
+            when(providerHealthRegistry.isAvailable("MOCK_PROVIDER")).thenReturn(true);
 
             // when
             RoutingResult result = routingEngine.selectProvider(context);
@@ -130,10 +131,8 @@ class RoutingEngineTest {
             rule.setCardBinPrefix("415679");
             
             when(binLookupService.lookup("415679")).thenReturn(Optional.of(binInfo));
-            when(routingRuleRepository.findMatchingRules("merchant-1", "TRY", "415679"))
-                    .thenReturn(List.of(rule));
-            when(mockProviderAdapter.providerName()).thenReturn("MOCK_PROVIDER");
-            when(mockProviderAdapter.healthCheck()).thenReturn(HealthStatus.HEALTHY);
+            givenRules(rule);
+            when(providerHealthRegistry.isAvailable("MOCK_PROVIDER")).thenReturn(true);
 
             // when
             RoutingResult result = routingEngine.selectProvider(context);
@@ -145,23 +144,22 @@ class RoutingEngineTest {
         }
 
         @Test
-        @DisplayName("should accept DEGRADED providers as healthy")
-        void shouldAcceptDegradedProviders_AsHealthy() {
+        @DisplayName("should read circuit state instead of calling healthCheck()")
+        void shouldReadCircuitState_InsteadOfCallingHealthCheck() {
             // given
             RoutingContext context = RoutingContext.of("merchant-1", "TRY", "415679");
             RoutingRuleEntity rule = createRoutingRule("MOCK_PROVIDER", 1, new BigDecimal("1.50"));
             
             when(binLookupService.lookup("415679")).thenReturn(Optional.empty());
-            when(routingRuleRepository.findMatchingRules("merchant-1", "TRY", "415679"))
-                    .thenReturn(List.of(rule));
-            when(mockProviderAdapter.providerName()).thenReturn("MOCK_PROVIDER");
-            when(mockProviderAdapter.healthCheck()).thenReturn(HealthStatus.DEGRADED);
+            givenRules(rule);
+            when(providerHealthRegistry.isAvailable("MOCK_PROVIDER")).thenReturn(true);
 
             // when
             RoutingResult result = routingEngine.selectProvider(context);
 
             // then
             assertThat(result.providerName()).isEqualTo("MOCK_PROVIDER");
+            verify(mockProviderAdapter, never()).healthCheck();
         }
 
         @Test
@@ -169,13 +167,13 @@ class RoutingEngineTest {
         void shouldThrowException_WhenNoProvidersAvailable() {
             // given
             providerAdapters.clear();
-            routingEngine = new RoutingEngine(routingRuleRepository, providerAdapters, binLookupService);
+            routingEngine = new RoutingEngine(routingRuleIndex, providerAdapters, binLookupService, providerHealthRegistry,
+                new GatewayMetrics(new SimpleMeterRegistry()));
             
             RoutingContext context = RoutingContext.of("merchant-1", "TRY", "415679");
             
             when(binLookupService.lookup("415679")).thenReturn(Optional.empty());
-            when(routingRuleRepository.findMatchingRules("merchant-1", "TRY", "415679"))
-                    .thenReturn(Collections.emptyList());
+            givenRules();
 
             // when/then
             assertThatThrownBy(() -> routingEngine.selectProvider(context))
@@ -243,6 +241,11 @@ class RoutingEngineTest {
         }
     }
 
+    private void givenRules(RoutingRuleEntity... rules) {
+        when(routingRuleRepository.findByIsActiveTrue()).thenReturn(List.of(rules));
+        routingRuleIndex.reload();
+    }
+
     private RoutingRuleEntity createRoutingRule(String providerName, int priority, BigDecimal commission) {
         RoutingRuleEntity rule = new RoutingRuleEntity();
         rule.setId(UUID.randomUUID());
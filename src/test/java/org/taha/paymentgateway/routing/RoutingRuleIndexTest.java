@@ -0,0 +1,179 @@
+package org.taha.paymentgateway.routing;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.taha.paymentgateway.persistence.entity.RoutingRuleEntity;
+import org.taha.paymentgateway.persistence.repository.RoutingRuleRepository;
+import org.taha.paymentgateway.routing.RoutingRuleIndex.Rule;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("RoutingRuleIndex Tests")
+class RoutingRuleIndexTest {
+
+    @Mock
+    private RoutingRuleRepository routingRuleRepository;
+
+    private RoutingRuleIndex routingRuleIndex;
+
+    @BeforeEach
+    void setUp() {
+        routingRuleIndex = new RoutingRuleIndex(routingRuleRepository);
+    }
+
+    @Nested
+    @DisplayName("match() tests")
+    class MatchTests {
+
+        @Test
+        @DisplayName("should match BIN prefix rules along the trie path")
+        void shouldMatchBinPrefixRules() {
+            // given
+            givenRules(
+                    rule(null, null, "415679", "GARANTI_VPOS", 100),
+                    rule(null, null, "4157", "SHORT_PREFIX", 50),
+                    rule(null, null, "540061", "YAPIKREDI_VPOS", 100),
+                    rule(null, null, null, "MOCK_PROVIDER", 1)
+            );
+
+            // when
+            List<Rule> rules = routingRuleIndex.match("merchant-1", "TRY", "415679");
+
+            // then
+            assertThat(rules).extracting(Rule::providerName)
+                    .containsExactly("GARANTI_VPOS", "SHORT_PREFIX", "MOCK_PROVIDER");
+        }
+
+        @Test
+        @DisplayName("should treat null merchant and currency as wildcards")
+        void shouldTreatNullFieldsAsWildcards() {
+            // given
+            givenRules(
+                    rule("merchant-1", "TRY", null, "MERCHANT_TRY", 30),
+                    rule("merchant-2", null, null, "OTHER_MERCHANT", 40),
+                    rule(null, "USD", null, "USD_ONLY", 20),
+                    rule(null, "TRY", null, "TRY_ONLY", 10)
+            );
+
+            // when
+            List<Rule> rules = routingRuleIndex.match("merchant-1", "try", "415679");
+
+            // then
+            assertThat(rules).extracting(Rule::providerName)
+                    .containsExactly("MERCHANT_TRY", "TRY_ONLY");
+        }
+
+        @Test
+        @DisplayName("should prefer longer prefix and merchant specific rule on equal priority")
+        void shouldPreferMoreSpecificRule_OnEqualPriority() {
+            // given
+            givenRules(
+                    rule(null, null, null, "GLOBAL", 10),
+                    rule(null, null, "41", "PREFIX_2", 10),
+                    rule("merchant-1", null, null, "MERCHANT", 10)
+            );
+
+            // when
+            List<Rule> rules = routingRuleIndex.match("merchant-1", "TRY", "415679");
+
+            // then
+            assertThat(rules).extracting(Rule::providerName)
+                    .containsExactly("PREFIX_2", "MERCHANT", "GLOBAL");
+        }
+
+        @Test
+        @DisplayName("should only return global rules when card BIN is null")
+        void shouldReturnGlobalRules_WhenCardBinIsNull() {
+            // given
+            givenRules(
+                    rule(null, null, "415679", "GARANTI_VPOS", 100),
+                    rule(null, null, null, "MOCK_PROVIDER", 1)
+            );
+
+            // when
+            List<Rule> rules = routingRuleIndex.match("merchant-1", "TRY", null);
+
+            // then
+            assertThat(rules).extracting(Rule::providerName).containsExactly("MOCK_PROVIDER");
+        }
+    }
+
+    @Nested
+    @DisplayName("reload() tests")
+    class ReloadTests {
+
+        @Test
+        @DisplayName("should swap snapshot with new rules")
+        void shouldSwapSnapshot_WithNewRules() {
+            // given
+            givenRules(rule(null, null, null, "OLD_PROVIDER", 1));
+            when(routingRuleRepository.findByIsActiveTrue())
+                    .thenReturn(List.of(rule(null, null, null, "NEW_PROVIDER", 1)));
+
+            // when
+            int count = routingRuleIndex.reload();
+
+            // then
+            assertThat(count).isEqualTo(1);
+            assertThat(routingRuleIndex.match("merchant-1", "TRY", "415679"))
+                    .extracting(Rule::providerName).containsExactly("NEW_PROVIDER");
+        }
+
+        @Test
+        @DisplayName("should keep previous snapshot when repository fails")
+        void shouldKeepPreviousSnapshot_WhenRepositoryFails() {
+            // given
+            givenRules(rule(null, null, null, "MOCK_PROVIDER", 1));
+            when(routingRuleRepository.findByIsActiveTrue()).thenThrow(new RuntimeException("DB down"));
+
+            // when
+            int count = routingRuleIndex.reload();
+
+            // then
+            assertThat(count).isEqualTo(-1);
+            assertThat(routingRuleIndex.size()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should skip rules with non-numeric BIN prefix")
+        void shouldSkipNonNumericPrefix() {
+            // given / when
+            givenRules(
+                    rule(null, null, "41AB", "BROKEN", 100),
+                    rule(null, null, null, "MOCK_PROVIDER", 1)
+            );
+
+            // then
+            assertThat(routingRuleIndex.size()).isEqualTo(1);
+        }
+    }
+
+    private void givenRules(RoutingRuleEntity... rules) {
+        when(routingRuleRepository.findByIsActiveTrue()).thenReturn(List.of(rules));
+        routingRuleIndex.reload();
+    }
+
+    private RoutingRuleEntity rule(String merchantId, String currency, String binPrefix, String providerName, int priority) {
+        RoutingRuleEntity rule = new RoutingRuleEntity();
+        rule.setId(UUID.randomUUID());
+        rule.setMerchantId(merchantId);
+        rule.setCurrency(currency);
+        rule.setCardBinPrefix(binPrefix);
+        rule.setProviderName(providerName);
+        rule.setPriority(priority);
+        rule.setCommissionRate(new BigDecimal("1.50"));
+        rule.setActive(true);
+        return rule;
+    }
+}
@@ -0,0 +1,52 @@
+package org.taha.paymentgateway.webhook;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Flow;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class CappedBodySubscriberTest {
+
+    private static ByteBuffer bytes(String value) {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("should keep only the first bytes of a short body")
+    void shouldKeepPrefix_OfShortBody() {
+        // given
+        CappedBodySubscriber subscriber = new CappedBodySubscriber(5, 64);
+        Flow.Subscription subscription = mock(Flow.Subscription.class);
+        subscriber.onSubscribe(subscription);
+
+        // when
+        subscriber.onNext(List.of(bytes("hello"), bytes(" world")));
+        subscriber.onComplete();
+
+        // then
+        assertThat(subscriber.getBody().toCompletableFuture().join()).isEqualTo("hello");
+        verify(subscription, never()).cancel();
+    }
+
+    @Test
+    @DisplayName("should cancel and complete once the drain limit is exceeded")
+    void shouldCancel_WhenDrainLimitExceeded() {
+        // given
+        CappedBodySubscriber subscriber = new CappedBodySubscriber(3, 8);
+        Flow.Subscription subscription = mock(Flow.Subscription.class);
+        subscriber.onSubscribe(subscription);
+
+        // when
+        subscriber.onNext(List.of(bytes("abcdefghij")));
+
+        // then
+        verify(subscription).cancel();
+        assertThat(subscriber.getBody().toCompletableFuture().join()).isEqualTo("abc");
+    }
+}
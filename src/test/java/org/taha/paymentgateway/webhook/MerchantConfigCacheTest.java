@@ -0,0 +1,118 @@
+package org.taha.paymentgateway.webhook;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.persistence.entity.MerchantConfigEntity;
+import org.taha.paymentgateway.persistence.repository.MerchantConfigRepository;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("MerchantConfigCache Tests")
+class MerchantConfigCacheTest {
+
+    @Mock
+    private MerchantConfigRepository merchantConfigRepository;
+
+    private final AtomicLong now = new AtomicLong(1_000L);
+
+    private MerchantConfigCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new MerchantConfigCache(merchantConfigRepository);
+        ReflectionTestUtils.setField(cache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(cache, "clock", (LongSupplier) now::get);
+    }
+
+    private MerchantConfigEntity merchant(String url) {
+        return MerchantConfigEntity.builder()
+                .id(UUID.randomUUID())
+                .merchantId("merchant-123")
+                .merchantName("Test Merchant")
+                .apiKey("api-key")
+                .webhookUrl(url)
+                .webhookSecret("secret")
+                .build();
+    }
+
+    @Test
+    @DisplayName("should load from DB once within TTL")
+    void shouldLoadOnce_WithinTtl() {
+        // given
+        when(merchantConfigRepository.findByMerchantId("merchant-123"))
+                .thenReturn(Optional.of(merchant("https://merchant.example.com/webhook")));
+
+        // when
+        cache.get("merchant-123");
+        now.addAndGet(59_999);
+        var config = cache.get("merchant-123");
+
+        // then
+        assertThat(config).hasValueSatisfying(c -> {
+            assertThat(c.webhookUrl()).isEqualTo("https://merchant.example.com/webhook");
+            assertThat(c.webhookSecret()).isEqualTo("secret");
+        });
+        verify(merchantConfigRepository, times(1)).findByMerchantId("merchant-123");
+    }
+
+    @Test
+    @DisplayName("should reload after TTL expires")
+    void shouldReload_AfterTtl() {
+        // given
+        when(merchantConfigRepository.findByMerchantId("merchant-123"))
+                .thenReturn(Optional.of(merchant("https://old.example.com/webhook")))
+                .thenReturn(Optional.of(merchant("https://new.example.com/webhook")));
+        cache.get("merchant-123");
+
+        // when
+        now.addAndGet(60_000);
+        var config = cache.get("merchant-123");
+
+        // then
+        assertThat(config).map(MerchantConfigCache.MerchantWebhookConfig::webhookUrl)
+                .contains("https://new.example.com/webhook");
+    }
+
+    @Test
+    @DisplayName("should cache missing merchant")
+    void shouldCacheMissingMerchant() {
+        // given
+        when(merchantConfigRepository.findByMerchantId("unknown")).thenReturn(Optional.empty());
+
+        // when
+        cache.get("unknown");
+        var config = cache.get("unknown");
+
+        // then
+        assertThat(config).isEmpty();
+        verify(merchantConfigRepository, times(1)).findByMerchantId("unknown");
+    }
+
+    @Test
+    @DisplayName("should reload immediately after invalidate")
+    void shouldReload_AfterInvalidate() {
+        // given
+        when(merchantConfigRepository.findByMerchantId("merchant-123"))
+                .thenReturn(Optional.of(merchant("https://merchant.example.com/webhook")));
+        cache.get("merchant-123");
+
+        // when
+        cache.invalidate("merchant-123");
+        cache.get("merchant-123");
+
+        // then
+        verify(merchantConfigRepository, times(2)).findByMerchantId("merchant-123");
+    }
+}
@@ -0,0 +1,224 @@
+package org.taha.paymentgateway.webhook;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.taha.paymentgateway.webhook.MerchantDeliveryScheduler.LaneState;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("MerchantDeliveryScheduler Tests")
+class MerchantDeliverySchedulerTest {
+
+    private final AtomicLong now = new AtomicLong(1_000_000L);
+
+    private MerchantDeliveryScheduler scheduler;
+
+    @BeforeEach
+    void setUp() {
+        scheduler = new MerchantDeliveryScheduler();
+        ReflectionTestUtils.setField(scheduler, "defaultWeight", 1);
+        ReflectionTestUtils.setField(scheduler, "weightsConfig", "merchant-a:3");
+        ReflectionTestUtils.setField(scheduler, "maxInFlightPerMerchant", 2);
+        ReflectionTestUtils.setField(scheduler, "failureThreshold", 2);
+        ReflectionTestUtils.setField(scheduler, "pauseMs", 1000L);
+        ReflectionTestUtils.setField(scheduler, "maxPauseMs", 3000L);
+        ReflectionTestUtils.setField(scheduler, "clock", (LongSupplier) now::get);
+        scheduler.init();
+    }
+
+    private Map<String, Long> due(Object... merchantAndCount) {
+        Map<String, Long> due = new LinkedHashMap<>();
+        for (int i = 0; i < merchantAndCount.length; i += 2) {
+            due.put((String) merchantAndCount[i], ((Number) merchantAndCount[i + 1]).longValue());
+        }
+        return due;
+    }
+
+    private void fail(String merchantId, int times) {
+        for (int i = 0; i < times; i++) {
+            assertThat(scheduler.tryAcquire(merchantId)).isTrue();
+            scheduler.release(merchantId, false);
+        }
+    }
+
+    @Nested
+    @DisplayName("plan tests")
+    class PlanTests {
+
+        @Test
+        @DisplayName("should not let a large backlog starve other merchants")
+        void shouldShareBatch_AcrossMerchants() {
+            // given
+            ReflectionTestUtils.setField(scheduler, "maxInFlightPerMerchant", 100);
+
+            // when
+            Map<String, Integer> plan = scheduler.plan(due("merchant-b", 10_000, "merchant-c", 3), 10);
+
+            // then
+            assertThat(plan).containsEntry("merchant-b", 7).containsEntry("merchant-c", 3);
+        }
+
+        @Test
+        @DisplayName("should split batch by configured weights")
+        void shouldSplitBatch_ByWeight() {
+            // given
+            ReflectionTestUtils.setField(scheduler, "maxInFlightPerMerchant", 100);
+
+            // when
+            Map<String, Integer> plan = scheduler.plan(due("merchant-a", 100, "merchant-b", 100), 8);
+
+            // then
+            assertThat(plan).containsEntry("merchant-a", 6).containsEntry("merchant-b", 2);
+        }
+
+        @Test
+        @DisplayName("should cap allocation by free in-flight slots")
+        void shouldCapAllocation_ByInFlightLimit() {
+            // given
+            scheduler.tryAcquire("merchant-b");
+
+            // when
+            Map<String, Integer> plan = scheduler.plan(due("merchant-b", 50), 10);
+
+            // then
+            assertThat(plan).containsExactly(Map.entry("merchant-b", 1));
+        }
+
+        @Test
+        @DisplayName("should skip paused merchants")
+        void shouldSkip_PausedMerchant() {
+            // given
+            fail("merchant-b", 2);
+
+            // when
+            Map<String, Integer> plan = scheduler.plan(due("merchant-b", 50, "merchant-c", 1), 10);
+
+            // then
+            assertThat(plan).containsExactly(Map.entry("merchant-c", 1));
+        }
+    }
+
+    @Nested
+    @DisplayName("bulkhead tests")
+    class BulkheadTests {
+
+        @Test
+        @DisplayName("should reject acquire when merchant in-flight limit is reached")
+        void shouldReject_WhenLimitReached() {
+            // when
+            boolean first = scheduler.tryAcquire("merchant-b");
+            boolean second = scheduler.tryAcquire("merchant-b");
+            boolean third = scheduler.tryAcquire("merchant-b");
+
+            // then
+            assertThat(first).isTrue();
+            assertThat(second).isTrue();
+            assertThat(third).isFalse();
+            assertThat(scheduler.tryAcquire("merchant-c")).isTrue();
+            assertThat(scheduler.snapshot().get("merchant-b").deferred()).isEqualTo(1);
+        }
+
+        @Test
+        @DisplayName("should free slot on cancel")
+        void shouldFreeSlot_OnCancel() {
+            // given
+            scheduler.tryAcquire("merchant-b");
+            scheduler.tryAcquire("merchant-b");
+
+            // when
+            scheduler.cancel("merchant-b");
+
+            // then
+            assertThat(scheduler.tryAcquire("merchant-b")).isTrue();
+        }
+    }
+
+    @Nested
+    @DisplayName("pause tests")
+    class PauseTests {
+
+        @Test
+        @DisplayName("should pause merchant after consecutive failures")
+        void shouldPause_AfterThreshold() {
+            // when
+            fail("merchant-b", 2);
+
+            // then
+            assertThat(scheduler.getState("merchant-b")).isEqualTo(LaneState.PAUSED);
+            assertThat(scheduler.tryAcquire("merchant-b")).isFalse();
+            assertThat(scheduler.snapshot().get("merchant-b").pausedForMs()).isEqualTo(1000L);
+        }
+
+        @Test
+        @DisplayName("should reset failure count on success")
+        void shouldResetFailures_OnSuccess() {
+            // given
+            fail("merchant-b", 1);
+
+            // when
+            scheduler.tryAcquire("merchant-b");
+            scheduler.release("merchant-b", true);
+            fail("merchant-b", 1);
+
+            // then
+            assertThat(scheduler.getState("merchant-b")).isEqualTo(LaneState.ACTIVE);
+        }
+
+        @Test
+        @DisplayName("should allow a single probe after pause and double pause on probe failure")
+        void shouldProbe_AfterPause() {
+            // given
+            fail("merchant-b", 2);
+            now.addAndGet(1000);
+
+            // when
+            boolean probe = scheduler.tryAcquire("merchant-b");
+            boolean second = scheduler.tryAcquire("merchant-b");
+            scheduler.release("merchant-b", false);
+
+            // then
+            assertThat(probe).isTrue();
+            assertThat(second).isFalse();
+            assertThat(scheduler.getState("merchant-b")).isEqualTo(LaneState.PAUSED);
+            assertThat(scheduler.snapshot().get("merchant-b").pausedForMs()).isEqualTo(2000L);
+        }
+
+        @Test
+        @DisplayName("should become active when probe succeeds")
+        void shouldBecomeActive_WhenProbeSucceeds() {
+            // given
+            fail("merchant-b", 2);
+            now.addAndGet(1000);
+            assertThat(scheduler.getState("merchant-b")).isEqualTo(LaneState.PROBING);
+
+            // when
+            scheduler.tryAcquire("merchant-b");
+            scheduler.release("merchant-b", true);
+
+            // then
+            assertThat(scheduler.getState("merchant-b")).isEqualTo(LaneState.ACTIVE);
+        }
+
+        @Test
+        @DisplayName("should resume paused merchant manually")
+        void shouldResume_Manually() {
+            // given
+            fail("merchant-b", 2);
+
+            // when
+            scheduler.resume("merchant-b");
+
+            // then
+            assertThat(scheduler.getState("merchant-b")).isEqualTo(LaneState.ACTIVE);
+            assertThat(scheduler.tryAcquire("merchant-b")).isTrue();
+        }
+    }
+}
@@ -0,0 +1,360 @@
+package org.taha.paymentgateway.webhook;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.taha.paymentgateway.core.model.WebhookStatus;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.persistence.entity.WebhookDeliveryEntity;
+import org.taha.paymentgateway.persistence.repository.MerchantConfigRepository;
+import org.taha.paymentgateway.persistence.repository.WebhookDeliveryRepository;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.net.ConnectException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("WebhookDispatcher Tests")
+class WebhookDispatcherTest {
+
+    @Mock
+    private WebhookDeliveryRepository webhookDeliveryRepository;
+
+    @Mock
+    private MerchantConfigRepository merchantConfigRepository;
+
+    @Mock
+    private HttpClient httpClient;
+
+    @Mock
+    private WebhookNotifier webhookNotifier;
+
+    private MerchantDeliveryScheduler merchantDeliveryScheduler;
+
+    private WebhookDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        merchantDeliveryScheduler = new MerchantDeliveryScheduler();
+        ReflectionTestUtils.setField(merchantDeliveryScheduler, "defaultWeight", 1);
+        ReflectionTestUtils.setField(merchantDeliveryScheduler, "maxInFlightPerMerchant", 16);
+        ReflectionTestUtils.setField(merchantDeliveryScheduler, "failureThreshold", 5);
+        ReflectionTestUtils.setField(merchantDeliveryScheduler, "pauseMs", 30_000L);
+        ReflectionTestUtils.setField(merchantDeliveryScheduler, "maxPauseMs", 600_000L);
+        merchantDeliveryScheduler.init();
+
+        MerchantConfigCache merchantConfigCache = new MerchantConfigCache(merchantConfigRepository);
+        ReflectionTestUtils.setField(merchantConfigCache, "ttlMs", 60_000L);
+
+        dispatcher = new WebhookDispatcher(
+                webhookDeliveryRepository,
+                merchantConfigCache,
+                new WebhookSigner(),
+                httpClient,
+                webhookNotifier,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                merchantDeliveryScheduler,
+                new GatewayMetrics(new SimpleMeterRegistry())
+        );
+        ReflectionTestUtils.setField(dispatcher, "timeoutMs", 5000);
+        ReflectionTestUtils.setField(dispatcher, "batchSize", 100);
+        ReflectionTestUtils.setField(dispatcher, "maxConcurrencyPerHost", 8);
+        ReflectionTestUtils.setField(dispatcher, "leaseMs", 60_000L);
+    }
+
+    private WebhookDeliveryEntity delivery(String url) {
+        return WebhookDeliveryEntity.builder()
+                .id(UUID.randomUUID())
+                .eventId(UUID.randomUUID())
+                .merchantId("merchant-123")
+                .targetUrl(url)
+                .payload("{\"eventType\":\"PaymentCaptured\"}")
+                .status(WebhookStatus.PENDING)
+                .createdAt(OffsetDateTime.now())
+                .build();
+    }
+
+    private void givenClaimed(WebhookDeliveryEntity... deliveries) {
+        List<UUID> ids = Arrays.stream(deliveries).map(WebhookDeliveryEntity::getId).toList();
+        WebhookDeliveryRepository.MerchantBacklog backlog = mock(WebhookDeliveryRepository.MerchantBacklog.class);
+        when(backlog.getMerchantId()).thenReturn("merchant-123");
+        when(backlog.getDue()).thenReturn((long) ids.size());
+        when(webhookDeliveryRepository.countClaimableByMerchant(anyCollection(), any(OffsetDateTime.class)))
+                .thenReturn(List.of(backlog));
+        when(webhookDeliveryRepository.findClaimableIdsByMerchant(eq("merchant-123"), anyCollection(),
+                any(OffsetDateTime.class), any(Pageable.class)))
+                .thenReturn(ids);
+        when(webhookDeliveryRepository.claim(eq(ids), anyCollection(), anyString(), any(OffsetDateTime.class), any(OffsetDateTime.class)))
+                .thenReturn(deliveries.length);
+        when(webhookDeliveryRepository.findByLeaseOwner(startsWith("webhook:"))).thenReturn(List.of(deliveries));
+        when(merchantConfigRepository.findByMerchantId("merchant-123")).thenReturn(Optional.empty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private HttpResponse<String> response(int status) {
+        HttpResponse<String> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn("ok");
+        return response;
+    }
+
+    /**
+     * Sonucun, delivery'yi gönderen turun lease'i ile koşullu olarak yazıldığını doğrular.
+     */
+    private void verifyResultWritten(WebhookDeliveryEntity delivery, int times) {
+        verify(webhookDeliveryRepository, times(times)).recordResult(eq(delivery.getId()), startsWith("webhook:"),
+                eq(delivery.getStatus()), eq(delivery.getResponseCode()), eq(delivery.getResponseBody()),
+                eq(delivery.getRetryCount()), eq(delivery.getNextRetryAt()), eq(delivery.getLastAttemptAt()));
+    }
+
+    private void givenResultWrite(int... updatedRows) {
+        var stub = when(webhookDeliveryRepository.recordResult(any(), anyString(), any(), any(), any(), anyInt(), any(), any()));
+        for (int rows : updatedRows) {
+            stub = stub.thenReturn(rows);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Semaphore> hostPermits() {
+        return (Map<String, Semaphore>) ReflectionTestUtils.getField(dispatcher, "hostPermits");
+    }
+
+    @Nested
+    @DisplayName("dispatch tests")
+    class DispatchTests {
+
+        @Test
+        @DisplayName("should mark delivery DELIVERED and release lease on 2xx")
+        void shouldMarkDelivered_On2xx() {
+            // given
+            WebhookDeliveryEntity delivery = delivery("https://merchant.example.com/webhook");
+            givenClaimed(delivery);
+            HttpResponse<String> response = response(200);
+            doReturn(CompletableFuture.completedFuture(response))
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+            // when
+            dispatcher.dispatchWebhooks();
+            dispatcher.flushResults();
+
+            // then
+            assertThat(delivery.getStatus()).isEqualTo(WebhookStatus.DELIVERED);
+            assertThat(delivery.getResponseCode()).isEqualTo(200);
+            verifyResultWritten(delivery, 1);
+        }
+
+        @Test
+        @DisplayName("should sign payload with the timestamp sent in header")
+        void shouldSignPayload_WithHeaderTimestamp() throws Exception {
+            // given
+            WebhookDeliveryEntity first = delivery("https://merchant.example.com/webhook");
+            WebhookDeliveryEntity second = delivery("https://merchant.example.com/webhook");
+            givenClaimed(first, second);
+            HttpResponse<String> response = response(200);
+            doReturn(CompletableFuture.completedFuture(response))
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+            // when
+            dispatcher.dispatchWebhooks();
+
+            // then
+            ArgumentCaptor<HttpRequest> captor = ArgumentCaptor.forClass(HttpRequest.class);
+            verify(httpClient, times(2)).sendAsync(captor.capture(), any());
+            HttpRequest request = captor.getAllValues().get(0);
+            String timestamp = request.headers().firstValue("X-Webhook-Timestamp").orElseThrow();
+
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec("default-secret".getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            String expected = HexFormat.of().formatHex(
+                    mac.doFinal((first.getPayload() + "." + timestamp).getBytes(StandardCharsets.UTF_8)));
+            assertThat(request.headers().firstValue("X-Webhook-Signature")).contains(expected);
+
+            // merchant config iki delivery için tek kez okunur
+            verify(merchantConfigRepository, times(1)).findByMerchantId("merchant-123");
+        }
+
+        @Test
+        @DisplayName("should schedule retry on non-2xx response")
+        void shouldScheduleRetry_OnNon2xx() {
+            // given
+            WebhookDeliveryEntity delivery = delivery("https://merchant.example.com/webhook");
+            givenClaimed(delivery);
+            HttpResponse<String> response = response(503);
+            doReturn(CompletableFuture.completedFuture(response))
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+            // when
+            dispatcher.dispatchWebhooks();
+            dispatcher.flushResults();
+
+            // then
+            verifyResultWritten(delivery, 1);
+            assertThat(delivery.getStatus()).isEqualTo(WebhookStatus.FAILED);
+            assertThat(delivery.getRetryCount()).isEqualTo(1);
+            assertThat(delivery.getNextRetryAt()).isAfter(OffsetDateTime.now());
+        }
+
+        @Test
+        @DisplayName("should schedule retry on connection error")
+        void shouldScheduleRetry_OnConnectionError() {
+            // given
+            WebhookDeliveryEntity delivery = delivery("https://merchant.example.com/webhook");
+            givenClaimed(delivery);
+            doReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")))
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+            // when
+            dispatcher.dispatchWebhooks();
+            dispatcher.flushResults();
+
+            // then
+            assertThat(delivery.getStatus()).isEqualTo(WebhookStatus.FAILED);
+            assertThat(delivery.getResponseBody()).contains("Connection refused");
+        }
+
+        @Test
+        @DisplayName("should not write anything when no result is pending")
+        void shouldNotWrite_WhenNoResultPending() {
+            // when
+            dispatcher.flushResults();
+
+            // then
+            verify(webhookDeliveryRepository, never()).recordResult(any(), any(), any(), any(), any(), anyInt(), any(), any());
+        }
+
+        @Test
+        @DisplayName("should drop a result whose lease was taken over instead of overwriting the row")
+        void shouldDropResult_WhenLeaseTakenOver() {
+            // given
+            WebhookDeliveryEntity delivery = delivery("https://merchant.example.com/webhook");
+            givenClaimed(delivery);
+            givenResultWrite(0);
+            HttpResponse<String> response = response(200);
+            doReturn(CompletableFuture.completedFuture(response))
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+            // when
+            dispatcher.dispatchWebhooks();
+            dispatcher.flushResults();
+            dispatcher.flushResults();
+
+            // then: koşullu UPDATE satır bulamadı, sonuç tekrar denenmez
+            verifyResultWritten(delivery, 1);
+        }
+
+        @Test
+        @DisplayName("should requeue results when the flush transaction fails")
+        void shouldRequeueResults_WhenFlushFails() {
+            // given
+            WebhookDeliveryEntity delivery = delivery("https://merchant.example.com/webhook");
+            givenClaimed(delivery);
+            when(webhookDeliveryRepository.recordResult(any(), anyString(), any(), any(), any(), anyInt(), any(), any()))
+                    .thenThrow(new IllegalStateException("connection lost"))
+                    .thenReturn(1);
+            HttpResponse<String> response = response(200);
+            doReturn(CompletableFuture.completedFuture(response))
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+            dispatcher.dispatchWebhooks();
+
+            // when
+            dispatcher.flushResults();
+            dispatcher.flushResults();
+            dispatcher.flushResults();
+
+            // then: ilk flush başarısız, ikincisi yazar, üçüncüsünde yazılacak bir şey kalmaz
+            verifyResultWritten(delivery, 2);
+        }
+    }
+
+    @Nested
+    @DisplayName("per-host concurrency tests")
+    class ConcurrencyTests {
+
+        @Test
+        @DisplayName("should defer deliveries when host limit is reached")
+        void shouldDefer_WhenHostLimitReached() {
+            // given
+            ReflectionTestUtils.setField(dispatcher, "maxConcurrencyPerHost", 1);
+            WebhookDeliveryEntity first = delivery("https://slow.example.com/webhook");
+            WebhookDeliveryEntity second = delivery("https://slow.example.com/webhook");
+            WebhookDeliveryEntity other = delivery("https://fast.example.com/webhook");
+            givenClaimed(first, second, other);
+            // slow host hiç yanıt vermiyor
+            doReturn(new CompletableFuture<>())
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+            // when
+            dispatcher.dispatchWebhooks();
+
+            // then
+            verify(httpClient, times(2)).sendAsync(any(HttpRequest.class), any());
+            verify(webhookDeliveryRepository).releaseLease(eq(List.of(second.getId())), startsWith("webhook:"));
+            assertThat(merchantDeliveryScheduler.snapshot().get("merchant-123").inFlight()).isEqualTo(2);
+        }
+
+        @Test
+        @DisplayName("should defer deliveries of a paused merchant")
+        void shouldDefer_WhenMerchantPaused() {
+            // given
+            ReflectionTestUtils.setField(merchantDeliveryScheduler, "failureThreshold", 1);
+            WebhookDeliveryEntity first = delivery("https://merchant.example.com/webhook");
+            WebhookDeliveryEntity second = delivery("https://merchant.example.com/webhook");
+            givenClaimed(first, second);
+            doReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")))
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+
+            // when
+            dispatcher.dispatchWebhooks();
+
+            // then: ilk hata merchant'ı duraklatır, ikinci delivery gönderilmez
+            verify(httpClient, times(1)).sendAsync(any(HttpRequest.class), any());
+            verify(webhookDeliveryRepository).releaseLease(eq(List.of(second.getId())), startsWith("webhook:"));
+            assertThat(merchantDeliveryScheduler.getState("merchant-123"))
+                    .isEqualTo(MerchantDeliveryScheduler.LaneState.PAUSED);
+        }
+
+        @Test
+        @DisplayName("should evict idle host counters and keep busy ones")
+        void shouldEvictIdleHosts() {
+            // given: fast host yanıt verdi, slow host hâlâ bekliyor
+            WebhookDeliveryEntity slow = delivery("https://slow.example.com/webhook");
+            WebhookDeliveryEntity fast = delivery("https://fast.example.com/webhook");
+            givenClaimed(slow, fast);
+            HttpResponse<String> response = response(200);
+            doAnswer(inv -> inv.<HttpRequest>getArgument(0).uri().getHost().startsWith("slow")
+                    ? new CompletableFuture<>()
+                    : CompletableFuture.completedFuture(response))
+                    .when(httpClient).sendAsync(any(HttpRequest.class), any());
+            dispatcher.dispatchWebhooks();
+            assertThat(hostPermits()).hasSize(2);
+
+            // when
+            dispatcher.evictIdleHosts();
+
+            // then
+            assertThat(hostPermits()).containsOnlyKeys("slow.example.com:-1");
+        }
+    }
+}
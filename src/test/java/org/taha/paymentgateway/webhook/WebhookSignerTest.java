@@ -0,0 +1,130 @@
+package org.taha.paymentgateway.webhook;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("WebhookSigner Tests")
+class WebhookSignerTest {
+
+    private final WebhookSigner signer = new WebhookSigner();
+
+    private static String expected(String secret, String payload, long timestamp) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal((payload + "." + timestamp).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    @DisplayName("should produce same signature as a freshly initialized Mac")
+    void shouldMatchPlainHmac() throws Exception {
+        // given
+        String payload = "{\"eventType\":\"PaymentCaptured\",\"amount\":\"150.00\"}";
+        long timestamp = 1_760_000_000_123L;
+
+        // when
+        String signature = signer.signHex("secret-1", payload.getBytes(StandardCharsets.UTF_8), timestamp);
+
+        // then
+        assertThat(signature).isEqualTo(expected("secret-1", payload, timestamp));
+    }
+
+    @Test
+    @DisplayName("should reuse pooled Mac without leaking state between signatures")
+    void shouldReusePooledMac() throws Exception {
+        // given
+        byte[] first = "{\"a\":1}".getBytes(StandardCharsets.UTF_8);
+        byte[] second = "{\"b\":2}".getBytes(StandardCharsets.UTF_8);
+
+        // when
+        signer.signHex("secret-1", first, 1L);
+        String signature = signer.signHex("secret-1", second, 0L);
+
+        // then
+        assertThat(signature).isEqualTo(expected("secret-1", "{\"b\":2}", 0L));
+    }
+
+    @Test
+    @DisplayName("should use the right key per secret")
+    void shouldUseKeyPerSecret() throws Exception {
+        // given
+        byte[] payload = "{}".getBytes(StandardCharsets.UTF_8);
+
+        // when
+        String a = signer.signHex("secret-a", payload, 42L);
+        String b = signer.signHex("secret-b", payload, 42L);
+
+        // then
+        assertThat(a).isEqualTo(expected("secret-a", "{}", 42L));
+        assertThat(b).isEqualTo(expected("secret-b", "{}", 42L));
+    }
+
+    @Test
+    @DisplayName("should evict the least recently used secret when the pool limit is reached")
+    void shouldEvictLeastRecentlyUsedSecret() throws Exception {
+        // given
+        ReflectionTestUtils.setField(signer, "maxSecrets", 2);
+        byte[] payload = "{}".getBytes(StandardCharsets.UTF_8);
+        signer.signHex("secret-a", payload, 1L);
+        signer.signHex("secret-b", payload, 1L);
+        signer.signHex("secret-a", payload, 1L);
+
+        // when
+        String signature = signer.signHex("secret-c", payload, 1L);
+
+        // then
+        Map<?, ?> pools = (Map<?, ?>) ReflectionTestUtils.getField(signer, "pools");
+        assertThat(pools.keySet()).containsExactlyInAnyOrder("secret-a", "secret-c");
+        assertThat(signature).isEqualTo(expected("secret-c", "{}", 1L));
+        assertThat(signer.signHex("secret-b", payload, 1L)).isEqualTo(expected("secret-b", "{}", 1L));
+    }
+
+    @Test
+    @DisplayName("should write signature into caller buffer")
+    void shouldWriteIntoBuffer() throws Exception {
+        // given
+        byte[] out = new byte[WebhookSigner.SIGNATURE_LENGTH];
+
+        // when
+        signer.sign("secret-1", "{}".getBytes(StandardCharsets.UTF_8), -5L, out);
+
+        // then
+        assertThat(HexFormat.of().formatHex(out)).isEqualTo(expected("secret-1", "{}", -5L));
+    }
+
+    @Test
+    @DisplayName("should sign correctly from concurrent threads")
+    void shouldSignConcurrently() throws Exception {
+        // given
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        String payload = "{\"id\":\"x\"}";
+        String expected = expected("secret-1", payload, 7L);
+
+        // when
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() ->
+                        signer.signHex("secret-1", payload.getBytes(StandardCharsets.UTF_8), 7L)));
+            }
+
+            // then
+            for (Future<String> future : futures) {
+                assertThat(future.get(5, TimeUnit.SECONDS)).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package org.taha.paymentgateway.orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.taha.paymentgateway.api.dto.request.AuthorizePaymentRequest;
+import org.taha.paymentgateway.api.dto.response.PaymentResponse;
+import org.taha.paymentgateway.core.model.PaymentStatus;
+import org.taha.paymentgateway.event.OutboxNotifier;
+import org.taha.paymentgateway.idempotency.IdempotencyService;
+import org.taha.paymentgateway.metrics.GatewayMetrics;
+import org.taha.paymentgateway.metrics.PaymentMetricsAggregator;
+import org.taha.paymentgateway.persistence.entity.PaymentEntity;
+import org.taha.paymentgateway.persistence.repository.*;
+import org.taha.paymentgateway.provider.adapter.PaymentProviderAdapter;
+import org.taha.paymentgateway.provider.mock.MockPaymentProviderAdapter;
+import org.taha.paymentgateway.routing.ProviderHealthRegistry;
+import org.taha.paymentgateway.routing.RoutingEngine;
+import org.taha.paymentgateway.routing.RoutingEngine.RoutingResult;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Virtual thread modunda eşzamanlı authorize sayısının platform thread
+ * havuzu boyutunu (Tomcat varsayılanı 200) aştığını doğrular.
+ *
+ * Provider gecikmesi MockPaymentProviderAdapter'ın Thread.sleep'i ile simüle edilir;
+ * repository'ler mock olduğu için ölçülen sadece thread modelidir. Mock adapter bloklayan bir adapter
+ * olduğu için ProviderInvoker'ın köprüsünde çalışır; köprü ayarları application(-vthreads).properties'ten
+ * okunur. Çağrıların virtual thread'lerde çalıştığı, hiçbirinin PROVIDER_BUSY ile reddedilmediği ve
+ * platform thread sayısının havuz boyutuna yaklaşmadığı doğrulanır.
+ * Çalıştırmak için: mvn -Pvirtual-threads test -Dtest=VirtualThreadAuthorizeLoadTest
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+@DisplayName("Virtual thread authorize load test")
+class VirtualThreadAuthorizeLoadTest {
+
+    private static final int PLATFORM_POOL_SIZE = 200;
+    private static final int REQUESTS = 2_000;
+    private static final long PROVIDER_LATENCY_MS = 200;
+    private static final String MERCHANT_ID = "merchant-load";
+
+    @Test
+    @DisplayName("concurrent in-flight authorizations should scale past platform pool size")
+    void inFlightAuthorizationsShouldScalePastPlatformPool() throws Exception {
+        // given
+        Map<UUID, PaymentEntity> payments = new ConcurrentHashMap<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            UUID id = UUID.randomUUID();
+            payments.put(id, PaymentEntity.builder()
+                    .id(id)
+                    .merchantId(MERCHANT_ID)
+                    .amount(new BigDecimal("100.00"))
+                    .currency("TRY")
+                    .status(PaymentStatus.CREATED)
+                    .createdAt(OffsetDateTime.now())
+                    .updatedAt(OffsetDateTime.now())
+                    .build());
+        }
+
+        PaymentRepository paymentRepository = mock(PaymentRepository.class);
+        when(paymentRepository.findById(any())).thenAnswer(inv -> Optional.ofNullable(payments.get(inv.<UUID>getArgument(0))));
+        when(paymentRepository.save(any(PaymentEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        MockPaymentProviderAdapter mockProvider = new MockPaymentProviderAdapter();
+        ReflectionTestUtils.setField(mockProvider, "simulatedLatencyMs", PROVIDER_LATENCY_MS);
+        InFlightCountingAdapter provider = new InFlightCountingAdapter(mockProvider);
+
+        RoutingEngine routingEngine = mock(RoutingEngine.class);
+        when(routingEngine.selectProvider(any())).thenReturn(
+                new RoutingResult(provider, provider.providerName(), new BigDecimal("1.50"), "load test", null));
+
+        Properties config = PropertiesLoaderUtils.loadProperties(new ClassPathResource("application.properties"));
+        config.putAll(PropertiesLoaderUtils.loadProperties(new ClassPathResource("application-vthreads.properties")));
+        ProviderInvoker providerInvoker = new ProviderInvoker();
+        ReflectionTestUtils.setField(providerInvoker, "timeoutMs", Long.parseLong(config.getProperty("provider.call.timeout-ms")));
+        ReflectionTestUtils.setField(providerInvoker, "bridgeThreads", Integer.parseInt(config.getProperty("provider.bridge.threads")));
+        ReflectionTestUtils.setField(providerInvoker, "bridgeQueueCapacity",
+                Integer.parseInt(config.getProperty("provider.bridge.queue-capacity")));
+        ReflectionTestUtils.setField(providerInvoker, "virtualThreads",
+                Boolean.parseBoolean(config.getProperty("provider.bridge.virtual-threads")));
+        providerInvoker.init();
+
+        PaymentOrchestrator orchestrator = new PaymentOrchestrator(
+                paymentRepository,
+                mock(PaymentAttemptRepository.class),
+                mock(TransactionRepository.class),
+                mock(OutboxEventRepository.class),
+                mock(OutboxNotifier.class),
+                mock(IdempotencyService.class),
+                routingEngine,
+                mock(ProviderHealthRegistry.class),
+                mock(PaymentMetricsAggregator.class),
+                new GatewayMetrics(new SimpleMeterRegistry()),
+                Map.of(provider.providerName(), provider),
+                providerInvoker,
+                new ObjectMapper().findAndRegisterModules(),
+                new TransactionTemplate(mock(PlatformTransactionManager.class))
+        );
+
+        AuthorizePaymentRequest request = AuthorizePaymentRequest.builder()
+                .cardToken("token-load")
+                .cardBin("415679")
+                .build();
+
+        // when
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        threads.resetPeakThreadCount();
+        long start = System.nanoTime();
+        List<Future<PaymentResponse>> results = new ArrayList<>(REQUESTS);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (UUID id : payments.keySet()) {
+                results.add(executor.submit(() -> orchestrator.authorize(id, MERCHANT_ID, request, null, null).response()));
+            }
+        }
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        int peakPlatformThreads = threads.getPeakThreadCount();
+        providerInvoker.shutdown();
+
+        // then
+        for (Future<PaymentResponse> result : results) {
+            // PROVIDER_BUSY burada ExecutionException olarak düşer
+            assertThat(result.get().status()).isEqualTo(PaymentStatus.AUTHORIZED);
+        }
+        long platformBoundMs = (long) Math.ceil((double) REQUESTS / PLATFORM_POOL_SIZE) * PROVIDER_LATENCY_MS;
+        System.out.printf("authorize x%d: %d ms (platform pool lower bound %d ms), peak in-flight %d, peak platform threads %d%n",
+                REQUESTS, elapsedMs, platformBoundMs, provider.peakInFlight(), peakPlatformThreads);
+
+        assertThat(provider.platformThreadCalls()).isZero();
+        assertThat(provider.peakInFlight()).isGreaterThan(PLATFORM_POOL_SIZE);
+        assertThat(peakPlatformThreads).isLessThan(PLATFORM_POOL_SIZE);
+        assertThat(elapsedMs).isLessThan(platformBoundMs);
+    }
+
+    /**
+     * Aynı anda provider içinde bekleyen çağrı sayısını ve platform thread'de yapılan çağrıları sayan sarmalayıcı.
+     */
+    private static final class InFlightCountingAdapter implements PaymentProviderAdapter {
+
+        private final PaymentProviderAdapter delegate;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger peak = new AtomicInteger();
+        private final AtomicInteger platformThreadCalls = new AtomicInteger();
+
+        InFlightCountingAdapter(PaymentProviderAdapter delegate) {
+            this.delegate = delegate;
+        }
+
+        int peakInFlight() {
+            return peak.get();
+        }
+
+        int platformThreadCalls() {
+            return platformThreadCalls.get();
+        }
+
+        @Override
+        public String providerName() {
+            return delegate.providerName();
+        }
+
+        @Override
+        public ProviderResult authorize(AuthorizeContext context) {
+            if (!Thread.currentThread().isVirtual()) {
+                platformThreadCalls.incrementAndGet();
+            }
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                return delegate.authorize(context);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public ProviderResult capture(CaptureContext context) {
+            return delegate.capture(context);
+        }
+
+        @Override
+        public ProviderResult refund(RefundContext context) {
+            return delegate.refund(context);
+        }
+
+        @Override
+        public HealthStatus healthCheck() {
+            return delegate.healthCheck();
+        }
+    }
+}